@@ -72,6 +72,7 @@ import org.onebusaway.android.io.elements.ObaReferences;
 import org.onebusaway.android.io.elements.ObaRegion;
 import org.onebusaway.android.io.elements.ObaRoute;
 import org.onebusaway.android.io.elements.ObaShape;
+import org.onebusaway.android.io.elements.ShapePoints;
 import org.onebusaway.android.io.elements.ObaStop;
 import org.onebusaway.android.io.request.ObaResponse;
 import org.onebusaway.android.io.request.ObaTripsForRouteResponse;
@@ -175,6 +176,9 @@ public class BaseMapFragment extends SupportMapFragment
 
     private ArrayList<Polyline> mLineOverlay = new ArrayList<Polyline>();
 
+    // Reused when decoding route shapes for the line overlay
+    private ShapePoints mShapePoints;
+
     // Markers that are added to the map by classes external to this map package
     private SimpleMarkerOverlay mSimpleMarkerOverlay;
 
@@ -456,6 +460,9 @@ public class BaseMapFragment extends SupportMapFragment
                 controller.onPause();
             }
         }
+        if (mVehicleOverlay != null) {
+            mVehicleOverlay.onPause();
+        }
 
         Location center = getMapCenterAsLocation();
         if (center != null) {
@@ -479,6 +486,13 @@ public class BaseMapFragment extends SupportMapFragment
                 controller.onHidden(hidden);
             }
         }
+        if (mVehicleOverlay != null) {
+            if (hidden) {
+                mVehicleOverlay.onPause();
+            } else {
+                mVehicleOverlay.onResume();
+            }
+        }
         super.onHiddenChanged(hidden);
     }
 
@@ -495,6 +509,9 @@ public class BaseMapFragment extends SupportMapFragment
                 controller.notifyMapChanged();
             }
         }
+        if (mVehicleOverlay != null) {
+            mVehicleOverlay.onResume();
+        }
 
         super.onResume();
     }
@@ -1046,8 +1063,12 @@ public class BaseMapFragment extends SupportMapFragment
                 lineOptions = new PolylineOptions();
                 lineOptions.color(lineOverlayColor);
 
-                for (Location l : s.getPoints()) {
-                    lineOptions.add(MapHelpV2.makeLatLng(l));
+                // Decode into a reusable buffer rather than a Location per point
+                mShapePoints = s.getPoints(mShapePoints);
+                final int size = mShapePoints.size();
+                for (int i = 0; i < size; i++) {
+                    lineOptions.add(MapHelpV2.makeLatLng(mShapePoints.getLatitude(i),
+                            mShapePoints.getLongitude(i)));
                 }
                 // Add the line to the map, and keep a reference in the ArrayList
                 mLineOverlay.add(mMap.addPolyline(lineOptions));
@@ -34,7 +34,10 @@ import android.graphics.BitmapFactory;
 import android.graphics.drawable.GradientDrawable;
 import android.location.Location;
 import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
+import android.view.Choreographer;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -53,13 +56,20 @@ import com.amazon.geo.mapsv2.model.MarkerOptions;
 
 import org.onebusaway.android.R;
 import org.onebusaway.android.app.Application;
+import org.onebusaway.android.io.ObaApi;
 import org.onebusaway.android.io.elements.ObaRoute;
 import org.onebusaway.android.io.elements.ObaTrip;
 import org.onebusaway.android.io.elements.ObaTripDetails;
 import org.onebusaway.android.io.elements.ObaTripStatus;
 import org.onebusaway.android.io.elements.OccupancyState;
+import org.onebusaway.android.io.elements.ShapePoints;
 import org.onebusaway.android.io.elements.Status;
+import org.onebusaway.android.io.request.ObaShapeRequest;
+import org.onebusaway.android.io.request.ObaShapeResponse;
 import org.onebusaway.android.io.request.ObaTripsForRouteResponse;
+import org.onebusaway.android.io.request.RequestScheduler;
+import org.onebusaway.android.map.TripShape;
+import org.onebusaway.android.map.VehiclePositionEstimator;
 import org.onebusaway.android.ui.TripDetailsActivity;
 import org.onebusaway.android.ui.TripDetailsListFragment;
 import org.onebusaway.android.util.ArrivalInfoUtils;
@@ -95,6 +105,38 @@ public class VehicleOverlay implements AmazonMap.OnInfoWindowClickListener, Mark
 
     private Controller mController;
 
+    /**
+     * Predicts vehicle positions along their trip shapes between updates.  Shapes are kept when
+     * the vehicles are cleared, since the same route is often shown again.
+     */
+    private final VehiclePositionEstimator mEstimator = new VehiclePositionEstimator();
+
+    /**
+     * Shape IDs that are currently being downloaded
+     */
+    private final HashSet<String> mPendingShapes = new HashSet<>();
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    private final double[] mPosition = new double[2];
+
+    private boolean mAnimating = false;
+
+    private boolean mPaused = false;
+
+    private final Choreographer.FrameCallback mFrameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mAnimating = false;
+            if (mPaused || mMarkerData == null) {
+                return;
+            }
+            if (mMarkerData.moveMarkers(SystemClock.elapsedRealtime())) {
+                startAnimation();
+            }
+        }
+    };
+
     private static final int NORTH = 0;  // directions are clockwise, consistent with MathUtils class
 
     private static final int NORTH_EAST = 1;
@@ -170,6 +212,71 @@ public class VehicleOverlay implements AmazonMap.OnInfoWindowClickListener, Mark
         mMarkerData.populate(routeIds, response);
     }
 
+    /**
+     * Stops moving vehicles between updates, e.g. while the map isn't visible
+     */
+    public void onPause() {
+        mPaused = true;
+        stopAnimation();
+    }
+
+    public void onResume() {
+        mPaused = false;
+        startAnimation();
+    }
+
+    /**
+     * Moves the vehicle markers to their predicted positions on every frame, as long as there are
+     * vehicles still moving along their trips
+     */
+    private void startAnimation() {
+        if (!mAnimating && !mPaused && mMarkerData != null) {
+            mAnimating = true;
+            Choreographer.getInstance().postFrameCallback(mFrameCallback);
+        }
+    }
+
+    private void stopAnimation() {
+        if (mAnimating) {
+            mAnimating = false;
+            Choreographer.getInstance().removeFrameCallback(mFrameCallback);
+        }
+    }
+
+    /**
+     * Downloads the given trip shape, if we don't have it, so vehicles on the trip can be moved
+     * along it between updates
+     */
+    private void requestShape(final String shapeId) {
+        if (mEstimator.hasShape(shapeId) || !mPendingShapes.add(shapeId)) {
+            return;
+        }
+        final Context context = mActivity.getApplicationContext();
+        RequestScheduler.getInstance().execute(new Runnable() {
+            @Override
+            public void run() {
+                ObaShapeResponse response = ObaShapeRequest.newRequest(context, shapeId).call();
+                final TripShape shape;
+                if (response != null && response.getCode() == ObaApi.OBA_OK) {
+                    shape = new TripShape(response.getPoints((ShapePoints) null));
+                } else {
+                    shape = null;
+                }
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        // If this failed, we'll try again with the next vehicle update
+                        mPendingShapes.remove(shapeId);
+                        if (shape != null && shape.size() > 1) {
+                            mEstimator.putShape(shapeId, shape);
+                            startAnimation();
+                        }
+                    }
+                });
+            }
+        }, RequestScheduler.PRIORITY_MAP);
+    }
+
     public synchronized int size() {
         if (mMarkerData != null) {
             return mMarkerData.size();
@@ -182,6 +289,8 @@ public class VehicleOverlay implements AmazonMap.OnInfoWindowClickListener, Mark
      * Clears any vehicle markers from the map
      */
     public synchronized void clear() {
+        stopAnimation();
+        mEstimator.clear();
         if (mMarkerData != null) {
             mMarkerData.clear();
             mMarkerData = null;
@@ -624,6 +733,7 @@ public class VehicleOverlay implements AmazonMap.OnInfoWindowClickListener, Mark
             int added = 0;
             int updated = 0;
             ObaTripDetails[] trips = response.getTrips();
+            long now = SystemClock.elapsedRealtime();
 
             // Keep track of the activeTripIds that should be shown on the map, so we don't need
             // to iterate again later for this same info
@@ -648,6 +758,8 @@ public class VehicleOverlay implements AmazonMap.OnInfoWindowClickListener, Mark
                             isRealtime = false;
                         }
 
+                        updateEstimator(status, response, now);
+
                         Marker m = mVehicleMarkers.get(status.getActiveTripId());
 
                         if (m == null) {
@@ -664,6 +776,8 @@ public class VehicleOverlay implements AmazonMap.OnInfoWindowClickListener, Mark
             }
             // Remove markers for any previously added tripIds that aren't in the current response
             int removed = removeInactiveMarkers(activeTripIds);
+            mEstimator.retainTrips(activeTripIds);
+            startAnimation();
 
             Log.d(TAG,
                     "Added " + added + ", updated " + updated + ", removed " + removed
@@ -679,6 +793,62 @@ public class VehicleOverlay implements AmazonMap.OnInfoWindowClickListener, Mark
                     mVehicleUncoloredIcons.missCount()));
         }
 
+        /**
+         * Passes the distance this vehicle has traveled along its trip to the estimator, so it can
+         * be moved along the trip shape until the next update
+         *
+         * @param status   the vehicle status
+         * @param response the response which contained the provided status
+         * @param now      current time, from SystemClock.elapsedRealtime()
+         */
+        private void updateEstimator(ObaTripStatus status, ObaTripsForRouteResponse response,
+                                     long now) {
+            String shapeId = response.getTrip(status.getActiveTripId()).getShapeId();
+            Double distance = status.getDistanceAlongTrip();
+            if (shapeId == null || distance == null) {
+                return;
+            }
+            Double totalDistance = status.getTotalDistanceAlongTrip();
+            mEstimator.update(status.getActiveTripId(), shapeId, distance,
+                    totalDistance != null ? totalDistance : 0, response.getCurrentTime(),
+                    status.getLastLocationUpdateTime(), now);
+            requestShape(shapeId);
+        }
+
+        /**
+         * Moves markers to their predicted positions along their trip shapes
+         *
+         * @param now current time, from SystemClock.elapsedRealtime()
+         * @return true if any markers are still moving, so they should be moved again on the next
+         * frame, or false if all markers are where they'll stay until the next update
+         */
+        synchronized boolean moveMarkers(long now) {
+            if (mVehicleMarkers == null) {
+                return false;
+            }
+            boolean moving = false;
+            for (Map.Entry<String, Marker> entry : mVehicleMarkers.entrySet()) {
+                String tripId = entry.getKey();
+                if (!mEstimator.getPosition(tripId, now, mPosition)) {
+                    continue;
+                }
+                Marker m = entry.getValue();
+                LatLng position = m.getPosition();
+                boolean changed = position.latitude != mPosition[0]
+                        || position.longitude != mPosition[1];
+                if (changed) {
+                    m.setPosition(new LatLng(mPosition[0], mPosition[1]));
+                }
+                // A vehicle held in place while a correction is blended out may start moving
+                // again once it's done, so keep going until then
+                if ((changed && mEstimator.isExtrapolating(tripId, now))
+                        || mEstimator.isCorrecting(tripId, now)) {
+                    moving = true;
+                }
+            }
+            return moving;
+        }
+
         /**
          * Places a marker on the map for this vehicle, and adds it to our marker HashMap
          *
@@ -689,9 +859,16 @@ public class VehicleOverlay implements AmazonMap.OnInfoWindowClickListener, Mark
          */
         private void addMarkerToMap(Location l, boolean isRealtime, ObaTripStatus status,
                                     ObaTripsForRouteResponse response) {
+            LatLng position;
+            if (mEstimator.getPosition(status.getActiveTripId(), SystemClock.elapsedRealtime(),
+                    mPosition)) {
+                position = new LatLng(mPosition[0], mPosition[1]);
+            } else {
+                position = MapHelpV2.makeLatLng(l);
+            }
 
             Marker m = mMap.addMarker(new MarkerOptions()
-                    .position(MapHelpV2.makeLatLng(l))
+                    .position(position)
                     .title(status.getVehicleId())
                     .icon(getVehicleIcon(isRealtime, status, response))
             );
@@ -716,14 +893,16 @@ public class VehicleOverlay implements AmazonMap.OnInfoWindowClickListener, Mark
             m.setIcon(getVehicleIcon(isRealtime, status, response));
             // Update Hashmap with newest status - needed to show info when tapping on marker
             mVehicles.put(m, status);
-            // Update vehicle position
-            Location markerLoc = MapHelpV2.makeLocation(m.getPosition());
-            // If its a small distance, animate the movement
-            if (l.distanceTo(markerLoc) < MAX_VEHICLE_ANIMATION_DISTANCE) {
-                AnimationUtil.animateMarkerTo(m, MapHelpV2.makeLatLng(l));
-            } else {
-                // Just snap the marker to the new location - large animations look weird
-                m.setPosition(MapHelpV2.makeLatLng(l));
+            // Update vehicle position, unless it's moved along the trip shape on each frame
+            if (!mEstimator.hasPosition(status.getActiveTripId())) {
+                Location markerLoc = MapHelpV2.makeLocation(m.getPosition());
+                // If its a small distance, animate the movement
+                if (l.distanceTo(markerLoc) < MAX_VEHICLE_ANIMATION_DISTANCE) {
+                    AnimationUtil.animateMarkerTo(m, MapHelpV2.makeLatLng(l));
+                } else {
+                    // Just snap the marker to the new location - large animations look weird
+                    m.setPosition(MapHelpV2.makeLatLng(l));
+                }
             }
             // If the info window was shown, make sure its open (changing the icon could have closed it)
             if (showInfo) {
@@ -18,9 +18,11 @@
 package org.onebusaway.android.adapter.test;
 
 import android.graphics.drawable.GradientDrawable;
+import android.os.SystemClock;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageView;
+import android.widget.TextView;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -50,6 +52,8 @@ import androidx.test.runner.AndroidJUnit4;
 import static androidx.test.InstrumentationRegistry.getTargetContext;
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNotSame;
+import static junit.framework.Assert.assertSame;
 import static junit.framework.Assert.assertTrue;
 
 /**
@@ -114,6 +118,73 @@ public class AdapterTest extends ObaTestCase {
         assertNotNull(v);
     }
 
+    /**
+     * Tests that setting the same arrivals again keeps the existing rows, and that views already
+     * showing a row aren't rebound
+     */
+    @Test
+    public void testAdapterUnchangedData() {
+        Application.get().setCurrentRegion(MockRegion.getTampa(getTargetContext()));
+        ObaArrivalInfoResponse response =
+                new ObaArrivalInfoRequest.Builder(getTargetContext(),
+                        "Hillsborough Area Regional Transit_3105").build().call();
+        assertOK(response);
+        final ObaArrivalInfo[] arrivals = response.getArrivalInfo();
+
+        adapterA = new ArrivalsListAdapterStyleA(getTargetContext());
+        adapterA.setData(arrivals, new ArrayList<String>(), response.getCurrentTime());
+        Object first = adapterA.getItem(0);
+
+        // Same data - nothing changes
+        adapterA.setData(arrivals, new ArrayList<String>(), response.getCurrentTime());
+        assertSame(first, adapterA.getItem(0));
+
+        // A view showing the same content isn't rebound
+        View v = adapterA.getView(0, null, null);
+        TextView route = (TextView) v.findViewById(R.id.route);
+        String routeText = route.getText().toString();
+        route.setText("not rebound");
+        assertSame(v, adapterA.getView(0, v, null));
+        assertEquals("not rebound", route.getText().toString());
+
+        // ...unless something else that's displayed changes
+        adapterA.setTripsForStop(null);
+        adapterA.getView(0, v, null);
+        assertEquals(routeText, route.getText().toString());
+
+        // Two minutes later the ETAs have changed, so the rows are replaced
+        adapterA.setData(arrivals, new ArrayList<String>(),
+                response.getCurrentTime() + 2 * 60 * 1000);
+        assertNotSame(first, adapterA.getItem(0));
+    }
+
+    /**
+     * Tests building rows off the main thread
+     */
+    @Test
+    public void testAdapterAsync() throws InterruptedException {
+        Application.get().setCurrentRegion(MockRegion.getTampa(getTargetContext()));
+        ObaArrivalInfoResponse response =
+                new ObaArrivalInfoRequest.Builder(getTargetContext(),
+                        "Hillsborough Area Regional Transit_3105").build().call();
+        assertOK(response);
+        final ObaArrivalInfo[] arrivals = response.getArrivalInfo();
+
+        ArrivalsListAdapterStyleB sync = new ArrivalsListAdapterStyleB(getTargetContext());
+        sync.setData(arrivals, new ArrayList<String>(), response.getCurrentTime());
+
+        adapterB = new ArrivalsListAdapterStyleB(getTargetContext());
+        // The first result is dropped, since newer data is set before it's applied
+        adapterB.setDataAsync(null, new ArrayList<String>(), response.getCurrentTime());
+        adapterB.setDataAsync(arrivals, new ArrayList<String>(), response.getCurrentTime());
+        long end = SystemClock.elapsedRealtime() + 5000;
+        while (adapterB.getCount() == 0 && SystemClock.elapsedRealtime() < end) {
+            Thread.sleep(10);
+        }
+        assertEquals(sync.getCount(), adapterB.getCount());
+        assertTrue(sync.getItem(0).isSameContent(adapterB.getItem(0)));
+    }
+
     /**
      * Tests ArrivalsListAdapterStyleA for the case where there is only a single arrival time in the
      * response, and the arrival time is negative (i.e., the bus just left).
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.app.test;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onebusaway.android.app.StartupTasks;
+
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import static androidx.test.InstrumentationRegistry.getInstrumentation;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+/**
+ * Tests the ordering and timings of startup tasks
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupTasksTest {
+
+    private final List<String> mRan = Collections.synchronizedList(new ArrayList<String>());
+
+    private final List<String> mWrongThread = Collections.synchronizedList(new ArrayList<String>());
+
+    @Test
+    public void testOrder() {
+        final StartupTasks tasks = new StartupTasks()
+                .add("slow", StartupTasks.BACKGROUND, task("slow", false, 100))
+                .add("other", StartupTasks.BACKGROUND, task("other", false, 0))
+                .add("main", StartupTasks.MAIN, task("main", true, 0), "slow")
+                .add("first", StartupTasks.MAIN, task("first", true, 0))
+                .add("idle", StartupTasks.IDLE, task("idle", true, 0), "main");
+
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                tasks.run();
+                // Idle tasks wait until the main thread is free
+                assertTrue(mRan.contains("main"));
+                assertTrue(mRan.contains("first"));
+                assertFalse(mRan.contains("idle"));
+            }
+        });
+        tasks.await("idle");
+        tasks.await("other");
+
+        assertTrue(mWrongThread.toString(), mWrongThread.isEmpty());
+        assertTrue(mRan.indexOf("slow") < mRan.indexOf("main"));
+        assertTrue(mRan.indexOf("main") < mRan.indexOf("first"));
+        assertTrue(mRan.indexOf("first") < mRan.indexOf("idle"));
+
+        List<StartupTasks.Timing> timings = tasks.getTimings();
+        assertEquals(5, timings.size());
+        for (StartupTasks.Timing timing : timings) {
+            if (timing.getName().equals("slow")) {
+                assertEquals(StartupTasks.BACKGROUND, timing.getMode());
+                assertTrue(timing.getDurationMillis() >= 100);
+            }
+            assertTrue(timing.getStartMillis() >= 0);
+        }
+    }
+
+    @Test
+    public void testBadDependencies() {
+        StartupTasks tasks = new StartupTasks().add("a", StartupTasks.MAIN, task("a", true, 0));
+        try {
+            tasks.add("b", StartupTasks.MAIN, task("b", true, 0), "c");
+            fail("Dependencies must be added first");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            tasks.add("a", StartupTasks.BACKGROUND, task("a", false, 0));
+            fail("Names must be unique");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    private Runnable task(final String name, final boolean onMainThread, final long sleepMs) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                if (onMainThread != (Looper.myLooper() == Looper.getMainLooper())) {
+                    mWrongThread.add(name);
+                }
+                if (sleepMs > 0) {
+                    try {
+                        Thread.sleep(sleepMs);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                mRan.add(name);
+            }
+        };
+    }
+}
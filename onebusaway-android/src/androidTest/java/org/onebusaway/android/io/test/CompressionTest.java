@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.io.test;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onebusaway.android.io.ObaConnection;
+import org.onebusaway.android.io.ObaDefaultConnectionFactory;
+import org.onebusaway.android.io.ObaResponseCache;
+import org.onebusaway.android.io.ObaTransferStats;
+import org.onebusaway.android.mock.MockHttpServer;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.util.zip.GZIPOutputStream;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Tests compressed transfer in ObaDefaultConnection against a local HTTP server
+ */
+@RunWith(AndroidJUnit4.class)
+public class CompressionTest {
+
+    private static final String PATH = "/api/where/current-time.json";
+
+    private MockHttpServer mServer;
+
+    private ObaResponseCache mOldCache;
+
+    @Before
+    public void before() throws IOException {
+        mServer = new MockHttpServer();
+        // Test the network path only
+        mOldCache = ObaDefaultConnectionFactory.getInstance().getResponseCache();
+        ObaDefaultConnectionFactory.getInstance().setResponseCache(null);
+        ObaTransferStats.reset();
+    }
+
+    @After
+    public void after() {
+        ObaDefaultConnectionFactory.getInstance().setResponseCache(mOldCache);
+        mServer.shutdown();
+    }
+
+    @Test
+    public void testGzipResponse() throws IOException {
+        String body = createBody();
+        byte[] gzipped = gzip(body.getBytes());
+        mServer.enqueue(new MockHttpServer.Response(200)
+                .setHeader("Content-Encoding", "gzip")
+                .setBody(gzipped));
+
+        assertEquals(body, read(get()));
+
+        assertEquals("gzip", mServer.getRequest(0).getHeader("Accept-Encoding"));
+        assertEquals(1, ObaTransferStats.getResponseCount());
+        assertEquals(1, ObaTransferStats.getCompressedResponseCount());
+        assertEquals(gzipped.length, ObaTransferStats.getResponseWireBytes());
+        assertEquals(body.length(), ObaTransferStats.getResponseBytes());
+        assertTrue(ObaTransferStats.getResponseWireBytes() * 5
+                < ObaTransferStats.getResponseBytes());
+    }
+
+    @Test
+    public void testIdentityResponse() throws IOException {
+        String body = createBody();
+        mServer.enqueue(new MockHttpServer.Response(200).setBody(body));
+
+        assertEquals(body, read(get()));
+
+        assertEquals(1, ObaTransferStats.getResponseCount());
+        assertEquals(0, ObaTransferStats.getCompressedResponseCount());
+        assertEquals(body.length(), ObaTransferStats.getResponseWireBytes());
+        assertEquals(body.length(), ObaTransferStats.getResponseBytes());
+    }
+
+    @Test
+    public void testPlainPost() throws IOException {
+        mServer.enqueue(new MockHttpServer.Response(200).setBody("{\"code\":200}"));
+
+        ObaConnection conn = ObaDefaultConnectionFactory.getInstance()
+                .newConnection(mServer.getUri(PATH));
+        try {
+            assertEquals("{\"code\":200}", read(conn.post("a=b")));
+        } finally {
+            conn.disconnect();
+        }
+
+        MockHttpServer.RecordedRequest request = mServer.getRequest(0);
+        assertNull(request.getHeader("Content-Encoding"));
+        assertEquals("a=b", new String(request.getBody()));
+    }
+
+    private Reader get() throws IOException {
+        ObaConnection conn = ObaDefaultConnectionFactory.getInstance()
+                .newConnection(mServer.getUri(PATH));
+        assertEquals(HttpURLConnection.HTTP_OK, conn.getResponseCode());
+        return conn.get();
+    }
+
+    private static String createBody() {
+        StringBuilder body = new StringBuilder();
+        while (body.length() < 32 * 1024) {
+            body.append("{\"id\":\"1_75403\",\"name\":\"Stevens Way & Benton Ln\"}");
+        }
+        return body.toString();
+    }
+
+    private static String read(Reader reader) throws IOException {
+        BufferedReader buffered = new BufferedReader(reader);
+        try {
+            StringBuilder result = new StringBuilder();
+            String line;
+            while ((line = buffered.readLine()) != null) {
+                result.append(line);
+            }
+            return result.toString();
+        } finally {
+            buffered.close();
+        }
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(out);
+        gzip.write(data);
+        gzip.close();
+        return out.toByteArray();
+    }
+}
@@ -15,32 +15,57 @@
  */
 package org.onebusaway.android.io.test;
 
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.VisibilityChecker;
+import com.fasterxml.jackson.databind.node.TreeTraversingParser;
 
+import org.apache.commons.io.IOUtils;
 import org.junit.Test;
 import org.onebusaway.android.io.JacksonSerializer;
 import org.onebusaway.android.io.ObaApi;
 import org.onebusaway.android.io.request.ObaResponse;
 import org.onebusaway.android.io.request.ObaStopsForLocationResponse;
+import org.onebusaway.android.io.request.ObaTripsForRouteResponse;
 import org.onebusaway.android.mock.Resources;
 
 import android.util.Log;
 
+import java.io.IOException;
 import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
 
 import static androidx.test.InstrumentationRegistry.getTargetContext;
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertTrue;
 
 /**
  * Tests use of the Jackson library for parsing JSON related to OBA
  */
 public class JacksonTest extends ObaTestCase {
 
+    private static final String TAG = "JacksonTest";
+
     private static final int mCode = 47421;
 
     private static final String mErrText = "Here is an error";
 
+    // Configured the same as the mapper in JacksonSerializer
+    private static final ObjectMapper TREE_MAPPER = new ObjectMapper();
+
+    static {
+        TREE_MAPPER.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        TREE_MAPPER.setVisibilityChecker(
+                VisibilityChecker.Std.defaultInstance()
+                        .withFieldVisibility(JsonAutoDetect.Visibility.ANY));
+    }
+
     protected JacksonSerializer mSerializer;
 
     @Test
@@ -83,6 +108,110 @@ public class JacksonTest extends ObaTestCase {
         assertNotNull(response);
     }
 
+    @Test
+    public void testEmptyBody() {
+        ObaApi.SerializationHandler serializer = ObaApi.getSerializer(ObaResponse.class);
+        ObaResponse response = serializer.deserialize(new StringReader(""), ObaResponse.class);
+        assertNotNull(response);
+        assertEquals(ObaApi.OBA_INTERNAL_ERROR, response.getCode());
+
+        response = serializer.deserialize(new StringReader("   \n "), ObaResponse.class);
+        assertNotNull(response);
+        assertEquals(ObaApi.OBA_INTERNAL_ERROR, response.getCode());
+    }
+
+    @Test
+    public void testInvalidBody() {
+        ObaApi.SerializationHandler serializer = ObaApi.getSerializer(ObaResponse.class);
+        ObaResponse response = serializer
+                .deserialize(new StringReader("{\"code\": 200, \"text\": "), ObaResponse.class);
+        assertNotNull(response);
+        assertEquals(ObaApi.OBA_INTERNAL_ERROR, response.getCode());
+
+        response = serializer.deserialize(new StringReader("<html></html>"), ObaResponse.class);
+        assertNotNull(response);
+        assertEquals(ObaApi.OBA_INTERNAL_ERROR, response.getCode());
+    }
+
+    /**
+     * Rough benchmark of deserializing large recorded responses into their response classes,
+     * against the JsonNode tree that JacksonSerializer used to build first.  Both parse the same
+     * input, and must bind the same data.  Average times and heap growth are written to the log.
+     */
+    @Test
+    public void testDeserializationBenchmark() throws Exception {
+        List<ObaStopsForLocationResponse> stops = benchmark(
+                "stops_for_location_downtown_seattle", ObaStopsForLocationResponse.class);
+        assertTrue(stops.get(0).getStops().length > 0);
+        assertEquals(stops.get(1).getStops().length, stops.get(0).getStops().length);
+        assertEquals(stops.get(1).getStops()[0].getId(), stops.get(0).getStops()[0].getId());
+
+        List<ObaTripsForRouteResponse> trips = benchmark("trips_for_route_hart_5",
+                ObaTripsForRouteResponse.class);
+        assertTrue(trips.get(0).getTrips().length > 0);
+        assertEquals(trips.get(1).getTrips().length, trips.get(0).getTrips().length);
+        assertEquals(trips.get(1).getTrips()[0].getId(), trips.get(0).getTrips()[0].getId());
+    }
+
+    /**
+     * @return the response parsed by JacksonSerializer, followed by the one parsed from a tree
+     */
+    private <T extends ObaResponse> List<T> benchmark(String name, Class<T> cls)
+            throws Exception {
+        final int iterations = 20;
+        Reader reader = Resources.read(getTargetContext(), Resources.getTestUri(name));
+        String json = IOUtils.toString(reader);
+        reader.close();
+        ObaApi.SerializationHandler serializer = ObaApi.getSerializer(cls);
+        Runtime runtime = Runtime.getRuntime();
+
+        T streamed = null;
+        T tree = null;
+        long streamTime = 0;
+        long streamAlloc = 0;
+        long treeTime = 0;
+        long treeAlloc = 0;
+        // The first round of each only warms up, and isn't counted
+        for (int i = 0; i <= iterations; i++) {
+            long memBefore = runtime.totalMemory() - runtime.freeMemory();
+            long start = System.nanoTime();
+            streamed = serializer.deserialize(new StringReader(json), cls);
+            if (i > 0) {
+                streamTime += System.nanoTime() - start;
+                streamAlloc += Math.max(0,
+                        runtime.totalMemory() - runtime.freeMemory() - memBefore);
+            }
+
+            memBefore = runtime.totalMemory() - runtime.freeMemory();
+            start = System.nanoTime();
+            tree = deserializeFromTree(json, cls);
+            if (i > 0) {
+                treeTime += System.nanoTime() - start;
+                treeAlloc += Math.max(0,
+                        runtime.totalMemory() - runtime.freeMemory() - memBefore);
+            }
+        }
+        assertOK(streamed);
+        assertOK(tree);
+        Log.d(TAG, name + " (" + json.length() + " chars)");
+        Log.d(TAG, "Streaming - avg " + (streamTime / iterations / 1000) + " us, avg heap growth "
+                + (streamAlloc / iterations / 1024) + " KB");
+        Log.d(TAG, "Tree - avg " + (treeTime / iterations / 1000) + " us, avg heap growth "
+                + (treeAlloc / iterations / 1024) + " KB");
+        return Arrays.asList(streamed, tree);
+    }
+
+    /**
+     * Parses the JSON the way JacksonSerializer did before it streamed responses - the whole
+     * JsonNode tree is built, and the response is bound from that
+     */
+    private static <T> T deserializeFromTree(String json, Class<T> cls) throws IOException {
+        JsonNode node = TREE_MAPPER.readTree(new StringReader(json));
+        TreeTraversingParser parser = new TreeTraversingParser(node);
+        parser.setCodec(TREE_MAPPER);
+        return parser.readValueAs(cls);
+    }
+
     @JsonPropertyOrder(value = {"code", "version", "text"})
     public class MockResponse {
 
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.io.test;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onebusaway.android.io.JacksonSerializer;
+import org.onebusaway.android.io.ObaApi;
+import org.onebusaway.android.io.elements.ObaElement;
+import org.onebusaway.android.io.elements.ObaReferencesElement;
+import org.onebusaway.android.io.elements.ObaRoute;
+import org.onebusaway.android.io.elements.ObaTrip;
+
+import android.util.Log;
+
+import java.util.List;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+
+/**
+ * Tests id lookups in ObaReferencesElement, and compares the id index against a linear scan
+ * for reference sizes similar to a large trips-for-route response
+ */
+@RunWith(AndroidJUnit4.class)
+public class ReferencesTest {
+
+    private static final String TAG = "ReferencesTest";
+
+    private static final int NUM_ROUTES = 60;
+
+    private static final int NUM_TRIPS = 800;
+
+    private ObaReferencesElement mRefs;
+
+    private String[] mTripIds;
+
+    @Before
+    public void before() {
+        StringBuilder json = new StringBuilder("{\"routes\":[");
+        for (int i = 0; i < NUM_ROUTES; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":\"1_").append(i).append("\",\"shortName\":\"").append(i)
+                    .append("\"}");
+        }
+        json.append("],\"trips\":[");
+        mTripIds = new String[NUM_TRIPS];
+        for (int i = 0; i < NUM_TRIPS; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            mTripIds[i] = "1_trip_" + i;
+            json.append("{\"id\":\"").append(mTripIds[i]).append("\",\"routeId\":\"1_")
+                    .append(i % NUM_ROUTES).append("\"}");
+        }
+        json.append("]}");
+
+        ObaApi.SerializationHandler serializer = JacksonSerializer.getInstance();
+        mRefs = serializer.deserializeFromResponse(json.toString(), ObaReferencesElement.class);
+        assertNotNull(mRefs);
+    }
+
+    @Test
+    public void testLookups() {
+        for (int i = 0; i < NUM_TRIPS; i++) {
+            ObaTrip trip = mRefs.getTrip(mTripIds[i]);
+            assertNotNull(trip);
+            assertEquals(mTripIds[i], trip.getId());
+            ObaRoute route = mRefs.getRoute(trip.getRouteId());
+            assertNotNull(route);
+            assertEquals("1_" + (i % NUM_ROUTES), route.getId());
+        }
+        assertNull(mRefs.getTrip("does_not_exist"));
+        assertNull(mRefs.getTrip(null));
+        assertNull(mRefs.getStop("1_75403"));
+        assertNull(mRefs.getSituation("1_situation"));
+
+        List<ObaTrip> trips = mRefs.getTrips(new String[]{mTripIds[5], "missing", mTripIds[2]});
+        assertEquals(2, trips.size());
+        assertSame(mRefs.getTrip(mTripIds[5]), trips.get(0));
+        assertSame(mRefs.getTrip(mTripIds[2]), trips.get(1));
+    }
+
+    /**
+     * Rough microbenchmark of resolving the route for every trip, using the index vs. a linear
+     * scan over the same references
+     */
+    @Test
+    public void testLookupBenchmark() {
+        final int iterations = 20;
+        List<ObaRoute> routes = mRefs.getRoutes();
+
+        // Warm up and build indexes
+        mRefs.getTrip(mTripIds[0]);
+        mRefs.getRoute(routes.get(0).getId());
+
+        long start = System.nanoTime();
+        for (int n = 0; n < iterations; n++) {
+            for (String tripId : mTripIds) {
+                ObaTrip trip = mRefs.getTrip(tripId);
+                assertNotNull(mRefs.getRoute(trip.getRouteId()));
+            }
+        }
+        long indexTime = System.nanoTime() - start;
+
+        List<ObaTrip> trips = mRefs.getTrips(mTripIds);
+        start = System.nanoTime();
+        for (int n = 0; n < iterations; n++) {
+            for (String tripId : mTripIds) {
+                ObaTrip trip = linearScan(trips, tripId);
+                assertNotNull(linearScan(routes, trip.getRouteId()));
+            }
+        }
+        long scanTime = System.nanoTime() - start;
+
+        Log.d(TAG, "Resolved " + NUM_TRIPS + " trips x " + iterations + " - index "
+                + (indexTime / 1000) + " us, linear scan " + (scanTime / 1000) + " us");
+    }
+
+    private static <T extends ObaElement> T linearScan(List<T> objects, String id) {
+        for (T obj : objects) {
+            if (obj.getId().equals(id)) {
+                return obj;
+            }
+        }
+        return null;
+    }
+}
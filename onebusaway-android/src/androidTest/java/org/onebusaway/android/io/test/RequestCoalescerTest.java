@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.io.test;
+
+import org.junit.Test;
+import org.onebusaway.android.io.ObaApi;
+import org.onebusaway.android.io.ObaConnection;
+import org.onebusaway.android.io.ObaConnectionFactory;
+import org.onebusaway.android.io.request.ObaCurrentTimeRequest;
+import org.onebusaway.android.io.request.ObaCurrentTimeResponse;
+import org.onebusaway.android.io.request.RequestCoalescer;
+
+import android.net.Uri;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static androidx.test.InstrumentationRegistry.getTargetContext;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Tests that concurrent identical requests share a single connection
+ */
+public class RequestCoalescerTest extends ObaTestCase {
+
+    private static final String CURRENT_TIME_JSON = "{\"currentTime\":1343587068277,"
+            + "\"text\":\"OK\",\"data\":{\"entry\":{\"time\":1343587068277}},"
+            + "\"code\":200,\"version\":2}";
+
+    private static final int NUM_THREADS = 5;
+
+    @Test
+    public void testConcurrentRequests() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger connections = new AtomicInteger();
+        ObaConnectionFactory oldFactory = ObaApi.getDefaultContext()
+                .setConnectionFactory(new ObaConnectionFactory() {
+                    @Override
+                    public ObaConnection newConnection(Uri uri) {
+                        connections.incrementAndGet();
+                        return new BlockingConnection(release);
+                    }
+                });
+        try {
+            final long coalescedBefore = RequestCoalescer.getInstance().getCoalescedCount();
+            final ObaCurrentTimeResponse[] responses = new ObaCurrentTimeResponse[NUM_THREADS];
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < NUM_THREADS; i++) {
+                final int index = i;
+                Thread thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        responses[index] = ObaCurrentTimeRequest.newRequest(getTargetContext())
+                                .call();
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+
+            // Wait for all but one of the requests to be waiting on the first request
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+            while (RequestCoalescer.getInstance().getCoalescedCount() - coalescedBefore
+                    < NUM_THREADS - 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            assertEquals(1, connections.get());
+            assertEquals(NUM_THREADS - 1,
+                    RequestCoalescer.getInstance().getCoalescedCount() - coalescedBefore);
+            assertOK(responses[0]);
+            for (ObaCurrentTimeResponse response : responses) {
+                assertSame(responses[0], response);
+            }
+            assertEquals(0, RequestCoalescer.getInstance().getInFlightCount());
+
+            // Requests that don't overlap aren't coalesced
+            ObaCurrentTimeRequest.newRequest(getTargetContext()).call();
+            assertEquals(2, connections.get());
+        } finally {
+            ObaApi.getDefaultContext().setConnectionFactory(oldFactory);
+        }
+    }
+
+    /**
+     * Connection that doesn't return a response until it's released
+     */
+    private static class BlockingConnection implements ObaConnection {
+
+        private final CountDownLatch mRelease;
+
+        BlockingConnection(CountDownLatch release) {
+            mRelease = release;
+        }
+
+        @Override
+        public void disconnect() {
+        }
+
+        @Override
+        public Reader get() throws IOException {
+            try {
+                assertTrue(mRelease.await(10, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new IOException(e.toString());
+            }
+            return new StringReader(CURRENT_TIME_JSON);
+        }
+
+        @Override
+        public Reader post(String string) throws IOException {
+            return get();
+        }
+
+        @Override
+        public int getResponseCode() {
+            return HttpURLConnection.HTTP_OK;
+        }
+    }
+}
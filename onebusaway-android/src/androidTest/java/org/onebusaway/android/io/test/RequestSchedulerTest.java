@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.io.test;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onebusaway.android.io.request.RequestScheduler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Tests the priority ordering, reserved foreground worker and cancellation of RequestScheduler
+ */
+@RunWith(AndroidJUnit4.class)
+public class RequestSchedulerTest {
+
+    // Number of workers that map and background requests can use
+    private static final int SHARED_WORKERS = 3;
+
+    @Test
+    public void testPriorities() throws InterruptedException {
+        RequestScheduler scheduler = RequestScheduler.getInstance();
+        final CountDownLatch[] release = new CountDownLatch[SHARED_WORKERS];
+        final CountDownLatch blockersStarted = new CountDownLatch(SHARED_WORKERS);
+        final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+
+        // Occupy all the workers that lower priority requests can use
+        for (int i = 0; i < SHARED_WORKERS; i++) {
+            final CountDownLatch latch = new CountDownLatch(1);
+            release[i] = latch;
+            scheduler.execute(new Runnable() {
+                @Override
+                public void run() {
+                    blockersStarted.countDown();
+                    await(latch);
+                }
+            }, RequestScheduler.PRIORITY_BACKGROUND);
+        }
+        assertTrue(blockersStarted.await(5, TimeUnit.SECONDS));
+
+        // These have to wait...
+        CountDownLatch backgroundDone = new CountDownLatch(1);
+        CountDownLatch mapDone = new CountDownLatch(1);
+        scheduler.execute(record(order, "background", backgroundDone),
+                RequestScheduler.PRIORITY_BACKGROUND);
+        scheduler.execute(record(order, "map", mapDone), RequestScheduler.PRIORITY_MAP);
+
+        // ...but foreground requests still have a worker
+        final CountDownLatch foreground = new CountDownLatch(1);
+        scheduler.execute(new Runnable() {
+            @Override
+            public void run() {
+                foreground.countDown();
+            }
+        }, RequestScheduler.PRIORITY_FOREGROUND);
+        assertTrue(foreground.await(5, TimeUnit.SECONDS));
+        assertTrue(order.isEmpty());
+
+        // When a worker frees up, the map request goes before the earlier background request
+        release[0].countDown();
+        assertTrue(mapDone.await(5, TimeUnit.SECONDS));
+        assertEquals("map", order.get(0));
+
+        for (CountDownLatch latch : release) {
+            latch.countDown();
+        }
+        assertTrue(backgroundDone.await(5, TimeUnit.SECONDS));
+        assertTrue(scheduler.getCompletedCount(RequestScheduler.PRIORITY_FOREGROUND) >= 1);
+    }
+
+    @Test
+    public void testCancelWhileQueued() throws InterruptedException {
+        RequestScheduler scheduler = RequestScheduler.getInstance();
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch blockersStarted = new CountDownLatch(SHARED_WORKERS);
+        long cancelled = scheduler.getCancelledCount(RequestScheduler.PRIORITY_MAP);
+
+        for (int i = 0; i < SHARED_WORKERS; i++) {
+            scheduler.execute(new Runnable() {
+                @Override
+                public void run() {
+                    blockersStarted.countDown();
+                    await(release);
+                }
+            }, RequestScheduler.PRIORITY_MAP);
+        }
+        assertTrue(blockersStarted.await(5, TimeUnit.SECONDS));
+
+        final boolean[] ran = new boolean[1];
+        FutureTask<Void> task = new FutureTask<>(new Runnable() {
+            @Override
+            public void run() {
+                ran[0] = true;
+            }
+        }, null);
+        scheduler.execute(task, RequestScheduler.PRIORITY_MAP);
+        assertTrue(scheduler.getQueueDepth(RequestScheduler.PRIORITY_MAP) >= 1);
+        task.cancel(false);
+
+        // Let the queue drain
+        release.countDown();
+        final CountDownLatch after = new CountDownLatch(1);
+        scheduler.execute(new Runnable() {
+            @Override
+            public void run() {
+                after.countDown();
+            }
+        }, RequestScheduler.PRIORITY_MAP);
+        assertTrue(after.await(5, TimeUnit.SECONDS));
+
+        assertFalse(ran[0]);
+        assertEquals(cancelled + 1, scheduler.getCancelledCount(RequestScheduler.PRIORITY_MAP));
+    }
+
+    private static Runnable record(final List<String> order, final String name,
+            final CountDownLatch done) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                order.add(name);
+                done.countDown();
+            }
+        };
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
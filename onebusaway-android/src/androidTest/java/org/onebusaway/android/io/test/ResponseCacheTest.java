@@ -0,0 +1,240 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.io.test;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onebusaway.android.io.ObaConnection;
+import org.onebusaway.android.io.ObaDefaultConnectionFactory;
+import org.onebusaway.android.io.ObaResponseCache;
+import org.onebusaway.android.mock.MockHttpServer;
+
+import android.net.Uri;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.util.concurrent.TimeUnit;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import static androidx.test.InstrumentationRegistry.getTargetContext;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Tests the HTTP response cache used by ObaDefaultConnection against a local HTTP server
+ */
+@RunWith(AndroidJUnit4.class)
+public class ResponseCacheTest {
+
+    private static final String SHAPE_PATH = "/api/where/shape/1_40046045.json";
+
+    private static final String ARRIVALS_PATH =
+            "/api/where/arrivals-and-departures-for-stop/1_75403.json";
+
+    private static final String CURRENT_TIME_PATH = "/api/where/current-time.json";
+
+    private MockHttpServer mServer;
+
+    private ObaResponseCache mCache;
+
+    private ObaResponseCache mOldCache;
+
+    @Before
+    public void before() throws IOException {
+        mServer = new MockHttpServer();
+        File dir = new File(getTargetContext().getCacheDir(), "test-oba-responses");
+        mCache = new ObaResponseCache(dir, 64 * 1024);
+        mCache.clear();
+        mOldCache = ObaDefaultConnectionFactory.getInstance().getResponseCache();
+        ObaDefaultConnectionFactory.getInstance().setResponseCache(mCache);
+    }
+
+    @After
+    public void after() {
+        ObaDefaultConnectionFactory.getInstance().setResponseCache(mOldCache);
+        mCache.clear();
+        mServer.shutdown();
+    }
+
+    @Test
+    public void testPolicies() {
+        assertEquals(TimeUnit.DAYS.toMillis(7),
+                ObaResponseCache.getPolicyMaxAge(Uri.parse("https://a.org" + SHAPE_PATH)));
+        assertEquals(TimeUnit.SECONDS.toMillis(10),
+                ObaResponseCache.getPolicyMaxAge(Uri.parse("https://a.org" + ARRIVALS_PATH)));
+        assertEquals(0,
+                ObaResponseCache.getPolicyMaxAge(Uri.parse("https://a.org" + CURRENT_TIME_PATH)));
+        assertEquals(TimeUnit.DAYS.toMillis(1), ObaResponseCache.getPolicyMaxAge(
+                Uri.parse("https://regions.onebusaway.org/regions-v3.json")));
+
+        assertEquals(1000, ObaResponseCache.getMaxAge(null, 1000));
+        assertEquals(60000, ObaResponseCache.getMaxAge("public, max-age=60", 1000));
+        assertEquals(0, ObaResponseCache.getMaxAge("no-cache", 1000));
+        assertEquals(-1, ObaResponseCache.getMaxAge("no-store", 1000));
+    }
+
+    @Test
+    public void testFreshHit() throws IOException {
+        mServer.enqueue(new MockHttpServer.Response(200).setBody("{\"code\":200}"));
+
+        assertEquals("{\"code\":200}", get(SHAPE_PATH));
+        assertEquals("{\"code\":200}", get(SHAPE_PATH));
+
+        assertEquals(1, mServer.getRequestCount());
+        assertEquals(1, mCache.getMissCount());
+        assertEquals(1, mCache.getHitCount());
+    }
+
+    @Test
+    public void testConditionalRevalidation() throws IOException {
+        mServer.enqueue(new MockHttpServer.Response(200)
+                .setHeader("Cache-Control", "no-cache")
+                .setHeader("ETag", "\"v1\"")
+                .setHeader("Last-Modified", "Tue, 01 Sep 2026 00:00:00 GMT")
+                .setBody("{\"code\":200}"));
+        mServer.enqueue(new MockHttpServer.Response(304));
+
+        assertEquals("{\"code\":200}", get(SHAPE_PATH));
+        assertEquals("{\"code\":200}", get(SHAPE_PATH));
+
+        assertEquals(2, mServer.getRequestCount());
+        assertNull(mServer.getRequest(0).getHeader("If-None-Match"));
+        assertEquals("\"v1\"", mServer.getRequest(1).getHeader("If-None-Match"));
+        assertEquals("Tue, 01 Sep 2026 00:00:00 GMT",
+                mServer.getRequest(1).getHeader("If-Modified-Since"));
+        assertEquals(1, mCache.getConditionalHitCount());
+    }
+
+    @Test
+    public void testNoStore() throws IOException {
+        mServer.enqueue(new MockHttpServer.Response(200)
+                .setHeader("Cache-Control", "no-store")
+                .setBody("{\"code\":200}"));
+        mServer.enqueue(new MockHttpServer.Response(200).setBody("{\"code\":201}"));
+
+        assertEquals("{\"code\":200}", get(SHAPE_PATH));
+        assertEquals("{\"code\":201}", get(SHAPE_PATH));
+        assertEquals(2, mServer.getRequestCount());
+        assertEquals(0, mCache.getHitCount());
+    }
+
+    @Test
+    public void testErrorCodeNotCached() throws IOException {
+        // OBA errors, e.g. an unknown stop, still come back as HTTP 200
+        mServer.enqueue(new MockHttpServer.Response(200)
+                .setBody("{\"data\":{\"entry\":{}},\"code\":404,\"text\":\"not found\"}"));
+        mServer.enqueue(new MockHttpServer.Response(200).setBody("{\"code\":200}"));
+
+        assertEquals("{\"data\":{\"entry\":{}},\"code\":404,\"text\":\"not found\"}",
+                get(SHAPE_PATH));
+        assertEquals("{\"code\":200}", get(SHAPE_PATH));
+        assertEquals(2, mServer.getRequestCount());
+        assertEquals(0, mCache.getHitCount());
+
+        assertTrue(ObaResponseCache.isOk(new ByteArrayInputStream("{\"data\":{\"code\":1},\"code\":200}".getBytes())));
+        assertFalse(ObaResponseCache.isOk(new ByteArrayInputStream("{\"data\":{\"code\":200}}".getBytes())));
+        assertFalse(ObaResponseCache.isOk(new ByteArrayInputStream("{\"code\":\"200\"}".getBytes())));
+        assertFalse(ObaResponseCache.isOk(new ByteArrayInputStream("<html>".getBytes())));
+        assertFalse(ObaResponseCache.isOk(new ByteArrayInputStream(new byte[0])));
+    }
+
+    @Test
+    public void testPartialReadNotCached() throws IOException {
+        StringBuilder body = new StringBuilder("{\"code\":200,\"data\":\"");
+        while (body.length() < 40 * 1024) {
+            body.append("0123456789");
+        }
+        body.append("\"}");
+        mServer.enqueue(new MockHttpServer.Response(200).setBody(body.toString()));
+        mServer.enqueue(new MockHttpServer.Response(200).setBody("{\"code\":200}"));
+
+        // The reader gives up partway through the body, e.g. after a parse error
+        ObaConnection conn = ObaDefaultConnectionFactory.getInstance()
+                .newConnection(mServer.getUri(SHAPE_PATH));
+        try {
+            assertEquals(HttpURLConnection.HTTP_OK, conn.getResponseCode());
+            Reader reader = conn.get();
+            assertEquals('{', reader.read());
+            reader.close();
+        } finally {
+            conn.disconnect();
+        }
+
+        // Only complete bodies are cached
+        assertEquals("{\"code\":200}", get(SHAPE_PATH));
+        assertEquals(2, mServer.getRequestCount());
+        assertEquals(0, mCache.getHitCount());
+        assertEquals("{\"code\":200}", get(SHAPE_PATH));
+        assertEquals(2, mServer.getRequestCount());
+        assertEquals(1, mCache.getHitCount());
+    }
+
+    @Test
+    public void testUncachedEndpoint() throws IOException {
+        mServer.enqueue(new MockHttpServer.Response(200).setBody("{\"time\":1}"));
+        mServer.enqueue(new MockHttpServer.Response(200).setBody("{\"time\":2}"));
+
+        assertEquals("{\"time\":1}", get(CURRENT_TIME_PATH));
+        assertEquals("{\"time\":2}", get(CURRENT_TIME_PATH));
+        assertEquals(2, mServer.getRequestCount());
+        assertEquals(0, mCache.getMissCount());
+    }
+
+    @Test
+    public void testEviction() throws IOException {
+        StringBuilder body = new StringBuilder();
+        while (body.length() < 40 * 1024) {
+            body.append("{\"code\":200}");
+        }
+        mServer.enqueue(new MockHttpServer.Response(200).setBody(body.toString()));
+        mServer.enqueue(new MockHttpServer.Response(200).setBody(body.toString()));
+
+        get("/api/where/shape/1.json");
+        get("/api/where/shape/2.json");
+
+        // Only one of the two responses fits in the cache
+        assertEquals(1, mCache.getEvictionCount());
+        assertTrue(mCache.getSize() <= mCache.getMaxSize());
+    }
+
+    private String get(String path) throws IOException {
+        ObaConnection conn = ObaDefaultConnectionFactory.getInstance()
+                .newConnection(mServer.getUri(path));
+        try {
+            assertEquals(HttpURLConnection.HTTP_OK, conn.getResponseCode());
+            Reader reader = conn.get();
+            BufferedReader buffered = new BufferedReader(reader);
+            StringBuilder result = new StringBuilder();
+            String line;
+            while ((line = buffered.readLine()) != null) {
+                result.append(line);
+            }
+            buffered.close();
+            return result.toString();
+        } finally {
+            conn.disconnect();
+        }
+    }
+}
@@ -16,14 +16,17 @@
 package org.onebusaway.android.io.test;
 
 import org.junit.Test;
+import org.onebusaway.android.io.elements.ShapePoints;
 import org.onebusaway.android.io.request.ObaShapeRequest;
 import org.onebusaway.android.io.request.ObaShapeResponse;
 
 import android.location.Location;
+import android.util.Log;
 
 import java.util.List;
 
 import static androidx.test.InstrumentationRegistry.getTargetContext;
+import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertNotNull;
 import static junit.framework.Assert.assertTrue;
 
@@ -33,6 +36,8 @@ import static junit.framework.Assert.assertTrue;
  */
 public class ShapeRequestTest extends ObaTestCase {
 
+    private static final String TAG = "ShapeRequestTest";
+
     @Test
     public void testShape() {
         ObaShapeRequest.Builder builder =
@@ -45,6 +50,57 @@ public class ShapeRequestTest extends ObaTestCase {
         assertTrue(points.size() > 0);
     }
 
+    @Test
+    public void testPackedPoints() {
+        ObaShapeResponse response = ObaShapeRequest.newRequest(getTargetContext(), "1_40046045")
+                .call();
+        assertOK(response);
+        final List<Location> points = response.getPoints();
+        ShapePoints packed = response.getPoints(null);
+        assertEquals(points.size(), packed.size());
+        for (int i = 0; i < packed.size(); i++) {
+            assertEquals(points.get(i).getLatitude(), packed.getLatitude(i));
+            assertEquals(points.get(i).getLongitude(), packed.getLongitude(i));
+        }
+        // Decoding again reuses the same buffer
+        assertTrue(packed == response.getPoints(packed));
+        assertEquals(points.size(), packed.size());
+    }
+
+    /**
+     * Rough benchmark of decoding a real OBA shape into Locations vs. a reused packed buffer
+     */
+    @Test
+    public void testDecodeBenchmark() {
+        final int iterations = 200;
+        ObaShapeResponse response = ObaShapeRequest.newRequest(getTargetContext(), "1_40046045")
+                .call();
+        assertOK(response);
+
+        double sum = 0;
+        long start = System.nanoTime();
+        for (int n = 0; n < iterations; n++) {
+            for (Location l : response.getPoints()) {
+                sum += l.getLatitude();
+            }
+        }
+        long locationTime = System.nanoTime() - start;
+
+        ShapePoints packed = new ShapePoints();
+        start = System.nanoTime();
+        for (int n = 0; n < iterations; n++) {
+            packed = response.getPoints(packed);
+            for (int i = 0; i < packed.size(); i++) {
+                sum -= packed.getLatitude(i);
+            }
+        }
+        long packedTime = System.nanoTime() - start;
+
+        assertEquals(0.0, sum, 1e-3);
+        Log.d(TAG, "Decoded " + packed.size() + " points x " + iterations + " - Locations "
+                + (locationTime / 1000) + " us, packed " + (packedTime / 1000) + " us");
+    }
+
     @Test
     public void testNewRequest() {
         // This is just to make sure we copy and call newRequest() at least once
@@ -18,6 +18,7 @@ package org.onebusaway.android.io.test;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.onebusaway.android.io.elements.ObaShapeElement;
+import org.onebusaway.android.io.elements.ShapePoints;
 
 import android.location.Location;
 
@@ -27,6 +28,7 @@ import androidx.test.runner.AndroidJUnit4;
 
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertSame;
 
 /**
  * Tests decoding polylines and levels returned by ShapeRequest
@@ -61,6 +63,8 @@ public class ShapeTest {
         pt = list.get(2);
         assertEquals(43252000 / 1E6, pt.getLatitude());
         assertEquals(-126453000 / 1E6, pt.getLongitude());
+        // The points are created once, not each time they're read
+        assertSame(pt, list.get(2));
     }
 
     @Test
@@ -79,4 +83,32 @@ public class ShapeTest {
         assertEquals(3, (int) list.get(2));
         assertEquals(3, (int) list.get(3));
     }
+
+    @Test
+    public void testDecodePackedLines() {
+        ShapePoints points = ObaShapeElement.decodeLine("_p~iF~ps|U_ulLnnqC_mqNvxq`@", 3, null);
+        assertEquals(3, points.size());
+        assertEquals(38500000 / 1E6, points.getLatitude(0));
+        assertEquals(-120200000 / 1E6, points.getLongitude(0));
+        assertEquals(43252000 / 1E6, points.getLatitude(2));
+        assertEquals(-126453000 / 1E6, points.getLongitude(2));
+
+        // Decoding a shorter line into the same buffer replaces the points
+        ShapePoints reused = ObaShapeElement.decodeLine("_p~iF~ps|U", 1, points);
+        assertSame(points, reused);
+        assertEquals(1, reused.size());
+        assertEquals(38500000 / 1E6, reused.getLatitude(0));
+    }
+
+    @Test
+    public void testDecodePackedLevels() {
+        assertEquals(4, ObaShapeElement.countLevels("BBBB"));
+        int[] levels = ObaShapeElement.decodeLevels("BBBB", 4, null);
+        assertEquals(3, levels[0]);
+        assertEquals(3, levels[3]);
+
+        int[] reused = ObaShapeElement.decodeLevels("mD", 1, levels);
+        assertSame(levels, reused);
+        assertEquals(174, reused[0]);
+    }
 }
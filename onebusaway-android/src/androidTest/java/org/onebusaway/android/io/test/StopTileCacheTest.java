@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.io.test;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onebusaway.android.io.elements.ObaStop;
+import org.onebusaway.android.io.request.ObaStopsForLocationRequest;
+import org.onebusaway.android.io.request.ObaStopsForLocationResponse;
+import org.onebusaway.android.map.StopTileCache;
+import org.onebusaway.android.util.LocationUtils;
+
+import android.location.Location;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static androidx.test.InstrumentationRegistry.getTargetContext;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Tests the tile cache used to load stops for the map, with stops-for-location responses from
+ * /res/raw
+ */
+public class StopTileCacheTest extends ObaTestCase {
+
+    private StopTileCache mCache;
+
+    @Before
+    public void clearCache() {
+        mCache = StopTileCache.getInstance();
+        mCache.setServer("StopTileCacheTest");
+        mCache.clear();
+    }
+
+    @After
+    public void resetCache() {
+        mCache.setServer(null);
+    }
+
+    private static ObaStopsForLocationResponse getStops(Location location) {
+        ObaStopsForLocationResponse response =
+                new ObaStopsForLocationRequest.Builder(getTargetContext(), location)
+                        .build()
+                        .call();
+        assertOK(response);
+        return response;
+    }
+
+    /**
+     * @return the keys of the tiles containing the stops in the response
+     */
+    private static List<Long> getTileKeys(ObaStopsForLocationResponse response) {
+        Set<Long> keys = new HashSet<>();
+        for (ObaStop stop : response.getStops()) {
+            keys.add(StopTileCache.getTileKey(stop));
+        }
+        return new ArrayList<>(keys);
+    }
+
+    @Test
+    public void testTileKeys() {
+        Location center = LocationUtils.makeLocation(47.610980, -122.33845);
+        List<Long> keys = StopTileCache.getTileKeys(center, 0.01, 0.01);
+        assertNotNull(keys);
+        assertTrue(keys.size() >= 1 && keys.size() <= 4);
+
+        // The tiles cover the viewport, and the rectangle enclosing them contains it
+        double latSpan = StopTileCache.getLatSpan(keys);
+        double lonSpan = StopTileCache.getLonSpan(keys);
+        Location tileCenter = StopTileCache.getCenter(keys);
+        assertTrue(Math.abs(tileCenter.getLatitude() - center.getLatitude()) + 0.005
+                <= latSpan / 2);
+        assertTrue(Math.abs(tileCenter.getLongitude() - center.getLongitude()) + 0.005
+                <= lonSpan / 2);
+
+        long key = StopTileCache.makeKey(5247, 11443);
+        assertEquals(5247, StopTileCache.getTileX(key));
+        assertEquals(11443, StopTileCache.getTileY(key));
+        assertEquals(360.0 / (1 << StopTileCache.TILE_ZOOM),
+                StopTileCache.getLonSpan(Arrays.asList(key)), 1e-9);
+
+        // Zoomed out too far to use tiles
+        assertNull(StopTileCache.getTileKeys(center, 1, 1));
+        assertNull(StopTileCache.getTileKeys(null, 0.01, 0.01));
+    }
+
+    @Test
+    public void testPutAndMerge() {
+        ObaStopsForLocationResponse response = getStops(
+                LocationUtils.makeLocation(47.25331, -122.44040));
+        // Search results aren't normally cached, but this is the only mock response that
+        // didn't exceed the limit
+        assertFalse(response.getLimitExceeded());
+        ObaStop stop = response.getStops()[0];
+        long key = StopTileCache.getTileKey(stop);
+        long empty = StopTileCache.makeKey(StopTileCache.getTileX(key) + 1,
+                StopTileCache.getTileY(key));
+        List<Long> keys = Arrays.asList(key, empty);
+
+        assertEquals(keys, mCache.getMissingTiles(keys));
+        assertTrue(mCache.put(keys, response));
+        assertEquals(2, mCache.size());
+        assertTrue(mCache.getMissingTiles(keys).isEmpty());
+
+        StopTileCache.TileReferences refs = new StopTileCache.TileReferences();
+        List<ObaStop> stops = mCache.merge(keys, refs);
+        assertEquals(1, stops.size());
+        assertEquals(stop.getId(), stops.get(0).getId());
+        assertEquals(stop.getId(), refs.getStop(stop.getId()).getId());
+        for (String routeId : stop.getRouteIds()) {
+            assertEquals(response.getRoute(routeId).getId(), refs.getRoute(routeId).getId());
+        }
+
+        // The tile next to the stop is cached as empty
+        refs = new StopTileCache.TileReferences();
+        assertTrue(mCache.merge(Arrays.asList(empty), refs).isEmpty());
+
+        // Tiles that weren't requested aren't cached
+        long other = StopTileCache.makeKey(StopTileCache.getTileX(key),
+                StopTileCache.getTileY(key) + 1);
+        assertNull(mCache.merge(Arrays.asList(key, other), new StopTileCache.TileReferences()));
+    }
+
+    @Test
+    public void testExpiry() {
+        ObaStopsForLocationResponse response = getStops(
+                LocationUtils.makeLocation(47.25331, -122.44040));
+        List<Long> keys = getTileKeys(response);
+        assertTrue(mCache.put(keys, response));
+
+        long now = System.currentTimeMillis();
+        assertTrue(mCache.getMissingTiles(keys, now + StopTileCache.MAX_AGE_MS / 2).isEmpty());
+        assertEquals(keys, mCache.getMissingTiles(keys, now + StopTileCache.MAX_AGE_MS + 1000));
+        // Expired tiles are dropped
+        assertEquals(0, mCache.size());
+    }
+
+    @Test
+    public void testServerChange() {
+        ObaStopsForLocationResponse response = getStops(
+                LocationUtils.makeLocation(47.25331, -122.44040));
+        List<Long> keys = getTileKeys(response);
+        assertTrue(mCache.put(keys, response));
+
+        mCache.setServer("StopTileCacheTest");
+        assertEquals(keys.size(), mCache.size());
+        mCache.setServer("StopTileCacheTest2");
+        assertEquals(0, mCache.size());
+    }
+
+    @Test
+    public void testLimitExceeded() {
+        ObaStopsForLocationResponse response = getStops(
+                LocationUtils.makeLocation(47.610980, -122.33845));
+        assertTrue(response.getLimitExceeded());
+        List<Long> keys = getTileKeys(response);
+
+        // The tiles would be incomplete, so they aren't cached
+        assertFalse(mCache.put(keys, response));
+        assertEquals(0, mCache.size());
+        assertEquals(keys, mCache.getMissingTiles(keys));
+
+        // The stops can still be used for the current viewport
+        StopTileCache.TileReferences refs = new StopTileCache.TileReferences();
+        List<ObaStop> stops = refs.add(new HashSet<>(keys), response);
+        assertEquals(response.getStops().length, stops.size());
+        ObaStop stop = stops.get(0);
+        assertNotNull(refs.getStop(stop.getId()));
+        assertNotNull(refs.getRoute(stop.getRouteIds()[0]));
+    }
+}
@@ -0,0 +1,361 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.map.test;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onebusaway.android.io.elements.ObaRoute;
+import org.onebusaway.android.io.elements.ObaShape;
+import org.onebusaway.android.io.elements.ObaStop;
+import org.onebusaway.android.io.request.ObaTripsForRouteResponse;
+import org.onebusaway.android.map.MapModeController;
+import org.onebusaway.android.map.MapWatcher;
+import org.onebusaway.android.util.LocationUtils;
+
+import android.location.Location;
+import android.os.Handler;
+import android.os.HandlerThread;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Tests the event-driven and polling modes of MapWatcher
+ */
+@RunWith(AndroidJUnit4.class)
+public class MapWatcherTest {
+
+    private static final long DEBOUNCE_TIME = 100;
+
+    private HandlerThread mThread;
+
+    private Handler mHandler;
+
+    private final AtomicInteger mCenterChanged = new AtomicInteger();
+
+    private final AtomicInteger mZoomChanged = new AtomicInteger();
+
+    private final MapWatcher.Listener mListener = new MapWatcher.Listener() {
+        @Override
+        public void onMapCenterChanging() {
+        }
+
+        @Override
+        public void onMapCenterChanged() {
+            mCenterChanged.incrementAndGet();
+        }
+
+        @Override
+        public void onMapZoomChanging() {
+        }
+
+        @Override
+        public void onMapZoomChanged() {
+            mZoomChanged.incrementAndGet();
+        }
+    };
+
+    @Before
+    public void before() {
+        mThread = new HandlerThread("MapWatcherTest");
+        mThread.start();
+        mHandler = new Handler(mThread.getLooper());
+    }
+
+    @After
+    public void after() {
+        mThread.quit();
+    }
+
+    @Test
+    public void testIdleMapHasNoWakeups() throws Exception {
+        final FakeMapView view = new FakeMapView(true);
+        final MapWatcher watcher = new MapWatcher(view, mListener, mHandler, DEBOUNCE_TIME);
+        runOnLooper(new Runnable() {
+            @Override
+            public void run() {
+                watcher.start();
+            }
+        });
+        Thread.sleep(1000);
+        runOnLooper(new Runnable() {
+            @Override
+            public void run() {
+                watcher.stop();
+            }
+        });
+        // The map was only read when the watcher started
+        assertEquals(1, view.mReads.get());
+        assertEquals(0, mCenterChanged.get());
+    }
+
+    @Test
+    public void testCameraEventsAreDebounced() throws Exception {
+        final FakeMapView view = new FakeMapView(true);
+        final MapWatcher watcher = new MapWatcher(view, mListener, mHandler, DEBOUNCE_TIME);
+        runOnLooper(new Runnable() {
+            @Override
+            public void run() {
+                watcher.start();
+                // A burst of camera events during an animation
+                for (int i = 1; i <= 10; i++) {
+                    view.mCenter = LocationUtils.makeLocation(47.6 + i * 0.01, -122.3);
+                    watcher.onCameraChanged();
+                }
+                view.mZoom = 15;
+                watcher.onCameraChanged();
+            }
+        });
+        Thread.sleep(DEBOUNCE_TIME * 5);
+        runOnLooper(new Runnable() {
+            @Override
+            public void run() {
+                watcher.stop();
+            }
+        });
+        // The map was read for each camera event, but the "changed" events only fired once
+        assertEquals(12, view.mReads.get());
+        assertEquals(1, mCenterChanged.get());
+        assertEquals(1, mZoomChanged.get());
+    }
+
+    @Test
+    public void testExplicitNotificationRefreshes() throws Exception {
+        final FakeMapView view = new FakeMapView(true);
+        final MapWatcher watcher = new MapWatcher(view, mListener, mHandler, DEBOUNCE_TIME);
+        runOnLooper(new Runnable() {
+            @Override
+            public void run() {
+                watcher.start();
+                // Nothing moved, but the map view asked for a refresh
+                watcher.onCameraChanged();
+            }
+        });
+        Thread.sleep(DEBOUNCE_TIME * 5);
+        assertEquals(1, mCenterChanged.get());
+        assertEquals(0, mZoomChanged.get());
+    }
+
+    @Test
+    public void testPollingBacksOff() throws Exception {
+        final FakeMapView view = new FakeMapView(false);
+        final MapWatcher watcher = new MapWatcher(view, mListener, mHandler, DEBOUNCE_TIME);
+        runOnLooper(new Runnable() {
+            @Override
+            public void run() {
+                watcher.start();
+            }
+        });
+        Thread.sleep(MapWatcher.MAX_POLL_TIME * 3);
+        // A fixed 250ms poll would have read the map 24 times by now
+        assertTrue(view.mReads.get() < 10);
+
+        // Backed off to the slowest rate
+        int reads = view.mReads.get();
+        Thread.sleep(MapWatcher.MAX_POLL_TIME * 2);
+        assertTrue(view.mReads.get() - reads <= 3);
+
+        runOnLooper(new Runnable() {
+            @Override
+            public void run() {
+                view.mCenter = LocationUtils.makeLocation(47.7, -122.3);
+                watcher.checkNow();
+            }
+        });
+        // A single check doesn't change when the next poll runs
+        reads = view.mReads.get();
+        Thread.sleep(MapWatcher.MAX_POLL_TIME * 2);
+        assertTrue(view.mReads.get() - reads <= 3);
+        runOnLooper(new Runnable() {
+            @Override
+            public void run() {
+                watcher.stop();
+            }
+        });
+    }
+
+    @Test
+    public void testCheckNow() throws Exception {
+        final FakeMapView view = new FakeMapView(true);
+        final MapWatcher watcher = new MapWatcher(view, mListener, mHandler, DEBOUNCE_TIME);
+        runOnLooper(new Runnable() {
+            @Override
+            public void run() {
+                watcher.start();
+                view.mCenter = LocationUtils.makeLocation(47.7, -122.3);
+                watcher.checkNow();
+            }
+        });
+        Thread.sleep(MapWatcher.MAX_POLL_TIME * 2);
+        runOnLooper(new Runnable() {
+            @Override
+            public void run() {
+                watcher.stop();
+            }
+        });
+        // The map was read when starting and checking - checking didn't start polling
+        assertEquals(2, view.mReads.get());
+        assertEquals(1, mCenterChanged.get());
+        assertEquals(0, mZoomChanged.get());
+    }
+
+    private void runOnLooper(final Runnable runnable) throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Throwable[] error = new Throwable[1];
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    runnable.run();
+                } catch (Throwable t) {
+                    error[0] = t;
+                } finally {
+                    latch.countDown();
+                }
+            }
+        });
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        if (error[0] instanceof AssertionError) {
+            throw (AssertionError) error[0];
+        } else if (error[0] != null) {
+            throw new RuntimeException(error[0]);
+        }
+    }
+
+    /**
+     * Map view that only reports a center and zoom level
+     */
+    private static class FakeMapView implements MapModeController.ObaMapView {
+
+        private final boolean mCanWatch;
+
+        volatile Location mCenter = LocationUtils.makeLocation(47.6, -122.3);
+
+        volatile float mZoom = 16;
+
+        // Number of times the watcher has read the map center
+        final AtomicInteger mReads = new AtomicInteger();
+
+        FakeMapView(boolean canWatch) {
+            mCanWatch = canWatch;
+        }
+
+        @Override
+        public void setZoom(float zoomLevel) {
+            mZoom = zoomLevel;
+        }
+
+        @Override
+        public Location getMapCenterAsLocation() {
+            mReads.incrementAndGet();
+            return mCenter;
+        }
+
+        @Override
+        public void setMapCenter(Location location, boolean animateToLocation,
+                boolean overlayExpanded) {
+            mCenter = location;
+        }
+
+        @Override
+        public double getLatitudeSpanInDecDegrees() {
+            return 0.01;
+        }
+
+        @Override
+        public double getLongitudeSpanInDecDegrees() {
+            return 0.01;
+        }
+
+        @Override
+        public float getZoomLevelAsFloat() {
+            return mZoom;
+        }
+
+        @Override
+        public void setRouteOverlay(int lineOverlayColor, ObaShape[] shapes) {
+        }
+
+        @Override
+        public void setRouteOverlay(int lineOverlayColor, ObaShape[] shapes, boolean clear) {
+        }
+
+        @Override
+        public void updateVehicles(HashSet<String> routeIds, ObaTripsForRouteResponse response) {
+        }
+
+        @Override
+        public void removeVehicleOverlay() {
+        }
+
+        @Override
+        public void zoomToRoute() {
+        }
+
+        @Override
+        public void zoomToItinerary() {
+        }
+
+        @Override
+        public void zoomIncludeClosestVehicle(HashSet<String> routeIds,
+                ObaTripsForRouteResponse response) {
+        }
+
+        @Override
+        public void postInvalidate() {
+        }
+
+        @Override
+        public void removeRouteOverlay() {
+        }
+
+        @Override
+        public void removeStopOverlay(boolean clearFocusedStop) {
+        }
+
+        @Override
+        public boolean canWatchMapChanges() {
+            return mCanWatch;
+        }
+
+        @Override
+        public void setFocusStop(ObaStop stop, List<ObaRoute> routes) {
+        }
+
+        @Override
+        public int addMarker(Location location, Float hue) {
+            return 0;
+        }
+
+        @Override
+        public void removeMarker(int markerId) {
+        }
+
+        @Override
+        public void setPadding(Integer left, Integer top, Integer right, Integer bottom) {
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.map.test;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onebusaway.android.io.elements.ShapePoints;
+import org.onebusaway.android.map.TripShape;
+import org.onebusaway.android.map.VehiclePositionEstimator;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Tests moving vehicles along trip shapes between real-time updates
+ */
+@RunWith(AndroidJUnit4.class)
+public class VehiclePositionEstimatorTest {
+
+    private static final String TRIP_ID = "1_trip";
+
+    private static final String SHAPE_ID = "1_shape";
+
+    private TripShape mShape;
+
+    private VehiclePositionEstimator mEstimator;
+
+    private final double[] mOut = new double[2];
+
+    @Before
+    public void before() {
+        // About 1.1km due north, in two equal segments
+        ShapePoints points = new ShapePoints();
+        points.add(47.0, -122.0);
+        points.add(47.005, -122.0);
+        points.add(47.01, -122.0);
+        mShape = new TripShape(points);
+        mEstimator = new VehiclePositionEstimator();
+    }
+
+    @Test
+    public void testTripShape() {
+        assertEquals(3, mShape.size());
+        assertEquals(1111.95, mShape.getLength(), 1);
+
+        assertTrue(mShape.getPosition(mShape.getLength() / 4, mOut));
+        assertEquals(47.0025, mOut[0], 1e-6);
+        assertEquals(-122.0, mOut[1], 1e-6);
+
+        // Distances off the ends of the shape are clamped
+        mShape.getPosition(-10, mOut);
+        assertEquals(47.0, mOut[0], 1e-9);
+        mShape.getPosition(mShape.getLength() + 10, mOut);
+        assertEquals(47.01, mOut[0], 1e-9);
+
+        assertFalse(new TripShape(new ShapePoints()).getPosition(0, mOut));
+    }
+
+    @Test
+    public void testDeadReckoning() {
+        double length = mShape.getLength();
+        mEstimator.update(TRIP_ID, SHAPE_ID, 100, length, 1000, 1000, 0);
+
+        // No position until the shape is available
+        assertFalse(mEstimator.getPosition(TRIP_ID, 0, mOut));
+        mEstimator.putShape(SHAPE_ID, mShape);
+        assertTrue(mEstimator.hasPosition(TRIP_ID));
+
+        // With a single update we don't know the speed yet
+        assertPosition(100, 5000);
+
+        // 100m in 10 sec = 10m/s.  The vehicle is shown at 100m, so it catches up gradually
+        mEstimator.update(TRIP_ID, SHAPE_ID, 200, length, 11000, 11000, 10000);
+        assertPosition(100, 10000);
+        assertPosition(165, 11500);
+        assertPosition(280, 18000);
+
+        // The same response again is ignored
+        mEstimator.update(TRIP_ID, SHAPE_ID, 200, length, 11000, 11000, 18000);
+        assertPosition(280, 18000);
+
+        // Predictions stop at the end of the trip
+        assertPosition(length, 200000);
+    }
+
+    @Test
+    public void testNoBackwards() {
+        double length = mShape.getLength();
+        mEstimator.putShape(SHAPE_ID, mShape);
+        mEstimator.update(TRIP_ID, SHAPE_ID, 100, length, 1000, 1000, 0);
+        mEstimator.update(TRIP_ID, SHAPE_ID, 200, length, 11000, 11000, 10000);
+        assertPosition(280, 18000);
+
+        // The vehicle is behind where it's shown, and has slowed down to 7.5m/s - it's held in
+        // place until the prediction catches up
+        mEstimator.update(TRIP_ID, SHAPE_ID, 250, length, 21000, 21000, 20000);
+        assertPosition(280, 20000);
+        assertPosition(280, 21000);
+        assertPosition(287.5, 25000);
+
+        // Large differences move the vehicle right away
+        mEstimator.update(TRIP_ID, SHAPE_ID, 900, length, 31000, 31000, 30000);
+        assertPosition(900, 30000);
+    }
+
+    @Test
+    public void testStopsMoving() {
+        double length = mShape.getLength();
+        mEstimator.putShape(SHAPE_ID, mShape);
+        mEstimator.update(TRIP_ID, SHAPE_ID, 100, length, 1000, 1000, 0);
+        // The speed isn't known yet
+        assertFalse(mEstimator.isExtrapolating(TRIP_ID, 1000));
+        assertFalse(mEstimator.isCorrecting(TRIP_ID, 1000));
+
+        mEstimator.getPosition(TRIP_ID, 5000, mOut);
+        mEstimator.update(TRIP_ID, SHAPE_ID, 200, length, 11000, 11000, 10000);
+        assertTrue(mEstimator.isExtrapolating(TRIP_ID, 10000));
+        assertTrue(mEstimator.isCorrecting(TRIP_ID, 10000));
+        assertFalse(mEstimator.isCorrecting(TRIP_ID,
+                10000 + VehiclePositionEstimator.CORRECTION_MS));
+
+        // Predictions stop at the end of the trip, and after a while without updates
+        assertTrue(mEstimator.isExtrapolating(TRIP_ID, 60000));
+        assertFalse(mEstimator.isExtrapolating(TRIP_ID, 110000));
+        mEstimator.update(TRIP_ID, SHAPE_ID, 210, 0, 21000, 21000, 20000);
+        assertTrue(mEstimator.isExtrapolating(TRIP_ID, 20000 + TimeUnit.SECONDS.toMillis(90)));
+        assertFalse(mEstimator.isExtrapolating(TRIP_ID,
+                20000 + VehiclePositionEstimator.MAX_EXTRAPOLATION_MS));
+        assertFalse(mEstimator.isExtrapolating("1_other", 20000));
+    }
+
+    @Test
+    public void testStaleLocation() {
+        double length = mShape.getLength();
+        long serverTime = TimeUnit.MINUTES.toMillis(10);
+        mEstimator.putShape(SHAPE_ID, mShape);
+        mEstimator.update(TRIP_ID, SHAPE_ID, 100, length, serverTime, 1000, 0);
+        mEstimator.update(TRIP_ID, SHAPE_ID, 200, length, serverTime + 10000, 1000, 10000);
+
+        // We haven't heard from the vehicle in a long time, so it isn't moved
+        assertPosition(200, 60000);
+        assertFalse(mEstimator.isExtrapolating(TRIP_ID, 60000));
+    }
+
+    @Test
+    public void testRetainTrips() {
+        mEstimator.putShape(SHAPE_ID, mShape);
+        mEstimator.update(TRIP_ID, SHAPE_ID, 100, mShape.getLength(), 1000, 1000, 0);
+        mEstimator.retainTrips(Collections.singleton(TRIP_ID));
+        assertEquals(1, mEstimator.size());
+
+        mEstimator.retainTrips(Collections.<String>emptySet());
+        assertEquals(0, mEstimator.size());
+        assertFalse(mEstimator.getPosition(TRIP_ID, 0, mOut));
+        // Shapes are kept for the next vehicles on the route
+        assertTrue(mEstimator.hasShape(SHAPE_ID));
+    }
+
+    /**
+     * Asserts that the vehicle is shown the given distance along the shape at the given time
+     */
+    private void assertPosition(double distance, long now) {
+        double[] expected = new double[2];
+        mShape.getPosition(distance, expected);
+        assertTrue(mEstimator.getPosition(TRIP_ID, now, mOut));
+        assertEquals(expected[0], mOut[0], 1e-7);
+        assertEquals(expected[1], mOut[1], 1e-7);
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.mock;
+
+import android.net.Uri;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A minimal local HTTP/1.1 server for testing the real connection classes.  Responses are
+ * served in the order they are enqueued, and each request that is received is recorded so
+ * tests can check the headers and body that were sent.
+ */
+public class MockHttpServer {
+
+    /**
+     * A canned response
+     */
+    public static class Response {
+
+        private final int mCode;
+
+        private final Map<String, String> mHeaders = new LinkedHashMap<>();
+
+        private byte[] mBody = new byte[0];
+
+        public Response(int code) {
+            mCode = code;
+        }
+
+        public Response setHeader(String name, String value) {
+            mHeaders.put(name, value);
+            return this;
+        }
+
+        public Response setBody(String body) {
+            try {
+                mBody = body.getBytes("UTF-8");
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            return this;
+        }
+
+        public Response setBody(byte[] body) {
+            mBody = body;
+            return this;
+        }
+    }
+
+    /**
+     * A request received by the server
+     */
+    public static class RecordedRequest {
+
+        private final String mMethod;
+
+        private final String mPath;
+
+        private final Map<String, String> mHeaders;
+
+        private final byte[] mBody;
+
+        RecordedRequest(String method, String path, Map<String, String> headers, byte[] body) {
+            mMethod = method;
+            mPath = path;
+            mHeaders = headers;
+            mBody = body;
+        }
+
+        public String getMethod() {
+            return mMethod;
+        }
+
+        public String getPath() {
+            return mPath;
+        }
+
+        /**
+         * @param name header name, case-insensitive
+         */
+        public String getHeader(String name) {
+            return mHeaders.get(name.toLowerCase(Locale.US));
+        }
+
+        public byte[] getBody() {
+            return mBody;
+        }
+    }
+
+    private final ServerSocket mServerSocket;
+
+    private final BlockingQueue<Response> mResponses = new LinkedBlockingQueue<>();
+
+    private final List<RecordedRequest> mRequests =
+            Collections.synchronizedList(new ArrayList<RecordedRequest>());
+
+    private final Thread mThread;
+
+    public MockHttpServer() throws IOException {
+        mServerSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+        mThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                serve();
+            }
+        }, "MockHttpServer");
+        mThread.start();
+    }
+
+    public void enqueue(Response response) {
+        mResponses.add(response);
+    }
+
+    /**
+     * @return a Uri on this server for the given path, which should start with "/"
+     */
+    public Uri getUri(String path) {
+        return Uri.parse("http://127.0.0.1:" + mServerSocket.getLocalPort() + path);
+    }
+
+    public int getRequestCount() {
+        return mRequests.size();
+    }
+
+    public RecordedRequest getRequest(int index) {
+        return mRequests.get(index);
+    }
+
+    public void shutdown() {
+        try {
+            mServerSocket.close();
+        } catch (IOException e) {
+            // Ignore
+        }
+        mThread.interrupt();
+    }
+
+    private void serve() {
+        while (!mServerSocket.isClosed()) {
+            Socket socket = null;
+            try {
+                socket = mServerSocket.accept();
+                InputStream in = new BufferedInputStream(socket.getInputStream());
+                // Handle keep-alive connections, until the client closes the connection
+                while (handle(socket, in)) {
+                    // Keep going
+                }
+            } catch (IOException e) {
+                // Socket closed
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                if (socket != null) {
+                    try {
+                        socket.close();
+                    } catch (IOException e) {
+                        // Ignore
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean handle(Socket socket, InputStream in)
+            throws IOException, InterruptedException {
+        String requestLine = readLine(in);
+        if (requestLine == null || requestLine.isEmpty()) {
+            return false;
+        }
+        String[] parts = requestLine.split(" ");
+        Map<String, String> headers = new LinkedHashMap<>();
+        String line;
+        while ((line = readLine(in)) != null && !line.isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.put(line.substring(0, colon).trim().toLowerCase(Locale.US),
+                        line.substring(colon + 1).trim());
+            }
+        }
+        byte[] body = new byte[0];
+        String contentLength = headers.get("content-length");
+        if (contentLength != null) {
+            body = new byte[Integer.parseInt(contentLength)];
+            int read = 0;
+            while (read < body.length) {
+                int n = in.read(body, read, body.length - read);
+                if (n < 0) {
+                    break;
+                }
+                read += n;
+            }
+        }
+        mRequests.add(new RecordedRequest(parts[0], parts.length > 1 ? parts[1] : "", headers,
+                body));
+
+        Response response = mResponses.poll(5, TimeUnit.SECONDS);
+        if (response == null) {
+            response = new Response(500).setBody("No response enqueued");
+        }
+        StringBuilder head = new StringBuilder();
+        head.append("HTTP/1.1 ").append(response.mCode).append(" Mock\r\n");
+        for (Map.Entry<String, String> header : response.mHeaders.entrySet()) {
+            head.append(header.getKey()).append(": ").append(header.getValue()).append("\r\n");
+        }
+        head.append("Content-Length: ").append(response.mBody.length).append("\r\n\r\n");
+        OutputStream out = socket.getOutputStream();
+        out.write(head.toString().getBytes("UTF-8"));
+        out.write(response.mBody);
+        out.flush();
+        return true;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int c;
+        while ((c = in.read()) != -1) {
+            if (c == '\n') {
+                break;
+            }
+            if (c != '\r') {
+                line.write(c);
+            }
+        }
+        if (c == -1 && line.size() == 0) {
+            return null;
+        }
+        return line.toString("UTF-8");
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.nav.test;
+
+/**
+ * The recorded trips in res/raw, with the indexes of the locations the "Get ready" and "Pull the
+ * cord now" alerts are expected at.  NavigationTest asserts the alerts fire at these indexes, and
+ * NavigationReplayBenchmark reports how far they fired from them.
+ *
+ * To add a trip, add its CSV file name and expected indexes to TRIPS, then add its test to
+ * NavigationTest.
+ */
+final class NavigationGroundTruth {
+
+    static final NavigationGroundTruth[] TRIPS = {
+            new NavigationGroundTruth("nav_trip1", 848, 978),
+            new NavigationGroundTruth("nav_trip1c", 665, 929),
+            new NavigationGroundTruth("nav_trip2", 0, 15),
+            new NavigationGroundTruth("nav_trip2c", 0, 64),
+            new NavigationGroundTruth("nav_trip3", 95, 111),
+            new NavigationGroundTruth("nav_trip3c", 87, 109),
+            new NavigationGroundTruth("nav_trip4", 294, 329),
+            new NavigationGroundTruth("nav_trip4c", 253, 329),
+            new NavigationGroundTruth("nav_trip5", 372, 660),
+            new NavigationGroundTruth("nav_trip5c", 284, 492),
+            new NavigationGroundTruth("nav_trip6", 801, 837),
+            new NavigationGroundTruth("nav_trip6c", 676, 704),
+            new NavigationGroundTruth("nav_trip7", 183, 208),
+            new NavigationGroundTruth("nav_trip7c", 172, 285),
+            new NavigationGroundTruth("nav_trip8", 0, 18),
+            new NavigationGroundTruth("nav_trip8c", 0, 20),
+            new NavigationGroundTruth("nav_trip9", 1041, 1071),
+            new NavigationGroundTruth("nav_trip9c", 570, 634),
+            new NavigationGroundTruth("nav_trip10", 589, 605),
+            new NavigationGroundTruth("nav_trip10c", 484, 509),
+            new NavigationGroundTruth("nav_trip11", 331, 371),
+            new NavigationGroundTruth("nav_trip11c", 119, 158),
+            new NavigationGroundTruth("nav_trip12", 69, 199),
+            new NavigationGroundTruth("nav_trip12c", 880, 901),
+            new NavigationGroundTruth("nav_trip13", 2549, 2732),
+            new NavigationGroundTruth("nav_trip13c", 230, 519),
+            new NavigationGroundTruth("nav_trip14", 548, 571),
+            new NavigationGroundTruth("nav_trip14c", 387, 429),
+            new NavigationGroundTruth("nav_trip15", 225, 417),
+            new NavigationGroundTruth("nav_trip15c", 217, 287),
+            new NavigationGroundTruth("nav_trip16", 142, 192),
+            new NavigationGroundTruth("nav_trip16c", 121, 168),
+            new NavigationGroundTruth("nav_trip17", 100, 181),
+            new NavigationGroundTruth("nav_trip18", 31, 51),
+            new NavigationGroundTruth("nav_trip18c", 31, 58),
+            new NavigationGroundTruth("nav_trip20", 133, 195),
+            new NavigationGroundTruth("nav_trip20c", 53, 117),
+            new NavigationGroundTruth("nav_trip21", 547, 686),
+            new NavigationGroundTruth("nav_trip21c", 323, 402),
+            new NavigationGroundTruth("nav_trip22", 1085, 1198),
+            new NavigationGroundTruth("nav_trip22c", 1032, 1099),
+            new NavigationGroundTruth("nav_trip23", 0, 24),
+            new NavigationGroundTruth("nav_trip23c", 0, 19),
+            new NavigationGroundTruth("nav_trip24", 115, 178),
+            new NavigationGroundTruth("nav_trip24c", 203, 262),
+            new NavigationGroundTruth("nav_trip25", 209, 235),
+            new NavigationGroundTruth("nav_trip25c", 217, 247),
+            new NavigationGroundTruth("nav_trip26", 367, 463),
+            new NavigationGroundTruth("nav_trip27", 909, 944),
+            new NavigationGroundTruth("nav_trip28", 400, 473),
+            new NavigationGroundTruth("nav_trip29", 472, 594),
+            new NavigationGroundTruth("nav_trip30", 1001, 1048),
+            new NavigationGroundTruth("nav_trip31", 2508, 2654),
+            new NavigationGroundTruth("nav_trip32", 1847, 1888),
+            new NavigationGroundTruth("nav_trip33", 335, 401)
+    };
+
+    final String mName;
+
+    final int mGetReadyIndex;
+
+    final int mPullCordIndex;
+
+    private NavigationGroundTruth(String name, int getReadyIndex, int pullCordIndex) {
+        mName = name;
+        mGetReadyIndex = getReadyIndex;
+        mPullCordIndex = pullCordIndex;
+    }
+
+    /**
+     * @param name file name of the trip's CSV file in the raw resources directory
+     * @return the expected indexes for the trip
+     */
+    static NavigationGroundTruth get(String name) {
+        for (NavigationGroundTruth truth : TRIPS) {
+            if (truth.mName.equals(name)) {
+                return truth;
+            }
+        }
+        throw new IllegalArgumentException("No expected indexes for " + name);
+    }
+}
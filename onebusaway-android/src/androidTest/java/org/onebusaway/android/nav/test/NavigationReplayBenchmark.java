@@ -0,0 +1,282 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.nav.test;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onebusaway.android.io.test.ObaTestCase;
+import org.onebusaway.android.nav.NavigationServiceProvider;
+import org.onebusaway.android.nav.model.Path;
+import org.onebusaway.android.nav.model.PathLink;
+import org.onebusaway.android.util.LocationUtils;
+
+import android.location.Location;
+import android.os.Debug;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Replays the recorded trips in res/raw through NavigationServiceProvider.locationUpdated() as fast
+ * as possible, so changes to the proximity logic can be judged on the cost of each location, the
+ * allocations it causes, when the alerts fire compared to the indexes NavigationTest expects, and
+ * how many locations per second can be handled when many trips are navigated at once.  Not
+ * pass/fail tests - results are written to the log.
+ *
+ * Trips are read with NavigationTrip, and their expected indexes come from NavigationGroundTruth.
+ */
+@RunWith(AndroidJUnit4.class)
+public class NavigationReplayBenchmark extends ObaTestCase {
+
+    private static final String TAG = "NavReplayBenchmark";
+
+    // Number of times all trips are replayed in each throughput run
+    private static final int THROUGHPUT_ROUNDS = 4;
+
+    /**
+     * Replays each trip after a warm-up pass over all of them, and logs the latency and
+     * allocations per location along with when the alerts fired compared to the expected indexes
+     */
+    @Test
+    public void testReplay() throws IOException {
+        NavigationTest.checkTravis();
+        List<Trip> trips = loadTrips();
+
+        // Let the JIT compile the hot path before measuring
+        for (Trip trip : trips) {
+            replay(trip, createProvider(trip), null);
+        }
+
+        List<long[]> allLatencies = new ArrayList<>();
+        long allocations = 0;
+        int fixes = 0;
+        int getReadyMatches = 0;
+        int pullCordMatches = 0;
+        for (Trip trip : trips) {
+            NavigationServiceProvider provider = createProvider(trip);
+            Result result = new Result(trip.mRecording.mLocations.length);
+            replay(trip, provider, result);
+
+            long[] latencies = Arrays.copyOf(result.mLatencies, result.mFixes);
+            allLatencies.add(latencies);
+            allocations += result.mAllocations;
+            fixes += result.mFixes;
+            if (result.mGetReadyIndex == trip.mTruth.mGetReadyIndex) {
+                getReadyMatches++;
+            }
+            if (result.mPullCordIndex == trip.mTruth.mPullCordIndex) {
+                pullCordMatches++;
+            }
+
+            Arrays.sort(latencies);
+            Log.d(TAG, String.format(Locale.US, "%s: %d locations, %s, %.1f allocations per "
+                            + "location, get ready %s, pull the cord %s", trip.mTruth.mName,
+                    result.mFixes, formatLatencies(latencies), (double) result.mAllocations
+                            / Math.max(1, result.mFixes),
+                    formatTrigger(trip, result.mGetReadyIndex, trip.mTruth.mGetReadyIndex),
+                    formatTrigger(trip, result.mPullCordIndex, trip.mTruth.mPullCordIndex)));
+        }
+
+        long[] latencies = new long[fixes];
+        int offset = 0;
+        for (long[] l : allLatencies) {
+            System.arraycopy(l, 0, latencies, offset, l.length);
+            offset += l.length;
+        }
+        Arrays.sort(latencies);
+        Log.d(TAG, String.format(Locale.US, "All trips: %d locations, %s, %.1f allocations per "
+                        + "location, get ready matched %d/%d, pull the cord matched %d/%d", fixes,
+                formatLatencies(latencies), (double) allocations / Math.max(1, fixes),
+                getReadyMatches, trips.size(), pullCordMatches, trips.size()));
+    }
+
+    /**
+     * Replays all trips at once on increasing numbers of threads, each trip with its own
+     * NavigationServiceProvider, and logs the number of locations handled per second
+     */
+    @Test
+    public void testThroughput() throws Exception {
+        NavigationTest.checkTravis();
+        final List<Trip> trips = loadTrips();
+        int processors = Runtime.getRuntime().availableProcessors();
+
+        for (int threads : new int[]{1, processors, processors * 4}) {
+            // Providers are created up front, as they share a TextToSpeech instance that's
+            // initialized on first use
+            List<Trip> runs = new ArrayList<>();
+            List<NavigationServiceProvider> providers = new ArrayList<>();
+            for (int round = 0; round < THROUGHPUT_ROUNDS; round++) {
+                for (Trip trip : trips) {
+                    runs.add(trip);
+                    providers.add(createProvider(trip));
+                }
+            }
+
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<Future<Integer>> futures = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int i = 0; i < runs.size(); i++) {
+                final Trip trip = runs.get(i);
+                final NavigationServiceProvider provider = providers.get(i);
+                futures.add(executor.submit(() -> replay(trip, provider, null)));
+            }
+            long fixes = 0;
+            for (Future<Integer> future : futures) {
+                fixes += future.get();
+            }
+            long elapsed = System.nanoTime() - start;
+            executor.shutdown();
+
+            Log.d(TAG, String.format(Locale.US, "%d threads: %d trips, %d locations in %d ms, "
+                            + "%.0f locations per second", threads, runs.size(), fixes,
+                    elapsed / 1000000, fixes * 1e9 / elapsed));
+        }
+    }
+
+    /**
+     * Feeds the trip's locations to the provider until "Pull the cord now" fires or the trip
+     * ends, skipping duplicates as NavigationService would
+     *
+     * @param result if not null, the latency and allocations of each location and the indexes
+     *               the alerts fired at are recorded here
+     * @return the number of locations passed to the provider
+     */
+    @SuppressWarnings("deprecation")
+    private static int replay(Trip trip, NavigationServiceProvider provider, Result result) {
+        if (result != null) {
+            Debug.resetThreadAllocCount();
+            Debug.startAllocCounting();
+        }
+        Location prevLocation = null;
+        int fixes = 0;
+        for (int i = 0; i < trip.mRecording.mLocations.length; i++) {
+            Location l = trip.mRecording.mLocations[i];
+            if (prevLocation != null && LocationUtils.isDuplicate(prevLocation, l)) {
+                continue;
+            }
+            prevLocation = l;
+
+            long start = System.nanoTime();
+            provider.locationUpdated(l);
+            long latency = System.nanoTime() - start;
+            fixes++;
+
+            if (result != null) {
+                result.mLatencies[result.mFixes++] = latency;
+                if (result.mGetReadyIndex == -1 && provider.getGetReady()) {
+                    result.mGetReadyIndex = i;
+                }
+            }
+            if (provider.getFinished()) {
+                if (result != null) {
+                    result.mPullCordIndex = i;
+                }
+                break;
+            }
+        }
+        if (result != null) {
+            Debug.stopAllocCounting();
+            result.mAllocations = Debug.getThreadAllocCount();
+        }
+        return fixes;
+    }
+
+    private static NavigationServiceProvider createProvider(Trip trip) {
+        NavigationTrip recording = trip.mRecording;
+        NavigationServiceProvider provider = new NavigationServiceProvider(recording.mTripId,
+                recording.mDestinationId);
+        PathLink link = new PathLink(recording.mLocations[0].getTime(), null,
+                recording.mSecondToLastLocation, recording.mDestinationLocation,
+                recording.mTripId);
+        provider.navigate(new Path(new ArrayList<>(Collections.singletonList(link))));
+        return provider;
+    }
+
+    private static List<Trip> loadTrips() throws IOException {
+        List<Trip> trips = new ArrayList<>(NavigationGroundTruth.TRIPS.length);
+        for (NavigationGroundTruth truth : NavigationGroundTruth.TRIPS) {
+            trips.add(new Trip(truth, NavigationTrip.read(truth.mName)));
+        }
+        return trips;
+    }
+
+    private static String formatLatencies(long[] sorted) {
+        if (sorted.length == 0) {
+            return "no locations";
+        }
+        return String.format(Locale.US, "median %d ns, 99th percentile %d ns, max %d ns",
+                sorted[sorted.length / 2], sorted[(int) (sorted.length * 0.99)],
+                sorted[sorted.length - 1]);
+    }
+
+    /**
+     * @return how far the alert fired from the expected index, in locations and seconds of the
+     * recorded trip
+     */
+    private static String formatTrigger(Trip trip, int actual, int expected) {
+        if (actual == -1) {
+            return "missed";
+        }
+        long seconds = (trip.mRecording.mLocations[actual].getTime()
+                - trip.mRecording.mLocations[expected].getTime()) / 1000;
+        return String.format(Locale.US, "%+d (%+d s)", actual - expected, seconds);
+    }
+
+    private static class Result {
+
+        final long[] mLatencies;
+
+        int mFixes;
+
+        long mAllocations;
+
+        int mGetReadyIndex = -1;
+
+        int mPullCordIndex = -1;
+
+        Result(int maxFixes) {
+            mLatencies = new long[maxFixes];
+        }
+    }
+
+    /**
+     * A recorded trip and its expected indexes
+     */
+    private static class Trip {
+
+        final NavigationGroundTruth mTruth;
+
+        final NavigationTrip mRecording;
+
+        Trip(NavigationGroundTruth truth, NavigationTrip recording) {
+            mTruth = truth;
+            mRecording = recording;
+            assertTrue(mRecording.mLocations.length > mTruth.mPullCordIndex);
+        }
+    }
+}
@@ -15,30 +15,25 @@
  */
 package org.onebusaway.android.nav.test;
 
-import org.apache.commons.io.IOUtils;
 import org.junit.Assume;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.onebusaway.android.io.test.ObaTestCase;
-import org.onebusaway.android.mock.Resources;
 import org.onebusaway.android.nav.NavigationServiceProvider;
 import org.onebusaway.android.nav.model.Path;
 import org.onebusaway.android.nav.model.PathLink;
 import org.onebusaway.android.util.LocationUtils;
 
 import android.location.Location;
-import android.location.LocationManager;
 import android.os.Build;
 import android.util.Log;
 
 import java.io.IOException;
-import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Collections;
 
 import androidx.test.runner.AndroidJUnit4;
 
-import static androidx.test.InstrumentationRegistry.getTargetContext;
 import static junit.framework.Assert.assertTrue;
 import static junit.framework.Assert.fail;
 import static org.onebusaway.android.util.TestUtils.isRunningOnTravis;
@@ -65,7 +60,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip1() throws IOException {
         checkTravis();
-        runSimulation("nav_trip1", 848, 978);
+        runSimulation("nav_trip1");
     }
 
     /**
@@ -77,7 +72,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip1C() throws IOException {
         checkTravis();
-        runSimulation("nav_trip1c", 665, 929);
+        runSimulation("nav_trip1c");
     }
 
     /**
@@ -89,7 +84,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip2() throws IOException {
         checkTravis();
-        runSimulation("nav_trip2", 0, 15);
+        runSimulation("nav_trip2");
     }
 
     /**
@@ -100,7 +95,7 @@ public class NavigationTest extends ObaTestCase {
      */
     @Test
     public void testTrip2C() throws IOException {
-        runSimulation("nav_trip2c", 0, 64);
+        runSimulation("nav_trip2c");
     }
 
     /**
@@ -112,7 +107,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip3() throws IOException {
         checkTravis();
-        runSimulation("nav_trip3", 95, 111);
+        runSimulation("nav_trip3");
     }
 
     /**
@@ -124,7 +119,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip3C() throws IOException {
         checkTravis();
-        runSimulation("nav_trip3c", 87, 109);
+        runSimulation("nav_trip3c");
     }
 
     /**
@@ -137,7 +132,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip4() throws IOException {
         checkTravis();
-        runSimulation("nav_trip4", 294, 329);
+        runSimulation("nav_trip4");
     }
 
     /**
@@ -150,7 +145,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip4C() throws IOException {
         checkTravis();
-        runSimulation("nav_trip4c", 253, 329);
+        runSimulation("nav_trip4c");
     }
 
     /**
@@ -162,7 +157,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip5() throws IOException {
         checkTravis();
-        runSimulation("nav_trip5", 372, 660);
+        runSimulation("nav_trip5");
     }
 
     /**
@@ -174,7 +169,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip5C() throws IOException {
         checkTravis();
-        runSimulation("nav_trip5c", 284, 492);
+        runSimulation("nav_trip5c");
     }
 
     /**
@@ -186,7 +181,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip6() throws IOException {
         checkTravis();
-        runSimulation("nav_trip6", 801, 837);
+        runSimulation("nav_trip6");
     }
 
     /**
@@ -198,7 +193,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip6C() throws IOException {
         checkTravis();
-        runSimulation("nav_trip6c", 676, 704);
+        runSimulation("nav_trip6c");
     }
 
     /**
@@ -210,7 +205,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip7() throws IOException {
         checkTravis();
-        runSimulation("nav_trip7", 183, 208);
+        runSimulation("nav_trip7");
     }
 
     /**
@@ -222,7 +217,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip7C() throws IOException {
         checkTravis();
-        runSimulation("nav_trip7c", 172, 285);
+        runSimulation("nav_trip7c");
     }
 
     /**
@@ -234,7 +229,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip8() throws IOException {
         checkTravis();
-        runSimulation("nav_trip8", 0, 18);
+        runSimulation("nav_trip8");
     }
 
     /**
@@ -246,7 +241,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip8C() throws IOException {
         checkTravis();
-        runSimulation("nav_trip8c", 0, 20);
+        runSimulation("nav_trip8c");
     }
 
     /**
@@ -258,7 +253,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip9() throws IOException {
         checkTravis();
-        runSimulation("nav_trip9", 1041, 1071);
+        runSimulation("nav_trip9");
     }
 
     /**
@@ -270,7 +265,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip9C() throws IOException {
         checkTravis();
-        runSimulation("nav_trip9c", 570, 634);
+        runSimulation("nav_trip9c");
     }
 
     /**
@@ -282,7 +277,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip10() throws IOException {
         checkTravis();
-        runSimulation("nav_trip10", 589, 605);
+        runSimulation("nav_trip10");
     }
 
     /**
@@ -294,7 +289,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip10C() throws IOException {
         checkTravis();
-        runSimulation("nav_trip10c", 484, 509);
+        runSimulation("nav_trip10c");
     }
 
     /**
@@ -306,7 +301,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip11() throws IOException {
         checkTravis();
-        runSimulation("nav_trip11", 331, 371);
+        runSimulation("nav_trip11");
     }
 
     /**
@@ -318,7 +313,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip11C() throws IOException {
         checkTravis();
-        runSimulation("nav_trip11c", 119, 158);
+        runSimulation("nav_trip11c");
     }
 
     /**
@@ -330,7 +325,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip12() throws IOException {
         checkTravis();
-        runSimulation("nav_trip12", 69, 199);
+        runSimulation("nav_trip12");
     }
 
     /**
@@ -342,7 +337,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip12C() throws IOException {
         checkTravis();
-        runSimulation("nav_trip12c", 880, 901);
+        runSimulation("nav_trip12c");
     }
 
     /**
@@ -354,7 +349,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip13() throws IOException {
         checkTravis();
-        runSimulation("nav_trip13", 2549, 2732);
+        runSimulation("nav_trip13");
     }
 
     /**
@@ -366,7 +361,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip13C() throws IOException {
         checkTravis();
-        runSimulation("nav_trip13c", 230, 519);
+        runSimulation("nav_trip13c");
     }
 
     /**
@@ -381,7 +376,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip14() throws IOException {
         checkTravis();
-        runSimulation("nav_trip14", 548, 571);
+        runSimulation("nav_trip14");
     }
 
     /**
@@ -393,7 +388,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip14C() throws IOException {
         checkTravis();
-        runSimulation("nav_trip14c", 387, 429);
+        runSimulation("nav_trip14c");
     }
 
     /**
@@ -405,7 +400,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip15() throws IOException {
         checkTravis();
-        runSimulation("nav_trip15", 225, 417);
+        runSimulation("nav_trip15");
     }
 
     /**
@@ -417,7 +412,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip15C() throws IOException {
         checkTravis();
-        runSimulation("nav_trip15c", 217, 287);
+        runSimulation("nav_trip15c");
     }
 
     /**
@@ -430,7 +425,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip16() throws IOException {
         checkTravis();
-        runSimulation("nav_trip16", 142, 192);
+        runSimulation("nav_trip16");
     }
 
     /**
@@ -442,7 +437,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip16C() throws IOException {
         checkTravis();
-        runSimulation("nav_trip16c", 121, 168);
+        runSimulation("nav_trip16c");
     }
 
     /**
@@ -454,7 +449,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip17() throws IOException {
         checkTravis();
-        runSimulation("nav_trip17", 100, 181);
+        runSimulation("nav_trip17");
     }
 
     /**
@@ -466,7 +461,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip18() throws IOException {
         checkTravis();
-        runSimulation("nav_trip18", 31, 51);
+        runSimulation("nav_trip18");
     }
 
     /**
@@ -478,7 +473,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip18C() throws IOException {
         checkTravis();
-        runSimulation("nav_trip18c", 31, 58);
+        runSimulation("nav_trip18c");
     }
 
     /**
@@ -490,7 +485,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip20() throws IOException {
         checkTravis();
-        runSimulation("nav_trip20", 133, 195);
+        runSimulation("nav_trip20");
     }
 
     /**
@@ -502,7 +497,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip20C() throws IOException {
         checkTravis();
-        runSimulation("nav_trip20c", 53, 117);
+        runSimulation("nav_trip20c");
     }
 
     /**
@@ -514,7 +509,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip21() throws IOException {
         checkTravis();
-        runSimulation("nav_trip21", 547, 686);
+        runSimulation("nav_trip21");
     }
 
     /**
@@ -526,7 +521,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip21C() throws IOException {
         checkTravis();
-        runSimulation("nav_trip21c", 323, 402);
+        runSimulation("nav_trip21c");
     }
 
     /**
@@ -538,7 +533,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip22() throws IOException {
         checkTravis();
-        runSimulation("nav_trip22", 1085, 1198);
+        runSimulation("nav_trip22");
     }
 
     /**
@@ -550,7 +545,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip22C() throws IOException {
         checkTravis();
-        runSimulation("nav_trip22c", 1032, 1099);
+        runSimulation("nav_trip22c");
     }
 
     /**
@@ -562,7 +557,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip23() throws IOException {
         checkTravis();
-        runSimulation("nav_trip23", 0, 24);
+        runSimulation("nav_trip23");
     }
 
     /**
@@ -574,7 +569,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip23C() throws IOException {
         checkTravis();
-        runSimulation("nav_trip23c", 0, 19);
+        runSimulation("nav_trip23c");
     }
 
     /**
@@ -586,7 +581,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip24() throws IOException {
         checkTravis();
-        runSimulation("nav_trip24", 115, 178);
+        runSimulation("nav_trip24");
     }
 
     /**
@@ -598,7 +593,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip24C() throws IOException {
         checkTravis();
-         runSimulation("nav_trip24c", 203, 262);
+         runSimulation("nav_trip24c");
     }
 
     /**
@@ -610,7 +605,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip25() throws IOException {
         checkTravis();
-        runSimulation("nav_trip25", 209, 235);
+        runSimulation("nav_trip25");
     }
 
     /**
@@ -622,7 +617,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip25C() throws IOException {
         checkTravis();
-        runSimulation("nav_trip25c", 217, 247);
+        runSimulation("nav_trip25c");
     }
 
     /**
@@ -634,7 +629,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip26() throws IOException {
         checkTravis();
-        runSimulation("nav_trip26", 367, 463);
+        runSimulation("nav_trip26");
     }
 
     /**
@@ -646,7 +641,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip27() throws IOException {
         checkTravis();
-        runSimulation("nav_trip27", 909, 944);
+        runSimulation("nav_trip27");
     }
 
     /**
@@ -658,7 +653,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip28() throws IOException {
         checkTravis();
-        runSimulation("nav_trip28", 400, 473);
+        runSimulation("nav_trip28");
     }
 
     /**
@@ -670,7 +665,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip29() throws IOException {
         checkTravis();
-        runSimulation("nav_trip29", 472, 594);
+        runSimulation("nav_trip29");
     }
 
     /**
@@ -682,7 +677,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip30() throws IOException {
         checkTravis();
-        runSimulation("nav_trip30", 1001, 1048);
+        runSimulation("nav_trip30");
     }
 
     /**
@@ -694,7 +689,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip31() throws IOException {
         checkTravis();
-        runSimulation("nav_trip31", 2508, 2654);
+        runSimulation("nav_trip31");
     }
 
     /**
@@ -707,7 +702,7 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip32() throws IOException {
         checkTravis();
-        runSimulation("nav_trip32", 1847, 1888);
+        runSimulation("nav_trip32");
     }
 
     /**
@@ -719,21 +714,19 @@ public class NavigationTest extends ObaTestCase {
     @Test
     public void testTrip33() throws IOException {
         checkTravis();
-        runSimulation("nav_trip33", 335, 401);
+        runSimulation("nav_trip33");
     }
 
     /**
-     * Runs the simulation with the provided CSV data and expected "Get ready" and "Pull the Cord Now" notification indexes
+     * Runs the simulation with the provided CSV data and the "Get ready" and "Pull the Cord Now"
+     * notification indexes expected for it in NavigationGroundTruth
      *
      * @param csvFileName file name of the CSV file to load from the raw resources directory that contains the test location data from a user's trip
-     * @param expectedGetReadyIndex the index when the "Get Ready" notification is expected
-     * @param expectedPullCordIndex the index for when the "Pull the Cord Now" notification is expected
      */
-    private void runSimulation(String csvFileName, int expectedGetReadyIndex, int expectedPullCordIndex) throws IOException {
-        Reader reader = Resources.read(getTargetContext(), Resources.getTestUri(csvFileName));
-        String csv = IOUtils.toString(reader);
-        NavigationSimulation trip = new NavigationSimulation(csv);
-        trip.runSimulation(expectedGetReadyIndex, expectedPullCordIndex);
+    private void runSimulation(String csvFileName) throws IOException {
+        NavigationGroundTruth truth = NavigationGroundTruth.get(csvFileName);
+        NavigationSimulation trip = new NavigationSimulation(NavigationTrip.read(csvFileName));
+        trip.runSimulation(truth.mGetReadyIndex, truth.mPullCordIndex);
     }
 
     // Class for holding relevant details for testing.
@@ -762,63 +755,16 @@ public class NavigationTest extends ObaTestCase {
          * Loads recorded user location data into the simulation for testing navigation.  Recorded user
          * data simulates a real-time trip.
          *
-         * @param csv string with the above format
+         * @param trip trip read from its CSV file
          */
-        NavigationSimulation(String csv) {
-            String[] lines = csv.split("\n");
-
-            // Setup meta data.
-            String[] details = lines[0].split(",");
-            mTripId = details[0];
-            mDestinationId = details[1];
-            mBeforeId = details[4];
-
-            mDestinationLocation = new Location(LocationManager.GPS_PROVIDER);
-            mDestinationLocation.setLatitude(Double.parseDouble(details[2]));
-            mDestinationLocation.setLongitude(Double.parseDouble(details[3]));
-
-            mSecondToLastLocation = new Location(LocationManager.GPS_PROVIDER);
-            mSecondToLastLocation.setLatitude(Double.parseDouble(details[5]));
-            mSecondToLastLocation.setLongitude(Double.parseDouble(details[6]));
-
-            mLocations = new Location[lines.length - 1];
-
-            // Skip header and run through csv.
-            // Rows are formatted like this:
-            // realtime Nanos Elapsed,time,lat,lng,altitude,speed,bearing,accurarcy,satellites,provider.
-            for (int i = 1; i < lines.length; i++) {
-                String[] values = lines[i].split(",");
-                int coordinateIndex = Integer.parseInt(values[0]);
-                String getReadyValue = values[1];
-                String pullTheCordValue = values[2];
-                String nanosStr = values[3];
-                long time = Long.parseLong(values[4]);
-                double lat = Double.parseDouble(values[5]);
-                double lng = Double.parseDouble(values[6]);
-                double altitude = Double.parseDouble(values[7]);
-                float speed = Float.parseFloat(values[8]);
-                float bearing = Float.parseFloat(values[9]);
-                float accuracy = Float.parseFloat(values[10]);
-                int sats = Integer.parseInt(values[11]);
-                String provider = values[12];
-
-                mLocations[i - 1] = new Location(provider);
-
-                // Check if we can use elapsed nano seconds. Else, we'll use time.
-                if (!nanosStr.equals("")
-                        && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
-                    useElapsedNanos = true;
-                    mLocations[i - 1].setElapsedRealtimeNanos(Long.parseLong(nanosStr));
-                }
-
-                mLocations[i - 1].setTime(time);
-                mLocations[i - 1].setLatitude(lat);
-                mLocations[i - 1].setLongitude(lng);
-                mLocations[i - 1].setAltitude(altitude);
-                mLocations[i - 1].setBearing(bearing);
-                mLocations[i - 1].setAccuracy(accuracy);
-                mLocations[i - 1].setSpeed(speed);
-            }
+        NavigationSimulation(NavigationTrip trip) {
+            mTripId = trip.mTripId;
+            mDestinationId = trip.mDestinationId;
+            mBeforeId = trip.mBeforeId;
+            mDestinationLocation = trip.mDestinationLocation;
+            mSecondToLastLocation = trip.mSecondToLastLocation;
+            mLocations = trip.mLocations;
+            useElapsedNanos = trip.mUseElapsedNanos;
 
             // Compute index of point nearest to second to last stop.
             double minDist = Double.MAX_VALUE;
@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.nav.test;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onebusaway.android.nav.NavigationTraceReader;
+import org.onebusaway.android.nav.NavigationTraceWriter;
+import org.onebusaway.android.nav.model.Position;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import static androidx.test.InstrumentationRegistry.getTargetContext;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Tests writing and reading navigation trace files
+ */
+@RunWith(AndroidJUnit4.class)
+public class NavigationTraceTest {
+
+    private static final String TAG = "NavigationTraceTest";
+
+    private static final String HEADER = "Hillsborough Area Regional Transit_144514,"
+            + "Hillsborough Area Regional Transit_4552,28.053455,-82.416369,"
+            + "Hillsborough Area Regional Transit_3109,28.057800,-82.415793";
+
+    private File mDirectory;
+
+    @Before
+    public void before() throws IOException {
+        mDirectory = new File(getTargetContext().getCacheDir(), TAG);
+        FileUtils.deleteDirectory(mDirectory);
+        mDirectory.mkdirs();
+    }
+
+    @After
+    public void after() throws IOException {
+        FileUtils.deleteDirectory(mDirectory);
+    }
+
+    private static Position makePosition(int i) {
+        return new Position(0, i, i > 50, i > 90, 6850230000000L + i * 1000000000L,
+                1467390000000L + i * 1000L, 28.057786 + i * 0.0001, -82.415798, -22.0,
+                1.25f, 110.9f, 3.9f, 9, i % 2 == 0 ? "gps" : "fused");
+    }
+
+    private static void writeAll(NavigationTraceWriter writer, int count)
+            throws InterruptedException {
+        for (int i = 0; i < count; i++) {
+            // Give the flush thread a chance to catch up if the buffer is full
+            while (!writer.write(makePosition(i))) {
+                Thread.sleep(1);
+            }
+        }
+        writer.close();
+        assertTrue(writer.awaitClosed(10000));
+    }
+
+    private static List<Position> readAll(NavigationTraceReader reader) throws IOException {
+        List<Position> positions = new ArrayList<>();
+        Position p;
+        while ((p = reader.next()) != null) {
+            positions.add(p);
+        }
+        return positions;
+    }
+
+    private void testRoundTrip(NavigationTraceWriter.Format format) throws Exception {
+        File file = new File(mDirectory, "trace");
+        writeAll(new NavigationTraceWriter(file, HEADER, format,
+                NavigationTraceWriter.DEFAULT_MAX_FILE_SIZE), 100);
+
+        NavigationTraceReader reader = new NavigationTraceReader(file);
+        assertEquals(format, reader.getFormat());
+        assertEquals(HEADER, reader.getHeader());
+        List<Position> positions = readAll(reader);
+        reader.close();
+        assertEquals(100, positions.size());
+        for (int i = 0; i < 100; i++) {
+            Position expected = makePosition(i);
+            Position actual = positions.get(i);
+            assertEquals(expected.getCoordinateId(), actual.getCoordinateId());
+            assertEquals(expected.getGetReadyFlag(), actual.getGetReadyFlag());
+            assertEquals(expected.getPullTheCordNowFlag(), actual.getPullTheCordNowFlag());
+            assertEquals(expected.getTimeSinceAppStartedNanos(),
+                    actual.getTimeSinceAppStartedNanos());
+            assertEquals(expected.getTimeUtc(), actual.getTimeUtc());
+            // CSV has 6 decimal places
+            assertEquals(expected.getLatitude(), actual.getLatitude(), 0.000001);
+            assertEquals(expected.getLongitude(), actual.getLongitude(), 0.000001);
+            assertEquals(expected.getSpeed(), actual.getSpeed(), 0.000001f);
+            assertEquals(expected.getHorAccuracy(), actual.getHorAccuracy(), 0.000001f);
+            assertEquals(expected.getNumSatsUsed(), actual.getNumSatsUsed());
+            assertEquals(expected.getLocationProvider(), actual.getLocationProvider());
+        }
+    }
+
+    @Test
+    public void testCsvRoundTrip() throws Exception {
+        testRoundTrip(NavigationTraceWriter.Format.CSV);
+    }
+
+    @Test
+    public void testBinaryRoundTrip() throws Exception {
+        testRoundTrip(NavigationTraceWriter.Format.BINARY);
+    }
+
+    @Test
+    public void testCsvFormat() throws Exception {
+        File file = new File(mDirectory, "trace.csv");
+        writeAll(new NavigationTraceWriter(file, HEADER, NavigationTraceWriter.Format.CSV,
+                NavigationTraceWriter.DEFAULT_MAX_FILE_SIZE), 2);
+
+        // Same format as the recorded trips used by NavigationTest
+        String[] lines = FileUtils.readFileToString(file).split("\n");
+        assertEquals(3, lines.length);
+        assertEquals(HEADER, lines[0]);
+        assertEquals("1,false,false,6851230000000,1467390001000,28.057886,-82.415798,-22.000000,"
+                + "1.250000,110.900002,3.900000,9,fused", lines[2]);
+    }
+
+    @Test
+    public void testFeedback() throws Exception {
+        for (NavigationTraceWriter.Format format : NavigationTraceWriter.Format.values()) {
+            File file = new File(mDirectory, "trace-" + format);
+            writeAll(new NavigationTraceWriter(file, HEADER, format,
+                    NavigationTraceWriter.DEFAULT_MAX_FILE_SIZE), 10);
+            // Added the same way as FeedbackReceiver
+            FileUtils.write(file, "\nUser Feedback - Right on time, thanks", true);
+
+            NavigationTraceReader reader = new NavigationTraceReader(file);
+            assertEquals(10, readAll(reader).size());
+            assertEquals("User Feedback - Right on time, thanks", reader.getTrailer());
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testRotation() throws Exception {
+        File file = new File(mDirectory, "trace");
+        writeAll(new NavigationTraceWriter(file, HEADER, NavigationTraceWriter.Format.CSV,
+                4096), 500);
+
+        File previous = new File(file.getPath() + ".1");
+        assertTrue(previous.exists());
+        // Only the write that crossed the limit can go over it
+        assertTrue(file.length() < 4096 + 200);
+
+        // The file has the most recent positions, and the previous part the ones before them
+        NavigationTraceReader reader = new NavigationTraceReader(file);
+        assertEquals(HEADER, reader.getHeader());
+        List<Position> positions = readAll(reader);
+        reader.close();
+        assertEquals(499, positions.get(positions.size() - 1).getCoordinateId());
+        int first = positions.get(0).getCoordinateId();
+
+        reader = new NavigationTraceReader(previous);
+        List<Position> previousPositions = readAll(reader);
+        reader.close();
+        assertEquals(first - 1,
+                previousPositions.get(previousPositions.size() - 1).getCoordinateId());
+    }
+
+    /**
+     * Compares the time spent on the calling thread against writing each position to the file
+     * as it's recorded, as NavigationService used to.  Not a pass/fail test - results are written
+     * to the log.
+     */
+    @Test
+    public void testBenchmark() throws Exception {
+        final int count = 250;
+
+        File appendFile = new File(mDirectory, "append.csv");
+        FileUtils.write(appendFile, HEADER + "\n", false);
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            Position p = makePosition(i);
+            FileUtils.write(appendFile, String.format(Locale.US,
+                    "%d,%s,%s,%s,%d,%f,%f,%f,%f,%f,%f,%d,%s\n", p.getCoordinateId(),
+                    p.getGetReadyFlag(), p.getPullTheCordNowFlag(),
+                    Long.toString(p.getTimeSinceAppStartedNanos()), p.getTimeUtc(),
+                    p.getLatitude(), p.getLongitude(), p.getAltitude(), p.getSpeed(),
+                    p.getBearing(), p.getHorAccuracy(), p.getNumSatsUsed(),
+                    p.getLocationProvider()), true);
+        }
+        long appendNanos = System.nanoTime() - start;
+
+        for (NavigationTraceWriter.Format format : NavigationTraceWriter.Format.values()) {
+            File file = new File(mDirectory, "trace-" + format);
+            NavigationTraceWriter writer = new NavigationTraceWriter(file, HEADER, format,
+                    NavigationTraceWriter.DEFAULT_MAX_FILE_SIZE);
+            start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                writer.write(makePosition(i));
+            }
+            long writeNanos = System.nanoTime() - start;
+            writer.close();
+            assertTrue(writer.awaitClosed(10000));
+
+            start = System.nanoTime();
+            NavigationTraceReader reader = new NavigationTraceReader(file);
+            assertEquals(count, readAll(reader).size());
+            reader.close();
+            long readNanos = System.nanoTime() - start;
+
+            Log.d(TAG, format + ": " + writeNanos / count + " ns per position on the caller, "
+                    + file.length() + " bytes, read in " + readNanos / 1000000 + " ms");
+        }
+        Log.d(TAG, "Append per position: " + appendNanos / count + " ns per position, "
+                + appendFile.length() + " bytes");
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.nav.test;
+
+import org.apache.commons.io.IOUtils;
+import org.onebusaway.android.mock.Resources;
+
+import android.location.Location;
+import android.location.LocationManager;
+import android.os.Build;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import static androidx.test.InstrumentationRegistry.getTargetContext;
+
+/**
+ * A recorded trip in res/raw, parsed from the CSV format written by NavigationTraceWriter - see
+ * DESTINATION_REMINDERS.md.  Used by NavigationTest and NavigationReplayBenchmark.
+ */
+final class NavigationTrip {
+
+    final String mTripId;
+
+    final String mDestinationId;
+
+    final String mBeforeId;
+
+    final Location mDestinationLocation;
+
+    final Location mSecondToLastLocation;
+
+    final Location[] mLocations;
+
+    // True if the locations have elapsed realtime nanos, which should be used instead of time
+    final boolean mUseElapsedNanos;
+
+    /**
+     * @param csv the header line with the trip and stop details, followed by a line per location
+     */
+    NavigationTrip(String csv) {
+        String[] lines = csv.split("\n");
+
+        // Setup meta data.
+        String[] details = lines[0].split(",");
+        mTripId = details[0];
+        mDestinationId = details[1];
+        mBeforeId = details[4];
+
+        mDestinationLocation = new Location(LocationManager.GPS_PROVIDER);
+        mDestinationLocation.setLatitude(Double.parseDouble(details[2]));
+        mDestinationLocation.setLongitude(Double.parseDouble(details[3]));
+
+        mSecondToLastLocation = new Location(LocationManager.GPS_PROVIDER);
+        mSecondToLastLocation.setLatitude(Double.parseDouble(details[5]));
+        mSecondToLastLocation.setLongitude(Double.parseDouble(details[6]));
+
+        mLocations = new Location[lines.length - 1];
+
+        // Skip header and run through csv.
+        // Rows are formatted like this:
+        // id,get ready,pull the cord,realtime nanos elapsed,time,lat,lng,altitude,speed,bearing,
+        // accuracy,satellites,provider
+        boolean useElapsedNanos = false;
+        for (int i = 1; i < lines.length; i++) {
+            String[] values = lines[i].split(",");
+            String nanosStr = values[3];
+            Location l = new Location(values[12]);
+
+            // Check if we can use elapsed nano seconds. Else, we'll use time.
+            if (!nanosStr.equals("")
+                    && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+                useElapsedNanos = true;
+                l.setElapsedRealtimeNanos(Long.parseLong(nanosStr));
+            }
+
+            l.setTime(Long.parseLong(values[4]));
+            l.setLatitude(Double.parseDouble(values[5]));
+            l.setLongitude(Double.parseDouble(values[6]));
+            l.setAltitude(Double.parseDouble(values[7]));
+            l.setSpeed(Float.parseFloat(values[8]));
+            l.setBearing(Float.parseFloat(values[9]));
+            l.setAccuracy(Float.parseFloat(values[10]));
+            mLocations[i - 1] = l;
+        }
+        mUseElapsedNanos = useElapsedNanos;
+    }
+
+    /**
+     * @param name file name of the trip's CSV file in the raw resources directory
+     */
+    static NavigationTrip read(String name) throws IOException {
+        Reader reader = Resources.read(getTargetContext(), Resources.getTestUri(name));
+        try {
+            return new NavigationTrip(IOUtils.toString(reader));
+        } finally {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.nav.test;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onebusaway.android.nav.NavigationServiceProvider;
+import org.onebusaway.android.nav.model.Path;
+import org.onebusaway.android.nav.model.PathLink;
+
+import android.location.Location;
+import android.location.LocationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import static junit.framework.Assert.assertEquals;
+
+/**
+ * Tests moving on to the next path link when the rider has passed the end of the current one
+ * without it being detected, and ignoring locations that jump too far to be trusted.
+ *
+ * All stops are on a line running north, so the distances along it are easy to follow - 0.001
+ * degrees of latitude is about 111 meters.
+ */
+@RunWith(AndroidJUnit4.class)
+public class PathLinkSkipTest {
+
+    private static final double LONGITUDE = -82.4130;
+
+    private static final String TRIP_ID = "test_trip";
+
+    private NavigationServiceProvider mProvider;
+
+    private long mTime;
+
+    @Before
+    public void createProvider() {
+        mProvider = new NavigationServiceProvider(TRIP_ID, "stop");
+        mTime = 1500000000000L;
+    }
+
+    private static Location makeLocation(double latitude) {
+        Location l = new Location(LocationManager.GPS_PROVIDER);
+        l.setLatitude(latitude);
+        l.setLongitude(LONGITUDE);
+        l.setAccuracy(10);
+        return l;
+    }
+
+    /**
+     * Navigates a transfer at 28.050 from a bus to a bus going one stop further, so the second to
+     * last stop of the second link is the transfer stop
+     */
+    private void navigateTransfer() {
+        mProvider.navigate(new Path(new ArrayList<>(Arrays.asList(
+                new PathLink(mTime, makeLocation(28.040), makeLocation(28.045),
+                        makeLocation(28.050), TRIP_ID),
+                new PathLink(mTime, null, makeLocation(28.050), makeLocation(28.052), TRIP_ID)))));
+    }
+
+    /**
+     * Sends a location to the provider
+     *
+     * @param elapsed time since the previous location, in milliseconds
+     */
+    private void moveTo(double latitude, long elapsed) {
+        mTime += elapsed;
+        Location l = makeLocation(latitude);
+        l.setTime(mTime);
+        mProvider.locationUpdated(l);
+    }
+
+    @Test
+    public void testNoSkipBeforeTransfer() {
+        navigateTransfer();
+        moveTo(28.047, 60000);
+        // Within 200m of the second to last stop of the next link, but still on the first bus
+        moveTo(28.049, 60000);
+        assertEquals(0, mProvider.getPathLinkIndex());
+        // At the transfer stop
+        moveTo(28.0497, 60000);
+        assertEquals(0, mProvider.getPathLinkIndex());
+    }
+
+    @Test
+    public void testSkipAfterTransfer() {
+        navigateTransfer();
+        moveTo(28.047, 60000);
+        moveTo(28.0497, 60000);
+        // Left the transfer stop on the second bus
+        moveTo(28.051, 60000);
+        assertEquals(1, mProvider.getPathLinkIndex());
+    }
+
+    @Test
+    public void testNoSkipBeyondNextLink() {
+        // Out and back - the last link ends where the first one starts
+        mProvider.navigate(new Path(new ArrayList<>(Arrays.asList(
+                new PathLink(mTime, makeLocation(28.040), makeLocation(28.045),
+                        makeLocation(28.050), TRIP_ID),
+                new PathLink(mTime, makeLocation(28.050), makeLocation(28.058),
+                        makeLocation(28.060), TRIP_ID),
+                new PathLink(mTime, makeLocation(28.060), makeLocation(28.042),
+                        makeLocation(28.040), TRIP_ID)))));
+        moveTo(28.0401, 60000);
+        moveTo(28.041, 60000);
+        moveTo(28.042, 60000);
+        assertEquals(0, mProvider.getPathLinkIndex());
+    }
+
+    @Test
+    public void testJump() {
+        navigateTransfer();
+        moveTo(28.047, 60000);
+        moveTo(28.0497, 60000);
+
+        // About 145m in a second - too far for a bus, so these aren't used to skip the link
+        moveTo(28.051, 1000);
+        assertEquals(0, mProvider.getPathLinkIndex());
+        moveTo(28.051, 100);
+        moveTo(28.051, 100);
+        assertEquals(0, mProvider.getPathLinkIndex());
+
+        // The same location keeps being reported, so it's trusted after all
+        moveTo(28.051, 100);
+        assertEquals(1, mProvider.getPathLinkIndex());
+    }
+}
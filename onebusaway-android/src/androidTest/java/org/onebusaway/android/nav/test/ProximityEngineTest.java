@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.nav.test;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onebusaway.android.nav.ProximityEngine;
+
+import android.location.Location;
+import android.util.Log;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Tests the distances and bearings computed by ProximityEngine against Location
+ */
+@RunWith(AndroidJUnit4.class)
+public class ProximityEngineTest {
+
+    private static final String TAG = "ProximityEngineTest";
+
+    // Second to last and last stops of a few of the recorded trips in res/raw
+    private static final double[] STOP_LATITUDES = {28.064358, 28.065656, 28.057800, 28.053455,
+            28.058538, 27.947500};
+
+    private static final double[] STOP_LONGITUDES = {-82.413793, -82.411269, -82.415793,
+            -82.416369, -82.534719, -82.458900};
+
+    private static Location makeLocation(double latitude, double longitude) {
+        Location l = new Location("test");
+        l.setLatitude(latitude);
+        l.setLongitude(longitude);
+        return l;
+    }
+
+    @Test
+    public void testDistanceAndBearing() {
+        ProximityEngine engine = new ProximityEngine(STOP_LATITUDES, STOP_LONGITUDES);
+        assertEquals(STOP_LATITUDES.length, engine.size());
+
+        // Walk a grid of locations up to a couple of kilometers around the first stop
+        for (double dLat = -0.02; dLat <= 0.02; dLat += 0.0025) {
+            for (double dLon = -0.02; dLon <= 0.02; dLon += 0.0025) {
+                Location current = makeLocation(STOP_LATITUDES[0] + dLat,
+                        STOP_LONGITUDES[0] + dLon);
+                engine.update(current.getLatitude(), current.getLongitude());
+                for (int i = 0; i < engine.size(); i++) {
+                    Location stop = makeLocation(STOP_LATITUDES[i], STOP_LONGITUDES[i]);
+                    float expected = current.distanceTo(stop);
+                    // Within a meter up to a few kilometers, and 0.1% beyond that
+                    float tolerance = Math.max(1f, expected * 0.001f);
+                    assertEquals(expected, engine.getDistance(i), tolerance);
+
+                    if (expected > 50) {
+                        float difference = Math.abs(current.bearingTo(stop) - engine.getBearing(i));
+                        assertTrue(Math.min(difference, 360 - difference) < 0.5f);
+                    }
+                }
+                assertEquals(engine.getDistance(0), ProximityEngine.distance(
+                        current.getLatitude(), current.getLongitude(), STOP_LATITUDES[0],
+                        STOP_LONGITUDES[0]), 0.01f);
+            }
+        }
+    }
+
+    @Test
+    public void testUnknownStops() {
+        ProximityEngine engine = ProximityEngine.fromLocations(
+                makeLocation(STOP_LATITUDES[0], STOP_LONGITUDES[0]), null);
+        assertEquals(2, engine.size());
+        assertTrue(Float.isNaN(engine.getDistance(0)));
+        assertTrue(Float.isNaN(engine.getBearing(0)));
+
+        engine.update(STOP_LATITUDES[0], STOP_LONGITUDES[0]);
+        assertEquals(0f, engine.getDistance(0), 0.001f);
+        assertTrue(Float.isNaN(engine.getDistance(1)));
+        assertTrue(Float.isNaN(engine.getBearing(1)));
+        // NaN never passes a distance threshold check
+        assertTrue(!(engine.getDistance(1) < 200));
+    }
+
+    @Test
+    public void testAntimeridian() {
+        ProximityEngine engine = new ProximityEngine(new double[]{0}, new double[]{179.9995});
+        engine.update(0, -179.9995);
+        Location current = makeLocation(0, -179.9995);
+        assertEquals(current.distanceTo(makeLocation(0, 179.9995)), engine.getDistance(0), 1f);
+        assertEquals(-90f, engine.getBearing(0), 0.5f);
+    }
+
+    /**
+     * Compares the cost of computing the distances to the second to last and last stops for each
+     * location against Location.distanceTo(), as NavigationServiceProvider used to.  Not a
+     * pass/fail test - results are written to the log.
+     */
+    @Test
+    public void testBenchmark() {
+        final int count = 100000;
+        Location secondToLast = makeLocation(STOP_LATITUDES[0], STOP_LONGITUDES[0]);
+        Location last = makeLocation(STOP_LATITUDES[1], STOP_LONGITUDES[1]);
+        Location current = makeLocation(STOP_LATITUDES[0], STOP_LONGITUDES[0]);
+        float sum = 0;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            current.setLatitude(STOP_LATITUDES[0] + i * 1e-8);
+            sum += secondToLast.distanceTo(current) + last.distanceTo(current);
+        }
+        long locationNanos = System.nanoTime() - start;
+
+        ProximityEngine engine = ProximityEngine.fromLocations(secondToLast, last);
+        start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            engine.update(STOP_LATITUDES[0] + i * 1e-8, STOP_LONGITUDES[0]);
+            sum -= engine.getDistance(0) + engine.getDistance(1);
+        }
+        long engineNanos = System.nanoTime() - start;
+
+        Log.d(TAG, "Location.distanceTo(): " + locationNanos / count + " ns per location, "
+                + "ProximityEngine: " + engineNanos / count + " ns per location, difference "
+                + sum / count + "m");
+    }
+}
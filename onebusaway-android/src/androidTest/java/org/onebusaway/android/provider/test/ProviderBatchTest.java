@@ -0,0 +1,261 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.provider.test;
+
+import org.onebusaway.android.io.elements.ObaRegion;
+import org.onebusaway.android.provider.ObaContract;
+import org.onebusaway.android.provider.ObaProvider;
+import org.onebusaway.android.util.RegionUtils;
+
+import android.content.ContentProviderOperation;
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.content.OperationApplicationException;
+import android.database.Cursor;
+import android.net.Uri;
+import android.test.ProviderTestCase2;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static androidx.test.InstrumentationRegistry.getTargetContext;
+
+/**
+ * Tests the batched write paths in ObaProvider, and compares them with writing one row at a time
+ */
+public class ProviderBatchTest extends ProviderTestCase2<ObaProvider> {
+
+    private static final String TAG = "ProviderBatchTest";
+
+    private static final int NUM_STOPS = 500;
+
+    public ProviderBatchTest() {
+        super(ObaProvider.class, ObaContract.AUTHORITY);
+    }
+
+    public void testBulkInsert() {
+        ContentResolver cr = getMockContentResolver();
+        ContentValues[] values = new ContentValues[100];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = new ContentValues();
+            values[i].put(ObaContract.RegionBounds.REGION_ID, 1);
+            values[i].put(ObaContract.RegionBounds.LATITUDE, 47.0 + i * 0.01);
+            values[i].put(ObaContract.RegionBounds.LONGITUDE, -122.0);
+            values[i].put(ObaContract.RegionBounds.LAT_SPAN, 0.01);
+            values[i].put(ObaContract.RegionBounds.LON_SPAN, 0.01);
+        }
+        assertEquals(values.length, cr.bulkInsert(ObaContract.RegionBounds.CONTENT_URI, values));
+        assertEquals(values.length, count(cr, ObaContract.RegionBounds.CONTENT_URI));
+    }
+
+    public void testApplyBatchRollsBack() throws Exception {
+        ContentResolver cr = getMockContentResolver();
+        ArrayList<ContentProviderOperation> ops = new ArrayList<>();
+        ops.add(ContentProviderOperation.newInsert(ObaContract.Stops.CONTENT_URI)
+                .withValues(stopValues("1_1000"))
+                .build());
+        // This stop doesn't exist, so the whole batch should fail
+        ops.add(ContentProviderOperation
+                .newUpdate(Uri.withAppendedPath(ObaContract.Stops.CONTENT_URI, "1_1001"))
+                .withValue(ObaContract.Stops.NAME, "Nowhere")
+                .withExpectedCount(1)
+                .build());
+        try {
+            cr.applyBatch(ObaContract.AUTHORITY, ops);
+            fail("Batch should have failed");
+        } catch (OperationApplicationException e) {
+            // Expected
+        }
+        assertEquals(0, count(cr, ObaContract.Stops.CONTENT_URI));
+    }
+
+    public void testStopsInsertOrUpdate() {
+        ContentResolver cr = getMockContentResolver();
+        Map<String, ContentValues> stops = new LinkedHashMap<>();
+        stops.put("1_1000", stopValues(null));
+        stops.put("1_1001", stopValues(null));
+        assertEquals(2, ObaContract.Stops.insertOrUpdate(cr, stops, true));
+
+        stops.put("1_1002", stopValues(null));
+        assertEquals(3, ObaContract.Stops.insertOrUpdate(cr, stops, true));
+        assertEquals(3, count(cr, ObaContract.Stops.CONTENT_URI));
+        assertEquals(2, useCount(cr, ObaContract.Stops.CONTENT_URI, "1_1000"));
+        assertEquals(2, useCount(cr, ObaContract.Stops.CONTENT_URI, "1_1001"));
+        assertEquals(1, useCount(cr, ObaContract.Stops.CONTENT_URI, "1_1002"));
+
+        // Not marked as used - the use counts stay the same
+        assertEquals(3, ObaContract.Stops.insertOrUpdate(cr, stops, false));
+        assertEquals(2, useCount(cr, ObaContract.Stops.CONTENT_URI, "1_1000"));
+    }
+
+    public void testSaveRegions() {
+        List<ObaRegion> regions = RegionUtils.getRegionsFromResources(getTargetContext());
+        RegionUtils.saveToProvider(getMockContext(), regions);
+        // Saving again replaces the existing regions
+        RegionUtils.saveToProvider(getMockContext(), regions);
+
+        int usable = 0;
+        int bounds = 0;
+        for (ObaRegion region : regions) {
+            if (RegionUtils.isRegionUsable(region)) {
+                usable++;
+                bounds += region.getBounds() != null ? region.getBounds().length : 0;
+            }
+        }
+        ContentResolver cr = getMockContentResolver();
+        assertEquals(usable, count(cr, ObaContract.Regions.CONTENT_URI));
+        assertEquals(bounds, count(cr, ObaContract.RegionBounds.CONTENT_URI));
+    }
+
+    /**
+     * Compares a region refresh as a batch with saving each region, bound and open311 server
+     * with its own insert
+     */
+    public void testBenchmarkRegions() {
+        List<ObaRegion> regions = RegionUtils.getRegionsFromResources(getTargetContext());
+        ContentResolver cr = getMockContentResolver();
+        final int iterations = 10;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            cr.delete(ObaContract.Regions.CONTENT_URI, null, null);
+            cr.delete(ObaContract.RegionBounds.CONTENT_URI, null, null);
+            cr.delete(ObaContract.RegionOpen311Servers.CONTENT_URI, null, null);
+            for (ObaRegion region : regions) {
+                if (!RegionUtils.isRegionUsable(region)) {
+                    continue;
+                }
+                ContentValues values = new ContentValues();
+                values.put(ObaContract.Regions._ID, region.getId());
+                values.put(ObaContract.Regions.NAME, region.getName());
+                values.put(ObaContract.Regions.OBA_BASE_URL, region.getObaBaseUrl());
+                values.put(ObaContract.Regions.SIRI_BASE_URL, "");
+                values.put(ObaContract.Regions.LANGUAGE, region.getLanguage());
+                values.put(ObaContract.Regions.CONTACT_EMAIL, region.getContactEmail());
+                values.put(ObaContract.Regions.SUPPORTS_OBA_DISCOVERY, 1);
+                values.put(ObaContract.Regions.SUPPORTS_OBA_REALTIME, 1);
+                values.put(ObaContract.Regions.SUPPORTS_SIRI_REALTIME, 0);
+                cr.insert(ObaContract.Regions.CONTENT_URI, values);
+                if (region.getBounds() == null) {
+                    continue;
+                }
+                for (ObaRegion.Bounds b : region.getBounds()) {
+                    ContentValues bounds = new ContentValues();
+                    bounds.put(ObaContract.RegionBounds.REGION_ID, region.getId());
+                    bounds.put(ObaContract.RegionBounds.LATITUDE, b.getLat());
+                    bounds.put(ObaContract.RegionBounds.LONGITUDE, b.getLon());
+                    bounds.put(ObaContract.RegionBounds.LAT_SPAN, b.getLatSpan());
+                    bounds.put(ObaContract.RegionBounds.LON_SPAN, b.getLonSpan());
+                    cr.insert(ObaContract.RegionBounds.CONTENT_URI, bounds);
+                }
+            }
+        }
+        long rowByRow = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            RegionUtils.saveToProvider(getMockContext(), regions);
+        }
+        long batched = System.nanoTime() - start;
+
+        Log.d(TAG, regions.size() + " regions x " + iterations + ": row by row "
+                + rowByRow / 1000000 + "ms, batched " + batched / 1000000 + "ms");
+        assertTrue(count(cr, ObaContract.Regions.CONTENT_URI) > 0);
+    }
+
+    /**
+     * Compares importing a set of favorite stops as a batch with a query and an insert or update
+     * for each stop
+     */
+    public void testBenchmarkFavoritesImport() {
+        ContentResolver cr = getMockContentResolver();
+        Map<String, ContentValues> stops = new LinkedHashMap<>();
+        for (int i = 0; i < NUM_STOPS; i++) {
+            ContentValues values = stopValues(null);
+            values.put(ObaContract.Stops.FAVORITE, 1);
+            stops.put("1_" + i, values);
+        }
+
+        long start = System.nanoTime();
+        for (Map.Entry<String, ContentValues> stop : stops.entrySet()) {
+            Uri uri = Uri.withAppendedPath(ObaContract.Stops.CONTENT_URI, stop.getKey());
+            ContentValues values = new ContentValues(stop.getValue());
+            Cursor c = cr.query(uri, new String[]{ObaContract.Stops.USE_COUNT}, null, null,
+                    null);
+            boolean exists = c != null && c.getCount() > 0;
+            if (c != null) {
+                c.close();
+            }
+            if (exists) {
+                cr.update(uri, values, null, null);
+            } else {
+                values.put(ObaContract.Stops._ID, stop.getKey());
+                values.put(ObaContract.Stops.USE_COUNT, 0);
+                cr.insert(ObaContract.Stops.CONTENT_URI, values);
+            }
+        }
+        long rowByRow = System.nanoTime() - start;
+
+        cr.delete(ObaContract.Stops.CONTENT_URI, null, null);
+
+        start = System.nanoTime();
+        assertEquals(NUM_STOPS, ObaContract.Stops.insertOrUpdate(cr, stops, false));
+        long batched = System.nanoTime() - start;
+
+        Log.d(TAG, NUM_STOPS + " favorite stops: row by row " + rowByRow / 1000000
+                + "ms, batched " + batched / 1000000 + "ms");
+        assertEquals(NUM_STOPS, count(cr, ObaContract.Stops.CONTENT_URI));
+    }
+
+    private static ContentValues stopValues(String id) {
+        ContentValues values = new ContentValues();
+        if (id != null) {
+            values.put(ObaContract.Stops._ID, id);
+            values.put(ObaContract.Stops.USE_COUNT, 0);
+        }
+        values.put(ObaContract.Stops.CODE, "11060");
+        values.put(ObaContract.Stops.NAME, "Broadway & E Denny Way");
+        values.put(ObaContract.Stops.DIRECTION, "S");
+        values.put(ObaContract.Stops.LATITUDE, 47.617676);
+        values.put(ObaContract.Stops.LONGITUDE, -122.314523);
+        return values;
+    }
+
+    private static int count(ContentResolver cr, Uri uri) {
+        Cursor c = cr.query(uri, new String[]{ObaContract.Stops._ID}, null, null, null);
+        assertNotNull(c);
+        try {
+            return c.getCount();
+        } finally {
+            c.close();
+        }
+    }
+
+    private static int useCount(ContentResolver cr, Uri contentUri, String id) {
+        Cursor c = cr.query(Uri.withAppendedPath(contentUri, id),
+                new String[]{ObaContract.Stops.USE_COUNT}, null, null, null);
+        assertNotNull(c);
+        try {
+            assertTrue(c.moveToFirst());
+            return c.getInt(0);
+        } finally {
+            c.close();
+        }
+    }
+}
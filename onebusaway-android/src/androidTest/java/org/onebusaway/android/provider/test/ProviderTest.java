@@ -22,6 +22,7 @@ import org.onebusaway.android.provider.ObaProvider;
 import android.content.ContentResolver;
 import android.content.ContentValues;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
 import android.net.Uri;
 import android.test.ProviderTestCase2;
 
@@ -149,4 +150,49 @@ public class ProviderTest extends ProviderTestCase2<ObaProvider> {
 
         c.close();
     }
+
+    public void testIndexes() {
+        // Opens the database and creates the schema
+        ContentResolver cr = getMockContentResolver();
+        cr.query(ObaContract.Stops.CONTENT_URI, new String[]{ObaContract.Stops._ID},
+                null, null, null).close();
+
+        SQLiteDatabase db = SQLiteDatabase.openDatabase(
+                ObaProvider.getDatabasePath(getMockContext()).getPath(), null,
+                SQLiteDatabase.OPEN_READONLY);
+        try {
+            assertTrue(queryPlan(db, "SELECT _id FROM " + ObaContract.Stops.PATH
+                    + " ORDER BY " + ObaContract.Stops.ACCESS_TIME + " desc, "
+                    + ObaContract.Stops.USE_COUNT + " desc LIMIT 20")
+                    .contains("stops_recent"));
+            assertTrue(queryPlan(db, "SELECT _id FROM " + ObaContract.Stops.PATH
+                    + " WHERE " + ObaContract.Stops.FAVORITE + "=1")
+                    .contains("stops_favorite"));
+            assertTrue(queryPlan(db, "SELECT " + ObaContract.RouteHeadsignFavorites.EXCLUDE
+                    + " FROM " + ObaContract.RouteHeadsignFavorites.PATH
+                    + " WHERE " + ObaContract.RouteHeadsignFavorites.ROUTE_ID + "='1_100' AND "
+                    + ObaContract.RouteHeadsignFavorites.HEADSIGN + "='Downtown'")
+                    .contains("COVERING INDEX route_headsign_favorites_route"));
+            assertTrue(queryPlan(db, "SELECT * FROM " + ObaContract.NavStops.PATH
+                    + " WHERE " + ObaContract.NavStops.NAV_ID + "='1' ORDER BY "
+                    + ObaContract.NavStops.SEQUENCE)
+                    .contains("nav_stops_nav"));
+        } finally {
+            db.close();
+        }
+    }
+
+    private static String queryPlan(SQLiteDatabase db, String sql) {
+        StringBuilder plan = new StringBuilder();
+        Cursor c = db.rawQuery("EXPLAIN QUERY PLAN " + sql, null);
+        try {
+            int detail = c.getColumnIndex("detail");
+            while (c.moveToNext()) {
+                plan.append(c.getString(detail)).append('\n');
+            }
+        } finally {
+            c.close();
+        }
+        return plan.toString();
+    }
 }
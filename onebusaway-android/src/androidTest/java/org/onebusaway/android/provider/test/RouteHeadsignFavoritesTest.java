@@ -0,0 +1,243 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.provider.test;
+
+import org.junit.After;
+import org.junit.Test;
+import org.onebusaway.android.app.Application;
+import org.onebusaway.android.io.elements.ObaArrivalInfo;
+import org.onebusaway.android.io.request.ObaArrivalInfoRequest;
+import org.onebusaway.android.io.request.ObaArrivalInfoResponse;
+import org.onebusaway.android.io.test.ObaTestCase;
+import org.onebusaway.android.mock.MockRegion;
+import org.onebusaway.android.provider.ObaContract;
+import org.onebusaway.android.util.ArrivalInfoUtils;
+
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.os.SystemClock;
+import android.util.Log;
+
+import static androidx.test.InstrumentationRegistry.getTargetContext;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Tests the in-memory index behind ObaContract.RouteHeadsignFavorites.isFavorite() against the
+ * provider it caches
+ */
+public class RouteHeadsignFavoritesTest extends ObaTestCase {
+
+    private static final String TAG = "RouteHeadsignFavTest";
+
+    private static final String ROUTE_ID = "TEST_route_favorite";
+
+    private static final String HEADSIGN = "Downtown";
+
+    private static final String STOP_A = "TEST_stop_a";
+
+    private static final String STOP_B = "TEST_stop_b";
+
+    // Same as ObaContract.RouteHeadsignFavorites.ALL_STOPS
+    private static final String ALL_STOPS = "all";
+
+    @After
+    public void removeFavorites() {
+        Application.get().getContentResolver().delete(
+                ObaContract.RouteHeadsignFavorites.CONTENT_URI,
+                ObaContract.RouteHeadsignFavorites.ROUTE_ID + "=?", new String[]{ROUTE_ID});
+    }
+
+    @Test
+    public void testMarkAsFavorite() {
+        assertFavorite(false, STOP_A);
+
+        // All stops
+        ObaContract.RouteHeadsignFavorites.markAsFavorite(getTargetContext(), ROUTE_ID, HEADSIGN,
+                null, true);
+        assertFavorite(true, STOP_A);
+        assertFavorite(true, STOP_B);
+
+        // Exclude one stop
+        ObaContract.RouteHeadsignFavorites.markAsFavorite(getTargetContext(), ROUTE_ID, HEADSIGN,
+                STOP_A, false);
+        assertFavorite(false, STOP_A);
+        assertFavorite(true, STOP_B);
+
+        // Include it again
+        ObaContract.RouteHeadsignFavorites.markAsFavorite(getTargetContext(), ROUTE_ID, HEADSIGN,
+                STOP_A, true);
+        assertFavorite(true, STOP_A);
+
+        // Remove all stops
+        ObaContract.RouteHeadsignFavorites.markAsFavorite(getTargetContext(), ROUTE_ID, HEADSIGN,
+                null, false);
+        assertFavorite(false, STOP_A);
+        assertFavorite(false, STOP_B);
+
+        // One stop only
+        ObaContract.RouteHeadsignFavorites.markAsFavorite(getTargetContext(), ROUTE_ID, HEADSIGN,
+                STOP_B, true);
+        assertFavorite(false, STOP_A);
+        assertFavorite(true, STOP_B);
+        assertFalse(ObaContract.RouteHeadsignFavorites.isFavorite(ROUTE_ID, "Uptown", STOP_B));
+    }
+
+    @Test
+    public void testProviderChange() throws InterruptedException {
+        assertFavorite(false, STOP_A);
+
+        // Write to the provider directly, so only the change notification updates the index
+        ContentValues values = new ContentValues();
+        values.put(ObaContract.RouteHeadsignFavorites.ROUTE_ID, ROUTE_ID);
+        values.put(ObaContract.RouteHeadsignFavorites.HEADSIGN, HEADSIGN);
+        values.put(ObaContract.RouteHeadsignFavorites.STOP_ID, STOP_A);
+        values.put(ObaContract.RouteHeadsignFavorites.EXCLUDE, 0);
+        Application.get().getContentResolver()
+                .insert(ObaContract.RouteHeadsignFavorites.CONTENT_URI, values);
+
+        long end = SystemClock.elapsedRealtime() + 5000;
+        while (!ObaContract.RouteHeadsignFavorites.isFavorite(ROUTE_ID, HEADSIGN, STOP_A)
+                && SystemClock.elapsedRealtime() < end) {
+            Thread.sleep(10);
+        }
+        assertFavorite(true, STOP_A);
+    }
+
+    /**
+     * Compares converting a busy stop's arrivals using the index against the three provider
+     * queries per arrival it replaces
+     */
+    @Test
+    public void testBenchmark() {
+        Application.get().setCurrentRegion(MockRegion.getTampa(getTargetContext()));
+        ObaArrivalInfoResponse response = new ObaArrivalInfoRequest.Builder(getTargetContext(),
+                "Hillsborough Area Regional Transit_3105").build().call();
+        assertOK(response);
+        ObaArrivalInfo[] arrivals = response.getArrivalInfo();
+        assertTrue(arrivals.length > 0);
+
+        // Star one of the routes for all stops, which is the most expensive case to query
+        ObaContract.RouteHeadsignFavorites.markAsFavorite(getTargetContext(),
+                arrivals[0].getRouteId(), arrivals[0].getHeadsign(), null, true);
+        try {
+            final int iterations = 20;
+            long start = SystemClock.elapsedRealtime();
+            for (int i = 0; i < iterations; i++) {
+                for (ObaArrivalInfo info : arrivals) {
+                    queryIsFavorite(info.getRouteId(), info.getHeadsign(), info.getStopId());
+                }
+            }
+            long queryTime = SystemClock.elapsedRealtime() - start;
+
+            // The index gives the same answers
+            for (ObaArrivalInfo info : arrivals) {
+                assertEquals(queryIsFavorite(info.getRouteId(), info.getHeadsign(),
+                        info.getStopId()),
+                        ObaContract.RouteHeadsignFavorites.isFavorite(info.getRouteId(),
+                                info.getHeadsign(), info.getStopId()));
+            }
+
+            start = SystemClock.elapsedRealtime();
+            for (int i = 0; i < iterations; i++) {
+                for (ObaArrivalInfo info : arrivals) {
+                    ObaContract.RouteHeadsignFavorites.isFavorite(info.getRouteId(),
+                            info.getHeadsign(), info.getStopId());
+                }
+            }
+            long indexTime = SystemClock.elapsedRealtime() - start;
+
+            start = SystemClock.elapsedRealtime();
+            for (int i = 0; i < iterations; i++) {
+                ArrivalInfoUtils.convertObaArrivalInfo(getTargetContext(), arrivals, null,
+                        response.getCurrentTime(), false);
+            }
+            long convertTime = SystemClock.elapsedRealtime() - start;
+
+            Log.d(TAG, arrivals.length + " arrivals x " + iterations + ": provider queries "
+                    + queryTime + "ms, index " + indexTime + "ms, full conversion "
+                    + convertTime + "ms");
+            assertTrue(indexTime <= queryTime);
+        } finally {
+            ObaContract.RouteHeadsignFavorites.markAsFavorite(getTargetContext(),
+                    arrivals[0].getRouteId(), arrivals[0].getHeadsign(), null, false);
+        }
+    }
+
+    private static void assertFavorite(boolean expected, String stopId) {
+        assertEquals(expected, queryIsFavorite(ROUTE_ID, HEADSIGN, stopId));
+        assertEquals(expected, ObaContract.RouteHeadsignFavorites.isFavorite(ROUTE_ID,
+                HEADSIGN, stopId));
+    }
+
+    /**
+     * Same as ObaContract.RouteHeadsignFavorites.isFavorite(), but queries the provider directly
+     * instead of using the in-memory index, as isFavorite() used to
+     */
+    private static boolean queryIsFavorite(String routeId, String headsign, String stopId) {
+        if (headsign == null) {
+            headsign = "";
+        }
+        final String[] selection = {ObaContract.RouteHeadsignFavorites.ROUTE_ID,
+                ObaContract.RouteHeadsignFavorites.HEADSIGN,
+                ObaContract.RouteHeadsignFavorites.STOP_ID,
+                ObaContract.RouteHeadsignFavorites.EXCLUDE};
+        final String[] selectionArgs = {routeId, headsign, stopId, Integer.toString(0)};
+        ContentResolver cr = Application.get().getContentResolver();
+        final String FILTER_WHERE_ALL_FIELDS = ObaContract.RouteHeadsignFavorites.ROUTE_ID
+                + "=? AND " + ObaContract.RouteHeadsignFavorites.HEADSIGN + "=? AND "
+                + ObaContract.RouteHeadsignFavorites.STOP_ID + "=? AND "
+                + ObaContract.RouteHeadsignFavorites.EXCLUDE + "=?";
+        Cursor c = cr.query(ObaContract.RouteHeadsignFavorites.CONTENT_URI, selection,
+                FILTER_WHERE_ALL_FIELDS, selectionArgs, null);
+        boolean favorite;
+        if (c != null && c.getCount() > 0) {
+            favorite = true;
+        } else {
+            // Check again to see if the user has favorited this route/headsign combo for all stops
+            final String[] selectionArgs2 = {routeId, headsign, ALL_STOPS};
+            String WHERE_PARTIAL = ObaContract.RouteHeadsignFavorites.ROUTE_ID + "=? AND "
+                    + ObaContract.RouteHeadsignFavorites.HEADSIGN + "=? AND "
+                    + ObaContract.RouteHeadsignFavorites.STOP_ID + "=?";
+            Cursor c2 = cr.query(ObaContract.RouteHeadsignFavorites.CONTENT_URI, selection,
+                    WHERE_PARTIAL, selectionArgs2, null);
+            favorite = c2 != null && c2.getCount() > 0;
+            if (c2 != null) {
+                c2.close();
+            }
+
+            if (favorite) {
+                // Finally, make sure the user hasn't excluded this stop as a favorite
+                final String[] selectionArgs3 = {routeId, headsign, stopId, Integer.toString(1)};
+                Cursor c3 = cr.query(ObaContract.RouteHeadsignFavorites.CONTENT_URI, selection,
+                        FILTER_WHERE_ALL_FIELDS, selectionArgs3, null);
+                // If this query returns at least one record, it means the stop has been excluded
+                // as a favorite (i.e., the user explicitly de-selected it)
+                boolean isStopExcluded = c3 != null && c3.getCount() > 0;
+                favorite = !isStopExcluded;
+                if (c3 != null) {
+                    c3.close();
+                }
+            }
+        }
+        if (c != null) {
+            c.close();
+        }
+        return favorite;
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.region.test;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onebusaway.android.io.elements.ObaRegion;
+import org.onebusaway.android.region.RegionIndex;
+import org.onebusaway.android.util.LocationUtils;
+import org.onebusaway.android.util.RegionSnapshot;
+import org.onebusaway.android.util.RegionUtils;
+
+import android.location.Location;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.File;
+import java.util.ArrayList;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import static androidx.test.InstrumentationRegistry.getTargetContext;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Tests that the region index finds the same regions as RegionUtils
+ */
+@RunWith(AndroidJUnit4.class)
+public class RegionIndexTest {
+
+    private static final String TAG = "RegionIndexTest";
+
+    private ArrayList<ObaRegion> mRegions;
+
+    private ArrayList<Location> mLocations;
+
+    @Before
+    public void before() {
+        mRegions = RegionUtils.getRegionsFromResources(getTargetContext());
+
+        // A grid around the world, plus points in and near each region
+        mLocations = new ArrayList<>();
+        for (int lat = -85; lat <= 85; lat += 5) {
+            for (int lon = -180; lon < 180; lon += 5) {
+                mLocations.add(LocationUtils.makeLocation(lat, lon));
+            }
+        }
+        for (ObaRegion region : mRegions) {
+            if (region.getBounds() == null) {
+                continue;
+            }
+            for (ObaRegion.Bounds bound : region.getBounds()) {
+                mLocations.add(LocationUtils.makeLocation(bound.getLat(), bound.getLon()));
+                mLocations.add(LocationUtils.makeLocation(bound.getLat() + bound.getLatSpan(),
+                        bound.getLon() - bound.getLonSpan()));
+                mLocations.add(LocationUtils.makeLocation(bound.getLat() - 1.2,
+                        bound.getLon() + 1.7));
+            }
+        }
+    }
+
+    @Test
+    public void testClosestRegion() {
+        RegionIndex index = new RegionIndex(mRegions);
+        assertEquals(mRegions.size(), index.size());
+        for (Location l : mLocations) {
+            for (boolean enforceThreshold : new boolean[]{true, false}) {
+                ObaRegion expected = RegionUtils.getClosestRegion(mRegions, l, enforceThreshold);
+                ObaRegion actual = index.getClosestRegion(l, enforceThreshold);
+                if (expected == null) {
+                    assertNull(actual);
+                } else {
+                    assertEquals(expected.getId(), actual.getId());
+                }
+            }
+        }
+        assertNull(index.getClosestRegion(null, false));
+    }
+
+    @Test
+    public void testContainingRegions() {
+        RegionIndex index = new RegionIndex(mRegions);
+        for (Location l : mLocations) {
+            ArrayList<ObaRegion> expected = new ArrayList<>();
+            for (ObaRegion region : mRegions) {
+                boolean within = RegionUtils.isLocationWithinRegion(l, region);
+                assertEquals(Boolean.valueOf(within),
+                        index.isLocationWithinRegion(l, region.getId()));
+                if (within) {
+                    expected.add(region);
+                }
+            }
+            assertEquals(expected, index.getRegionsContaining(l));
+        }
+        assertNull(index.isLocationWithinRegion(mLocations.get(0), -1000));
+    }
+
+    @Test
+    public void testSnapshotIndex() {
+        File file = new File(getTargetContext().getCacheDir(), "region_index_test.bin");
+        try {
+            assertTrue(RegionSnapshot.write(file, mRegions));
+            RegionSnapshot snapshot = RegionSnapshot.open(file);
+            RegionIndex expected = new RegionIndex(mRegions);
+            RegionIndex actual = new RegionIndex(snapshot);
+            assertEquals(expected.size(), actual.size());
+            for (Location l : mLocations) {
+                for (boolean enforceThreshold : new boolean[]{true, false}) {
+                    ObaRegion e = expected.getClosestRegion(l, enforceThreshold);
+                    ObaRegion a = actual.getClosestRegion(l, enforceThreshold);
+                    if (e == null) {
+                        assertNull(a);
+                    } else {
+                        assertEquals(e.getId(), a.getId());
+                    }
+                }
+                ArrayList<ObaRegion> containing = actual.getRegionsContaining(l);
+                ArrayList<ObaRegion> expectedContaining = expected.getRegionsContaining(l);
+                assertEquals(expectedContaining.size(), containing.size());
+                for (int i = 0; i < containing.size(); i++) {
+                    assertEquals(expectedContaining.get(i).getId(), containing.get(i).getId());
+                }
+                for (ObaRegion region : mRegions) {
+                    assertEquals(expected.isLocationWithinRegion(l, region.getId()),
+                            actual.isLocationWithinRegion(l, region.getId()));
+                }
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testEmptyIndex() {
+        RegionIndex index = new RegionIndex(new ArrayList<ObaRegion>());
+        Location l = LocationUtils.makeLocation(47.6097, -122.3331);
+        assertNull(index.getClosestRegion(l, false));
+        assertTrue(index.getRegionsContaining(l).isEmpty());
+    }
+
+    /**
+     * Not a pass/fail test - logs the time to search with and without the index
+     */
+    @Test
+    public void testBenchmark() {
+        final int iterations = 5;
+        RegionIndex index = new RegionIndex(mRegions);
+
+        long start = SystemClock.elapsedRealtime();
+        for (int i = 0; i < iterations; i++) {
+            for (Location l : mLocations) {
+                RegionUtils.getClosestRegion(mRegions, l, true);
+            }
+        }
+        long linear = SystemClock.elapsedRealtime() - start;
+
+        start = SystemClock.elapsedRealtime();
+        for (int i = 0; i < iterations; i++) {
+            for (Location l : mLocations) {
+                index.getClosestRegion(l, true);
+            }
+        }
+        long indexed = SystemClock.elapsedRealtime() - start;
+
+        Log.d(TAG, "Closest region for " + mLocations.size() * iterations + " locations - "
+                + "all bounds: " + linear + "ms, index: " + indexed + "ms");
+    }
+}
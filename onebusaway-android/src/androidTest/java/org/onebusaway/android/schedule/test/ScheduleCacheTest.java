@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.schedule.test;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onebusaway.android.io.elements.ObaArrivalInfo;
+import org.onebusaway.android.schedule.ScheduleCache;
+
+import android.text.format.DateUtils;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import static androidx.test.InstrumentationRegistry.getTargetContext;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+
+/**
+ * Tests the offline schedule cache
+ */
+@RunWith(AndroidJUnit4.class)
+public class ScheduleCacheTest {
+
+    private static final String TAG = "ScheduleCacheTest";
+
+    // Not a real region, so the test doesn't touch a real region's cache
+    private static final long REGION_ID = -1000;
+
+    private static final long MINUTE = DateUtils.MINUTE_IN_MILLIS;
+
+    private ScheduleCache mCache;
+
+    private long mNow;
+
+    @Before
+    public void before() {
+        mCache = ScheduleCache.getInstance(getTargetContext());
+        mCache.clear(REGION_ID);
+        mNow = System.currentTimeMillis();
+    }
+
+    @After
+    public void after() {
+        mCache.clear(REGION_ID);
+    }
+
+    private ObaArrivalInfo makeArrival(String routeId, String shortName, String tripId,
+            long departure) {
+        return new ObaArrivalInfo(routeId, shortName, "Long " + shortName, tripId, "Downtown",
+                "1_1", departure - MINUTE, departure, mNow - mNow % DateUtils.DAY_IN_MILLIS);
+    }
+
+    @Test
+    public void testGetArrivals() {
+        mCache.putArrivals(REGION_ID, "1_1", Arrays.asList(
+                makeArrival("1_5", "5", "t3", mNow + 30 * MINUTE),
+                makeArrival("1_5", "5", "t1", mNow + 5 * MINUTE),
+                makeArrival("1_6", "6", "t2", mNow + 10 * MINUTE),
+                makeArrival("1_6", "6", "t4", mNow + 90 * MINUTE)),
+                mNow + DateUtils.DAY_IN_MILLIS);
+
+        ObaArrivalInfo[] arrivals = mCache.getArrivals(REGION_ID, "1_1", mNow, mNow + 65 * MINUTE);
+        assertEquals(3, arrivals.length);
+        assertEquals("t1", arrivals[0].getTripId());
+        assertEquals("t2", arrivals[1].getTripId());
+        assertEquals("t3", arrivals[2].getTripId());
+
+        ObaArrivalInfo arrival = arrivals[1];
+        assertEquals("1_6", arrival.getRouteId());
+        assertEquals("6", arrival.getShortName());
+        assertEquals("Long 6", arrival.getRouteLongName());
+        assertEquals("Downtown", arrival.getHeadsign());
+        assertEquals("1_1", arrival.getStopId());
+        assertEquals(mNow + 9 * MINUTE, arrival.getScheduledArrivalTime());
+        assertEquals(mNow + 10 * MINUTE, arrival.getScheduledDepartureTime());
+        assertEquals(0, arrival.getPredictedDepartureTime());
+        assertFalse(arrival.getPredicted());
+
+        // Stops that aren't cached, or with expired schedules, don't have arrivals
+        assertNull(mCache.getArrivals(REGION_ID, "1_2", mNow, mNow + 65 * MINUTE));
+        assertNull(mCache.getArrivals(REGION_ID, "1_1", mNow + 2 * DateUtils.DAY_IN_MILLIS,
+                mNow + 3 * DateUtils.DAY_IN_MILLIS));
+
+        // A stop with no departures in the window is still cached
+        assertEquals(0, mCache.getArrivals(REGION_ID, "1_1", mNow + 2 * 60 * MINUTE,
+                mNow + 3 * 60 * MINUTE).length);
+    }
+
+    @Test
+    public void testReplaceAndTrim() {
+        mCache.putArrivals(REGION_ID, "1_1", Arrays.asList(
+                makeArrival("1_5", "5", "t1", mNow + 5 * MINUTE)),
+                mNow + DateUtils.DAY_IN_MILLIS);
+        mCache.putArrivals(REGION_ID, "1_1", Arrays.asList(
+                makeArrival("1_5", "5X", "t2", mNow - 5 * MINUTE),
+                makeArrival("1_5", "5X", "t3", mNow + 20 * MINUTE)),
+                mNow + DateUtils.DAY_IN_MILLIS);
+        mCache.putArrivals(REGION_ID, "1_2", Arrays.asList(
+                makeArrival("1_7", "7", "t4", mNow + 5 * MINUTE)),
+                mNow + DateUtils.DAY_IN_MILLIS);
+
+        ObaArrivalInfo[] arrivals = mCache.getArrivals(REGION_ID, "1_1", mNow - 60 * MINUTE,
+                mNow + 60 * MINUTE);
+        assertEquals(2, arrivals.length);
+        assertEquals("5X", arrivals[0].getShortName());
+
+        // Remove stop 1_2 and everything that has already departed
+        mCache.trim(REGION_ID, Collections.singletonList("1_1"), mNow);
+        assertEquals(Collections.singletonList("1_1"), mCache.getStopIds(REGION_ID));
+        arrivals = mCache.getArrivals(REGION_ID, "1_1", mNow - 60 * MINUTE, mNow + 60 * MINUTE);
+        assertEquals(1, arrivals.length);
+        assertEquals("t3", arrivals[0].getTripId());
+        assertNull(mCache.getArrivals(REGION_ID, "1_2", mNow, mNow + 60 * MINUTE));
+    }
+
+    /**
+     * Logs how long it takes to look up an hour of arrivals at a stop, with a full cache
+     */
+    @Test
+    public void testBenchmark() {
+        // A busy stop departure every two minutes for a day, for each cached stop
+        for (int s = 0; s < ScheduleCache.MAX_STOPS; s++) {
+            List<ObaArrivalInfo> arrivals = new ArrayList<>();
+            for (int i = 0; i < 24 * 30; i++) {
+                arrivals.add(makeArrival("1_" + i % 10, String.valueOf(i % 10), "t" + i,
+                        mNow + i * 2 * MINUTE));
+            }
+            mCache.putArrivals(REGION_ID, "1_" + s, arrivals, mNow + DateUtils.DAY_IN_MILLIS);
+        }
+
+        final int iterations = 100;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            long from = mNow + i * 10 * MINUTE;
+            mCache.getArrivals(REGION_ID, "1_" + i % ScheduleCache.MAX_STOPS, from,
+                    from + 65 * MINUTE);
+        }
+        long perLookup = (System.nanoTime() - start) / iterations;
+        Log.d(TAG, "Looked up arrivals in " + perLookup / 1000 + "us");
+    }
+}
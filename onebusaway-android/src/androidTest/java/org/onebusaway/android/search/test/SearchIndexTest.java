@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.search.test;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onebusaway.android.io.elements.ObaElement;
+import org.onebusaway.android.io.elements.ObaRoute;
+import org.onebusaway.android.io.elements.ObaRouteElement;
+import org.onebusaway.android.io.elements.ObaStop;
+import org.onebusaway.android.io.elements.ObaStopElement;
+import org.onebusaway.android.search.SearchIndex;
+import org.onebusaway.android.util.LocationUtils;
+
+import android.location.Location;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import static androidx.test.InstrumentationRegistry.getTargetContext;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Tests the offline stop and route search index
+ */
+@RunWith(AndroidJUnit4.class)
+public class SearchIndexTest {
+
+    private static final String TAG = "SearchIndexTest";
+
+    // Not a real region, so the test doesn't touch a real region's index
+    private static final long REGION_ID = -1000;
+
+    private SearchIndex mIndex;
+
+    @Before
+    public void before() {
+        mIndex = SearchIndex.getInstance(getTargetContext());
+        mIndex.clear(REGION_ID);
+        mIndex.putStops(REGION_ID, Arrays.asList(
+                new ObaStopElement("1_1", 28.0580, -82.4138, "Fowler Ave & 56th St", "4450",
+                        "E"),
+                new ObaStopElement("1_2", 27.9506, -82.4572, "Main St & 5th Ave", "1234", "N"),
+                new ObaStopElement("1_3", 27.9600, -82.4600, "Main St & 7th Ave", "5678", "S")));
+        mIndex.putRoutes(REGION_ID, Arrays.asList(
+                new ObaRouteElement("1_5", "5", "40th Street", "", 3, "", "FF0000", "FFFFFF", "1"),
+                new ObaRouteElement("1_6", "6", "56th Street", "", 3, "", null, null, "1"),
+                new ObaRouteElement("1_51", "51X", "Main Street Express", "", 3, "", null, null,
+                        "1")));
+    }
+
+    @After
+    public void after() {
+        mIndex.clear(REGION_ID);
+    }
+
+    @Test
+    public void testPrefixAndTokens() {
+        // Every word must match the start of a word in the name or code
+        assertEquals(ids("1_2", "1_3"), ids(searchStops("main", null)));
+        assertEquals(ids("1_2", "1_3"), ids(searchStops("MAI", null)));
+        assertEquals(ids("1_2"), ids(searchStops("main 5th", null)));
+        assertEquals(ids("1_2"), ids(searchStops("ave 5th", null)));
+        // Stop codes
+        assertEquals(ids("1_1"), ids(searchStops("4450", null)));
+        assertEquals(ids("1_1", "1_3"), ids(searchStops("56", null)));
+        // Nothing searchable, or no matches
+        assertTrue(searchStops("  &  ", null).isEmpty());
+        assertTrue(searchStops("broadway", null).isEmpty());
+        assertTrue(mIndex.searchStops(REGION_ID + 1, "main", null, 10).isEmpty());
+    }
+
+    @Test
+    public void testRoutes() {
+        List<ObaRoute> routes = mIndex.searchRoutes(REGION_ID, "5", null,
+                SearchIndex.DEFAULT_LIMIT);
+        // Short names first, in order
+        assertEquals("5", routes.get(0).getShortName());
+        assertEquals(ids("1_5", "1_6", "1_51"), ids(routes));
+        assertEquals(Integer.valueOf(0xFFFF0000), routes.get(0).getColor());
+
+        routes = mIndex.searchRoutes(REGION_ID, "main exp", null, SearchIndex.DEFAULT_LIMIT);
+        assertEquals(1, routes.size());
+        assertEquals("51X", routes.get(0).getShortName());
+        assertEquals("Main Street Express", routes.get(0).getLongName());
+    }
+
+    @Test
+    public void testRankByDistance() {
+        Location nearSeventh = LocationUtils.makeLocation(27.9610, -82.4610);
+        List<ObaStop> stops = searchStops("main", nearSeventh);
+        assertEquals("1_3", stops.get(0).getId());
+        assertEquals("1_2", stops.get(1).getId());
+        assertEquals("S", stops.get(0).getDirection());
+
+        Location nearFifth = LocationUtils.makeLocation(27.9500, -82.4570);
+        assertEquals("1_2", searchStops("main", nearFifth).get(0).getId());
+    }
+
+    @Test
+    public void testUpdateAndRemove() {
+        // Renaming a stop replaces its indexed words
+        mIndex.putStops(REGION_ID, Collections.singletonList(
+                new ObaStopElement("1_2", 27.9506, -82.4572, "Kennedy Blvd & 5th Ave", "1234",
+                        "N")));
+        assertEquals(ids("1_3"), ids(searchStops("main", null)));
+        assertEquals(ids("1_2"), ids(searchStops("kennedy", null)));
+
+        assertEquals(1, mIndex.retainIds(REGION_ID, SearchIndex.TYPE_STOP,
+                new HashSet<String>(Arrays.asList("1_1", "1_2"))));
+        assertTrue(searchStops("main", null).isEmpty());
+        assertEquals(ids("1_1", "1_2"), mIndex.getIds(REGION_ID, SearchIndex.TYPE_STOP));
+
+        assertFalse(mIndex.isComplete(REGION_ID));
+        mIndex.setComplete(REGION_ID, SearchIndex.TYPE_STOP, true);
+        mIndex.setComplete(REGION_ID, SearchIndex.TYPE_ROUTE, true);
+        assertTrue(mIndex.isComplete(REGION_ID));
+    }
+
+    @Test
+    public void testBenchmark() {
+        final String[] streets = {"Main", "Fowler", "Busch", "Florida", "Nebraska", "Dale Mabry",
+                "Kennedy", "Hillsborough", "Bearss", "Fletcher"};
+        final int numStops = 10000;
+        Random random = new Random(1);
+        List<ObaStop> stops = new ArrayList<ObaStop>(numStops);
+        for (int i = 0; i < numStops; i++) {
+            String name = streets[random.nextInt(streets.length)] + " Ave & "
+                    + (random.nextInt(150) + 1) + "th St";
+            stops.add(new ObaStopElement("2_" + i, 27.8 + random.nextDouble() * 0.4,
+                    -82.6 + random.nextDouble() * 0.4, name, String.valueOf(10000 + i), "N"));
+        }
+        long start = System.nanoTime();
+        mIndex.putStops(REGION_ID, stops);
+        long indexTime = System.nanoTime() - start;
+
+        final String[] queries = {"ma", "main", "main 5", "fowl", "dale mab", "1234", "ken 12"};
+        final int iterations = 20;
+        Location center = LocationUtils.makeLocation(28.0, -82.4);
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            for (String query : queries) {
+                assertFalse(searchStops(query, center).isEmpty());
+            }
+        }
+        long perQuery = (System.nanoTime() - start) / (iterations * queries.length);
+
+        Log.d(TAG, numStops + " stops indexed in " + indexTime / 1000000 + "ms, "
+                + perQuery / 1000 + "us per query");
+        // Generous, so a slow emulator doesn't fail the test
+        assertTrue(perQuery < 50 * 1000000L);
+    }
+
+    private List<ObaStop> searchStops(String query, Location center) {
+        return mIndex.searchStops(REGION_ID, query, center, SearchIndex.DEFAULT_LIMIT);
+    }
+
+    private static HashSet<String> ids(String... ids) {
+        return new HashSet<String>(Arrays.asList(ids));
+    }
+
+    private static HashSet<String> ids(List<? extends ObaElement> elements) {
+        HashSet<String> ids = new HashSet<String>();
+        for (ObaElement e : elements) {
+            ids.add(e.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.travelbehavior.test;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onebusaway.android.travelbehavior.io.LocationBuffer;
+import org.onebusaway.android.travelbehavior.io.TravelBehaviorLog;
+import org.onebusaway.android.util.LocationUtils;
+
+import android.location.Location;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import static androidx.test.InstrumentationRegistry.getTargetContext;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+/**
+ * Tests buffering location fixes for upload, using a local writer in place of Firestore
+ */
+@RunWith(AndroidJUnit4.class)
+public class LocationBufferTest {
+
+    private static final String TAG = "LocationBufferTest";
+
+    private File mDirectory;
+
+    private LocationBuffer mBuffer;
+
+    /**
+     * Records the writes instead of sending them to Firestore
+     */
+    private static class RecordingWriter implements LocationBuffer.Writer {
+
+        final List<String> recordIds = new ArrayList<>();
+
+        final List<List<Map>> writes = new ArrayList<>();
+
+        @Override
+        public void write(String userId, String recordId, List<Map> locations) {
+            recordIds.add(userId + "/" + recordId);
+            writes.add(locations);
+        }
+    }
+
+    @Before
+    public void before() throws IOException {
+        mDirectory = new File(getTargetContext().getCacheDir(), TAG);
+        FileUtils.deleteDirectory(mDirectory);
+        mBuffer = new LocationBuffer(new TravelBehaviorLog(mDirectory));
+    }
+
+    @After
+    public void after() throws IOException {
+        FileUtils.deleteDirectory(mDirectory);
+    }
+
+    private static Location makeLocation(double lat, double lon, long time) {
+        Location l = LocationUtils.makeLocation(lat, lon);
+        l.setTime(time);
+        return l;
+    }
+
+    @Test
+    public void testDuplicatesSkipped() throws Exception {
+        assertTrue(mBuffer.add(makeLocation(28.0, -82.0, 1000), "u", "r1"));
+        // Same fix delivered again, e.g., by another provider
+        assertFalse(mBuffer.add(makeLocation(28.0, -82.0, 1000), "u", "r1"));
+        assertTrue(mBuffer.add(makeLocation(28.0, -82.0, 2000), "u", "r1"));
+        assertTrue(mBuffer.add(makeLocation(28.1, -82.0, 2000), "u", "r1"));
+        assertEquals(3, mBuffer.getPendingCount());
+
+        RecordingWriter writer = new RecordingWriter();
+        assertEquals(3, mBuffer.flush(writer));
+        assertEquals(1, writer.writes.size());
+        assertEquals(3, writer.writes.get(0).size());
+        assertEquals(0, mBuffer.getPendingCount());
+    }
+
+    @Test
+    public void testOneWritePerRecord() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            mBuffer.add(makeLocation(28.0 + i * 0.001, -82.0, 1000 + i), "u", i < 4 ? "r1" : "r2");
+        }
+
+        RecordingWriter writer = new RecordingWriter();
+        assertEquals(10, mBuffer.flush(writer));
+        assertEquals(2, writer.writes.size());
+        assertEquals("u/r1", writer.recordIds.get(0));
+        assertEquals(4, writer.writes.get(0).size());
+        assertEquals("u/r2", writer.recordIds.get(1));
+        assertEquals(6, writer.writes.get(1).size());
+        // In the order they were received
+        assertEquals(28.0, writer.writes.get(0).get(0).get("lat"));
+        assertEquals(1003L, writer.writes.get(0).get(3).get("time"));
+
+        // Nothing left to upload
+        writer = new RecordingWriter();
+        assertEquals(0, mBuffer.flush(writer));
+        assertEquals(0, writer.writes.size());
+    }
+
+    @Test
+    public void testFailedWriteKeepsLocations() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            mBuffer.add(makeLocation(28.0 + i * 0.001, -82.0, 1000 + i), "u", i < 2 ? "r1" : "r2");
+        }
+
+        // Only the record that failed is held back
+        RecordingWriter writer = new RecordingWriter();
+        try {
+            mBuffer.flush((userId, recordId, locations) -> {
+                if (recordId.equals("r1")) {
+                    throw new IOException("Offline");
+                }
+                writer.write(userId, recordId, locations);
+            });
+            fail("Expected the write to fail");
+        } catch (IOException e) {
+            // Expected
+        }
+        assertEquals(1, writer.writes.size());
+        assertEquals("u/r2", writer.recordIds.get(0));
+        assertEquals(3, writer.writes.get(0).size());
+        assertEquals(2, mBuffer.getPendingCount());
+
+        RecordingWriter retry = new RecordingWriter();
+        assertEquals(2, mBuffer.flush(retry));
+        assertEquals(1, retry.writes.size());
+        assertEquals("u/r1", retry.recordIds.get(0));
+        assertEquals(1000L, retry.writes.get(0).get(0).get("time"));
+        assertEquals(0, mBuffer.getPendingCount());
+    }
+
+    @Test
+    public void testFailingRecordDropped() throws Exception {
+        mBuffer.add(makeLocation(28.0, -82.0, 1000), "u", "r1");
+
+        // e.g., the record was deleted, so every write for it fails
+        for (int i = 0; i < LocationBuffer.MAX_UPLOAD_ATTEMPTS; i++) {
+            try {
+                mBuffer.flush((userId, recordId, locations) -> {
+                    throw new IOException("Not found");
+                });
+                fail("Expected the write to fail");
+            } catch (IOException e) {
+                // Expected
+            }
+        }
+        assertEquals(0, mBuffer.getPendingCount());
+
+        RecordingWriter writer = new RecordingWriter();
+        assertEquals(0, mBuffer.flush(writer));
+        assertEquals(0, writer.writes.size());
+    }
+
+    @Test
+    public void testAddDuringFlush() throws Exception {
+        mBuffer.add(makeLocation(28.0, -82.0, 1000), "u", "r1");
+
+        // A fix that arrives while the upload is in progress is kept for the next one
+        assertEquals(1, mBuffer.flush((userId, recordId, locations) ->
+                mBuffer.add(makeLocation(28.0, -82.0, 2000), "u", "r1")));
+
+        RecordingWriter writer = new RecordingWriter();
+        assertEquals(1, mBuffer.flush(writer));
+        assertEquals(2000L, writer.writes.get(0).get(0).get("time"));
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.travelbehavior.test;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onebusaway.android.travelbehavior.io.TravelBehaviorLog;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import static androidx.test.InstrumentationRegistry.getTargetContext;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Tests the append-only log that travel behavior events are stored in until they're uploaded
+ */
+@RunWith(AndroidJUnit4.class)
+public class TravelBehaviorLogTest {
+
+    private static final String TAG = "TravelBehaviorLogTest";
+
+    private File mDirectory;
+
+    @Before
+    public void before() throws IOException {
+        mDirectory = new File(getTargetContext().getCacheDir(), TAG);
+        FileUtils.deleteDirectory(mDirectory);
+    }
+
+    @After
+    public void after() throws IOException {
+        FileUtils.deleteDirectory(mDirectory);
+    }
+
+    private static String makeRecord(int i) {
+        return "{\"id\":" + i + ",\"stopId\":\"1_" + (i % 100) + "\",\"routeId\":\"1_" + (i % 7)
+                + "\",\"localSystemCurrMillis\":" + (1500000000000L + i * 1000L) + "}";
+    }
+
+    private static List<String> readAll(TravelBehaviorLog.Reader reader) throws IOException {
+        List<String> records = new ArrayList<>();
+        String record;
+        while ((record = reader.next()) != null) {
+            records.add(record);
+        }
+        return records;
+    }
+
+    private File[] getSegments() {
+        File[] segments = mDirectory.listFiles();
+        if (segments == null) {
+            return new File[0];
+        }
+        Arrays.sort(segments);
+        return segments;
+    }
+
+    @Test
+    public void testAppendAndRead() throws IOException {
+        TravelBehaviorLog log = new TravelBehaviorLog(mDirectory);
+        for (int i = 0; i < 100; i++) {
+            log.append(makeRecord(i));
+        }
+
+        // A new instance (e.g., after the process restarts) sees the same records, in order
+        TravelBehaviorLog.Reader reader = new TravelBehaviorLog(mDirectory).openReader();
+        List<String> records = readAll(reader);
+        assertEquals(100, records.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(makeRecord(i), records.get(i));
+        }
+        reader.delete();
+
+        reader = log.openReader();
+        assertNull(reader.next());
+        reader.close();
+    }
+
+    @Test
+    public void testRotation() throws IOException {
+        TravelBehaviorLog log = new TravelBehaviorLog(mDirectory);
+        // Random-ish content so the records don't compress away to nothing
+        StringBuilder padding = new StringBuilder();
+        Random random = new Random(0);
+        for (int i = 0; i < 2000; i++) {
+            padding.append(Integer.toHexString(random.nextInt()));
+        }
+        int count = 0;
+        while (getSegments().length < 3) {
+            log.append(count++ + padding.toString());
+        }
+
+        for (File segment : getSegments()) {
+            // Only the record that crossed the limit may go over it
+            assertTrue(segment.length() < TravelBehaviorLog.SEGMENT_SIZE + padding.length());
+        }
+
+        TravelBehaviorLog.Reader reader = log.openReader();
+        List<String> records = readAll(reader);
+        assertEquals(count, records.size());
+        for (int i = 0; i < count; i++) {
+            assertTrue(records.get(i).startsWith(i + padding.substring(0, 8)));
+        }
+        reader.delete();
+        assertEquals(0, getSegments().length);
+    }
+
+    @Test
+    public void testTornWrite() throws IOException {
+        TravelBehaviorLog log = new TravelBehaviorLog(mDirectory);
+        for (int i = 0; i < 10; i++) {
+            log.append(makeRecord(i));
+        }
+
+        // Simulate the process dying partway through writing the last record
+        File[] segments = getSegments();
+        File last = segments[segments.length - 1];
+        RandomAccessFile file = new RandomAccessFile(last, "rw");
+        file.setLength(last.length() - 3);
+        file.close();
+
+        log = new TravelBehaviorLog(mDirectory);
+        log.append(makeRecord(10));
+
+        TravelBehaviorLog.Reader reader = log.openReader();
+        List<String> records = readAll(reader);
+        reader.close();
+        assertEquals(10, records.size());
+        for (int i = 0; i < 9; i++) {
+            assertEquals(makeRecord(i), records.get(i));
+        }
+        assertEquals(makeRecord(10), records.get(9));
+    }
+
+    @Test
+    public void testAppendWhileReading() throws IOException {
+        TravelBehaviorLog log = new TravelBehaviorLog(mDirectory);
+        log.append(makeRecord(0));
+        log.append(makeRecord(1));
+
+        TravelBehaviorLog.Reader reader = log.openReader();
+        log.append(makeRecord(2));
+        assertEquals(2, readAll(reader).size());
+        reader.delete();
+
+        // The record appended during the upload survives the delete
+        reader = log.openReader();
+        List<String> records = readAll(reader);
+        reader.close();
+        assertEquals(1, records.size());
+        assertEquals(makeRecord(2), records.get(0));
+    }
+
+    @Test
+    public void testMigrateLegacyFiles() throws IOException {
+        // Older versions saved events as "<counter>-<date>.json", and deleted them once uploaded
+        mDirectory.mkdirs();
+        FileUtils.write(new File(mDirectory, "10-Mon, Jul 3 2017, 10:15 AM.json"), makeRecord(10),
+                false);
+        FileUtils.write(new File(mDirectory, "2-Mon, Jul 3 2017, 09:59 AM.json"), makeRecord(2),
+                false);
+        FileUtils.write(new File(mDirectory, "9-Mon, Jul 3 2017, 10:14 AM.json"), makeRecord(9),
+                false);
+
+        TravelBehaviorLog log = new TravelBehaviorLog(mDirectory);
+        log.append(makeRecord(11));
+
+        // The legacy files are gone, and their events come first, in the order they were saved
+        for (File file : getSegments()) {
+            assertTrue(file.getName().endsWith(".log"));
+        }
+        TravelBehaviorLog.Reader reader = log.openReader();
+        assertEquals(Arrays.asList(makeRecord(2), makeRecord(9), makeRecord(10), makeRecord(11)),
+                readAll(reader));
+        reader.close();
+
+        // They're only moved once
+        reader = new TravelBehaviorLog(mDirectory).openReader();
+        assertEquals(4, readAll(reader).size());
+        reader.close();
+    }
+
+    @Test
+    public void testNextBatch() throws IOException {
+        TravelBehaviorLog log = new TravelBehaviorLog(mDirectory);
+        for (int i = 0; i < 55; i++) {
+            log.append(makeRecord(i));
+        }
+
+        TravelBehaviorLog.Reader reader = log.openReader();
+        int total = 0;
+        List<String> batch;
+        while (!(batch = reader.nextBatch(25, Integer.MAX_VALUE)).isEmpty()) {
+            assertTrue(batch.size() <= 25);
+            for (String record : batch) {
+                assertEquals(makeRecord(total++), record);
+            }
+        }
+        reader.close();
+        assertEquals(55, total);
+
+        // Character limit, smaller than a single record - one record per batch
+        reader = log.openReader();
+        total = 0;
+        while (!(batch = reader.nextBatch(25, 10)).isEmpty()) {
+            assertEquals(1, batch.size());
+            assertEquals(makeRecord(total++), batch.get(0));
+        }
+        reader.close();
+        assertEquals(55, total);
+    }
+
+    /**
+     * Compares the log against storing one file per event.  Not a pass/fail test - timings and
+     * sizes are written to the log.
+     */
+    @Test
+    public void testBenchmark() throws IOException {
+        final int count = 2000;
+        final long blockSize = 4096;
+
+        File filesDirectory = new File(mDirectory, "files");
+        filesDirectory.mkdirs();
+        long rawBytes = 0;
+        long fileBytes = 0;
+        long start = SystemClock.elapsedRealtime();
+        for (int i = 0; i < count; i++) {
+            String record = makeRecord(i);
+            rawBytes += record.length();
+            File file = new File(filesDirectory, i + ".json");
+            FileUtils.write(file, record, false);
+            // Each file takes at least one block on disk
+            fileBytes += (file.length() + blockSize - 1) / blockSize * blockSize;
+        }
+        long filesTime = SystemClock.elapsedRealtime() - start;
+
+        File logDirectory = new File(mDirectory, "log");
+        TravelBehaviorLog log = new TravelBehaviorLog(logDirectory);
+        start = SystemClock.elapsedRealtime();
+        for (int i = 0; i < count; i++) {
+            log.append(makeRecord(i));
+        }
+        long logTime = SystemClock.elapsedRealtime() - start;
+        long logBytes = 0;
+        for (File segment : logDirectory.listFiles()) {
+            logBytes += (segment.length() + blockSize - 1) / blockSize * blockSize;
+        }
+
+        start = SystemClock.elapsedRealtime();
+        TravelBehaviorLog.Reader reader = log.openReader();
+        int read = readAll(reader).size();
+        reader.close();
+        long readTime = SystemClock.elapsedRealtime() - start;
+        assertEquals(count, read);
+
+        Log.d(TAG, count + " events, " + rawBytes + " bytes of JSON");
+        Log.d(TAG, "One file per event: " + filesTime + " ms, " + fileBytes + " bytes on disk ("
+                + String.format("%.1f", (double) fileBytes / rawBytes) + "x)");
+        Log.d(TAG, "Log: " + logTime + " ms, " + logBytes + " bytes on disk ("
+                + String.format("%.2f", (double) logBytes / rawBytes) + "x)");
+        Log.d(TAG, "Log read: " + readTime + " ms");
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.util.test;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onebusaway.android.util.RefreshScheduler;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Tests the refresh periods and error backoff used by RefreshScheduler
+ */
+@RunWith(AndroidJUnit4.class)
+public class RefreshSchedulerTest {
+
+    @Test
+    public void testArrivalRefreshPeriod() {
+        assertEquals(RefreshScheduler.IMMINENT_PERIOD,
+                RefreshScheduler.getArrivalRefreshPeriod(0, true));
+        assertEquals(RefreshScheduler.IMMINENT_PERIOD,
+                RefreshScheduler.getArrivalRefreshPeriod(TimeUnit.MINUTES.toMillis(2), true));
+        assertEquals(RefreshScheduler.NEAR_PERIOD,
+                RefreshScheduler.getArrivalRefreshPeriod(TimeUnit.MINUTES.toMillis(5), true));
+        assertEquals(RefreshScheduler.FAR_PERIOD,
+                RefreshScheduler.getArrivalRefreshPeriod(TimeUnit.MINUTES.toMillis(25), true));
+
+        // Scheduled arrivals don't change, so it doesn't matter how close they are
+        assertEquals(RefreshScheduler.SCHEDULED_PERIOD,
+                RefreshScheduler.getArrivalRefreshPeriod(0, false));
+        assertEquals(RefreshScheduler.SCHEDULED_PERIOD,
+                RefreshScheduler.getArrivalRefreshPeriod(TimeUnit.MINUTES.toMillis(25), false));
+
+        assertTrue(RefreshScheduler.IMMINENT_PERIOD < RefreshScheduler.NEAR_PERIOD);
+        assertTrue(RefreshScheduler.NEAR_PERIOD < RefreshScheduler.FAR_PERIOD);
+        assertTrue(RefreshScheduler.FAR_PERIOD < RefreshScheduler.SCHEDULED_PERIOD);
+    }
+
+    /**
+     * Compares the requests made for a stop over an hour against the fixed 60 second period
+     * arrivals used to be refreshed at
+     */
+    @Test
+    public void testFewerRequestsThanFixedPeriod() {
+        final long fixedPeriod = TimeUnit.SECONDS.toMillis(60);
+        final long hour = TimeUnit.HOURS.toMillis(1);
+        final long fixedRequests = hour / fixedPeriod;
+
+        // No tier refreshes faster than the fixed period did
+        for (long until = 0; until <= TimeUnit.MINUTES.toMillis(60);
+                until += TimeUnit.SECONDS.toMillis(15)) {
+            assertTrue(RefreshScheduler.getArrivalRefreshPeriod(until, true) >= fixedPeriod);
+            assertTrue(RefreshScheduler.getArrivalRefreshPeriod(until, false) > fixedPeriod);
+        }
+
+        // A bus every 2 minutes - always imminent, so no worse than before
+        assertEquals(fixedRequests, countRequests(TimeUnit.MINUTES.toMillis(2), hour));
+        // A bus every 10 or 30 minutes
+        assertTrue(countRequests(TimeUnit.MINUTES.toMillis(10), hour) < fixedRequests);
+        assertTrue(countRequests(TimeUnit.MINUTES.toMillis(30), hour) < fixedRequests / 2);
+    }
+
+    /**
+     * @return the number of refreshes made over the duration for a stop with predicted arrivals
+     * at the given headway
+     */
+    private static long countRequests(long headway, long duration) {
+        long count = 0;
+        for (long t = 0; t < duration; count++) {
+            long untilNext = headway - t % headway;
+            t += RefreshScheduler.getArrivalRefreshPeriod(untilNext, true);
+        }
+        return count;
+    }
+
+    @Test
+    public void testBackoffPeriod() {
+        final long base = TimeUnit.SECONDS.toMillis(10);
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100; i++) {
+            // First failure - between half and all of the base period
+            long backoff = RefreshScheduler.getBackoffPeriod(base, 1, random);
+            assertTrue(backoff >= base / 2 && backoff <= base);
+
+            // Each failure doubles the backoff
+            backoff = RefreshScheduler.getBackoffPeriod(base, 3, random);
+            assertTrue(backoff >= base * 2 && backoff <= base * 4);
+
+            // ...up to the maximum
+            backoff = RefreshScheduler.getBackoffPeriod(base, 50, random);
+            assertTrue(backoff >= RefreshScheduler.MAX_BACKOFF_PERIOD / 2
+                    && backoff <= RefreshScheduler.MAX_BACKOFF_PERIOD);
+        }
+    }
+
+    @Test
+    public void testBackoffJitter() {
+        final long base = TimeUnit.SECONDS.toMillis(60);
+        Random random = new Random(42);
+        long first = RefreshScheduler.getBackoffPeriod(base, 2, random);
+        boolean different = false;
+        for (int i = 0; i < 20 && !different; i++) {
+            different = RefreshScheduler.getBackoffPeriod(base, 2, random) != first;
+        }
+        assertTrue("Backoff should be randomized", different);
+    }
+}
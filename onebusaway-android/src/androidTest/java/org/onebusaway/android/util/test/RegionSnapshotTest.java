@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.util.test;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.onebusaway.android.io.elements.ObaRegion;
+import org.onebusaway.android.provider.ObaContract;
+import org.onebusaway.android.util.RegionSnapshot;
+import org.onebusaway.android.util.RegionUtils;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import static androidx.test.InstrumentationRegistry.getTargetContext;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Tests writing and reading the binary region snapshot
+ */
+@RunWith(AndroidJUnit4.class)
+public class RegionSnapshotTest {
+
+    private static final String TAG = "RegionSnapshotTest";
+
+    private File mFile;
+
+    private ArrayList<ObaRegion> mRegions;
+
+    @Before
+    public void before() {
+        mFile = new File(getTargetContext().getCacheDir(), "test-regions.snapshot");
+        mRegions = RegionUtils.getRegionsFromResources(getTargetContext());
+    }
+
+    @After
+    public void after() {
+        mFile.delete();
+    }
+
+    @Test
+    public void testRoundTrip() {
+        assertTrue(RegionSnapshot.write(mFile, mRegions));
+        RegionSnapshot snapshot = RegionSnapshot.open(mFile);
+        assertNotNull(snapshot);
+        assertEquals(mRegions.size(), snapshot.size());
+
+        ArrayList<ObaRegion> regions = snapshot.getRegions();
+        for (int i = 0; i < mRegions.size(); i++) {
+            assertRegionEquals(mRegions.get(i), regions.get(i));
+            assertEquals(i, snapshot.indexOf(mRegions.get(i).getId()));
+        }
+        assertEquals(-1, snapshot.indexOf(-1000));
+    }
+
+    @Test
+    public void testInvalidSnapshots() throws IOException {
+        assertNull(RegionSnapshot.open(mFile));
+
+        // Not a snapshot
+        FileOutputStream out = new FileOutputStream(mFile);
+        out.write(new byte[64]);
+        out.close();
+        assertNull(RegionSnapshot.open(mFile));
+
+        // Truncated
+        assertTrue(RegionSnapshot.write(mFile, mRegions));
+        RandomAccessFile file = new RandomAccessFile(mFile, "rw");
+        file.setLength(file.length() - 1);
+        file.close();
+        assertNull(RegionSnapshot.open(mFile));
+
+        // Different version
+        assertTrue(RegionSnapshot.write(mFile, mRegions));
+        file = new RandomAccessFile(mFile, "rw");
+        file.seek(4);
+        file.writeInt(Integer.MAX_VALUE);
+        file.close();
+        assertNull(RegionSnapshot.open(mFile));
+    }
+
+    /**
+     * Compares loading the regions, and the single region restored at startup, from the database
+     * and from the snapshot
+     */
+    @Test
+    public void testBenchmark() {
+        RegionUtils.saveToProvider(getTargetContext(), mRegions);
+        ArrayList<ObaRegion> fromProvider = RegionUtils.getRegionsFromProvider(getTargetContext());
+        assertNotNull(fromProvider);
+        assertTrue(RegionSnapshot.write(mFile, fromProvider));
+
+        // The snapshot has to give back the same regions the database does
+        ArrayList<ObaRegion> fromSnapshot = RegionSnapshot.open(mFile).getRegions();
+        assertEquals(fromProvider.size(), fromSnapshot.size());
+        for (int i = 0; i < fromProvider.size(); i++) {
+            assertRegionEquals(fromProvider.get(i), fromSnapshot.get(i));
+        }
+
+        final int iterations = 50;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            assertEquals(fromProvider.size(),
+                    RegionUtils.getRegionsFromProvider(getTargetContext()).size());
+        }
+        long provider = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            assertEquals(fromProvider.size(), RegionSnapshot.open(mFile).getRegions().size());
+        }
+        long snapshot = System.nanoTime() - start;
+
+        Log.d(TAG, fromProvider.size() + " regions x " + iterations + ": database "
+                + provider / 1000000 + " ms, snapshot " + snapshot / 1000000 + " ms");
+
+        ObaRegion expected = fromProvider.get(fromProvider.size() - 1);
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            ObaRegion region = ObaContract.Regions.get(getTargetContext(),
+                    (int) expected.getId());
+            assertEquals(expected.getId(), region.getId());
+        }
+        provider = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            RegionSnapshot s = RegionSnapshot.open(mFile);
+            ObaRegion region = s.getRegion(s.indexOf(expected.getId()));
+            assertEquals(expected.getId(), region.getId());
+        }
+        snapshot = System.nanoTime() - start;
+
+        Log.d(TAG, "One region x " + iterations + ": database " + provider / 1000000
+                + " ms, snapshot " + snapshot / 1000000 + " ms");
+    }
+
+    private void assertRegionEquals(ObaRegion expected, ObaRegion actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getActive(), actual.getActive());
+        assertEquals(expected.getObaBaseUrl(), actual.getObaBaseUrl());
+        assertEquals(expected.getSiriBaseUrl(), actual.getSiriBaseUrl());
+        assertEquals(expected.getLanguage(), actual.getLanguage());
+        assertEquals(expected.getContactEmail(), actual.getContactEmail());
+        assertEquals(expected.getSupportsObaDiscoveryApis(),
+                actual.getSupportsObaDiscoveryApis());
+        assertEquals(expected.getSupportsObaRealtimeApis(), actual.getSupportsObaRealtimeApis());
+        assertEquals(expected.getSupportsSiriRealtimeApis(),
+                actual.getSupportsSiriRealtimeApis());
+        assertEquals(expected.getTwitterUrl(), actual.getTwitterUrl());
+        assertEquals(expected.getExperimental(), actual.getExperimental());
+        assertEquals(expected.getStopInfoUrl(), actual.getStopInfoUrl());
+        assertEquals(expected.getOtpBaseUrl(), actual.getOtpBaseUrl());
+        assertEquals(expected.getOtpContactEmail(), actual.getOtpContactEmail());
+        assertEquals(expected.getSupportsOtpBikeshare(), actual.getSupportsOtpBikeshare());
+        assertEquals(expected.getSupportsEmbeddedSocial(), actual.getSupportsEmbeddedSocial());
+        assertEquals(expected.getPaymentAndroidAppId(), actual.getPaymentAndroidAppId());
+        assertEquals(expected.getPaymentWarningTitle(), actual.getPaymentWarningTitle());
+        assertEquals(expected.getPaymentWarningBody(), actual.getPaymentWarningBody());
+        assertEquals(expected.isTravelBehaviorDataCollectionEnabled(),
+                actual.isTravelBehaviorDataCollectionEnabled());
+        assertEquals(expected.isEnrollParticipantsInStudy(), actual.isEnrollParticipantsInStudy());
+        // Like the database, the snapshot returns null instead of empty arrays
+        assertEquals(toString(expected.getBounds()), toString(actual.getBounds()));
+        assertEquals(toString(expected.getOpen311Servers()), toString(actual.getOpen311Servers()));
+    }
+
+    private static String toString(Object[] array) {
+        return array == null || array.length == 0 ? "[]" : Arrays.toString(array);
+    }
+}
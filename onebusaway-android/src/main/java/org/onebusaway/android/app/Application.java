@@ -50,9 +50,12 @@ import org.onebusaway.android.BuildConfig;
 import org.onebusaway.android.R;
 import org.onebusaway.android.io.ObaAnalytics;
 import org.onebusaway.android.io.ObaApi;
+import org.onebusaway.android.io.ObaDefaultConnectionFactory;
+import org.onebusaway.android.io.ObaResponseCache;
 import org.onebusaway.android.io.elements.ObaRegion;
-import org.onebusaway.android.provider.ObaContract;
 import org.onebusaway.android.report.ui.util.SocialReportHandler;
+import org.onebusaway.android.schedule.ScheduleCacheWorker;
+import org.onebusaway.android.search.SearchIndexWorker;
 import org.onebusaway.android.travelbehavior.TravelBehaviorManager;
 import org.onebusaway.android.ui.social.SocialAppProfile;
 import org.onebusaway.android.ui.social.SocialNavigationDrawerHandler;
@@ -60,6 +63,7 @@ import org.onebusaway.android.util.BuildFlavorUtils;
 import org.onebusaway.android.util.EmbeddedSocialUtils;
 import org.onebusaway.android.util.LocationUtils;
 import org.onebusaway.android.util.PreferenceUtils;
+import org.onebusaway.android.util.RegionUtils;
 
 import java.io.File;
 import java.security.MessageDigest;
@@ -83,6 +87,10 @@ public class Application extends MultiDexApplication {
     public static final String CHANNEL_ARRIVAL_REMINDERS_ID = "arrival_reminders";
     public static final String CHANNEL_DESTINATION_ALERT_ID = "destination_alerts";
 
+    private static final String RESPONSE_CACHE_DIR = "oba-responses";
+
+    private static final long RESPONSE_CACHE_SIZE = 10 * 1024 * 1024;
+
     private SharedPreferences mPrefs;
 
     private static Application mApp;
@@ -105,6 +113,21 @@ public class Application extends MultiDexApplication {
 
     private FirebaseAnalytics mFirebaseAnalytics;
 
+    // Names of the startup tasks, as they appear in the startup trace
+    private static final String TASK_REGION = "region";
+
+    private static final String TASK_MAPS_FIX = "maps_fix";
+
+    private static final String TASK_OBA = "oba";
+
+    private static final String TASK_NOTIFICATION_CHANNELS = "notification_channels";
+
+    private static final String TASK_TRAVEL_BEHAVIOR = "travel_behavior";
+
+    private static final String TASK_OPEN311 = "open311";
+
+    private static final String TASK_ANALYTICS = "analytics";
+
     @Override
     public void onCreate() {
         super.onCreate();
@@ -112,8 +135,6 @@ public class Application extends MultiDexApplication {
         mApp = this;
         mPrefs = PreferenceManager.getDefaultSharedPreferences(this);
 
-        fixGoogleMapCrash();
-
         // Make sure ES SDK only runs when the app is in the foreground
         // (Workaround for #933 until ES SDK doesn't run Services in the background)
         ProcessLifecycleOwner.get().getLifecycle().addObserver(
@@ -124,15 +145,23 @@ public class Application extends MultiDexApplication {
                     }
                 });
 
-        initOba();
-        initObaRegion();
-        initOpen311(getCurrentRegion());
-
-        reportAnalytics();
-
-        createNotificationChannels();
-
-        TravelBehaviorManager.startCollectingData(getApplicationContext());
+        // The region is read from the database in the background while the rest of the main
+        // thread work runs, and everything not needed for the first screen waits until after it
+        StartupTasks startupTasks = new StartupTasks()
+                .add(TASK_REGION, StartupTasks.BACKGROUND, () -> initObaRegion())
+                .add(TASK_MAPS_FIX, StartupTasks.MAIN, () -> fixGoogleMapCrash())
+                .add(TASK_OBA, StartupTasks.MAIN, () -> initOba())
+                .add(TASK_NOTIFICATION_CHANNELS, StartupTasks.MAIN,
+                        () -> createNotificationChannels())
+                .add(TASK_TRAVEL_BEHAVIOR, StartupTasks.BACKGROUND,
+                        () -> TravelBehaviorManager.startCollectingData(getApplicationContext()))
+                .add(TASK_OPEN311, StartupTasks.IDLE, () -> initOpen311(getCurrentRegion()),
+                        TASK_REGION)
+                .add(TASK_ANALYTICS, StartupTasks.IDLE, () -> reportAnalytics(), TASK_REGION);
+        startupTasks.run();
+
+        // Activities expect the region to be set by the time they're created
+        startupTasks.await(TASK_REGION);
     }
 
     /**
@@ -336,6 +365,9 @@ public class Application extends MultiDexApplication {
                 setCustomOtpApiUrl(null);
                 setUseOldOtpApiUrlVersion(false);
             }
+            // Keep the offline search index and schedules for the region up to date
+            SearchIndexWorker.schedule();
+            ScheduleCacheWorker.schedule();
         } else {
             //User must have just entered a custom API URL via Preferences, so clear the region info
             ObaApi.getDefaultContext().setRegion(null);
@@ -462,6 +494,9 @@ public class Application extends MultiDexApplication {
 
         checkArrivalStylePreferenceDefault();
 
+        ObaDefaultConnectionFactory.getInstance().setResponseCache(new ObaResponseCache(
+                new File(getCacheDir(), RESPONSE_CACHE_DIR), RESPONSE_CACHE_SIZE));
+
         // Get the current app version.
         PackageManager pm = getPackageManager();
         PackageInfo appInfo = null;
@@ -507,14 +542,14 @@ public class Application extends MultiDexApplication {
     }
 
     private void initObaRegion() {
-        // Read the region preference, look it up in the DB, then set the region.
+        // Read the region preference, look it up in the region snapshot, then set the region.
         long id = mPrefs.getLong(getString(R.string.preference_key_region), -1);
         if (id < 0) {
             Log.d(TAG, "Regions preference ID is less than 0, returning...");
             return;
         }
 
-        ObaRegion region = ObaContract.Regions.get(this, (int) id);
+        ObaRegion region = RegionUtils.getRegion(this, id);
         if (region == null) {
             Log.d(TAG, "Regions preference is null, returning...");
             return;
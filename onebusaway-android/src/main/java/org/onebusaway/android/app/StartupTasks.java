@@ -0,0 +1,344 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.app;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.Trace;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the steps of app startup as named tasks that can depend on each other, and records how
+ * long each one took.
+ *
+ * Each task runs one of three ways:
+ * <ul>
+ * <li>{@link #MAIN} - on the main thread during {@link #run()}, for work the app can't start
+ * without</li>
+ * <li>{@link #BACKGROUND} - on a background thread as soon as its dependencies have finished</li>
+ * <li>{@link #IDLE} - on the main thread the first time it's idle after startup (usually after
+ * the first screen has been drawn), for work that nothing on the first screen needs</li>
+ * </ul>
+ * Dependencies must be added before the tasks that depend on them, so there can't be cycles.
+ *
+ * When all tasks have finished the timings are logged with the tag "StartupTrace", and on API
+ * 18 and higher each task is also a section in systrace/Perfetto traces.
+ */
+public final class StartupTasks {
+
+    private static final String TAG = "StartupTrace";
+
+    public static final int MAIN = 0;
+
+    public static final int BACKGROUND = 1;
+
+    public static final int IDLE = 2;
+
+    private static final String[] MODE_NAMES = {"main", "background", "idle"};
+
+    private static final int POOL_SIZE = 2;
+
+    /**
+     * The time a task took to run
+     */
+    public static final class Timing {
+
+        private final String mName;
+
+        private final int mMode;
+
+        private final long mStartNanos;
+
+        private final long mDurationNanos;
+
+        Timing(String name, int mode, long startNanos, long durationNanos) {
+            mName = name;
+            mMode = mode;
+            mStartNanos = startNanos;
+            mDurationNanos = durationNanos;
+        }
+
+        public String getName() {
+            return mName;
+        }
+
+        /**
+         * @return how the task was run - {@link #MAIN}, {@link #BACKGROUND} or {@link #IDLE}
+         */
+        public int getMode() {
+            return mMode;
+        }
+
+        /**
+         * @return when the task started, in milliseconds after {@link #run()} was called
+         */
+        public double getStartMillis() {
+            return mStartNanos / 1e6;
+        }
+
+        public double getDurationMillis() {
+            return mDurationNanos / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s (%s): start %.1f ms, took %.1f ms", mName, MODE_NAMES[mMode],
+                    getStartMillis(), getDurationMillis());
+        }
+    }
+
+    private final class Task implements Runnable {
+
+        final String name;
+
+        final int mode;
+
+        final Runnable runnable;
+
+        final String[] dependencies;
+
+        final CountDownLatch done = new CountDownLatch(1);
+
+        // Guarded by StartupTasks.this
+        boolean started;
+
+        Task(String name, int mode, Runnable runnable, String[] dependencies) {
+            this.name = name;
+            this.mode = mode;
+            this.runnable = runnable;
+            this.dependencies = dependencies;
+        }
+
+        boolean isDone() {
+            return done.getCount() == 0;
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+                Trace.beginSection(name);
+            }
+            try {
+                runnable.run();
+            } finally {
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+                    Trace.endSection();
+                }
+                onTaskDone(this, new Timing(name, mode, start - mStartNanos,
+                        System.nanoTime() - start));
+            }
+        }
+    }
+
+    private final LinkedHashMap<String, Task> mTasks = new LinkedHashMap<>();
+
+    // Guarded by this
+    private final List<Timing> mTimings = new ArrayList<>();
+
+    // Guarded by this
+    private boolean mIdle;
+
+    // Guarded by this
+    private boolean mMainDone;
+
+    private Executor mExecutor;
+
+    private Handler mHandler;
+
+    private long mStartNanos;
+
+    private long mMainNanos;
+
+    /**
+     * Adds a task
+     *
+     * @param name         unique name of the task, used for dependencies and in the timings
+     * @param mode         {@link #MAIN}, {@link #BACKGROUND} or {@link #IDLE}
+     * @param runnable     the work to do
+     * @param dependencies names of tasks that must finish before this one starts
+     * @return this object, for chaining
+     */
+    public StartupTasks add(String name, int mode, Runnable runnable, String... dependencies) {
+        if (mode < MAIN || mode > IDLE) {
+            throw new IllegalArgumentException("Unknown mode " + mode + " for " + name);
+        }
+        if (mTasks.containsKey(name)) {
+            throw new IllegalArgumentException("Task " + name + " was already added");
+        }
+        for (String dependency : dependencies) {
+            if (!mTasks.containsKey(dependency)) {
+                throw new IllegalArgumentException(
+                        "Task " + name + " depends on " + dependency + ", which must be added first");
+            }
+        }
+        mTasks.put(name, new Task(name, mode, runnable, dependencies));
+        return this;
+    }
+
+    /**
+     * Starts the background tasks, runs the main thread tasks, and schedules the idle tasks.
+     * Must be called on the main thread.
+     */
+    public void run() {
+        mStartNanos = System.nanoTime();
+        mHandler = new Handler(Looper.getMainLooper());
+        mExecutor = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, 10, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger mCount = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                return new Thread(r, "Startup #" + mCount.incrementAndGet());
+            }
+        });
+        ((ThreadPoolExecutor) mExecutor).allowCoreThreadTimeOut(true);
+
+        Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+            @Override
+            public boolean queueIdle() {
+                synchronized (StartupTasks.this) {
+                    mIdle = true;
+                    startReadyTasks();
+                }
+                return false;
+            }
+        });
+
+        // Get background work going first, so it overlaps with the main thread work
+        synchronized (this) {
+            startReadyTasks();
+        }
+        for (Task task : mTasks.values()) {
+            if (task.mode == MAIN) {
+                for (String dependency : task.dependencies) {
+                    await(dependency);
+                }
+                synchronized (this) {
+                    task.started = true;
+                }
+                task.run();
+            }
+        }
+        boolean allDone;
+        synchronized (this) {
+            mMainNanos = System.nanoTime() - mStartNanos;
+            mMainDone = true;
+            allDone = mTimings.size() == mTasks.size();
+        }
+        if (allDone) {
+            logTimings();
+        }
+    }
+
+    /**
+     * Blocks until the given task has finished
+     */
+    public void await(String name) {
+        Task task = mTasks.get(name);
+        if (task == null) {
+            throw new IllegalArgumentException("Unknown task " + name);
+        }
+        boolean interrupted = false;
+        while (true) {
+            try {
+                task.done.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return the timings of the tasks that have finished so far, in the order they finished
+     */
+    public synchronized List<Timing> getTimings() {
+        return Collections.unmodifiableList(new ArrayList<>(mTimings));
+    }
+
+    private void onTaskDone(Task task, Timing timing) {
+        boolean allDone;
+        synchronized (this) {
+            mTimings.add(timing);
+            task.done.countDown();
+            startReadyTasks();
+            allDone = mMainDone && mTimings.size() == mTasks.size();
+        }
+        if (allDone) {
+            logTimings();
+        }
+    }
+
+    /**
+     * Starts any background or idle tasks whose dependencies have all finished.  Main thread
+     * tasks are run in order by {@link #run()}.
+     */
+    private void startReadyTasks() {
+        for (Task task : mTasks.values()) {
+            if (task.started || task.mode == MAIN || (task.mode == IDLE && !mIdle)) {
+                continue;
+            }
+            boolean ready = true;
+            for (String dependency : task.dependencies) {
+                if (!mTasks.get(dependency).isDone()) {
+                    ready = false;
+                    break;
+                }
+            }
+            if (ready) {
+                task.started = true;
+                if (task.mode == BACKGROUND) {
+                    mExecutor.execute(task);
+                } else {
+                    mHandler.post(task);
+                }
+            }
+        }
+    }
+
+    private void logTimings() {
+        List<Timing> timings = getTimings();
+        long mainNanos;
+        synchronized (this) {
+            mainNanos = mMainNanos;
+        }
+        double total = 0;
+        for (Timing timing : timings) {
+            Log.d(TAG, timing.toString());
+            total = Math.max(total, timing.getStartMillis() + timing.getDurationMillis());
+        }
+        Log.d(TAG, String.format("Main thread startup took %.1f ms, all tasks finished after %.1f ms",
+                mainNanos / 1e6, total));
+    }
+}
@@ -26,13 +26,11 @@ import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonMappingException;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.MappingJsonFactory;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.introspect.VisibilityChecker;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.TextNode;
-import com.fasterxml.jackson.databind.node.TreeTraversingParser;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -67,20 +65,21 @@ public class JacksonSerializer implements ObaApi.SerializationHandler {
     }
 
     /**
-     * Returns the JsonParser if the reader has valid content, null if it does not
+     * Returns a streaming JsonParser positioned on the first token if the reader has valid
+     * content, null if it does not.  Binding directly from the stream avoids materializing the
+     * entire JsonNode tree in addition to the bound response objects.
      * @param reader
      * @return the JsonParser if the reader has valid content, null if it does not
      * @throws IOException
      */
     private static JsonParser getJsonParser(Reader reader)
             throws IOException {
-        JsonNode node = mMapper.readTree(reader);
-        if (node == null) {
-            // According to Jackson docs, the "input has no content to bind", so return null (error)
+        JsonParser parser = mMapper.getFactory().createParser(reader);
+        if (parser.nextToken() == null) {
+            // Same as readTree() returning null - the "input has no content to bind", so return null (error)
+            parser.close();
             return null;
         }
-        TreeTraversingParser parser = new TreeTraversingParser(node);
-        parser.setCodec(mMapper);
         return parser;
     }
 
@@ -118,7 +117,11 @@ public class JacksonSerializer implements ObaApi.SerializationHandler {
             T t = null;
             JsonParser parser = getJsonParser(reader);
             if (parser != null) {
-                t = parser.readValueAs(cls);
+                try {
+                    t = mMapper.readValue(parser, cls);
+                } finally {
+                    parser.close();
+                }
             }
             if (t == null) {
                 t = createFromError(cls, ObaApi.OBA_INTERNAL_ERROR, "Json error");
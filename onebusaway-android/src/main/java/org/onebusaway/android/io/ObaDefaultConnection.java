@@ -19,12 +19,16 @@ import android.net.Uri;
 import android.util.Log;
 
 import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.Reader;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.util.zip.GZIPInputStream;
 
 public final class ObaDefaultConnection implements ObaConnection {
 
@@ -32,22 +36,76 @@ public final class ObaDefaultConnection implements ObaConnection {
 
     private HttpURLConnection mConnection;
 
+    private final ObaResponseCache mCache;
+
+    private final String mCacheKey;
+
+    // Default max-age for this endpoint, or 0 if responses shouldn't be cached
+    private final long mPolicyMaxAge;
+
+    private boolean mCacheChecked;
+
+    private ObaResponseCache.Entry mCacheEntry;
+
+    private boolean mServeFromCache;
+
+    // Body of the cached response being served, opened when the cache is checked
+    private InputStream mCachedBody;
+
+    // Copies the response body into the cache as it's read, or null if it isn't being cached
+    private CachingInputStream mCachingStream;
+
     ObaDefaultConnection(Uri uri) throws IOException {
+        this(uri, null);
+    }
+
+    ObaDefaultConnection(Uri uri, ObaResponseCache cache) throws IOException {
         Log.d(TAG, uri.toString());
         URL url = new URL(uri.toString());
         mConnection = (HttpURLConnection) url.openConnection();
         mConnection.setReadTimeout(30 * 1000);
+        // Setting this ourselves turns off the platform's transparent decoding, so we can count
+        // the bytes on the wire
+        mConnection.setRequestProperty("Accept-Encoding", "gzip");
+        mCache = cache;
+        mCacheKey = uri.toString();
+        mPolicyMaxAge = cache != null ? ObaResponseCache.getPolicyMaxAge(uri) : 0;
+        if (mPolicyMaxAge > 0) {
+            // We handle caching ourselves
+            mConnection.setUseCaches(false);
+        }
     }
 
     @Override
     public void disconnect() {
+        // In case the reader wasn't closed
+        closeQuietly(mCachedBody);
+        closeQuietly(mCachingStream);
         mConnection.disconnect();
     }
 
     @Override
     public Reader get() throws IOException {
-        return new InputStreamReader(
-                new BufferedInputStream(mConnection.getInputStream(), 8 * 1024));
+        if (mPolicyMaxAge <= 0) {
+            return new InputStreamReader(openInputStream());
+        }
+        // Resolves fresh cache hits and conditional revalidation
+        getResponseCode();
+        if (mServeFromCache) {
+            return new InputStreamReader(mCachedBody);
+        }
+        InputStream in = openInputStream();
+        long maxAge = ObaResponseCache.getMaxAge(mConnection.getHeaderField("Cache-Control"),
+                mPolicyMaxAge);
+        ObaResponseCache.Editor editor = maxAge >= 0 ? mCache.edit(mCacheKey,
+                mConnection.getHeaderField("ETag"), mConnection.getHeaderField("Last-Modified"),
+                maxAge) : null;
+        if (editor == null) {
+            return new InputStreamReader(in);
+        }
+        // The body is parsed as it arrives, and written to the cache along the way
+        mCachingStream = new CachingInputStream(in, editor);
+        return new InputStreamReader(mCachingStream);
     }
 
     @Override
@@ -63,13 +121,211 @@ public final class ObaDefaultConnection implements ObaConnection {
         stream.write(data);
         stream.flush();
         stream.close();
+        ObaTransferStats.recordRequest(data.length, data.length);
 
-        return new InputStreamReader(
-                new BufferedInputStream(mConnection.getInputStream(), 8 * 1024));
+        return new InputStreamReader(openInputStream());
     }
 
     @Override
     public int getResponseCode() throws IOException {
-        return mConnection.getResponseCode();
+        if (mPolicyMaxAge <= 0) {
+            return mConnection.getResponseCode();
+        }
+        checkCache();
+        if (mServeFromCache) {
+            return HttpURLConnection.HTTP_OK;
+        }
+        int code = mConnection.getResponseCode();
+        if (code == HttpURLConnection.HTTP_NOT_MODIFIED && mCacheEntry != null) {
+            long maxAge = ObaResponseCache.getMaxAge(
+                    mConnection.getHeaderField("Cache-Control"), mPolicyMaxAge);
+            mCacheEntry = mCache.revalidated(mCacheEntry, Math.max(0, maxAge));
+            if (mCacheEntry == null) {
+                // Evicted while the request was in flight
+                throw new IOException("Cached response for " + mCacheKey + " is gone");
+            }
+            mCachedBody = mCacheEntry.openBody();
+            mServeFromCache = true;
+            return HttpURLConnection.HTTP_OK;
+        }
+        return code;
+    }
+
+    /**
+     * Looks up the response cache before the request is sent.  Fresh responses are served
+     * directly, and stale responses with validators turn this into a conditional request.
+     */
+    private void checkCache() {
+        if (mCacheChecked) {
+            return;
+        }
+        mCacheChecked = true;
+        mCacheEntry = mCache.get(mCacheKey);
+        if (mCacheEntry != null && mCacheEntry.isFresh(System.currentTimeMillis())) {
+            try {
+                mCachedBody = mCacheEntry.openBody();
+                mCache.recordHit();
+                mServeFromCache = true;
+                return;
+            } catch (IOException e) {
+                // Evicted since it was looked up
+                mCacheEntry = null;
+            }
+        }
+        if (mCacheEntry != null && mCacheEntry.hasValidators()) {
+            if (mCacheEntry.getETag().length() > 0) {
+                mConnection.setRequestProperty("If-None-Match", mCacheEntry.getETag());
+            }
+            if (mCacheEntry.getLastModified().length() > 0) {
+                mConnection.setRequestProperty("If-Modified-Since",
+                        mCacheEntry.getLastModified());
+            }
+        } else {
+            mCacheEntry = null;
+        }
+        mCache.recordMiss();
+    }
+
+    /**
+     * Opens the response body, decoding it if the server compressed it.  The transferred bytes
+     * are recorded in {@link ObaTransferStats} when the stream is closed.
+     */
+    private InputStream openInputStream() throws IOException {
+        CountingInputStream wire = new CountingInputStream(mConnection.getInputStream());
+        boolean compressed = "gzip".equalsIgnoreCase(mConnection.getContentEncoding())
+                && mConnection.getContentLength() != 0;
+        InputStream in = compressed ? new GZIPInputStream(wire, 8 * 1024)
+                : new BufferedInputStream(wire, 8 * 1024);
+        return new ResponseInputStream(in, wire, compressed);
+    }
+
+    /**
+     * Counts the decoded bytes of a response body, and records them along with the bytes on the
+     * wire when closed
+     */
+    private static final class ResponseInputStream extends CountingInputStream {
+
+        private final CountingInputStream mWire;
+
+        private final boolean mCompressed;
+
+        private boolean mClosed;
+
+        ResponseInputStream(InputStream in, CountingInputStream wire, boolean compressed) {
+            super(in);
+            mWire = wire;
+            mCompressed = compressed;
+        }
+
+        @Override
+        public void close() throws IOException {
+            super.close();
+            if (!mClosed) {
+                mClosed = true;
+                ObaTransferStats.recordResponse(mWire.getCount(), getCount(), mCompressed);
+                Log.d(TAG, "Received " + mWire.getCount() + " bytes"
+                        + (mCompressed ? " (" + getCount() + " decoded)" : ""));
+            }
+        }
+    }
+
+    private static void closeQuietly(Closeable c) {
+        if (c != null) {
+            try {
+                c.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+        }
+    }
+
+    /**
+     * Writes the response body to a cache editor as it's read.  When the stream is closed, the
+     * body is committed to the cache if it was read to the end, and discarded otherwise.
+     */
+    private static final class CachingInputStream extends FilterInputStream {
+
+        // Bytes read on close to find the end of the body, e.g. whitespace after the JSON the
+        // parser stopped at.  Anything longer is a body the parser gave up on.
+        private static final int MAX_DRAIN = 8 * 1024;
+
+        private final ObaResponseCache.Editor mEditor;
+
+        private boolean mCaching = true;
+
+        private boolean mEnd;
+
+        private boolean mClosed;
+
+        CachingInputStream(InputStream in, ObaResponseCache.Editor editor) {
+            super(in);
+            mEditor = editor;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int count) throws IOException {
+            int read = super.read(buffer, offset, count);
+            if (read == -1) {
+                mEnd = true;
+            } else if (read > 0 && mCaching) {
+                try {
+                    mEditor.write(buffer, offset, read);
+                } catch (IOException e) {
+                    // The cache is best effort - keep reading the response
+                    Log.w(TAG, "Couldn't cache response: " + e);
+                    abort();
+                }
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long count) throws IOException {
+            // Skipped bytes would be missing from the cached body
+            abort();
+            return super.skip(count);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (mClosed) {
+                return;
+            }
+            try {
+                byte[] buffer = new byte[1024];
+                int drained = 0;
+                while (!mEnd && drained < MAX_DRAIN) {
+                    int read = read(buffer, 0, buffer.length);
+                    if (read > 0) {
+                        drained += read;
+                    }
+                }
+            } catch (IOException e) {
+                // The body is incomplete
+            }
+            mClosed = true;
+            if (mEnd && mCaching) {
+                mEditor.commit();
+            } else {
+                abort();
+            }
+            super.close();
+        }
+
+        private void abort() {
+            mCaching = false;
+            mEditor.abort();
+        }
     }
 }
@@ -34,8 +34,21 @@ public class ObaDefaultConnectionFactory implements ObaConnectionFactory {
         return SingletonHolder.INSTANCE;
     }
 
+    private volatile ObaResponseCache mResponseCache;
+
+    /**
+     * Sets the cache used for responses from new connections, or null to disable caching
+     */
+    public void setResponseCache(ObaResponseCache cache) {
+        mResponseCache = cache;
+    }
+
+    public ObaResponseCache getResponseCache() {
+        return mResponseCache;
+    }
+
     @Override
     public ObaConnection newConnection(Uri uri) throws IOException {
-        return new ObaDefaultConnection(uri);
+        return new ObaDefaultConnection(uri, mResponseCache);
     }
 }
@@ -0,0 +1,655 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.io;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import android.net.Uri;
+import android.text.TextUtils;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A disk-backed, size-bounded cache of OBA REST API responses used by ObaDefaultConnection.
+ *
+ * Each response is stored in its own file along with its validators (ETag and Last-Modified)
+ * and expiration time.  Bodies are never held in memory - they're written to the file as they
+ * arrive (see {@link #edit(String, String, String, long)}) and read back from it as a stream.  Fresh responses are served without touching the network, and stale
+ * responses that have validators are revalidated with a conditional request.  How long a
+ * response stays fresh comes from the server's Cache-Control max-age if present, otherwise from
+ * a per-endpoint policy (see {@link #getPolicyMaxAge(Uri)}).  Endpoints without a policy are
+ * never cached, and neither are responses whose OBA status code isn't OK (see
+ * {@link #isOk(InputStream)}).
+ *
+ * When the total size of the cache exceeds the limit, the least recently used responses are
+ * evicted.
+ */
+public class ObaResponseCache {
+
+    private static final String TAG = "ObaResponseCache";
+
+    // Version 2 streams the body to the end of the file, instead of storing its length first
+    private static final int FILE_VERSION = 2;
+
+    private static final String FILE_SUFFIX = ".cache";
+
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * Per-endpoint max-age policies, keyed on the API method name (the path segment that follows
+     * "api/where/", or the file name of the regions API).  Anything not listed is not cached.
+     */
+    private static final Map<String, Long> POLICIES = new LinkedHashMap<>();
+
+    static {
+        // Real-time data - short enough to only share responses between screens
+        POLICIES.put("arrivals-and-departures-for-stop", TimeUnit.SECONDS.toMillis(10));
+        POLICIES.put("arrival-and-departure-for-stop", TimeUnit.SECONDS.toMillis(10));
+        POLICIES.put("trip-details", TimeUnit.SECONDS.toMillis(10));
+        POLICIES.put("trips-for-route", TimeUnit.SECONDS.toMillis(10));
+        POLICIES.put("trips-for-location", TimeUnit.SECONDS.toMillis(10));
+        // Schedule and stop data
+        POLICIES.put("schedule-for-stop", TimeUnit.HOURS.toMillis(1));
+        POLICIES.put("stops-for-location", TimeUnit.HOURS.toMillis(1));
+        POLICIES.put("routes-for-location", TimeUnit.HOURS.toMillis(1));
+        POLICIES.put("stop", TimeUnit.HOURS.toMillis(1));
+        POLICIES.put("trip", TimeUnit.HOURS.toMillis(6));
+        // Data that very rarely changes
+        POLICIES.put("route", TimeUnit.DAYS.toMillis(1));
+        POLICIES.put("stops-for-route", TimeUnit.DAYS.toMillis(1));
+        POLICIES.put("route-ids-for-agency", TimeUnit.DAYS.toMillis(1));
+        POLICIES.put("stop-ids-for-agency", TimeUnit.DAYS.toMillis(1));
+        POLICIES.put("agency", TimeUnit.DAYS.toMillis(1));
+        POLICIES.put("agencies-with-coverage", TimeUnit.DAYS.toMillis(1));
+        POLICIES.put("shape", TimeUnit.DAYS.toMillis(7));
+        POLICIES.put("regions", TimeUnit.DAYS.toMillis(1));
+    }
+
+    /**
+     * A cached response
+     */
+    public static final class Entry {
+
+        private final String mKey;
+
+        private final File mFile;
+
+        private final String mETag;
+
+        private final String mLastModified;
+
+        private final long mExpires;
+
+        Entry(String key, File file, String eTag, String lastModified, long expires) {
+            mKey = key;
+            mFile = file;
+            mETag = eTag;
+            mLastModified = lastModified;
+            mExpires = expires;
+        }
+
+        /**
+         * Opens the cached body.  The file may have been evicted since the entry was looked up,
+         * in which case this throws.
+         */
+        public InputStream openBody() throws IOException {
+            return ObaResponseCache.openBody(mFile, mKey);
+        }
+
+        public String getETag() {
+            return mETag;
+        }
+
+        public String getLastModified() {
+            return mLastModified;
+        }
+
+        public long getExpires() {
+            return mExpires;
+        }
+
+        public boolean isFresh(long now) {
+            return now < mExpires;
+        }
+
+        public boolean hasValidators() {
+            return !TextUtils.isEmpty(mETag) || !TextUtils.isEmpty(mLastModified);
+        }
+    }
+
+    /**
+     * Writes a response body to the cache as it's received.  Nothing is stored until
+     * {@link #commit()}, and then only if the response is OK.
+     */
+    public final class Editor {
+
+        private final Entry mEntry;
+
+        private final File mTmp;
+
+        private final OutputStream mOut;
+
+        private boolean mDone;
+
+        Editor(Entry entry, File tmp) throws IOException {
+            mEntry = entry;
+            mTmp = tmp;
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tmp), 8 * 1024));
+            try {
+                writeHeader(out, entry);
+            } catch (IOException e) {
+                closeQuietly(out);
+                throw e;
+            }
+            mOut = out;
+        }
+
+        public void write(byte[] buffer, int offset, int count) throws IOException {
+            mOut.write(buffer, offset, count);
+        }
+
+        /**
+         * Stores the body written so far, if its OBA status code is OK (see
+         * {@link ObaResponseCache#isOk(InputStream)})
+         *
+         * @return true if the response was stored
+         */
+        public boolean commit() {
+            if (mDone) {
+                return false;
+            }
+            mDone = true;
+            try {
+                mOut.close();
+                if (!isOk(openBody(mTmp, mEntry.mKey))) {
+                    mTmp.delete();
+                    return false;
+                }
+            } catch (IOException e) {
+                Log.w(TAG, "Couldn't write cached response " + mEntry.mFile + ": " + e);
+                mTmp.delete();
+                return false;
+            }
+            return store(mTmp, mEntry.mFile);
+        }
+
+        /**
+         * Discards the body, e.g. because it wasn't completely received
+         */
+        public void abort() {
+            if (mDone) {
+                return;
+            }
+            mDone = true;
+            closeQuietly(mOut);
+            mTmp.delete();
+        }
+    }
+
+    private final File mDirectory;
+
+    private final long mMaxSize;
+
+    // File name -> size, in least to most recently used order
+    private final LinkedHashMap<String, Long> mLru = new LinkedHashMap<>(32, 0.75f, true);
+
+    private long mSize;
+
+    private boolean mInitialized;
+
+    private final AtomicInteger mHitCount = new AtomicInteger();
+
+    private final AtomicInteger mConditionalHitCount = new AtomicInteger();
+
+    private final AtomicInteger mMissCount = new AtomicInteger();
+
+    private final AtomicInteger mEvictionCount = new AtomicInteger();
+
+    /**
+     * @param directory directory the responses are stored in, which this cache owns
+     * @param maxSize   maximum total size of the cached responses, in bytes
+     */
+    public ObaResponseCache(File directory, long maxSize) {
+        mDirectory = directory;
+        mMaxSize = maxSize;
+    }
+
+    /**
+     * Returns how long a response for the given URI should be considered fresh by default,
+     * in milliseconds, or 0 if responses for the URI should not be cached.
+     */
+    public static long getPolicyMaxAge(Uri uri) {
+        List<String> segments = uri.getPathSegments();
+        if (segments == null || segments.isEmpty()) {
+            return 0;
+        }
+        String method = null;
+        int where = segments.indexOf("where");
+        if (where >= 0 && where + 1 < segments.size()) {
+            method = segments.get(where + 1);
+        } else {
+            // Regions API, e.g. regions-v3.json
+            String last = segments.get(segments.size() - 1);
+            if (last.startsWith("regions")) {
+                method = "regions";
+            }
+        }
+        if (method == null) {
+            return 0;
+        }
+        if (method.endsWith(".json")) {
+            method = method.substring(0, method.length() - ".json".length());
+        }
+        Long maxAge = POLICIES.get(method);
+        return maxAge != null ? maxAge : 0;
+    }
+
+    /**
+     * Combines the Cache-Control header of a response with the policy max-age for the endpoint
+     *
+     * @param cacheControl  Cache-Control header of the response, or null
+     * @param policyMaxAge  max-age of the endpoint policy, in milliseconds
+     * @return the max-age the response should be cached for in milliseconds, 0 if it must always
+     * be revalidated, or -1 if it must not be stored at all
+     */
+    public static long getMaxAge(String cacheControl, long policyMaxAge) {
+        if (TextUtils.isEmpty(cacheControl)) {
+            return policyMaxAge;
+        }
+        long maxAge = policyMaxAge;
+        for (String directive : cacheControl.toLowerCase(Locale.US).split(",")) {
+            directive = directive.trim();
+            if (directive.equals("no-store")) {
+                return -1;
+            } else if (directive.equals("no-cache")) {
+                maxAge = 0;
+            } else if (directive.startsWith("max-age=") && maxAge != 0) {
+                try {
+                    maxAge = TimeUnit.SECONDS.toMillis(
+                            Long.parseLong(directive.substring("max-age=".length()).trim()));
+                } catch (NumberFormatException e) {
+                    // Ignore and keep the policy value
+                }
+            }
+        }
+        return maxAge;
+    }
+
+    /**
+     * Checks the status code in the body of an OBA response.  Errors such as an unknown stop or
+     * an over-limit API key come back as HTTP 200, with the error only in the "code" field.
+     *
+     * @param in the response body, which is closed
+     * @return true if the top-level "code" of the response is {@link ObaApi#OBA_OK}
+     */
+    public static boolean isOk(InputStream in) {
+        try {
+            JsonParser parser = JSON_FACTORY.createParser(in);
+            try {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    return false;
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.getCurrentName();
+                    JsonToken value = parser.nextToken();
+                    if ("code".equals(name)) {
+                        return value == JsonToken.VALUE_NUMBER_INT
+                                && parser.getIntValue() == ObaApi.OBA_OK;
+                    }
+                    // e.g., "data", which is most of the response when it comes before "code"
+                    parser.skipChildren();
+                }
+                return false;
+            } finally {
+                parser.close();
+            }
+        } catch (IOException e) {
+            return false;
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    /**
+     * Returns the cached response for the key, or null if there isn't one.  The response may be
+     * stale - see {@link Entry#isFresh(long)}.
+     */
+    public synchronized Entry get(String key) {
+        initialize();
+        String fileName = getFileName(key);
+        if (mLru.get(fileName) == null) {
+            return null;
+        }
+        File file = new File(mDirectory, fileName);
+        Entry entry = readEntry(file);
+        if (entry == null || !entry.mKey.equals(key)) {
+            // Corrupt file, or a hash collision with a different URI
+            remove(fileName);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Starts storing a response for the key, which replaces any existing response once the
+     * returned editor is committed
+     *
+     * @return the editor to write the body to, or null if the response can't be cached
+     */
+    public Editor edit(String key, String eTag, String lastModified, long maxAge) {
+        File file;
+        synchronized (this) {
+            initialize();
+            file = new File(mDirectory, getFileName(key));
+        }
+        Entry entry = new Entry(key, file, eTag != null ? eTag : "",
+                lastModified != null ? lastModified : "", System.currentTimeMillis() + maxAge);
+        File tmp = null;
+        try {
+            // Each request gets its own temporary file, so concurrent requests for the same
+            // key don't interfere
+            tmp = File.createTempFile("response", TMP_SUFFIX, mDirectory);
+            return new Editor(entry, tmp);
+        } catch (IOException e) {
+            Log.w(TAG, "Couldn't write cached response " + file + ": " + e);
+            if (tmp != null) {
+                tmp.delete();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Called when the server confirms a stale response is still valid (HTTP 304), to extend
+     * its freshness.
+     *
+     * @return the updated entry, or null if the cached response is no longer available
+     */
+    public Entry revalidated(Entry entry, long maxAge) {
+        mConditionalHitCount.incrementAndGet();
+        Entry updated = new Entry(entry.mKey, entry.mFile, entry.mETag, entry.mLastModified,
+                System.currentTimeMillis() + maxAge);
+        RandomAccessFile file = null;
+        try {
+            // Only the expiration time changes, so it's updated in place after the validators
+            file = new RandomAccessFile(entry.mFile, "rw");
+            if (file.readInt() != FILE_VERSION || !file.readUTF().equals(entry.mKey)) {
+                return null;
+            }
+            file.readUTF();
+            file.readUTF();
+            file.writeLong(updated.mExpires);
+            return updated;
+        } catch (IOException e) {
+            Log.w(TAG, "Couldn't revalidate cached response " + entry.mFile + ": " + e);
+            return null;
+        } finally {
+            closeQuietly(file);
+        }
+    }
+
+    /**
+     * Removes all responses from the cache
+     */
+    public synchronized void clear() {
+        initialize();
+        for (String fileName : mLru.keySet()) {
+            new File(mDirectory, fileName).delete();
+        }
+        mLru.clear();
+        mSize = 0;
+    }
+
+    void recordHit() {
+        mHitCount.incrementAndGet();
+    }
+
+    void recordMiss() {
+        mMissCount.incrementAndGet();
+    }
+
+    /**
+     * @return the number of responses served from the cache without contacting the server
+     */
+    public int getHitCount() {
+        return mHitCount.get();
+    }
+
+    /**
+     * @return the number of responses served from the cache after the server returned
+     * HTTP 304 to a conditional request
+     */
+    public int getConditionalHitCount() {
+        return mConditionalHitCount.get();
+    }
+
+    /**
+     * @return the number of cacheable requests that were fetched from the server
+     */
+    public int getMissCount() {
+        return mMissCount.get();
+    }
+
+    /**
+     * @return the number of responses evicted to keep the cache under its size limit
+     */
+    public int getEvictionCount() {
+        return mEvictionCount.get();
+    }
+
+    /**
+     * @return the current total size of the cached responses, in bytes
+     */
+    public synchronized long getSize() {
+        initialize();
+        return mSize;
+    }
+
+    public long getMaxSize() {
+        return mMaxSize;
+    }
+
+    @Override
+    public String toString() {
+        return "ObaResponseCache [hits=" + getHitCount() + ", conditionalHits="
+                + getConditionalHitCount() + ", misses=" + getMissCount() + ", evictions="
+                + getEvictionCount() + "]";
+    }
+
+    /**
+     * Loads the existing cache files, in order of last use, the first time the cache is used
+     */
+    private void initialize() {
+        if (mInitialized) {
+            return;
+        }
+        mInitialized = true;
+        if (!mDirectory.exists() && !mDirectory.mkdirs()) {
+            Log.e(TAG, "Couldn't create cache directory " + mDirectory);
+            return;
+        }
+        File[] files = mDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File f1, File f2) {
+                long t1 = f1.lastModified();
+                long t2 = f2.lastModified();
+                return t1 < t2 ? -1 : (t1 == t2 ? 0 : 1);
+            }
+        });
+        for (File file : files) {
+            if (file.getName().endsWith(FILE_SUFFIX)) {
+                mLru.put(file.getName(), file.length());
+                mSize += file.length();
+            } else {
+                file.delete();
+            }
+        }
+        trimToSize();
+    }
+
+    private void trimToSize() {
+        Iterator<Map.Entry<String, Long>> it = mLru.entrySet().iterator();
+        while (mSize > mMaxSize && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            new File(mDirectory, eldest.getKey()).delete();
+            mSize -= eldest.getValue();
+            it.remove();
+            mEvictionCount.incrementAndGet();
+        }
+    }
+
+    private void remove(String fileName) {
+        Long size = mLru.remove(fileName);
+        if (size != null) {
+            mSize -= size;
+        }
+        new File(mDirectory, fileName).delete();
+    }
+
+    /**
+     * Moves a completely written response into place
+     */
+    private synchronized boolean store(File tmp, File file) {
+        String fileName = file.getName();
+        if (!tmp.renameTo(file)) {
+            Log.w(TAG, "Couldn't write cached response " + file);
+            tmp.delete();
+            remove(fileName);
+            return false;
+        }
+        Long oldSize = mLru.put(fileName, file.length());
+        if (oldSize != null) {
+            mSize -= oldSize;
+        }
+        mSize += file.length();
+        trimToSize();
+        return true;
+    }
+
+    private static Entry readEntry(File file) {
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1024));
+            Entry entry = readHeader(in, file);
+            // Keep the file's last modified time in sync with the LRU order
+            file.setLastModified(System.currentTimeMillis());
+            return entry;
+        } catch (IOException e) {
+            Log.w(TAG, "Couldn't read cached response " + file + ": " + e);
+            return null;
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    /**
+     * Opens the body of the response for the key stored in the file
+     */
+    private static InputStream openBody(File file, String key) throws IOException {
+        DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file), 8 * 1024));
+        try {
+            Entry entry = readHeader(in, file);
+            if (entry == null || !entry.mKey.equals(key)) {
+                throw new IOException("Cached response " + file + " was replaced");
+            }
+        } catch (IOException e) {
+            closeQuietly(in);
+            throw e;
+        }
+        return in;
+    }
+
+    /**
+     * Reads the header of a cache file, leaving the stream at the start of the body
+     *
+     * @return the entry, or null if the file is from another version
+     */
+    private static Entry readHeader(DataInputStream in, File file) throws IOException {
+        if (in.readInt() != FILE_VERSION) {
+            return null;
+        }
+        String key = in.readUTF();
+        String eTag = in.readUTF();
+        String lastModified = in.readUTF();
+        long expires = in.readLong();
+        return new Entry(key, file, eTag, lastModified, expires);
+    }
+
+    private static void writeHeader(DataOutputStream out, Entry entry) throws IOException {
+        out.writeInt(FILE_VERSION);
+        out.writeUTF(entry.mKey);
+        out.writeUTF(entry.mETag);
+        out.writeUTF(entry.mLastModified);
+        out.writeLong(entry.mExpires);
+    }
+
+    private static void closeQuietly(Closeable c) {
+        if (c != null) {
+            try {
+                c.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+        }
+    }
+
+    private static String getFileName(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(key.getBytes("UTF-8"));
+            StringBuilder builder = new StringBuilder(hash.length * 2 + FILE_SUFFIX.length());
+            for (byte b : hash) {
+                builder.append(String.format(Locale.US, "%02x", b));
+            }
+            return builder.append(FILE_SUFFIX).toString();
+        } catch (NoSuchAlgorithmException | IOException e) {
+            return Integer.toHexString(key.hashCode()) + FILE_SUFFIX;
+        }
+    }
+}
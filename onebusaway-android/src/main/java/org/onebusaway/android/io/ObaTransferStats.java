@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.io;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the bytes transferred by {@link ObaDefaultConnection}, both on the wire and after
+ * decoding, so we can see how much compressed transfer saves.
+ */
+public final class ObaTransferStats {
+
+    private static final AtomicLong sResponseCount = new AtomicLong();
+
+    private static final AtomicLong sCompressedResponseCount = new AtomicLong();
+
+    private static final AtomicLong sResponseWireBytes = new AtomicLong();
+
+    private static final AtomicLong sResponseBytes = new AtomicLong();
+
+    private static final AtomicLong sRequestWireBytes = new AtomicLong();
+
+    private static final AtomicLong sRequestBytes = new AtomicLong();
+
+    private ObaTransferStats() {
+    }
+
+    static void recordResponse(long wireBytes, long bytes, boolean compressed) {
+        sResponseCount.incrementAndGet();
+        if (compressed) {
+            sCompressedResponseCount.incrementAndGet();
+        }
+        sResponseWireBytes.addAndGet(wireBytes);
+        sResponseBytes.addAndGet(bytes);
+    }
+
+    static void recordRequest(long wireBytes, long bytes) {
+        sRequestWireBytes.addAndGet(wireBytes);
+        sRequestBytes.addAndGet(bytes);
+    }
+
+    /**
+     * @return the number of response bodies read from the network
+     */
+    public static long getResponseCount() {
+        return sResponseCount.get();
+    }
+
+    /**
+     * @return the number of response bodies that were sent compressed
+     */
+    public static long getCompressedResponseCount() {
+        return sCompressedResponseCount.get();
+    }
+
+    /**
+     * @return the number of response body bytes received over the network
+     */
+    public static long getResponseWireBytes() {
+        return sResponseWireBytes.get();
+    }
+
+    /**
+     * @return the number of response body bytes after decoding
+     */
+    public static long getResponseBytes() {
+        return sResponseBytes.get();
+    }
+
+    /**
+     * @return the number of request body bytes sent over the network
+     */
+    public static long getRequestWireBytes() {
+        return sRequestWireBytes.get();
+    }
+
+    /**
+     * @return the number of request body bytes before encoding
+     */
+    public static long getRequestBytes() {
+        return sRequestBytes.get();
+    }
+
+    public static void reset() {
+        sResponseCount.set(0);
+        sCompressedResponseCount.set(0);
+        sResponseWireBytes.set(0);
+        sResponseBytes.set(0);
+        sRequestWireBytes.set(0);
+        sRequestBytes.set(0);
+    }
+}
@@ -134,6 +134,42 @@ public final class ObaArrivalInfo implements Serializable{
         predictedOccupancy = "";
     }
 
+    /**
+     * Creates an arrival from the schedule, without any real-time information.  Since the
+     * stop sequence isn't known, it's shown as a departure.
+     */
+    public ObaArrivalInfo(String routeId, String routeShortName, String routeLongName,
+            String tripId, String tripHeadsign, String stopId, long scheduledArrivalTime,
+            long scheduledDepartureTime, long serviceDate) {
+        this.routeId = routeId;
+        this.routeShortName = routeShortName;
+        this.routeLongName = routeLongName;
+        this.tripId = tripId;
+        this.tripHeadsign = tripHeadsign;
+        this.stopId = stopId;
+        this.predictedArrivalTime = 0;
+        this.scheduledArrivalTime = scheduledArrivalTime;
+        this.predictedDepartureTime = 0;
+        this.scheduledDepartureTime = scheduledDepartureTime;
+        this.status = "default";
+        this.frequency = null;
+        this.vehicleId = null;
+        this.distanceFromStop = null;
+        this.numberOfStopsAway = null;
+        this.serviceDate = serviceDate;
+        this.lastUpdateTime = 0;
+        this.predicted = false;
+        this.tripStatus = null;
+        this.situationIds = null;
+        this.arrivalEnabled = true;
+        this.departureEnabled = true;
+        this.stopSequence = 0;
+        this.totalStopsInTrip = 0;
+        this.blockTripSequence = 0;
+        this.historicalOccupancy = "";
+        this.predictedOccupancy = "";
+    }
+
     /**
      * @return The ID of the route.
      */
@@ -17,7 +17,9 @@ package org.onebusaway.android.io.elements;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public final class ObaReferencesElement implements ObaReferences {
 
@@ -33,6 +35,19 @@ public final class ObaReferencesElement implements ObaReferences {
 
     private final ObaSituationElement[] situations;
 
+    // Id indexes, lazily built on first lookup.  These are transient so Jackson ignores them, and
+    // volatile so a fully-built index is safely published to other threads.  If two threads race
+    // to build the same index they each build an identical map, so no locking is required.
+    private transient volatile Map<String, ObaStopElement> mStopIndex;
+
+    private transient volatile Map<String, ObaRouteElement> mRouteIndex;
+
+    private transient volatile Map<String, ObaTripElement> mTripIndex;
+
+    private transient volatile Map<String, ObaAgencyElement> mAgencyIndex;
+
+    private transient volatile Map<String, ObaSituationElement> mSituationIndex;
+
     public ObaReferencesElement() {
         stops = ObaStopElement.EMPTY_ARRAY;
         routes = ObaRouteElement.EMPTY_ARRAY;
@@ -43,22 +58,22 @@ public final class ObaReferencesElement implements ObaReferences {
 
     @Override
     public ObaStop getStop(String id) {
-        return findById(stops, id);
+        return getStopIndex().get(id);
     }
 
     @Override
     public List<ObaStop> getStops(String[] ids) {
-        return findList(ObaStop.class, stops, ids);
+        return findList(ObaStop.class, getStopIndex(), ids);
     }
 
     @Override
     public ObaRoute getRoute(String id) {
-        return findById(routes, id);
+        return getRouteIndex().get(id);
     }
 
     @Override
     public List<ObaRoute> getRoutes(String[] ids) {
-        return findList(ObaRoute.class, routes, ids);
+        return findList(ObaRoute.class, getRouteIndex(), ids);
     }
 
     @Override
@@ -68,55 +83,102 @@ public final class ObaReferencesElement implements ObaReferences {
 
     @Override
     public ObaTrip getTrip(String id) {
-        return findById(trips, id);
+        return getTripIndex().get(id);
     }
 
     @Override
     public List<ObaTrip> getTrips(String[] ids) {
-        return findList(ObaTrip.class, trips, ids);
+        return findList(ObaTrip.class, getTripIndex(), ids);
     }
 
     @Override
     public ObaAgency getAgency(String id) {
-        return findById(agencies, id);
+        return getAgencyIndex().get(id);
     }
 
     @Override
     public List<ObaAgency> getAgencies(String[] ids) {
-        return findList(ObaAgency.class, agencies, ids);
+        return findList(ObaAgency.class, getAgencyIndex(), ids);
     }
 
     @Override
     public ObaSituation getSituation(String id) {
-        return findById(situations, id);
+        return getSituationIndex().get(id);
     }
 
     @Override
     public List<ObaSituation> getSituations(String[] ids) {
-        return findList(ObaSituation.class, situations, ids);
+        return findList(ObaSituation.class, getSituationIndex(), ids);
+    }
+
+    private Map<String, ObaStopElement> getStopIndex() {
+        Map<String, ObaStopElement> index = mStopIndex;
+        if (index == null) {
+            index = buildIndex(stops);
+            mStopIndex = index;
+        }
+        return index;
+    }
+
+    private Map<String, ObaRouteElement> getRouteIndex() {
+        Map<String, ObaRouteElement> index = mRouteIndex;
+        if (index == null) {
+            index = buildIndex(routes);
+            mRouteIndex = index;
+        }
+        return index;
+    }
+
+    private Map<String, ObaTripElement> getTripIndex() {
+        Map<String, ObaTripElement> index = mTripIndex;
+        if (index == null) {
+            index = buildIndex(trips);
+            mTripIndex = index;
+        }
+        return index;
+    }
+
+    private Map<String, ObaAgencyElement> getAgencyIndex() {
+        Map<String, ObaAgencyElement> index = mAgencyIndex;
+        if (index == null) {
+            index = buildIndex(agencies);
+            mAgencyIndex = index;
+        }
+        return index;
+    }
+
+    private Map<String, ObaSituationElement> getSituationIndex() {
+        Map<String, ObaSituationElement> index = mSituationIndex;
+        if (index == null) {
+            index = buildIndex(situations);
+            mSituationIndex = index;
+        }
+        return index;
     }
 
-    //
-    // TODO: This will be much easier when we convert to HashMap storage.
-    //
-    private static <T extends ObaElement> T findById(T[] objects, String id) {
+    /**
+     * Builds an id -> element map.  If the same id appears more than once the first element
+     * wins, which matches the behavior of the linear scan this replaced.
+     */
+    private static <T extends ObaElement> Map<String, T> buildIndex(T[] objects) {
         final int len = objects.length;
+        Map<String, T> index = new HashMap<String, T>(Math.max(4, len * 4 / 3 + 1));
         for (int i = 0; i < len; ++i) {
             final T obj = objects[i];
-            if (obj.getId().equals(id)) {
-                return obj;
+            final String id = obj.getId();
+            if (id != null && !index.containsKey(id)) {
+                index.put(id, obj);
             }
         }
-        return null;
+        return index;
     }
 
     private static <E extends ObaElement, T extends E> List<E> findList(
-            Class<E> cls, T[] objects, String[] ids) {
-        ArrayList<E> result = new ArrayList<E>();
+            Class<E> cls, Map<String, T> index, String[] ids) {
         final int len = ids.length;
+        ArrayList<E> result = new ArrayList<E>(len);
         for (int i = 0; i < len; ++i) {
-            final String id = ids[i];
-            final T obj = findById(objects, id);
+            final T obj = index.get(ids[i]);
             if (obj != null) {
                 result.add(obj);
             }
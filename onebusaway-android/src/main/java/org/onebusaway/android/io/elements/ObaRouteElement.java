@@ -78,6 +78,19 @@ public final class ObaRouteElement implements ObaRoute {
 
     }
 
+    public ObaRouteElement(String id, String shortName, String longName, String description,
+            int type, String url, String color, String textColor, String agencyId) {
+        this.id = id;
+        this.shortName = shortName;
+        this.longName = longName;
+        this.description = description;
+        this.type = type;
+        this.url = url;
+        this.color = color;
+        this.textColor = textColor;
+        this.agencyId = agencyId;
+    }
+
     @Override
     public String getId() {
         return id;
@@ -49,6 +49,15 @@ public interface ObaShape {
      */
     public List<Location> getPoints();
 
+    /**
+     * Decodes the points in this line into a packed buffer, which avoids allocating a Location
+     * per point.
+     *
+     * @param out The buffer to decode into, reusing its storage, or null to allocate a new one.
+     * @return out, or a new buffer if out was null.
+     */
+    public ShapePoints getPoints(ShapePoints out);
+
     /**
      * Returns the string encoding of the points in this line.
      *
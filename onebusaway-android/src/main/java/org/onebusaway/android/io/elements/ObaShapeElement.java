@@ -15,11 +15,9 @@
  */
 package org.onebusaway.android.io.elements;
 
-import org.onebusaway.android.util.LocationUtils;
-
 import android.location.Location;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
 import java.util.List;
 
 public final class ObaShapeElement implements ObaShape {
@@ -60,6 +58,11 @@ public final class ObaShapeElement implements ObaShape {
         return decodeLine(points, length);
     }
 
+    @Override
+    public ShapePoints getPoints(ShapePoints out) {
+        return decodeLine(points, length, out);
+    }
+
     @Override
     public String getRawPoints() {
         return points;
@@ -78,10 +81,31 @@ public final class ObaShapeElement implements ObaShape {
      * @return A list of points from the encoded string.
      */
     public static List<Location> decodeLine(String encoded, int numPoints) {
+        return decodeLine(encoded, numPoints, null).toLocations();
+    }
+
+    /**
+     * Decodes an encoded polyline into a packed buffer of points, without allocating an object
+     * per point.
+     *
+     * @param encoded   The encoded string.
+     * @param numPoints The number of points. This is purely used as a hint
+     *                  to allocate memory; the function will always return the number
+     *                  of points that are contained in the encoded string.
+     * @param out       The buffer to decode into, which is cleared first, or null to allocate a
+     *                  new one.
+     * @return out, or the new buffer if out was null
+     */
+    public static ShapePoints decodeLine(String encoded, int numPoints, ShapePoints out) {
         if (numPoints < 0) {
             throw new IllegalArgumentException("numPoints must be >= 0");
         }
-        ArrayList<Location> array = new ArrayList<Location>(numPoints);
+        if (out == null) {
+            out = new ShapePoints(numPoints);
+        } else {
+            out.clear();
+            out.ensureCapacity(numPoints);
+        }
 
         final int len = encoded.length();
         int i = 0;
@@ -91,36 +115,32 @@ public final class ObaShapeElement implements ObaShape {
             int shift = 0;
             int result = 0;
 
-            int a, b;
+            int b;
             do {
-                a = encoded.charAt(i);
-                b = a - 63;
+                b = encoded.charAt(i) - 63;
                 result |= (b & 0x1f) << shift;
                 shift += 5;
                 ++i;
             } while (b >= 0x20);
 
-            final int dlat = ((result & 1) == 1 ? ~(result >> 1) : (result >> 1));
-            lat += dlat;
+            lat += ((result & 1) == 1 ? ~(result >> 1) : (result >> 1));
 
             shift = 0;
             result = 0;
             do {
-                a = encoded.charAt(i);
-                b = a - 63;
+                b = encoded.charAt(i) - 63;
                 result |= (b & 0x1f) << shift;
                 shift += 5;
                 ++i;
             } while (b >= 0x20);
 
-            final int dlon = ((result & 1) == 1 ? ~(result >> 1) : (result >> 1));
-            lon += dlon;
+            lon += ((result & 1) == 1 ? ~(result >> 1) : (result >> 1));
 
             // The polyline encodes in degrees * 1E5, we need decimal degrees
-            array.add(LocationUtils.makeLocation(lat / 1E5, lon / 1E5));
+            out.add(lat / 1E5, lon / 1E5);
         }
 
-        return array;
+        return out;
     }
 
     /**
@@ -134,29 +154,76 @@ public final class ObaShapeElement implements ObaShape {
      * @return A list of levels from the encoded string.
      */
     public static List<Integer> decodeLevels(String encoded, int numPoints) {
+        final int[] levels = decodeLevels(encoded, numPoints, null);
+        final int size = countLevels(encoded);
+        return new AbstractList<Integer>() {
+            @Override
+            public Integer get(int index) {
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+                }
+                return levels[index];
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Decodes encoded levels into a primitive array, without boxing each level.
+     *
+     * @param encoded   The encoded string.
+     * @param numPoints The number of points. This is purely used as a hint
+     *                  to allocate memory.
+     * @param out       The array to decode into if it is large enough, or null
+     * @return out if it was large enough to hold all of the levels, otherwise a new array.  Only
+     * the first {@link #countLevels(String)} entries are valid.
+     */
+    public static int[] decodeLevels(String encoded, int numPoints, int[] out) {
         if (numPoints < 0) {
             throw new IllegalArgumentException("numPoints must be >= 0");
         }
-        ArrayList<Integer> array = new ArrayList<Integer>(numPoints);
+        final int count = countLevels(encoded);
+        if (out == null || out.length < count) {
+            out = new int[Math.max(count, numPoints)];
+        }
 
         final int len = encoded.length();
         int i = 0;
+        int n = 0;
         while (i < len) {
             int shift = 0;
             int result = 0;
 
-            int a, b;
+            int b;
             do {
-                a = encoded.charAt(i);
-                b = a - 63;
+                b = encoded.charAt(i) - 63;
                 result |= (b & 0x1f) << shift;
                 shift += 5;
                 ++i;
             } while (b >= 0x20);
 
-            array.add(result);
+            out[n++] = result;
         }
 
-        return array;
+        return out;
+    }
+
+    /**
+     * @return the number of levels in the encoded string
+     */
+    public static int countLevels(String encoded) {
+        final int len = encoded.length();
+        int count = 0;
+        for (int i = 0; i < len; ++i) {
+            // Each value ends with a character that doesn't have the continuation bit set
+            if (encoded.charAt(i) - 63 < 0x20) {
+                count++;
+            }
+        }
+        return count;
     }
 }
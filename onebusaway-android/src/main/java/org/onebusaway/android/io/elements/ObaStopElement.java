@@ -61,10 +61,15 @@ public final class ObaStopElement implements ObaStop {
     }
 
     public ObaStopElement(String id, double lat, double lon, String name, String code) {
+        this(id, lat, lon, name, code, "");
+    }
+
+    public ObaStopElement(String id, double lat, double lon, String name, String code,
+            String direction) {
         this.id = id;
         this.lat = lat;
         this.lon = lon;
-        direction = "";
+        this.direction = direction;
         locationType = LOCATION_STOP;
         this.name = name;
         this.code = code;
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.io.elements;
+
+import org.onebusaway.android.util.LocationUtils;
+
+import android.location.Location;
+
+import java.util.ArrayList;
+
+/**
+ * A compact, reusable buffer of decoded polyline points, stored as interleaved
+ * latitude/longitude pairs in a single double[].  Decoding into an existing instance reuses its
+ * buffer, so drawing many shapes doesn't allocate an object per vertex.
+ *
+ * Use {@link #toLocations()} for callers that need a List of Locations.
+ */
+public final class ShapePoints {
+
+    private double[] mCoords;
+
+    private int mSize;
+
+    public ShapePoints() {
+        this(16);
+    }
+
+    /**
+     * @param capacity initial number of points the buffer can hold without growing
+     */
+    public ShapePoints(int capacity) {
+        mCoords = new double[Math.max(1, capacity) * 2];
+    }
+
+    /**
+     * @return the number of points
+     */
+    public int size() {
+        return mSize;
+    }
+
+    public double getLatitude(int index) {
+        checkIndex(index);
+        return mCoords[index * 2];
+    }
+
+    public double getLongitude(int index) {
+        checkIndex(index);
+        return mCoords[index * 2 + 1];
+    }
+
+    /**
+     * Removes all points, keeping the buffer for reuse
+     */
+    public void clear() {
+        mSize = 0;
+    }
+
+    /**
+     * Makes sure the buffer can hold at least the given number of points without growing
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity * 2 > mCoords.length) {
+            double[] coords = new double[Math.max(capacity * 2, mCoords.length * 2)];
+            System.arraycopy(mCoords, 0, coords, 0, mSize * 2);
+            mCoords = coords;
+        }
+    }
+
+    public void add(double lat, double lon) {
+        ensureCapacity(mSize + 1);
+        mCoords[mSize * 2] = lat;
+        mCoords[mSize * 2 + 1] = lon;
+        mSize++;
+    }
+
+    /**
+     * Returns a copy of the points as Locations, creating a Location per point
+     */
+    public ArrayList<Location> toLocations() {
+        ArrayList<Location> results = new ArrayList<>(mSize);
+        for (int i = 0; i < mSize; i++) {
+            results.add(LocationUtils.makeLocation(mCoords[i * 2], mCoords[i * 2 + 1]));
+        }
+        return results;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+        }
+    }
+}
@@ -17,6 +17,7 @@ package org.onebusaway.android.io.request;
 
 import org.onebusaway.android.io.elements.ObaShape;
 import org.onebusaway.android.io.elements.ObaShapeElement;
+import org.onebusaway.android.io.elements.ShapePoints;
 
 import android.location.Location;
 
@@ -58,6 +59,11 @@ public final class ObaShapeResponse extends ObaResponse implements ObaShape {
         return data.entry.getPoints();
     }
 
+    @Override
+    public ShapePoints getPoints(ShapePoints out) {
+        return data.entry.getPoints(out);
+    }
+
     @Override
     public String getRawLevels() {
         return data.entry.getRawLevels();
@@ -29,6 +29,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.Reader;
 import java.net.HttpURLConnection;
+import java.util.concurrent.Callable;
 
 /**
  * The base class for Oba requests.
@@ -132,7 +133,31 @@ public class RequestBase {
         }
     }
 
-    protected <T> T call(Class<T> cls) {
+    /**
+     * Makes the request and deserializes the response.  Concurrent GET requests for the same URI
+     * share a single network call and response object (see {@link RequestCoalescer}), so
+     * callers must not modify the returned response.
+     */
+    protected <T> T call(final Class<T> cls) {
+        if (mPostData != null) {
+            return callConnection(cls);
+        }
+        T t = RequestCoalescer.getInstance().execute(cls.getName() + " " + mUri.toString(),
+                new Callable<T>() {
+                    @Override
+                    public T call() {
+                        return callConnection(cls);
+                    }
+                });
+        if (t == null) {
+            // Interrupted while waiting for an identical request
+            t = ObaApi.getSerializer(cls).createFromError(cls, ObaApi.OBA_IO_EXCEPTION,
+                    "Interrupted");
+        }
+        return t;
+    }
+
+    private <T> T callConnection(Class<T> cls) {
         ObaApi.SerializationHandler handler = ObaApi.getSerializer(cls);
         ObaConnection conn = null;
         try {
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.io.request;
+
+import android.util.Log;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deduplicates concurrent identical requests ("single-flight").  While a request for a given
+ * key is in flight, other callers asking for the same key block until it completes and share its
+ * result instead of making their own network call.  Once the request completes it is removed, so
+ * later callers always start a new request.
+ *
+ * Used by {@link RequestBase} for all GET requests, keyed on the request URI and response type.
+ */
+public final class RequestCoalescer {
+
+    private static final String TAG = "RequestCoalescer";
+
+    private static class SingletonHolder {
+
+        public static final RequestCoalescer INSTANCE = new RequestCoalescer();
+    }
+
+    private final ConcurrentHashMap<String, FutureTask<?>> mInFlight =
+            new ConcurrentHashMap<>();
+
+    private final AtomicLong mExecutedCount = new AtomicLong();
+
+    private final AtomicLong mCoalescedCount = new AtomicLong();
+
+    private RequestCoalescer() { /* singleton */ }
+
+    public static RequestCoalescer getInstance() {
+        return SingletonHolder.INSTANCE;
+    }
+
+    /**
+     * Runs the callable on the calling thread, unless an identical request is already in flight,
+     * in which case this waits for that request and returns its result.
+     *
+     * @param key      identifies identical requests
+     * @param callable performs the request
+     * @return the result of the request, or null if the calling thread was interrupted while
+     * waiting for another thread's request
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, Callable<T> callable) {
+        FutureTask<T> task = new FutureTask<>(callable);
+        FutureTask<T> existing = (FutureTask<T>) mInFlight.putIfAbsent(key, task);
+        if (existing == null) {
+            mExecutedCount.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                mInFlight.remove(key, task);
+            }
+            return getResult(task);
+        }
+        mCoalescedCount.incrementAndGet();
+        Log.d(TAG, "Coalesced request " + key);
+        return getResult(existing);
+    }
+
+    private static <T> T getResult(FutureTask<T> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * @return the number of requests that were actually executed
+     */
+    public long getExecutedCount() {
+        return mExecutedCount.get();
+    }
+
+    /**
+     * @return the number of requests that shared the result of an identical in-flight request,
+     * i.e., the number of network calls saved
+     */
+    public long getCoalescedCount() {
+        return mCoalescedCount.get();
+    }
+
+    /**
+     * @return the number of requests currently in flight
+     */
+    public int getInFlightCount() {
+        return mInFlight.size();
+    }
+}
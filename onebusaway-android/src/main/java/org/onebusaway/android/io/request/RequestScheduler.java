@@ -0,0 +1,314 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.io.request;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs network requests on a bounded pool of worker threads, in order of priority.  Requests
+ * for the screen the user is looking at ({@link #PRIORITY_FOREGROUND}) run before map data
+ * ({@link #PRIORITY_MAP}), which runs before background work ({@link #PRIORITY_BACKGROUND}).
+ * One worker is reserved for foreground requests, so a burst of slow map requests can't hold up
+ * the arrivals screen.
+ *
+ * Loaders use this by returning {@link #getExecutor(int)} from
+ * AsyncTaskLoader.getExecutor(), and AsyncTasks by calling executeOnExecutor().  Requests that
+ * are cancelled while still queued (e.g., AsyncTaskLoader.cancelLoad() when their screen goes
+ * away) are dropped without running.
+ */
+public final class RequestScheduler {
+
+    private static final String TAG = "RequestScheduler";
+
+    /**
+     * Requests for data the user is waiting on, like arrival times and trip details
+     */
+    public static final int PRIORITY_FOREGROUND = 0;
+
+    /**
+     * Requests for map data, like stops, routes and vehicles
+     */
+    public static final int PRIORITY_MAP = 1;
+
+    /**
+     * Requests the user isn't waiting on, like region updates
+     */
+    public static final int PRIORITY_BACKGROUND = 2;
+
+    private static final String[] PRIORITY_NAMES = {"foreground", "map", "background"};
+
+    private static final int POOL_SIZE = 4;
+
+    // Number of workers only foreground requests can use
+    private static final int RESERVED_FOREGROUND = 1;
+
+    private static class SingletonHolder {
+
+        public static final RequestScheduler INSTANCE = new RequestScheduler();
+    }
+
+    private final ThreadPoolExecutor mWorkers;
+
+    private final Executor[] mExecutors = new Executor[PRIORITY_NAMES.length];
+
+    private final Stats[] mStats = new Stats[PRIORITY_NAMES.length];
+
+    // Guarded by this
+    private final PriorityQueue<Task> mQueue = new PriorityQueue<>();
+
+    // Guarded by this
+    private int mRunning;
+
+    private long mSequence;
+
+    private RequestScheduler() {
+        mWorkers = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger mCount = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "ObaRequest #" + mCount.incrementAndGet());
+                t.setPriority(Thread.NORM_PRIORITY - 1);
+                return t;
+            }
+        });
+        mWorkers.allowCoreThreadTimeOut(true);
+        for (int i = 0; i < PRIORITY_NAMES.length; i++) {
+            final int priority = i;
+            mStats[i] = new Stats();
+            mExecutors[i] = new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    RequestScheduler.this.execute(command, priority);
+                }
+            };
+        }
+    }
+
+    public static RequestScheduler getInstance() {
+        return SingletonHolder.INSTANCE;
+    }
+
+    /**
+     * @param priority one of the PRIORITY_* constants
+     * @return an Executor that runs commands with the given priority
+     */
+    public Executor getExecutor(int priority) {
+        return mExecutors[priority];
+    }
+
+    /**
+     * Queues the command to run with the given priority.  Commands with the same priority run
+     * in the order they were queued.
+     *
+     * @param command  the command to run
+     * @param priority one of the PRIORITY_* constants
+     */
+    public void execute(Runnable command, int priority) {
+        if (priority < 0 || priority >= PRIORITY_NAMES.length) {
+            throw new IllegalArgumentException("Invalid priority " + priority);
+        }
+        mStats[priority].mQueued.incrementAndGet();
+        synchronized (this) {
+            mQueue.add(new Task(command, priority, mSequence++));
+            dispatch();
+        }
+    }
+
+    /**
+     * Starts as many queued tasks as there are free workers.  Must be called holding the lock.
+     */
+    private void dispatch() {
+        while (mRunning < POOL_SIZE) {
+            Task task = mQueue.peek();
+            if (task == null) {
+                return;
+            }
+            if (task.isCancelled()) {
+                mQueue.poll();
+                Stats stats = mStats[task.mPriority];
+                stats.mQueued.decrementAndGet();
+                stats.mCancelled.incrementAndGet();
+                continue;
+            }
+            if (task.mPriority != PRIORITY_FOREGROUND
+                    && mRunning >= POOL_SIZE - RESERVED_FOREGROUND) {
+                // The remaining workers are kept for foreground requests
+                return;
+            }
+            mQueue.poll();
+            mRunning++;
+            mWorkers.execute(task);
+        }
+    }
+
+    private void finished() {
+        synchronized (this) {
+            mRunning--;
+            dispatch();
+        }
+    }
+
+    /**
+     * @param priority one of the PRIORITY_* constants
+     * @return the number of requests with this priority waiting for a worker
+     */
+    public int getQueueDepth(int priority) {
+        return mStats[priority].mQueued.get();
+    }
+
+    /**
+     * @param priority one of the PRIORITY_* constants
+     * @return the number of requests with this priority that are running
+     */
+    public int getActiveCount(int priority) {
+        return mStats[priority].mActive.get();
+    }
+
+    /**
+     * @param priority one of the PRIORITY_* constants
+     * @return the number of requests with this priority that have completed
+     */
+    public long getCompletedCount(int priority) {
+        return mStats[priority].mCompleted.get();
+    }
+
+    /**
+     * @param priority one of the PRIORITY_* constants
+     * @return the number of requests with this priority that were cancelled while queued
+     */
+    public long getCancelledCount(int priority) {
+        return mStats[priority].mCancelled.get();
+    }
+
+    /**
+     * @param priority one of the PRIORITY_* constants
+     * @return the average time requests with this priority waited for a worker, in milliseconds
+     */
+    public long getAverageWaitTime(int priority) {
+        return mStats[priority].average(mStats[priority].mTotalWaitTime);
+    }
+
+    /**
+     * @param priority one of the PRIORITY_* constants
+     * @return the longest time a request with this priority waited for a worker, in milliseconds
+     */
+    public long getMaxWaitTime(int priority) {
+        return mStats[priority].mMaxWaitTime.get();
+    }
+
+    /**
+     * @param priority one of the PRIORITY_* constants
+     * @return the average time requests with this priority took to run, in milliseconds
+     */
+    public long getAverageRunTime(int priority) {
+        return mStats[priority].average(mStats[priority].mTotalRunTime);
+    }
+
+    private static final class Stats {
+
+        final AtomicInteger mQueued = new AtomicInteger();
+
+        final AtomicInteger mActive = new AtomicInteger();
+
+        final AtomicLong mCompleted = new AtomicLong();
+
+        final AtomicLong mCancelled = new AtomicLong();
+
+        final AtomicLong mTotalWaitTime = new AtomicLong();
+
+        final AtomicLong mMaxWaitTime = new AtomicLong();
+
+        final AtomicLong mTotalRunTime = new AtomicLong();
+
+        long average(AtomicLong total) {
+            long completed = mCompleted.get();
+            return completed == 0 ? 0 : total.get() / completed;
+        }
+
+        void recordWait(long waitTime) {
+            mTotalWaitTime.addAndGet(waitTime);
+            long max;
+            do {
+                max = mMaxWaitTime.get();
+            } while (waitTime > max && !mMaxWaitTime.compareAndSet(max, waitTime));
+        }
+    }
+
+    private final class Task implements Runnable, Comparable<Task> {
+
+        final Runnable mCommand;
+
+        final int mPriority;
+
+        final long mSequence;
+
+        final long mQueueTime = SystemClock.elapsedRealtime();
+
+        Task(Runnable command, int priority, long sequence) {
+            mCommand = command;
+            mPriority = priority;
+            mSequence = sequence;
+        }
+
+        boolean isCancelled() {
+            return mCommand instanceof Future && ((Future<?>) mCommand).isCancelled();
+        }
+
+        @Override
+        public void run() {
+            Stats stats = mStats[mPriority];
+            long start = SystemClock.elapsedRealtime();
+            long waitTime = start - mQueueTime;
+            stats.mQueued.decrementAndGet();
+            stats.mActive.incrementAndGet();
+            stats.recordWait(waitTime);
+            try {
+                mCommand.run();
+            } finally {
+                long runTime = SystemClock.elapsedRealtime() - start;
+                stats.mActive.decrementAndGet();
+                stats.mTotalRunTime.addAndGet(runTime);
+                stats.mCompleted.incrementAndGet();
+                if (Log.isLoggable(TAG, Log.DEBUG)) {
+                    Log.d(TAG, PRIORITY_NAMES[mPriority] + " request waited " + waitTime
+                            + "ms, ran " + runTime + "ms");
+                }
+                finished();
+            }
+        }
+
+        @Override
+        public int compareTo(Task another) {
+            if (mPriority != another.mPriority) {
+                return mPriority < another.mPriority ? -1 : 1;
+            }
+            return mSequence < another.mSequence ? -1 : (mSequence == another.mSequence ? 0 : 1);
+        }
+    }
+}
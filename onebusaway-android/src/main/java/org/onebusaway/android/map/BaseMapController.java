@@ -190,8 +190,9 @@ public abstract class BaseMapController implements MapModeController,
     // Map watcher
     //
     private void watchMap(boolean watch) {
-        // Only instantiate our own map watcher if the mapView isn't capable of watching itself
-        if (watch && !mCallback.getMapView().canWatchMapChanges()) {
+        // The watcher is driven by camera events from map views that have them (see
+        // notifyMapChanged()), and only polls for map views that don't
+        if (watch) {
             if (mMapWatcher == null) {
                 mMapWatcher = new MapWatcher(mCallback.getMapView(), this);
             }
@@ -229,6 +230,12 @@ public abstract class BaseMapController implements MapModeController,
     @Override
     public void notifyMapChanged() {
         Log.d(TAG, "Map changed (called by MapView)");
-        refresh();
+        if (mMapWatcher != null) {
+            // Debounce camera changes - the watcher calls onMapCenterChanged() or
+            // onMapZoomChanged() once the map has settled
+            mMapWatcher.onCameraChanged();
+        } else {
+            refresh();
+        }
     }
 }
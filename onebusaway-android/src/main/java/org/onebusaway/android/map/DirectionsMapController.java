@@ -18,6 +18,7 @@ package org.onebusaway.android.map;
 
 import org.onebusaway.android.io.elements.ObaShape;
 import org.onebusaway.android.io.elements.ObaShapeElement;
+import org.onebusaway.android.io.elements.ShapePoints;
 import org.onebusaway.android.util.LocationUtils;
 import org.opentripplanner.api.model.EncodedPolylineBean;
 import org.opentripplanner.api.model.Itinerary;
@@ -234,6 +235,11 @@ public class DirectionsMapController implements MapModeController {
             return ObaShapeElement.decodeLine(bean.getPoints(), bean.getLength());
         }
 
+        @Override
+        public ShapePoints getPoints(ShapePoints out) {
+            return ObaShapeElement.decodeLine(bean.getPoints(), bean.getLength(), out);
+        }
+
         @Override
         public String getRawPoints() {
             return bean.getPoints();
@@ -22,8 +22,14 @@ import android.location.Location;
 import android.os.Handler;
 
 /**
- * Because the map object doesn't seem to have callbacks when the map
- * center or zoom is changed, we have our own watcher for it.
+ * Watches the map center and zoom level, and tells the listener when they are changing and
+ * when they have settled.
+ *
+ * Map views that have camera callbacks (see {@link MapModeController.ObaMapView#canWatchMapChanges()})
+ * should call {@link #onCameraChanged()} from them, and nothing is scheduled while the map is
+ * idle.  The "changed" events fire once no camera events have been received for the debounce
+ * period.  For map views without camera callbacks we fall back to polling, at a rate that backs
+ * off while the map isn't moving.
  *
  * @author paulw
  */
@@ -40,9 +46,16 @@ public class MapWatcher {
         public void onMapZoomChanged();
     }
 
-    private static final int WAIT_TIME = 1000;
+    public static final long DEFAULT_DEBOUNCE_TIME = 300;
+
+    /**
+     * Debounce used when polling, which matches the original polling watcher
+     */
+    private static final long POLL_DEBOUNCE_TIME = 1000;
+
+    public static final long MIN_POLL_TIME = 250;
 
-    private static final int POLL_TIME = 250;
+    public static final long MAX_POLL_TIME = 2000;
 
     private final MapModeController.ObaMapView mObaMapView;
 
@@ -50,72 +63,147 @@ public class MapWatcher {
 
     private final Listener mListener;
 
-    private Location mCurrentCenter;
+    private final long mDebounceTime;
 
-    private long mCurrentCenterMillis;
+    private final boolean mPolling;
+
+    private boolean mStarted;
+
+    private Location mCurrentCenter;
 
     private float mCurrentZoom;
 
-    private long mCurrentZoomMillis;
+    private boolean mCenterChanging;
 
-    private final Runnable mChecker = new Runnable() {
+    private boolean mZoomChanging;
+
+    private long mPollTime = MIN_POLL_TIME;
+
+    /**
+     * Fires the "changed" events once the map has been still for the debounce time
+     */
+    private final Runnable mSettled = new Runnable() {
         @Override
         public void run() {
-            Location newCenter = mObaMapView.getMapCenterAsLocation();
-            float newZoom = mObaMapView.getZoomLevelAsFloat();
-
-            final boolean centerChanged = !LocationUtils.fuzzyEquals(newCenter, mCurrentCenter);
-            final boolean zoomChanged = newZoom != mCurrentZoom;
-
-            final long now = System.currentTimeMillis();
-            if (centerChanged) {
-                mCurrentCenterMillis = now;
-                mListener.onMapCenterChanging();
-                mCurrentCenter = newCenter;
-            } else if (mCurrentCenterMillis != 0 && (now - mCurrentCenterMillis) > WAIT_TIME) {
+            if (mCenterChanging) {
+                mCenterChanging = false;
                 mListener.onMapCenterChanged();
-                mCurrentCenterMillis = 0;
             }
-            if (zoomChanged) {
-                mCurrentZoomMillis = now;
-                mListener.onMapZoomChanging();
-                mCurrentZoom = newZoom;
-            } else if (mCurrentZoomMillis != 0 && (now - mCurrentZoomMillis) > WAIT_TIME) {
+            if (mZoomChanging) {
+                mZoomChanging = false;
                 mListener.onMapZoomChanged();
-                mCurrentZoomMillis = 0;
             }
-            mHandler.postDelayed(mChecker, POLL_TIME);
+        }
+    };
+
+    /**
+     * Polls the map view, for map views that don't have camera callbacks
+     */
+    private final Runnable mChecker = new Runnable() {
+        @Override
+        public void run() {
+            boolean changed = check(false);
+            // Poll quickly while the map is moving, and back off while it's idle
+            mPollTime = changed ? MIN_POLL_TIME : Math.min(mPollTime * 2, MAX_POLL_TIME);
+            if (mStarted) {
+                mHandler.postDelayed(mChecker, mPollTime);
+            }
         }
     };
 
     public MapWatcher(MapModeController.ObaMapView view, Listener listener) {
+        this(view, listener, new Handler(), DEFAULT_DEBOUNCE_TIME);
+    }
+
+    /**
+     * @param view         the map view to watch
+     * @param listener     listener for map changes
+     * @param handler      handler the listener is called on
+     * @param debounceTime how long the map must be still, in milliseconds, before the "changed"
+     *                     events fire for map views with camera callbacks
+     */
+    public MapWatcher(MapModeController.ObaMapView view, Listener listener, Handler handler,
+            long debounceTime) {
         mObaMapView = view;
-        mHandler = new Handler();
+        mHandler = handler;
         mListener = listener;
+        mPolling = !view.canWatchMapChanges();
+        mDebounceTime = mPolling ? Math.max(debounceTime, POLL_DEBOUNCE_TIME) : debounceTime;
     }
 
     /**
      * Start watching.
      */
     public void start() {
+        mStarted = true;
         mCurrentCenter = mObaMapView.getMapCenterAsLocation();
         mCurrentZoom = mObaMapView.getZoomLevelAsFloat();
-        mHandler.postDelayed(mChecker, POLL_TIME);
+        if (mPolling) {
+            mPollTime = MIN_POLL_TIME;
+            mHandler.postDelayed(mChecker, mPollTime);
+        }
     }
 
     /**
      * Stop watching.
      */
     public void stop() {
+        mStarted = false;
         mHandler.removeCallbacks(mChecker);
+        mHandler.removeCallbacks(mSettled);
+    }
+
+    /**
+     * Called by map views with camera callbacks when the camera moved.  If neither the
+     * center or zoom appear to have changed, this is treated as a change of the center so that
+     * explicit notifications (e.g., when the map is resumed) still cause a refresh.
+     */
+    public void onCameraChanged() {
+        if (!mStarted) {
+            return;
+        }
+        check(true);
     }
 
     /**
      * Check to see if anything changed now.
-     * Fires the listener events if so.
+     * Fires the listener events if so.  This is a single check - it doesn't start polling, or
+     * change when the next poll runs.
      */
     public void checkNow() {
-        mHandler.removeCallbacks(mChecker);
-        mChecker.run();
+        check(false);
+    }
+
+    /**
+     * @param forceChange true if a change should be reported even if the center and zoom are
+     *                    unchanged
+     * @return true if the center or zoom changed
+     */
+    private boolean check(boolean forceChange) {
+        Location newCenter = mObaMapView.getMapCenterAsLocation();
+        float newZoom = mObaMapView.getZoomLevelAsFloat();
+
+        boolean centerChanged = !LocationUtils.fuzzyEquals(newCenter, mCurrentCenter);
+        final boolean zoomChanged = newZoom != mCurrentZoom;
+        if (forceChange && !centerChanged && !zoomChanged) {
+            centerChanged = true;
+        }
+
+        if (centerChanged) {
+            mListener.onMapCenterChanging();
+            mCurrentCenter = newCenter;
+            mCenterChanging = true;
+        }
+        if (zoomChanged) {
+            mListener.onMapZoomChanging();
+            mCurrentZoom = newZoom;
+            mZoomChanging = true;
+        }
+        if (centerChanged || zoomChanged) {
+            // Restart the debounce period
+            mHandler.removeCallbacks(mSettled);
+            mHandler.postDelayed(mSettled, mDebounceTime);
+        }
+        return centerChanged || zoomChanged;
     }
 }
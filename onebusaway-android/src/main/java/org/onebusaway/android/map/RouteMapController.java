@@ -21,19 +21,23 @@ import org.onebusaway.android.app.Application;
 import org.onebusaway.android.io.ObaApi;
 import org.onebusaway.android.io.elements.ObaRoute;
 import org.onebusaway.android.io.elements.ObaStop;
+import org.onebusaway.android.io.elements.ObaTrip;
+import org.onebusaway.android.io.elements.ObaTripDetails;
+import org.onebusaway.android.io.elements.ObaTripStatus;
 import org.onebusaway.android.io.request.ObaStopsForRouteRequest;
 import org.onebusaway.android.io.request.ObaStopsForRouteResponse;
 import org.onebusaway.android.io.request.ObaTripsForRouteRequest;
 import org.onebusaway.android.io.request.ObaTripsForRouteResponse;
+import org.onebusaway.android.io.request.RequestScheduler;
 import org.onebusaway.android.map.googlemapsv2.BaseMapFragment;
 import org.onebusaway.android.util.LocationUtils;
+import org.onebusaway.android.util.RefreshScheduler;
 import org.onebusaway.android.util.UIUtils;
 
 import android.app.Activity;
 import android.content.Context;
 import android.location.Location;
 import android.os.Bundle;
-import android.os.Handler;
 import android.text.TextUtils;
 import android.util.Log;
 import android.view.View;
@@ -42,6 +46,7 @@ import android.widget.TextView;
 
 import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 import androidx.loader.app.LoaderManager;
@@ -80,7 +85,7 @@ public class RouteMapController implements MapModeController {
 
     private VehicleLoaderListener mVehicleLoaderListener;
 
-    private long mLastUpdatedTimeVehicles;
+    private RefreshScheduler mVehicleRefreshScheduler;
 
     public RouteMapController(Callback callback) {
         mFragment = callback;
@@ -92,6 +97,8 @@ public class RouteMapController implements MapModeController {
         mRoutePopup = new RoutePopup();
         mRouteLoaderListener = new RouteLoaderListener();
         mVehicleLoaderListener = new VehicleLoaderListener();
+        mVehicleRefreshScheduler = new RefreshScheduler(mFragment.getActivity(),
+                VEHICLE_REFRESH_PERIOD, mVehicleRefresh);
     }
 
     @Override
@@ -142,7 +149,7 @@ public class RouteMapController implements MapModeController {
         mRouteLoader.reset();
         mVehiclesLoader.stopLoading();
         mVehiclesLoader.reset();
-        mVehicleRefreshHandler.removeCallbacks(mVehicleRefresh);
+        mVehicleRefreshScheduler.cancel();
 
         // Clear the existing route and vehicle overlays
         mFragment.getMapView().removeRouteOverlay();
@@ -161,13 +168,20 @@ public class RouteMapController implements MapModeController {
     public void destroy() {
         mRoutePopup.hide();
         mFragment.getMapView().removeRouteOverlay();
-        mVehicleRefreshHandler.removeCallbacks(mVehicleRefresh);
+        mVehicleRefreshScheduler.stop();
         mFragment.getMapView().removeVehicleOverlay();
+        // Cancel any requests for this route that haven't finished
+        if (mRouteLoader != null) {
+            mRouteLoader.reset();
+        }
+        if (mVehiclesLoader != null) {
+            mVehiclesLoader.reset();
+        }
     }
 
     @Override
     public void onPause() {
-        mVehicleRefreshHandler.removeCallbacks(mVehicleRefresh);
+        mVehicleRefreshScheduler.stop();
     }
 
     /**
@@ -187,27 +201,11 @@ public class RouteMapController implements MapModeController {
 
     @Override
     public void onResume() {
-        // Make sure we schedule a future update for vehicles
-        mVehicleRefreshHandler.removeCallbacks(mVehicleRefresh);
-
-        if (mLastUpdatedTimeVehicles == 0) {
-            // We haven't loaded any vehicles yet - schedule the refresh for the full period and defer
-            // to the loader to reschedule when load is complete
-            mVehicleRefreshHandler.postDelayed(mVehicleRefresh, VEHICLE_REFRESH_PERIOD);
-            return;
-        }
-
-        long elapsedTimeMillis = TimeUnit.NANOSECONDS.toMillis(UIUtils.getCurrentTimeForComparison()
-                - mLastUpdatedTimeVehicles);
-        long refreshPeriod;
-        if (elapsedTimeMillis > VEHICLE_REFRESH_PERIOD) {
-            // Schedule an immediate update, if we're past the normal period after a load
-            refreshPeriod = 100;
-        } else {
-            // Schedule an update so a total of VEHICLE_REFRESH_PERIOD has elapsed since the last update
-            refreshPeriod = VEHICLE_REFRESH_PERIOD - elapsedTimeMillis;
-        }
-        mVehicleRefreshHandler.postDelayed(mVehicleRefresh, refreshPeriod);
+        // Make sure we schedule a future update for vehicles.  If an update was already scheduled
+        // it keeps its time (or happens right away if that time has passed).  Otherwise we haven't
+        // loaded any vehicles yet - schedule the refresh for the full period and defer to the
+        // loader to reschedule when load is complete.
+        mVehicleRefreshScheduler.start(System.currentTimeMillis());
     }
 
     @Override
@@ -356,7 +354,11 @@ public class RouteMapController implements MapModeController {
 
     private static final long VEHICLE_REFRESH_PERIOD = TimeUnit.SECONDS.toMillis(10);
 
-    private final Handler mVehicleRefreshHandler = new Handler();
+    /**
+     * Used when all vehicles can be moved along their trip shapes between refreshes, so they
+     * don't need to be refreshed as often to look current
+     */
+    private static final long ESTIMATED_VEHICLE_REFRESH_PERIOD = TimeUnit.SECONDS.toMillis(30);
 
     private final Runnable mVehicleRefresh = new Runnable() {
         public void run() {
@@ -364,6 +366,25 @@ public class RouteMapController implements MapModeController {
         }
     };
 
+    /**
+     * Returns true if every vehicle on the route can be moved along its trip shape between
+     * refreshes, or false if any of them only move when they're refreshed
+     */
+    private static boolean canEstimateVehicles(ObaTripsForRouteResponse response) {
+        for (ObaTripDetails trip : response.getTrips()) {
+            ObaTripStatus status = trip.getStatus();
+            if (status == null) {
+                continue;
+            }
+            ObaTrip activeTrip = response.getTrip(status.getActiveTripId());
+            if (activeTrip == null || activeTrip.getShapeId() == null
+                    || status.getDistanceAlongTrip() == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Refresh vehicle data from the OBA server
      */
@@ -402,6 +423,11 @@ public class RouteMapController implements MapModeController {
                     .call();
         }
 
+        @Override
+        protected Executor getExecutor() {
+            return RequestScheduler.getInstance().getExecutor(RequestScheduler.PRIORITY_MAP);
+        }
+
         @Override
         public void deliverResult(ObaStopsForRouteResponse data) {
             //mResponse = data;
@@ -412,6 +438,13 @@ public class RouteMapController implements MapModeController {
         public void onStartLoading() {
             forceLoad();
         }
+
+        @Override
+        protected void onReset() {
+            super.onReset();
+            // Don't leave a request queued or running for a map that's gone
+            cancelLoad();
+        }
     }
 
     class RouteLoaderListener implements LoaderManager.LoaderCallbacks<ObaStopsForRouteResponse>,
@@ -496,6 +529,11 @@ public class RouteMapController implements MapModeController {
                     .call();
         }
 
+        @Override
+        protected Executor getExecutor() {
+            return RequestScheduler.getInstance().getExecutor(RequestScheduler.PRIORITY_MAP);
+        }
+
         @Override
         public void deliverResult(ObaTripsForRouteResponse data) {
             super.deliverResult(data);
@@ -505,6 +543,13 @@ public class RouteMapController implements MapModeController {
         public void onStartLoading() {
             forceLoad();
         }
+
+        @Override
+        protected void onReset() {
+            super.onReset();
+            // Don't leave a request queued or running for a map that's gone
+            cancelLoad();
+        }
     }
 
     class VehicleLoaderListener implements LoaderManager.LoaderCallbacks<ObaTripsForRouteResponse>,
@@ -526,6 +571,9 @@ public class RouteMapController implements MapModeController {
 
             if (response == null || response.getCode() != ObaApi.OBA_OK) {
                 BaseMapFragment.showMapError(response);
+                // Keep trying, backing off if we can't reach the server
+                mVehicleRefreshScheduler.onError(response != null ? response.getCode()
+                        : ObaApi.OBA_IO_EXCEPTION);
                 return;
             }
 
@@ -539,13 +587,9 @@ public class RouteMapController implements MapModeController {
                 mZoomIncludeClosestVehicle = false;
             }
 
-            mLastUpdatedTimeVehicles = UIUtils.getCurrentTimeForComparison();
-
-            // Clear any pending refreshes
-            mVehicleRefreshHandler.removeCallbacks(mVehicleRefresh);
-
             // Post an update
-            mVehicleRefreshHandler.postDelayed(mVehicleRefresh, VEHICLE_REFRESH_PERIOD);
+            mVehicleRefreshScheduler.onSuccess(canEstimateVehicles(response) ?
+                    ESTIMATED_VEHICLE_REFRESH_PERIOD : VEHICLE_REFRESH_PERIOD);
         }
 
         @Override
@@ -20,9 +20,11 @@ import com.google.android.gms.common.api.GoogleApiClient;
 
 import org.onebusaway.android.app.Application;
 import org.onebusaway.android.io.ObaApi;
+import org.onebusaway.android.io.elements.ObaReferences;
 import org.onebusaway.android.io.elements.ObaStop;
 import org.onebusaway.android.io.request.ObaStopsForLocationRequest;
 import org.onebusaway.android.io.request.ObaStopsForLocationResponse;
+import org.onebusaway.android.io.request.RequestScheduler;
 import org.onebusaway.android.map.googlemapsv2.BaseMapFragment;
 import org.onebusaway.android.util.RegionUtils;
 
@@ -31,8 +33,11 @@ import android.os.Bundle;
 import android.text.TextUtils;
 import android.util.Log;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import androidx.loader.app.LoaderManager;
 import androidx.loader.content.AsyncTaskLoader;
@@ -78,19 +83,48 @@ final class StopsResponse {
 
     private final ObaStopsForLocationResponse mResponse;
 
+    private final List<ObaStop> mStops;
+
+    private final ObaReferences mRefs;
+
+    /**
+     * A response with no stops, typically an error or out of range response
+     */
     StopsResponse(StopsRequest req, ObaStopsForLocationResponse response) {
+        this(req, response, null, response);
+    }
+
+    StopsResponse(StopsRequest req, ObaStopsForLocationResponse response, List<ObaStop> stops,
+            ObaReferences refs) {
         mRequest = req;
         mResponse = response;
+        mStops = stops;
+        mRefs = refs;
     }
 
     StopsRequest getRequest() {
         return mRequest;
     }
 
+    /**
+     * @return the response received from the server while loading, or null if all stops came
+     * from the tile cache
+     */
     ObaStopsForLocationResponse getResponse() {
         return mResponse;
     }
 
+    /**
+     * @return the stops in the requested area, or null if they couldn't be loaded
+     */
+    List<ObaStop> getStops() {
+        return mStops;
+    }
+
+    ObaReferences getRefs() {
+        return mRefs;
+    }
+
     /**
      * Returns true if newReq also fulfills response.
      */
@@ -200,18 +234,19 @@ public class StopMapController extends BaseMapController implements
                                StopsResponse _response) {
         mCallback.showProgress(false);
         final ObaStopsForLocationResponse response = _response.getResponse();
+        final List<ObaStop> stops = _response.getStops();
 
-        if (response == null) {
+        if (response == null && stops == null) {
             // Initial install can generate a null response if all is still ok, so do nothing (#615)
             return;
         }
 
-        if (response.getCode() != ObaApi.OBA_OK) {
+        if (response != null && response.getCode() != ObaApi.OBA_OK) {
             BaseMapFragment.showMapError(response);
             return;
         }
 
-        if (response.getOutOfRange()) {
+        if (response != null && response.getOutOfRange()) {
             mCallback.notifyOutOfRange();
             return;
         }
@@ -226,23 +261,22 @@ public class StopMapController extends BaseMapController implements
         if (myLocation != null && Application.get().getCurrentRegion() != null) {
             boolean inRegion = true;  // Assume user is in region unless we detect otherwise
             try {
-                inRegion = RegionUtils
-                        .isLocationWithinRegion(myLocation, Application.get().getCurrentRegion());
+                inRegion = RegionUtils.isLocationWithinRegion(mCallback.getActivity(), myLocation,
+                        Application.get().getCurrentRegion());
             } catch (IllegalArgumentException e) {
                 // Issue #69 - some devices are providing invalid lat/long coordinates
                 Log.e(TAG, "Invalid latitude or longitude - lat = " + myLocation.getLatitude()
                         + ", long = " + myLocation.getLongitude());
             }
 
-            if (!inRegion && Arrays.asList(response.getStops()).isEmpty()) {
+            if (!inRegion && stops.isEmpty()) {
                 Log.d(TAG, "Device location is outside region range, notifying...");
                 mCallback.notifyOutOfRange();
                 return;
             }
         }
 
-        List<ObaStop> stops = Arrays.asList(response.getStops());
-        mCallback.showStops(stops, response);
+        mCallback.showStops(stops, _response.getRefs());
     }
 
     @Override
@@ -285,6 +319,62 @@ public class StopMapController extends BaseMapController implements
                             "OBA REST API endpoint, aborting...");
                 return new StopsResponse(req, null);
             }
+            StopTileCache cache = StopTileCache.getInstance();
+            cache.setServer(getServerKey());
+            List<Long> tiles = StopTileCache.getTileKeys(req.getCenter(), req.getLatSpan(),
+                    req.getLonSpan());
+            if (tiles == null) {
+                // Too zoomed out to use tiles
+                return loadViewport(req);
+            }
+
+            // Fetch the tiles we don't already have with a single request covering all of them
+            List<Long> missing = cache.getMissingTiles(tiles);
+            List<Long> cached = tiles;
+            ObaStopsForLocationResponse response = null;
+            StopTileCache.TileReferences refs = new StopTileCache.TileReferences();
+            List<ObaStop> uncachedStops = null;
+            if (!missing.isEmpty()) {
+                response = new ObaStopsForLocationRequest.Builder(getContext(),
+                        StopTileCache.getCenter(missing))
+                        .setSpan(StopTileCache.getLatSpan(missing),
+                                StopTileCache.getLonSpan(missing))
+                        .build()
+                        .call();
+                if (response.getCode() != ObaApi.OBA_OK) {
+                    return new StopsResponse(req, response);
+                }
+                if (response.getOutOfRange() && missing.size() == tiles.size()) {
+                    // The whole viewport is out of range
+                    return new StopsResponse(req, response);
+                }
+                // Out of range tiles are cached as empty tiles
+                if (!cache.put(missing, response)) {
+                    // The server left stops out, so use them for this viewport but don't cache
+                    // them - the response's limitExceeded makes us reload when zooming in
+                    uncachedStops = refs.add(new HashSet<>(missing), response);
+                    cached = new ArrayList<>(tiles);
+                    cached.removeAll(missing);
+                }
+            }
+
+            List<ObaStop> stops = cache.merge(cached, refs);
+            if (stops == null) {
+                // Tiles were evicted while we were fetching (shouldn't happen), so skip the cache
+                return loadViewport(req);
+            }
+            if (uncachedStops != null) {
+                stops.addAll(uncachedStops);
+            }
+            return new StopsResponse(req,
+                    response != null && !response.getOutOfRange() ? response : null, stops,
+                    refs);
+        }
+
+        /**
+         * Requests the stops for the whole viewport at once, without using the tile cache
+         */
+        private StopsResponse loadViewport(StopsRequest req) {
             //Make OBA REST API call to the server and return result
             ObaStopsForLocationResponse response =
                     new ObaStopsForLocationRequest.Builder(getContext(),
@@ -292,7 +382,35 @@ public class StopMapController extends BaseMapController implements
                             .setSpan(req.getLatSpan(), req.getLonSpan())
                             .build()
                             .call();
-            return new StopsResponse(req, response);
+            if (response.getCode() != ObaApi.OBA_OK || response.getOutOfRange()) {
+                return new StopsResponse(req, response);
+            }
+            return new StopsResponse(req, response, Arrays.asList(response.getStops()),
+                    response);
+        }
+
+        @Override
+        protected Executor getExecutor() {
+            return RequestScheduler.getInstance().getExecutor(RequestScheduler.PRIORITY_MAP);
+        }
+
+        @Override
+        protected void onReset() {
+            super.onReset();
+            // Don't leave a request queued or running for a map that's gone
+            cancelLoad();
+        }
+
+        /**
+         * @return identifies the OBA server stops are loaded from, so the tile cache can be
+         * cleared when it changes
+         */
+        private static String getServerKey() {
+            String customApiUrl = Application.get().getCustomApiUrl();
+            if (!TextUtils.isEmpty(customApiUrl)) {
+                return customApiUrl;
+            }
+            return String.valueOf(Application.get().getCurrentRegion().getId());
         }
 
         @Override
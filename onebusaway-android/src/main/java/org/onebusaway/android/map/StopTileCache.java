@@ -0,0 +1,454 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.map;
+
+import org.onebusaway.android.io.elements.ObaAgency;
+import org.onebusaway.android.io.elements.ObaReferences;
+import org.onebusaway.android.io.elements.ObaRoute;
+import org.onebusaway.android.io.elements.ObaSituation;
+import org.onebusaway.android.io.elements.ObaStop;
+import org.onebusaway.android.io.elements.ObaTrip;
+import org.onebusaway.android.io.request.ObaStopsForLocationResponse;
+import org.onebusaway.android.util.LocationUtils;
+
+import android.location.Location;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A process-wide cache of stops, split into fixed Web Mercator (slippy map) tiles at
+ * {@link #TILE_ZOOM}.  StopMapController asks for the tiles covering the current viewport,
+ * fetches the tiles that are missing or expired with a single request, and merges the cached
+ * tiles into a single set of stops and route references, so panning back over an area that was
+ * already seen doesn't need the network.
+ *
+ * Tiles are evicted least-recently-used once there are more than {@link #MAX_TILES}, and are
+ * considered missing once they are older than {@link #MAX_AGE_MS}.  Responses that exceeded the
+ * server's limit on the number of stops are never cached, as the tiles would be incomplete.  The
+ * cache is cleared when the OBA server (region or custom API) changes.
+ */
+public final class StopTileCache {
+
+    /**
+     * Zoom level of the tiles - at zoom 15 a tile is about 1.2km across at the equator
+     */
+    public static final int TILE_ZOOM = 15;
+
+    /**
+     * Viewports covering more tiles than this aren't tiled, and are requested directly instead
+     */
+    public static final int MAX_TILES_PER_VIEWPORT = 16;
+
+    public static final int MAX_TILES = 256;
+
+    public static final long MAX_AGE_MS = TimeUnit.MINUTES.toMillis(30);
+
+    private static final double MAX_LATITUDE = 85.05112878;
+
+    private static final StopTileCache INSTANCE = new StopTileCache();
+
+    /**
+     * A single tile of stops
+     */
+    static final class Tile {
+
+        private final List<ObaStop> mStops;
+
+        private final Map<String, ObaRoute> mRoutes;
+
+        private final long mTime;
+
+        Tile(List<ObaStop> stops, Map<String, ObaRoute> routes, long time) {
+            mStops = stops;
+            mRoutes = routes;
+            mTime = time;
+        }
+
+        List<ObaStop> getStops() {
+            return mStops;
+        }
+
+        boolean isExpired(long now) {
+            return now - mTime > MAX_AGE_MS;
+        }
+    }
+
+    private final LinkedHashMap<Long, Tile> mTiles =
+            new LinkedHashMap<Long, Tile>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Tile> eldest) {
+                    return size() > MAX_TILES;
+                }
+            };
+
+    private String mServerKey;
+
+    private int mHitCount;
+
+    private int mMissCount;
+
+    private StopTileCache() {
+    }
+
+    public static StopTileCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Clears the cache if the OBA server that stops come from has changed
+     *
+     * @param serverKey identifies the region or custom API the stops are requested from
+     */
+    public synchronized void setServer(String serverKey) {
+        if (mServerKey == null ? serverKey != null : !mServerKey.equals(serverKey)) {
+            mTiles.clear();
+            mServerKey = serverKey;
+        }
+    }
+
+    public synchronized void clear() {
+        mTiles.clear();
+    }
+
+    /**
+     * Returns the keys of the tiles covering the given viewport, or null if the viewport covers
+     * more than {@link #MAX_TILES_PER_VIEWPORT} tiles or has no center
+     */
+    public static List<Long> getTileKeys(Location center, double latSpan, double lonSpan) {
+        if (center == null) {
+            return null;
+        }
+        double north = Math.min(center.getLatitude() + latSpan / 2, MAX_LATITUDE);
+        double south = Math.max(center.getLatitude() - latSpan / 2, -MAX_LATITUDE);
+        double west = center.getLongitude() - lonSpan / 2;
+        double east = center.getLongitude() + lonSpan / 2;
+        int minX = lonToTileX(west);
+        int maxX = lonToTileX(east);
+        int minY = latToTileY(north);
+        int maxY = latToTileY(south);
+        int count = (maxX - minX + 1) * (maxY - minY + 1);
+        if (count > MAX_TILES_PER_VIEWPORT || count <= 0) {
+            return null;
+        }
+        List<Long> keys = new ArrayList<>(count);
+        for (int x = minX; x <= maxX; x++) {
+            for (int y = minY; y <= maxY; y++) {
+                keys.add(makeKey(x, y));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Returns the keys from the given list whose tiles are not in the cache or have expired
+     */
+    public List<Long> getMissingTiles(List<Long> keys) {
+        return getMissingTiles(keys, System.currentTimeMillis());
+    }
+
+    /**
+     * Returns the keys from the given list whose tiles are not in the cache or have expired at
+     * the given time
+     */
+    public synchronized List<Long> getMissingTiles(List<Long> keys, long now) {
+        List<Long> missing = new ArrayList<>();
+        for (Long key : keys) {
+            Tile tile = mTiles.get(key);
+            if (tile == null || tile.isExpired(now)) {
+                mTiles.remove(key);
+                missing.add(key);
+                mMissCount++;
+            } else {
+                mHitCount++;
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Adds the stops from a response covering the given tiles to the cache.  Each stop is only
+     * cached in the tile that contains it, and stops outside the given tiles are dropped.  Tiles
+     * without any stops are cached as empty tiles.
+     *
+     * @return true if the tiles were cached, or false if the response exceeded the server's limit
+     * on the number of stops, so the tiles would be incomplete and weren't cached
+     */
+    public synchronized boolean put(Collection<Long> keys, ObaStopsForLocationResponse response) {
+        if (response.getLimitExceeded()) {
+            return false;
+        }
+        Map<Long, List<ObaStop>> tileStops = new HashMap<>();
+        for (Long key : keys) {
+            tileStops.put(key, new ArrayList<ObaStop>());
+        }
+        for (ObaStop stop : response.getStops()) {
+            List<ObaStop> stops = tileStops.get(getTileKey(stop));
+            if (stops != null) {
+                stops.add(stop);
+            }
+        }
+        long now = System.currentTimeMillis();
+        for (Map.Entry<Long, List<ObaStop>> entry : tileStops.entrySet()) {
+            Map<String, ObaRoute> routes = new LinkedHashMap<>();
+            addRoutes(entry.getValue(), response, routes);
+            mTiles.put(entry.getKey(), new Tile(Collections.unmodifiableList(entry.getValue()),
+                    routes, now));
+        }
+        return true;
+    }
+
+    /**
+     * Merges the cached tiles for the given keys into a list of stops.  Route references for the
+     * stops are added to refs.
+     *
+     * @return the merged stops, or null if any of the tiles are not in the cache
+     */
+    public synchronized List<ObaStop> merge(List<Long> keys, TileReferences refs) {
+        List<ObaStop> stops = new ArrayList<>();
+        for (Long key : keys) {
+            Tile tile = mTiles.get(key);
+            if (tile == null) {
+                return null;
+            }
+            stops.addAll(tile.mStops);
+            refs.mRoutes.putAll(tile.mRoutes);
+        }
+        for (ObaStop stop : stops) {
+            refs.mStops.put(stop.getId(), stop);
+        }
+        return stops;
+    }
+
+    public synchronized int getHitCount() {
+        return mHitCount;
+    }
+
+    public synchronized int getMissCount() {
+        return mMissCount;
+    }
+
+    public synchronized int size() {
+        return mTiles.size();
+    }
+
+    /**
+     * Adds the routes serving the given stops from refs to routes
+     */
+    private static void addRoutes(List<ObaStop> stops, ObaReferences refs,
+            Map<String, ObaRoute> routes) {
+        for (ObaStop stop : stops) {
+            String[] routeIds = stop.getRouteIds();
+            if (routeIds == null) {
+                continue;
+            }
+            for (String routeId : routeIds) {
+                if (!routes.containsKey(routeId)) {
+                    ObaRoute route = refs.getRoute(routeId);
+                    if (route != null) {
+                        routes.put(routeId, route);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the smallest and largest tile x and y of the tiles, in that order
+     */
+    private static int[] getBounds(List<Long> keys) {
+        int[] bounds = {Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE,
+                Integer.MIN_VALUE};
+        for (Long key : keys) {
+            bounds[0] = Math.min(bounds[0], getTileX(key));
+            bounds[1] = Math.max(bounds[1], getTileX(key));
+            bounds[2] = Math.min(bounds[2], getTileY(key));
+            bounds[3] = Math.max(bounds[3], getTileY(key));
+        }
+        return bounds;
+    }
+
+    /**
+     * @return the center of the rectangle enclosing the tiles
+     */
+    public static Location getCenter(List<Long> keys) {
+        int[] bounds = getBounds(keys);
+        double lat = (tileYToLat(bounds[2]) + tileYToLat(bounds[3] + 1)) / 2;
+        double lon = (tileXToLon(bounds[0]) + tileXToLon(bounds[1] + 1)) / 2;
+        return LocationUtils.makeLocation(lat, lon);
+    }
+
+    /**
+     * @return the latitude span of the rectangle enclosing the tiles, in decimal degrees
+     */
+    public static double getLatSpan(List<Long> keys) {
+        int[] bounds = getBounds(keys);
+        return tileYToLat(bounds[2]) - tileYToLat(bounds[3] + 1);
+    }
+
+    /**
+     * @return the longitude span of the rectangle enclosing the tiles, in decimal degrees
+     */
+    public static double getLonSpan(List<Long> keys) {
+        int[] bounds = getBounds(keys);
+        return (bounds[1] - bounds[0] + 1) * 360.0 / (1 << TILE_ZOOM);
+    }
+
+    /**
+     * @return the key of the tile containing the stop
+     */
+    public static long getTileKey(ObaStop stop) {
+        return makeKey(lonToTileX(stop.getLongitude()), latToTileY(stop.getLatitude()));
+    }
+
+    public static long makeKey(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+
+    public static int getTileX(long key) {
+        return (int) (key >>> 32);
+    }
+
+    public static int getTileY(long key) {
+        return (int) key;
+    }
+
+    static int lonToTileX(double lon) {
+        int n = 1 << TILE_ZOOM;
+        int x = (int) Math.floor((lon + 180.0) / 360.0 * n);
+        return Math.max(0, Math.min(n - 1, x));
+    }
+
+    static int latToTileY(double lat) {
+        int n = 1 << TILE_ZOOM;
+        double latRad = Math.toRadians(Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, lat)));
+        int y = (int) Math.floor(
+                (1.0 - Math.log(Math.tan(latRad) + 1.0 / Math.cos(latRad)) / Math.PI) / 2.0 * n);
+        return Math.max(0, Math.min(n - 1, y));
+    }
+
+    static double tileXToLon(int x) {
+        return x / (double) (1 << TILE_ZOOM) * 360.0 - 180.0;
+    }
+
+    static double tileYToLat(int y) {
+        double n = Math.PI - 2.0 * Math.PI * y / (1 << TILE_ZOOM);
+        return Math.toDegrees(Math.atan(Math.sinh(n)));
+    }
+
+    /**
+     * References for the stops merged from several tiles.  Only stops and routes are available.
+     */
+    public static final class TileReferences implements ObaReferences {
+
+        private final Map<String, ObaStop> mStops = new LinkedHashMap<>();
+
+        private final Map<String, ObaRoute> mRoutes = new LinkedHashMap<>();
+
+        /**
+         * Adds the stops in the given tiles from a response that wasn't cached, along with the
+         * routes serving them
+         *
+         * @return the stops that were added
+         */
+        public List<ObaStop> add(Collection<Long> keys, ObaStopsForLocationResponse response) {
+            List<ObaStop> stops = new ArrayList<>();
+            for (ObaStop stop : response.getStops()) {
+                if (keys.contains(getTileKey(stop))) {
+                    stops.add(stop);
+                    mStops.put(stop.getId(), stop);
+                }
+            }
+            addRoutes(stops, response, mRoutes);
+            return stops;
+        }
+
+        @Override
+        public ObaStop getStop(String id) {
+            return mStops.get(id);
+        }
+
+        @Override
+        public List<ObaStop> getStops(String[] ids) {
+            List<ObaStop> result = new ArrayList<>(ids.length);
+            for (String id : ids) {
+                ObaStop stop = mStops.get(id);
+                if (stop != null) {
+                    result.add(stop);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public ObaRoute getRoute(String id) {
+            return mRoutes.get(id);
+        }
+
+        @Override
+        public List<ObaRoute> getRoutes(String[] ids) {
+            List<ObaRoute> result = new ArrayList<>(ids.length);
+            for (String id : ids) {
+                ObaRoute route = mRoutes.get(id);
+                if (route != null) {
+                    result.add(route);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public List<ObaRoute> getRoutes() {
+            return new ArrayList<>(mRoutes.values());
+        }
+
+        @Override
+        public ObaTrip getTrip(String id) {
+            return null;
+        }
+
+        @Override
+        public List<ObaTrip> getTrips(String[] ids) {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public ObaAgency getAgency(String id) {
+            return null;
+        }
+
+        @Override
+        public List<ObaAgency> getAgencies(String[] ids) {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public ObaSituation getSituation(String id) {
+            return null;
+        }
+
+        @Override
+        public List<ObaSituation> getSituations(String[] ids) {
+            return new ArrayList<>();
+        }
+    }
+}
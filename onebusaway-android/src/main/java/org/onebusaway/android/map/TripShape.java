@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.map;
+
+import org.onebusaway.android.io.elements.ShapePoints;
+
+/**
+ * A trip shape with the cumulative distance to each of its points, so a distance along the
+ * trip (e.g., ObaTripStatus.getDistanceAlongTrip()) can be turned into a point on the shape
+ * with a binary search instead of walking the polyline.
+ */
+public final class TripShape {
+
+    private static final double EARTH_RADIUS = 6371009; // meters
+
+    private final double[] mLats;
+
+    private final double[] mLons;
+
+    /**
+     * Distance in meters from the first point to each point
+     */
+    private final double[] mDistances;
+
+    /**
+     * @param points decoded shape points.  The points are copied, so the buffer can be reused.
+     */
+    public TripShape(ShapePoints points) {
+        final int size = points.size();
+        mLats = new double[size];
+        mLons = new double[size];
+        mDistances = new double[size];
+        for (int i = 0; i < size; i++) {
+            mLats[i] = points.getLatitude(i);
+            mLons[i] = points.getLongitude(i);
+            if (i > 0) {
+                mDistances[i] = mDistances[i - 1]
+                        + distance(mLats[i - 1], mLons[i - 1], mLats[i], mLons[i]);
+            }
+        }
+    }
+
+    /**
+     * @return the number of points in the shape
+     */
+    public int size() {
+        return mLats.length;
+    }
+
+    /**
+     * @return the length of the shape in meters
+     */
+    public double getLength() {
+        return mLats.length == 0 ? 0 : mDistances[mLats.length - 1];
+    }
+
+    /**
+     * Finds the point at the given distance along the shape.  Distances before the start or past
+     * the end of the shape are clamped to the first or last point.
+     *
+     * @param distance distance along the shape, in meters
+     * @param out      receives the latitude in out[0] and longitude in out[1]
+     * @return false if the shape has no points, true otherwise
+     */
+    public boolean getPosition(double distance, double[] out) {
+        final int size = mLats.length;
+        if (size == 0) {
+            return false;
+        }
+        if (distance <= 0 || size == 1) {
+            out[0] = mLats[0];
+            out[1] = mLons[0];
+            return true;
+        }
+        if (distance >= mDistances[size - 1]) {
+            out[0] = mLats[size - 1];
+            out[1] = mLons[size - 1];
+            return true;
+        }
+        // Find the last point that is at or before the distance
+        int low = 0;
+        int high = size - 1;
+        while (high - low > 1) {
+            int mid = (low + high) >>> 1;
+            if (mDistances[mid] <= distance) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        double segment = mDistances[high] - mDistances[low];
+        double fraction = segment > 0 ? (distance - mDistances[low]) / segment : 0;
+        out[0] = mLats[low] + (mLats[high] - mLats[low]) * fraction;
+        out[1] = mLons[low] + (mLons[high] - mLons[low]) * fraction;
+        return true;
+    }
+
+    /**
+     * Great circle distance between two points, in meters
+     */
+    static double distance(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
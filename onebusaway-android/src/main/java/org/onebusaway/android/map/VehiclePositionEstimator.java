@@ -0,0 +1,265 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.map;
+
+import androidx.collection.LruCache;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dead-reckons vehicle positions along their trip shapes between real-time updates.
+ *
+ * Each update gives the distance a vehicle has traveled along its trip.  The speed along the
+ * trip is learned from consecutive updates, and positions in between are predicted from the
+ * last distance and that speed, then snapped to the trip shape.  When a new update disagrees
+ * with what is shown, the difference is blended out over a few seconds instead of jumping, and
+ * vehicles are never shown moving backwards along the trip by a small amount.
+ *
+ * This class isn't thread-safe - it's meant to be used from the main thread.
+ */
+public final class VehiclePositionEstimator {
+
+    /**
+     * Vehicles aren't predicted to travel further than this past their last update, and vehicles
+     * that haven't reported a location for this long aren't moved at all
+     */
+    public static final long MAX_EXTRAPOLATION_MS = TimeUnit.MINUTES.toMillis(2);
+
+    /**
+     * Updates that imply a speed higher than this (in meters per second) are treated as a jump in
+     * the vehicle's position (e.g., a re-assigned vehicle) and aren't used for the speed
+     */
+    static final double MAX_SPEED = 40;
+
+    /**
+     * Weight given to the newest speed sample
+     */
+    static final double SPEED_SMOOTHING = 0.5;
+
+    /**
+     * Differences (in meters) between an update and the shown position up to this distance are
+     * blended out over CORRECTION_MS, larger ones move the vehicle immediately
+     */
+    static final double MAX_CORRECTION_DISTANCE = 400;
+
+    public static final long CORRECTION_MS = TimeUnit.SECONDS.toMillis(3);
+
+    private static final int MAX_SHAPES = 32;
+
+    private final HashMap<String, Track> mTracks = new HashMap<>();
+
+    private final LruCache<String, TripShape> mShapes = new LruCache<>(MAX_SHAPES);
+
+    private static final class Track {
+
+        final String shapeId;
+
+        double distance;
+
+        double totalDistance;
+
+        long serverTime;
+
+        /**
+         * Local time that distance was observed at
+         */
+        long time;
+
+        double speed;
+
+        boolean hasSpeed;
+
+        boolean stale;
+
+        double correction;
+
+        long correctionTime;
+
+        double shownDistance = Double.NaN;
+
+        Track(String shapeId) {
+            this.shapeId = shapeId;
+        }
+
+        double estimate(long now) {
+            double d = distance;
+            if (!stale) {
+                long elapsed = Math.min(Math.max(now - time, 0), MAX_EXTRAPOLATION_MS);
+                d += speed * elapsed / 1000.0;
+            }
+            long sinceCorrection = now - correctionTime;
+            if (correction != 0 && sinceCorrection < CORRECTION_MS) {
+                d += correction * (1 - (double) sinceCorrection / CORRECTION_MS);
+            }
+            if (totalDistance > 0 && d > totalDistance) {
+                d = totalDistance;
+            }
+            return Math.max(d, 0);
+        }
+    }
+
+    /**
+     * Records a real-time update for a vehicle
+     *
+     * @param tripId           active trip of the vehicle
+     * @param shapeId          shape of the active trip
+     * @param distance         distance in meters the vehicle has traveled along the trip
+     * @param totalDistance    length of the trip in meters, or 0 if it isn't known
+     * @param serverTime       server time the distance was computed for, in milliseconds
+     * @param lastLocationTime server time of the last location received from the vehicle, or 0 if
+     *                         there isn't one
+     * @param now              current local time in milliseconds, in the same time base passed to
+     *                         {@link #getPosition(String, long, double[])}
+     */
+    public void update(String tripId, String shapeId, double distance, double totalDistance,
+            long serverTime, long lastLocationTime, long now) {
+        Track track = mTracks.get(tripId);
+        if (track == null || !track.shapeId.equals(shapeId)) {
+            track = new Track(shapeId);
+            mTracks.put(tripId, track);
+        } else if (serverTime <= track.serverTime) {
+            // The same response delivered again
+            return;
+        } else {
+            double speed = (distance - track.distance) * 1000.0 / (serverTime - track.serverTime);
+            if (speed <= MAX_SPEED) {
+                // Vehicles don't back up along their trip, so a negative speed is a correction
+                speed = Math.max(speed, 0);
+                track.speed = track.hasSpeed ?
+                        track.speed + SPEED_SMOOTHING * (speed - track.speed) : speed;
+                track.hasSpeed = true;
+            }
+        }
+        track.distance = distance;
+        track.totalDistance = totalDistance;
+        track.serverTime = serverTime;
+        track.time = now;
+        track.stale = lastLocationTime > 0 && serverTime - lastLocationTime > MAX_EXTRAPOLATION_MS;
+        track.correction = 0;
+
+        if (!Double.isNaN(track.shownDistance)) {
+            double error = track.shownDistance - track.estimate(now);
+            if (Math.abs(error) < MAX_CORRECTION_DISTANCE) {
+                track.correction = error;
+                track.correctionTime = now;
+            } else {
+                track.shownDistance = Double.NaN;
+            }
+        }
+    }
+
+    /**
+     * Predicts the position of a vehicle on its trip shape
+     *
+     * @param tripId active trip of the vehicle
+     * @param now    current local time in milliseconds
+     * @param out    receives the latitude in out[0] and longitude in out[1]
+     * @return true if a position was predicted, or false if there aren't updates or a shape for
+     * the trip
+     */
+    public boolean getPosition(String tripId, long now, double[] out) {
+        Track track = mTracks.get(tripId);
+        if (track == null) {
+            return false;
+        }
+        TripShape shape = mShapes.get(track.shapeId);
+        if (shape == null) {
+            return false;
+        }
+        double d = track.estimate(now);
+        if (d < track.shownDistance && track.shownDistance - d < MAX_CORRECTION_DISTANCE) {
+            // Hold the vehicle where it is rather than moving it backwards
+            d = track.shownDistance;
+        }
+        track.shownDistance = d;
+        if (track.totalDistance > 0) {
+            // Distances along the trip and along the shape can differ slightly
+            d *= shape.getLength() / track.totalDistance;
+        }
+        return shape.getPosition(d, out);
+    }
+
+    /**
+     * @return true if the predicted position of the vehicle is still moving forward along its
+     * trip, i.e. its speed is known, it hasn't gone stale, it hasn't reached the end of the trip
+     * and predictions haven't stopped since the last update
+     */
+    public boolean isExtrapolating(String tripId, long now) {
+        Track track = mTracks.get(tripId);
+        if (track == null || track.stale || track.speed <= 0) {
+            return false;
+        }
+        long elapsed = now - track.time;
+        if (elapsed >= MAX_EXTRAPOLATION_MS) {
+            return false;
+        }
+        return track.totalDistance <= 0
+                || track.distance + track.speed * Math.max(elapsed, 0) / 1000.0
+                < track.totalDistance;
+    }
+
+    /**
+     * @return true if the difference between the last update and the position shown before it
+     * is still being blended out
+     */
+    public boolean isCorrecting(String tripId, long now) {
+        Track track = mTracks.get(tripId);
+        return track != null && track.correction != 0
+                && now - track.correctionTime < CORRECTION_MS;
+    }
+
+    /**
+     * @return true if the given trip has updates and its shape is available
+     */
+    public boolean hasPosition(String tripId) {
+        Track track = mTracks.get(tripId);
+        return track != null && mShapes.get(track.shapeId) != null;
+    }
+
+    public boolean hasShape(String shapeId) {
+        return mShapes.get(shapeId) != null;
+    }
+
+    public void putShape(String shapeId, TripShape shape) {
+        mShapes.put(shapeId, shape);
+    }
+
+    /**
+     * Forgets vehicles for any trips not in the given set
+     */
+    public void retainTrips(Set<String> tripIds) {
+        Iterator<String> iterator = mTracks.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (!tripIds.contains(iterator.next())) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Forgets all vehicles, but keeps the shapes
+     */
+    public void clear() {
+        mTracks.clear();
+    }
+
+    public int size() {
+        return mTracks.size();
+    }
+}
@@ -145,6 +145,11 @@ public class FeedbackReceiver extends BroadcastReceiver {
                 FileUtils.moveFileToDirectory(
                         FileUtils.getFile(lFile),
                         FileUtils.getFile(destFolder), true);
+                // Older positions, if the trace was rotated
+                File rotated = NavigationTraceWriter.getRotatedFile(lFile);
+                if (rotated.exists()) {
+                    FileUtils.moveFileToDirectory(rotated, destFolder, true);
+                }
                 Log.d(TAG, "Move file successful.");
             } catch (Exception e) {
                 Log.d(TAG, "File move failed");
@@ -161,6 +166,7 @@ public class FeedbackReceiver extends BroadcastReceiver {
     private void deleteLog(String logFile) {
         File lFile = new File(logFile);
         boolean deleted = lFile.delete();
+        NavigationTraceWriter.getRotatedFile(lFile).delete();
         Log.v(TAG, "Log deleted " + deleted);
     }
 
@@ -63,6 +63,8 @@ public class NavigationCleanupWorker extends Worker {
                 if ((!file.isDirectory()) && (lastModified.before(time.getTime()))) {
                     //file is older than a day
                     file.delete();
+                    // The rotated segment goes with the trace, however old it is
+                    NavigationTraceWriter.getRotatedFile(file).delete();
                     Log.d(TAG, "File deleted");
                 }
             }
@@ -23,7 +23,9 @@ import android.content.Context;
 import android.content.Intent;
 import android.location.Location;
 import android.os.Build;
+import android.os.Handler;
 import android.os.IBinder;
+import android.os.Looper;
 import android.util.Log;
 
 import androidx.core.app.NotificationCompat;
@@ -35,7 +37,6 @@ import com.google.firebase.analytics.FirebaseAnalytics;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 
-import org.apache.commons.io.FileUtils;
 import org.onebusaway.android.R;
 import org.onebusaway.android.app.Application;
 import org.onebusaway.android.io.ObaAnalytics;
@@ -80,6 +81,11 @@ public class NavigationService extends Service implements LocationHelper.Listene
 
     private static final int RECORDING_THRESHOLD = NavigationServiceProvider.DISTANCE_THRESHOLD + 100;
 
+    private static final NavigationTraceWriter.Format LOG_FORMAT = NavigationTraceWriter.Format.CSV;
+
+    // How long to wait for the log to be written out before asking for feedback anyway
+    private static final long LOG_CLOSE_TIMEOUT_MS = 10000;
+
     private LocationHelper mLocationHelper = null;
     private Location mLastLocation = null;
 
@@ -91,6 +97,7 @@ public class NavigationService extends Service implements LocationHelper.Listene
 
     private NavigationServiceProvider mNavProvider;
     private File mLogFile = null;
+    private NavigationTraceWriter mLogWriter = null;
 
     private long mFinishedTime;
 
@@ -174,6 +181,7 @@ public class NavigationService extends Service implements LocationHelper.Listene
     public void onDestroy() {
         Log.d(TAG, "Destroying Service.");
         mLocationHelper.unregisterListener(this);
+        closeLog();
         super.onDestroy();
 
         // Send Broadcast
@@ -208,7 +216,8 @@ public class NavigationService extends Service implements LocationHelper.Listene
                 mFinishedTime = System.currentTimeMillis();
             } else if (System.currentTimeMillis() - mFinishedTime >= 30000) {
                 ObaAnalytics.reportUiEvent(mFirebaseAnalytics, getString(R.string.analytics_label_destination_reminder), getString(R.string.analytics_label_destination_reminder_variant_ended));
-                getUserFeedback();
+                // The feedback is appended to the log, so only ask for it once the log is closed
+                closeLog(this::getUserFeedback);
                 stopSelf();
                 setupLogCleanupTask();
             }
@@ -254,60 +263,75 @@ public class NavigationService extends Service implements LocationHelper.Listene
                 subFolder.mkdirs();
             }
 
-            mLogFile = new File(subFolder, counter + "-" + readableDate + ".csv");
+            mLogFile = new File(subFolder, counter + "-" + readableDate +
+                    (LOG_FORMAT == NavigationTraceWriter.Format.BINARY ? ".bin" : ".csv"));
 
             Log.d(TAG, ":" + mLogFile.getAbsolutePath());
 
             Location dest = ObaContract.Stops.getLocation(Application.get().getApplicationContext(), mDestinationStopId);
             Location last = ObaContract.Stops.getLocation(Application.get().getApplicationContext(), mBeforeStopId);
 
-            String header = String.format(Locale.US, "%s,%s,%f,%f,%s,%f,%f\n", mTripId, mDestinationStopId,
+            String header = String.format(Locale.US, "%s,%s,%f,%f,%s,%f,%f", mTripId, mDestinationStopId,
                     dest.getLatitude(), dest.getLongitude(), mBeforeStopId, last.getLatitude(), last.getLongitude());
 
-            if (mLogFile != null) {
-                FileUtils.write(mLogFile, header, false);
-            } else {
-                Log.e(TAG, "Failed to write to file - null file");
-            }
+            mLogWriter = new NavigationTraceWriter(mLogFile, header, LOG_FORMAT,
+                    NavigationTraceWriter.DEFAULT_MAX_FILE_SIZE);
         } catch (IOException e) {
             Log.e(TAG, "File write failed: " + e.toString());
         }
     }
 
     private void writeToLog(Location l) {
-        try {
-            String nanoTime = "";
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
-                nanoTime = Long.toString(l.getElapsedRealtimeNanos());
-            }
-
-            int satellites = 0;
-            if (l.getExtras() != null) {
-                satellites = l.getExtras().getInt("satellites", 0);
-            }
-
-            // mGetReadyFlag =mNavProvider.getGetReady();
-            //  mPullTheCordFlag = mNavProvider.getFinished();
-
-            // TODO: Add isMockProvider
-            String log = String.format(Locale.US, "%d,%s,%s,%s,%d,%f,%f,%f,%f,%f,%f,%d,%s\n",
-                    mCoordId, mNavProvider.getGetReady(), mNavProvider.getFinished(), nanoTime, l.getTime(),
-                    l.getLatitude(), l.getLongitude(), l.getAltitude(), l.getSpeed(),
-                    l.getBearing(), l.getAccuracy(), satellites, l.getProvider());
+        if (mLogWriter == null) {
+            Log.e(TAG, "Failed to write to file");
+            return;
+        }
+        // Written out by the trace writer's own thread, so this doesn't wait on the file system
+        mLogWriter.write(NavigationTraceWriter.toPosition(mCoordId, mNavProvider.getGetReady(),
+                mNavProvider.getFinished(), l));
 
+        //Increments the id for each coordinate
+        mCoordId++;
+    }
 
-            //Increments the id for each coordinate
-            mCoordId++;
+    /**
+     * Writes out the rest of the log and syncs it to disk, once navigation has ended
+     */
+    private void closeLog() {
+        closeLog(null);
+    }
 
-            if (mLogFile != null && mLogFile.canWrite()) {
-                FileUtils.write(mLogFile, log, true);
-            } else {
-                Log.e(TAG, "Failed to write to file");
+    /**
+     * Writes out the rest of the log and syncs it to disk, once navigation has ended
+     *
+     * @param onClosed run on the main thread once the log file is closed, so nothing else touches
+     *                 the file while it's being written, or null
+     */
+    private void closeLog(Runnable onClosed) {
+        final NavigationTraceWriter writer = mLogWriter;
+        mLogWriter = null;
+        if (writer == null) {
+            if (onClosed != null) {
+                onClosed.run();
             }
-
-        } catch (IOException e) {
-            Log.e(TAG, "File write failed: " + e.toString());
+            return;
         }
+        writer.close();
+        if (onClosed == null) {
+            return;
+        }
+        // Wait for the writer's thread on another thread, rather than blocking the main thread
+        final Handler handler = new Handler(Looper.getMainLooper());
+        new Thread(() -> {
+            try {
+                if (!writer.awaitClosed(LOG_CLOSE_TIMEOUT_MS)) {
+                    Log.w(TAG, "Log wasn't closed after " + LOG_CLOSE_TIMEOUT_MS + "ms");
+                }
+            } catch (InterruptedException e) {
+                Log.w(TAG, "Interrupted waiting for the log to close");
+            }
+            handler.post(onClosed);
+        }, TAG).start();
     }
 
     public void getUserFeedback() {
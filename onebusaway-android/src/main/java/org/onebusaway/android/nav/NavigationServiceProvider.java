@@ -64,6 +64,13 @@ public class NavigationServiceProvider implements TextToSpeech.OnInitListener {
     };
     public static final int DISTANCE_THRESHOLD = 200;
 
+    // Distance (in meters) from the first stop of the next path link at which the rider has reached it
+    public static final int ORIGIN_REACHED_DISTANCE = 50;
+
+    // Faster than any transit vehicle, in meters per second - locations that imply more are jumps
+    private static final float MAX_SPEED = 70;
+    private static final int MAX_REJECTED_FIXES = 3;
+
     // Number of times to repeat voice commands
     private static final int NUM_PULL_CORD_REPEAT = 10;
     private static final int NUM_GET_READY_REPEAT = 2;
@@ -173,6 +180,7 @@ public class NavigationServiceProvider implements TextToSpeech.OnInitListener {
 
         // Have proximity listener listen for the "Ring" location
         mProxCalculator.listenForDistance(mAlertDistance);
+        mProxCalculator.listenForPath(mPath);
         mProxCalculator.listenForLocation(firstLocation, secondToLastLocation, lastLocation);
         mProxCalculator.mReady = false;
         mProxCalculator.mTrigger = false;
@@ -300,6 +308,27 @@ public class NavigationServiceProvider implements TextToSpeech.OnInitListener {
         private boolean m100_a, m50_a, m20_a, m20_d, m50_d, m100_d = false;
         // Variables for handling arrival/departure from 2nd to last stop
 
+        private float mLastToSecDistance = -1;
+        //Distance between the second to last and last stops of the link
+
+        private ProximityEngine mProximity;
+        //First, second to last and last stops of every link in the path, in that order
+
+        private boolean mNextOriginReached = false;
+        //Has the rider been at the first stop of the next link since switching to this link?
+
+        private double mLastLat, mLastLon;
+        private long mLastTime;
+        private float mLastAccuracy;
+        private int mRejectedFixes;
+        //Last trusted fix, and the number of fixes since then that looked like GPS jumps
+
+        private boolean mImperial;
+        //Is the distance shown in miles? Read from the preferences when the path is registered
+
+        private long mDistanceTenths = -1;
+        //Distance shown in the notification, in tenths of a mile or kilometer
+
         ProximityCalculator(NavigationServiceProvider navProvider) {
             mNavProvider = navProvider;
             Log.d(TAG, "Initializing ProximityCalculator");
@@ -407,6 +436,31 @@ public class NavigationServiceProvider implements TextToSpeech.OnInitListener {
             if (last == null) {
                 endDistance = -1;
             }
+            mLastToSecDistance = last != null && secondToLast != null ?
+                    last.distanceTo(secondToLast) : -1;
+            mNextOriginReached = false;
+        }
+
+        /**
+         * Registers the stops of every link in the path, so the distances to all of them can be
+         * computed together for each location
+         */
+        void listenForPath(Path path) {
+            int size = path.getPathLinks().size();
+            Location[] stops = new Location[size * 3];
+            for (int i = 0; i < size; i++) {
+                PathLink link = path.getPathLinks().get(i);
+                // Without a first stop, a link starts where the one before it ended
+                stops[i * 3] = link.getOriginLocation() != null || i == 0 ?
+                        link.getOriginLocation() : stops[i * 3 - 1];
+                stops[i * 3 + 1] = link.getSecondToLastLocation();
+                stops[i * 3 + 2] = link.getDestinationLocation();
+            }
+            mProximity = ProximityEngine.fromLocations(stops);
+            mImperial = mNavProvider.isImperial();
+            mDistanceTenths = -1;
+            mLastTime = 0;
+            mRejectedFixes = 0;
         }
 
         /**
@@ -433,9 +487,7 @@ public class NavigationServiceProvider implements TextToSpeech.OnInitListener {
                 return true;
 
             } else */
-            float lastToSecDistance = lastCoords.distanceTo(secondToLastCoords);
-            Log.d(TAG, "Detecting stop. distance_d=" +
-                    distance_d + ". stop_type=" + stop_type + " speed=" + speed);
+            float lastToSecDistance = mLastToSecDistance;
             if (stop_type == 1) {
                 /* Check if the bus is on the second to last stop */
                 if ((distance_d > 50) && (distance_d < 100) && (distance_d != -1) && !m100_a) {
@@ -484,18 +536,25 @@ public class NavigationServiceProvider implements TextToSpeech.OnInitListener {
          */
         private int checkProximityAll(Location currentLocation) {
             if (!mWaitingForConfirm) {
-                //re-calculate the distance to the final bus stop from the current location
-                endDistance = lastCoords.distanceTo(currentLocation);
-                //re-calculate the distance to second to last bus stop from the current location
-                directDistance = secondToLastCoords.distanceTo(currentLocation);
+                //re-calculate the distances to the stops of every link from the current location
+                mProximity.update(currentLocation.getLatitude(), currentLocation.getLongitude());
+                // A single bad location near a later stop shouldn't move us on to that link
+                if (!isJump(currentLocation)) {
+                    skipPassedPathLinks();
+                }
+                int link = mNavProvider.mPathLinkIndex;
+                endDistance = mProximity.getDistance(link * 3 + 2);
+                directDistance = mProximity.getDistance(link * 3 + 1);
 
                 mSectoCurDistance = directDistance;
 
-                Log.d(TAG, "Second to last stop coordinates: " + secondToLastCoords.getLatitude()
-                        + ", " + secondToLastCoords
-                        .getLongitude());
-
-                mNavProvider.updateUi(EVENT_TYPE_UPDATE_DISTANCE);                 // Update distance notification
+                // Update distance notification, if the distance shown has changed.  The text is
+                // only formatted when the rounded distance changes, not for every location.
+                long distanceTenths = getDistanceTenths(endDistance, mImperial);
+                if (distanceTenths != mDistanceTenths) {
+                    mDistanceTenths = distanceTenths;
+                    mNavProvider.updateUi(EVENT_TYPE_UPDATE_DISTANCE);
+                }
 
                 // Check if distance from 2nd-to-last stop is less than threshold.
                 if (directDistance < DISTANCE_THRESHOLD) {
@@ -521,6 +580,56 @@ public class NavigationServiceProvider implements TextToSpeech.OnInitListener {
         }
 
 
+        /**
+         * Returns true if the location is too far from the last one used to be reached in the time
+         * between them, allowing for the accuracy of both.  After a few of these in a row the
+         * location is trusted anyway, in case it was the last location that was wrong.
+         */
+        private boolean isJump(Location l) {
+            if (mLastTime != 0 && mRejectedFixes < MAX_REJECTED_FIXES) {
+                long elapsed = l.getTime() - mLastTime;
+                float moved = ProximityEngine.distance(mLastLat, mLastLon, l.getLatitude(),
+                        l.getLongitude()) - mLastAccuracy - l.getAccuracy();
+                if (elapsed > 0 && moved > MAX_SPEED * elapsed / 1000f) {
+                    mRejectedFixes++;
+                    Log.d(TAG, "Location jump of " + moved + "m in " + elapsed + "ms");
+                    return true;
+                }
+            }
+            mLastLat = l.getLatitude();
+            mLastLon = l.getLongitude();
+            mLastTime = l.getTime();
+            mLastAccuracy = l.getAccuracy();
+            mRejectedFixes = 0;
+            return false;
+        }
+
+        /**
+         * Moves on to the next path link if the rider has been to its first stop and has since
+         * left it towards its last stops, i.e. the end of the current link was passed without
+         * being detected.  Only the next link is considered, and nothing is skipped while the
+         * rider is still at its first stop, which is usually the last stop of the current link.
+         */
+        private void skipPassedPathLinks() {
+            int next = mNavProvider.mPathLinkIndex + 1;
+            if (mNavProvider.mPath == null || next >= mProximity.size() / 3) {
+                return;
+            }
+            if (mProximity.getDistance(next * 3) < ORIGIN_REACHED_DISTANCE) {
+                mNextOriginReached = true;
+                return;
+            }
+            if (mNextOriginReached
+                    && (mProximity.getDistance(next * 3 + 1) < DISTANCE_THRESHOLD
+                    || mProximity.getDistance(next * 3 + 2) < DISTANCE_THRESHOLD)) {
+                Log.d(TAG, "Skipping from path link " + (next - 1) + " to " + next);
+                mNavProvider.navigateNextPathLink();
+                resetVariablesAfterPathLinkSwitching();
+                mReady = false;
+                mTrigger = false;
+            }
+        }
+
         public void resetVariablesAfterPathLinkSwitching() {
             Log.d(TAG, "Reseting variables after path link switching!");
             m100_a = false;
@@ -600,41 +709,8 @@ public class NavigationServiceProvider implements TextToSpeech.OnInitListener {
             mBuilder.setOngoing(true);
             return mBuilder.build();
         } else if (eventType == EVENT_TYPE_UPDATE_DISTANCE) {
-            // Retrieve preferred unit and calculate distance.
-            String IMPERIAL = app.getString(R.string.preferences_preferred_units_option_imperial);
-            String METRIC = app.getString(R.string.preferences_preferred_units_option_metric);
-            String AUTOMATIC = app.getString(R.string.preferences_preferred_units_option_automatic);
-            String preferredUnits = mSettings
-                    .getString(app.getString(R.string.preference_key_preferred_units), AUTOMATIC);
-            double distance = mProxCalculator.endDistance;
-            double miles = distance * RegionUtils.METERS_TO_MILES;  // Get miles.
-            distance /= 1000;                                       // Get kilometers.
-            DecimalFormat fmt = new DecimalFormat("0.0");
-
-            Locale mLocale = Locale.getDefault();
-
-            if (preferredUnits.equalsIgnoreCase(AUTOMATIC)) {
-                Log.d(TAG, "Setting units automatically");
-                // If the country is set to USA, assume imperial, otherwise metric
-                // TODO - Method of guessing metric/imperial can definitely be improved
-                if (mLocale.getISO3Country().equalsIgnoreCase(Locale.US.getISO3Country())) {
-                    mBuilder.setContentText(Application.get().getResources().getQuantityString(R.plurals.distance_miles,
-                            (int) miles,
-                            fmt.format(miles)));
-                } else {
-                    mBuilder.setContentText(Application.get().getResources().getQuantityString(R.plurals.distance_kilometers,
-                            (int) distance,
-                            fmt.format(distance)));
-                }
-            } else if (preferredUnits.equalsIgnoreCase(IMPERIAL)) {
-                mBuilder.setContentText(Application.get().getResources().getQuantityString(R.plurals.distance_miles,
-                        (int) miles,
-                        fmt.format(miles)));
-            } else {
-                mBuilder.setContentText(Application.get().getResources().getQuantityString(R.plurals.distance_kilometers,
-                        (int) distance,
-                        fmt.format(distance)));
-            }
+            mBuilder.setContentText(getDistanceText(mProxCalculator.mDistanceTenths,
+                    mProxCalculator.mImperial));
 
             receiverIntent.putExtra(NavigationReceiver.ACTION_NUM, NavigationReceiver.CANCEL_TRIP);
             receiverIntent.putExtra(NavigationReceiver.NOTIFICATION_ID, NOTIFICATION_ID);
@@ -717,6 +793,55 @@ public class NavigationServiceProvider implements TextToSpeech.OnInitListener {
         return null;
     }
 
+    /**
+     * @return true if distances should be shown to the rider in miles, false if they should be
+     * shown in kilometers
+     */
+    private boolean isImperial() {
+        Application app = Application.get();
+        // Retrieve preferred unit
+        String IMPERIAL = app.getString(R.string.preferences_preferred_units_option_imperial);
+        String AUTOMATIC = app.getString(R.string.preferences_preferred_units_option_automatic);
+        String preferredUnits = mSettings
+                .getString(app.getString(R.string.preference_key_preferred_units), AUTOMATIC);
+        if (preferredUnits.equalsIgnoreCase(AUTOMATIC)) {
+            // If the country is set to USA, assume imperial, otherwise metric
+            // TODO - Method of guessing metric/imperial can definitely be improved
+            Locale mLocale = Locale.getDefault();
+            return mLocale.getISO3Country().equalsIgnoreCase(Locale.US.getISO3Country());
+        }
+        return preferredUnits.equalsIgnoreCase(IMPERIAL);
+    }
+
+    /**
+     * Returns the distance shown to the rider, rounded to tenths of a mile or kilometer
+     *
+     * @param distance distance in meters
+     * @param imperial true for tenths of a mile, false for tenths of a kilometer
+     */
+    private static long getDistanceTenths(double distance, boolean imperial) {
+        double units = imperial ? distance * RegionUtils.METERS_TO_MILES : distance / 1000;
+        return Math.round(units * 10);
+    }
+
+    /**
+     * Returns the distance to show the rider
+     *
+     * @param tenths   distance from {@link #getDistanceTenths(double, boolean)}
+     * @param imperial true if the distance is in tenths of a mile, false for a kilometer
+     */
+    private String getDistanceText(long tenths, boolean imperial) {
+        Application app = Application.get();
+        double distance = tenths / 10.0;
+        String text = new DecimalFormat("0.0").format(distance);
+        if (imperial) {
+            return app.getResources().getQuantityString(R.plurals.distance_miles,
+                    (int) distance, text);
+        }
+        return app.getResources().getQuantityString(R.plurals.distance_kilometers,
+                (int) distance, text);
+    }
+
     /**
      * Speak specified message out loud using TTS
      *
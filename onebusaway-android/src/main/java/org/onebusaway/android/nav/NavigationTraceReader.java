@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.nav;
+
+import org.apache.commons.io.IOUtils;
+import org.onebusaway.android.nav.model.Position;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.Arrays;
+
+import static org.onebusaway.android.nav.NavigationTraceWriter.BINARY_MAGIC;
+import static org.onebusaway.android.nav.NavigationTraceWriter.RECORD_TAG;
+import static org.onebusaway.android.nav.NavigationTraceWriter.UTF_8;
+
+/**
+ * Streams the positions from a trace file written by {@link NavigationTraceWriter}, in either
+ * format.  Any text after the positions, such as the feedback added once the trip is over, is
+ * available from {@link #getTrailer()} once {@link #next()} has returned null.
+ */
+public class NavigationTraceReader implements Closeable {
+
+    private final NavigationTraceWriter.Format mFormat;
+
+    private final DataInputStream mIn;
+
+    private final BufferedReader mReader;
+
+    private final String mHeader;
+
+    private String mTrailer;
+
+    public NavigationTraceReader(File file) throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(file));
+        try {
+            byte[] magic = new byte[BINARY_MAGIC.length()];
+            in.mark(magic.length);
+            int read = IOUtils.read(in, magic);
+            if (read == magic.length && Arrays.equals(magic, BINARY_MAGIC.getBytes(UTF_8))) {
+                mFormat = NavigationTraceWriter.Format.BINARY;
+                mIn = new DataInputStream(in);
+                mReader = null;
+                mHeader = mIn.readUTF();
+            } else {
+                in.reset();
+                mFormat = NavigationTraceWriter.Format.CSV;
+                mIn = null;
+                mReader = new BufferedReader(new InputStreamReader(in, UTF_8));
+                mHeader = mReader.readLine();
+            }
+        } catch (IOException e) {
+            IOUtils.closeQuietly(in);
+            throw e;
+        }
+    }
+
+    public NavigationTraceWriter.Format getFormat() {
+        return mFormat;
+    }
+
+    /**
+     * @return the trip information at the start of the file
+     */
+    public String getHeader() {
+        return mHeader;
+    }
+
+    /**
+     * @return the next position, or null if there are no more
+     */
+    public Position next() throws IOException {
+        if (mTrailer != null) {
+            return null;
+        }
+        return mFormat == NavigationTraceWriter.Format.BINARY ? nextBinary() : nextCsv();
+    }
+
+    /**
+     * @return the text after the positions with surrounding whitespace removed, which is empty if
+     * there isn't any, or null if the positions haven't all been read yet
+     */
+    public String getTrailer() {
+        return mTrailer;
+    }
+
+    private Position nextBinary() throws IOException {
+        int tag = mIn.read();
+        if (tag == RECORD_TAG) {
+            try {
+                int id = mIn.readInt();
+                int flags = mIn.readByte();
+                long nanos = mIn.readLong();
+                long time = mIn.readLong();
+                double lat = mIn.readDouble();
+                double lon = mIn.readDouble();
+                double altitude = mIn.readDouble();
+                float speed = mIn.readFloat();
+                float bearing = mIn.readFloat();
+                float accuracy = mIn.readFloat();
+                int satellites = mIn.readShort();
+                String provider = mIn.readUTF();
+                return new Position(0, id, (flags & 1) != 0, (flags & 2) != 0, nanos, time, lat,
+                        lon, altitude, speed, bearing, accuracy, satellites, provider);
+            } catch (EOFException e) {
+                // The last position was cut off, e.g. because the app was killed while writing
+                mTrailer = "";
+                return null;
+            }
+        }
+        mTrailer = tag == -1 ? "" : (((char) tag) + IOUtils.toString(mIn, UTF_8)).trim();
+        return null;
+    }
+
+    private Position nextCsv() throws IOException {
+        String line = mReader.readLine();
+        if (line == null) {
+            mTrailer = "";
+            return null;
+        }
+        Position position = parseCsv(line);
+        if (position == null) {
+            // Not a position, so it's the start of the text after them
+            StringBuilder trailer = new StringBuilder(line);
+            while ((line = mReader.readLine()) != null) {
+                trailer.append('\n').append(line);
+            }
+            mTrailer = trailer.toString().trim();
+        }
+        return position;
+    }
+
+    /**
+     * @return the position in the line, or null if the line isn't a position
+     */
+    private static Position parseCsv(String line) {
+        String[] f = line.split(",", 13);
+        if (f.length != 13) {
+            return null;
+        }
+        try {
+            return new Position(0, Integer.parseInt(f[0]), Boolean.parseBoolean(f[1]),
+                    Boolean.parseBoolean(f[2]), f[3].isEmpty() ? -1 : Long.parseLong(f[3]),
+                    Long.parseLong(f[4]), Double.parseDouble(f[5]), Double.parseDouble(f[6]),
+                    Double.parseDouble(f[7]), Float.parseFloat(f[8]), Float.parseFloat(f[9]),
+                    Float.parseFloat(f[10]), Integer.parseInt(f[11]), f[12]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void close() {
+        IOUtils.closeQuietly(mIn);
+        IOUtils.closeQuietly(mReader);
+    }
+}
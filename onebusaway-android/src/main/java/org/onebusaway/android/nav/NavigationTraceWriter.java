@@ -0,0 +1,308 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.nav;
+
+import android.location.Location;
+import android.os.Build;
+import android.util.Log;
+
+import org.onebusaway.android.nav.model.Position;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Locale;
+
+/**
+ * Writes the positions recorded during navigation to a trace file - see DESTINATION_REMINDERS.md.
+ * Positions are held in a fixed-size ring buffer and written out by a background thread, so
+ * recording a position doesn't touch the file system.  Use {@link NavigationTraceReader} to read
+ * the trace back.
+ *
+ * When the file reaches the maximum size it's moved to the same name with a ".1" suffix (replacing
+ * any earlier one) and a new file is started, so the file always holds the most recent positions.
+ * The rotated segment - see {@link #getRotatedFile(File)} - must be moved, uploaded and deleted
+ * along with the file.
+ */
+public class NavigationTraceWriter implements Closeable {
+
+    private static final String TAG = "NavigationTraceWriter";
+
+    public enum Format {
+        /**
+         * Comma-separated text, one position per line
+         */
+        CSV,
+        /**
+         * Fixed binary fields per position, about 60% of the size of CSV
+         */
+        BINARY
+    }
+
+    public static final long DEFAULT_MAX_FILE_SIZE = 1024 * 1024;
+
+    static final String ROTATED_SUFFIX = ".1";
+
+    static final String BINARY_MAGIC = "OBANAVB1";
+
+    static final int RECORD_TAG = 0x01;
+
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final int BUFFER_CAPACITY = 256;
+
+    private static final long FLUSH_INTERVAL_MS = 5000;
+
+    private final File mFile;
+
+    private final String mHeader;
+
+    private final Format mFormat;
+
+    private final long mMaxFileSize;
+
+    // Ring buffer of positions waiting to be written, guarded by this
+    private final Position[] mBuffer = new Position[BUFFER_CAPACITY];
+
+    private int mHead;
+
+    private int mCount;
+
+    private int mDropped;
+
+    private boolean mClosed;
+
+    private final Thread mThread;
+
+    // Only used by the flush thread
+    private FileOutputStream mFileOut;
+
+    private DataOutputStream mOut;
+
+    private long mSize;
+
+    /**
+     * Creates the trace file, replacing any existing one, and writes the header
+     *
+     * @param header the trip information written at the start of the file, without a line ending
+     */
+    public NavigationTraceWriter(File file, String header, Format format, long maxFileSize)
+            throws IOException {
+        mFile = file;
+        mHeader = header;
+        mFormat = format;
+        mMaxFileSize = maxFileSize;
+        openFile();
+        mThread = new Thread(this::run, TAG);
+        mThread.start();
+    }
+
+    /**
+     * Creates a position to record from a location update
+     *
+     * @param coordinateId ID of the position within the trace
+     * @param getReady     true if the "Get Ready" alert has been announced
+     * @param pullTheCord  true if the "Pull the Cord Now" alert has been announced
+     */
+    public static Position toPosition(int coordinateId, boolean getReady, boolean pullTheCord,
+            Location l) {
+        long nanos = -1;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            nanos = l.getElapsedRealtimeNanos();
+        }
+        int satellites = 0;
+        if (l.getExtras() != null) {
+            satellites = l.getExtras().getInt("satellites", 0);
+        }
+        return new Position(0, coordinateId, getReady, pullTheCord, nanos, l.getTime(),
+                l.getLatitude(), l.getLongitude(), l.getAltitude(), l.getSpeed(), l.getBearing(),
+                l.getAccuracy(), satellites, l.getProvider() != null ? l.getProvider() : "");
+    }
+
+    /**
+     * Adds a position to be written by the flush thread
+     *
+     * @return true if the position was buffered, false if it was dropped because the buffer is
+     * full or the writer is closed
+     */
+    public synchronized boolean write(Position position) {
+        if (mClosed || mCount == BUFFER_CAPACITY) {
+            mDropped++;
+            return false;
+        }
+        mBuffer[(mHead + mCount) % BUFFER_CAPACITY] = position;
+        mCount++;
+        if (mCount >= BUFFER_CAPACITY / 2) {
+            notify();
+        }
+        return true;
+    }
+
+    /**
+     * Stops accepting positions.  The flush thread writes any buffered positions, syncs the file to
+     * disk and closes it, without blocking the caller - use {@link #awaitClosed(long)} to wait for
+     * it.
+     */
+    @Override
+    public synchronized void close() {
+        mClosed = true;
+        notify();
+    }
+
+    /**
+     * Waits for the file to be closed after {@link #close()}
+     *
+     * @return true if the file was closed, false if the timeout elapsed first
+     */
+    public boolean awaitClosed(long timeoutMs) throws InterruptedException {
+        mThread.join(timeoutMs);
+        return !mThread.isAlive();
+    }
+
+    public File getFile() {
+        return mFile;
+    }
+
+    /**
+     * @return the file that older positions are moved to when the given trace file reaches the
+     * maximum size, which may not exist
+     */
+    public static File getRotatedFile(File file) {
+        return new File(file.getPath() + ROTATED_SUFFIX);
+    }
+
+    /**
+     * @return true if the file is the rotated segment of a trace file
+     */
+    public static boolean isRotatedFile(File file) {
+        return file.getName().endsWith(ROTATED_SUFFIX);
+    }
+
+    private void run() {
+        Position[] batch = new Position[BUFFER_CAPACITY];
+        boolean closed = false;
+        while (!closed) {
+            int count;
+            synchronized (this) {
+                if (!mClosed && mCount < BUFFER_CAPACITY / 2) {
+                    try {
+                        wait(FLUSH_INTERVAL_MS);
+                    } catch (InterruptedException e) {
+                        mClosed = true;
+                    }
+                }
+                count = mCount;
+                for (int i = 0; i < count; i++) {
+                    batch[i] = mBuffer[(mHead + i) % BUFFER_CAPACITY];
+                    mBuffer[(mHead + i) % BUFFER_CAPACITY] = null;
+                }
+                mHead = (mHead + count) % BUFFER_CAPACITY;
+                mCount = 0;
+                closed = mClosed;
+            }
+            try {
+                for (int i = 0; i < count; i++) {
+                    if (mSize >= mMaxFileSize) {
+                        rotate();
+                    }
+                    writePosition(batch[i]);
+                    batch[i] = null;
+                }
+                mOut.flush();
+            } catch (IOException e) {
+                Log.e(TAG, "File write failed: " + e.toString());
+            }
+        }
+
+        try {
+            closeFile();
+        } catch (IOException e) {
+            Log.e(TAG, "File close failed: " + e.toString());
+        }
+        synchronized (this) {
+            if (mDropped > 0) {
+                Log.w(TAG, mDropped + " positions dropped");
+            }
+        }
+    }
+
+    private void openFile() throws IOException {
+        mFileOut = new FileOutputStream(mFile, false);
+        mOut = new DataOutputStream(new BufferedOutputStream(mFileOut));
+        if (mFormat == Format.BINARY) {
+            mOut.write(BINARY_MAGIC.getBytes(UTF_8));
+            mOut.writeUTF(mHeader);
+        } else {
+            mOut.write((mHeader + "\n").getBytes(UTF_8));
+        }
+        mOut.flush();
+        mSize = mOut.size();
+    }
+
+    private void closeFile() throws IOException {
+        try {
+            mOut.flush();
+            mFileOut.getFD().sync();
+        } finally {
+            mOut.close();
+        }
+    }
+
+    private void rotate() throws IOException {
+        closeFile();
+        File previous = getRotatedFile(mFile);
+        if (previous.exists() && !previous.delete()) {
+            throw new IOException("Couldn't delete " + previous);
+        }
+        if (!mFile.renameTo(previous)) {
+            throw new IOException("Couldn't rename " + mFile);
+        }
+        openFile();
+    }
+
+    private void writePosition(Position p) throws IOException {
+        int start = mOut.size();
+        if (mFormat == Format.BINARY) {
+            mOut.writeByte(RECORD_TAG);
+            mOut.writeInt(p.getCoordinateId());
+            mOut.writeByte((p.getGetReadyFlag() ? 1 : 0) | (p.getPullTheCordNowFlag() ? 2 : 0));
+            mOut.writeLong(p.getTimeSinceAppStartedNanos());
+            mOut.writeLong(p.getTimeUtc());
+            mOut.writeDouble(p.getLatitude());
+            mOut.writeDouble(p.getLongitude());
+            mOut.writeDouble(p.getAltitude());
+            mOut.writeFloat(p.getSpeed() != null ? p.getSpeed() : 0);
+            mOut.writeFloat(p.getBearing() != null ? p.getBearing() : 0);
+            mOut.writeFloat(p.getHorAccuracy());
+            mOut.writeShort(p.getNumSatsUsed());
+            mOut.writeUTF(p.getLocationProvider());
+        } else {
+            String nanos = p.getTimeSinceAppStartedNanos() >= 0 ?
+                    Long.toString(p.getTimeSinceAppStartedNanos()) : "";
+            // TODO: Add isMockProvider
+            mOut.write(String.format(Locale.US, "%d,%s,%s,%s,%d,%f,%f,%f,%f,%f,%f,%d,%s\n",
+                    p.getCoordinateId(), p.getGetReadyFlag(), p.getPullTheCordNowFlag(), nanos,
+                    p.getTimeUtc(), p.getLatitude(), p.getLongitude(), p.getAltitude(),
+                    p.getSpeed(), p.getBearing(), p.getHorAccuracy(), p.getNumSatsUsed(),
+                    p.getLocationProvider()).getBytes(UTF_8));
+        }
+        mSize += mOut.size() - start;
+    }
+}
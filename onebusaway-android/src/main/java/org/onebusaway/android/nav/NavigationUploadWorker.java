@@ -31,9 +31,7 @@ import org.onebusaway.android.R;
 import org.onebusaway.android.app.Application;
 import org.onebusaway.android.io.ObaAnalytics;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 
 import androidx.annotation.NonNull;
@@ -77,16 +75,28 @@ public class NavigationUploadWorker extends Worker {
                         + "/" + logFileName);
                 Log.d(TAG, "Location : " + response + logFileName);
 
-                String sCurrentLine, feedbackText = "";
-                ;
+                String feedbackText = "";
+                // A rotated segment only has the older positions - the feedback is at the end of
+                // the trace it was rotated from, and is logged when that trace is uploaded
+                boolean rotated = NavigationTraceWriter.isRotatedFile(lFile);
+                NavigationTraceReader reader = null;
                 try {
-                    BufferedReader br = new BufferedReader(new FileReader(lFile.getAbsolutePath()));
-                    while ((sCurrentLine = br.readLine()) != null) {
-                        System.out.println(sCurrentLine);
-                        feedbackText = sCurrentLine;
+                    // The feedback is the text after the recorded positions
+                    reader = new NavigationTraceReader(lFile);
+                    int count = 0;
+                    while (reader.next() != null) {
+                        count++;
                     }
+                    if (!rotated) {
+                        feedbackText = reader.getTrailer();
+                    }
+                    Log.d(TAG, logFileName + " has " + count + " positions");
                 } catch (IOException e) {
                     e.printStackTrace();
+                } finally {
+                    if (reader != null) {
+                        reader.close();
+                    }
                 }
 
                 StorageMetadata metadata = new StorageMetadata.Builder()
@@ -112,7 +122,9 @@ public class NavigationUploadWorker extends Worker {
                         Log.d(TAG, "Response - " + userResponse);
                         Log.d(TAG, "FeedbackText - " + feedbackText);
                         Log.d(TAG, "Download URL - " + fileURL);
-                        logFeedback(feedbackText, userResponse, fileURL);
+                        if (!rotated) {
+                            logFeedback(feedbackText, userResponse, fileURL);
+                        }
                         boolean deleted = lFile.delete();
                         Log.v(TAG, logFileName + " deleted : " + deleted);
                     }
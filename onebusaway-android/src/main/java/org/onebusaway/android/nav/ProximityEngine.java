@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.nav;
+
+import android.location.Location;
+
+/**
+ * Computes the distance and bearing from a location to a fixed set of stops, e.g. all the stops
+ * remaining in the path being navigated.  Stop coordinates are kept in primitive arrays along with
+ * the local scale of the WGS84 ellipsoid at each stop, so each update is a few multiplications per
+ * stop instead of a geodesic calculation.  Within a few kilometers of a stop the results match
+ * {@link Location#distanceTo(Location)} to well under a meter.
+ */
+public class ProximityEngine {
+
+    private static final double SEMI_MAJOR_AXIS = 6378137.0;
+
+    private static final double FLATTENING = 1 / 298.257223563;
+
+    private static final double ECCENTRICITY_SQUARED = FLATTENING * (2 - FLATTENING);
+
+    private final int mSize;
+
+    // Stop coordinates, in radians
+    private final double[] mLatitudes;
+
+    private final double[] mLongitudes;
+
+    // Meters per radian of latitude and longitude at each stop
+    private final double[] mLatitudeScales;
+
+    private final double[] mLongitudeScales;
+
+    private final float[] mDistances;
+
+    // Last location passed to update(), in radians, so bearings are only computed when asked for
+    private double mLatitude = Double.NaN;
+
+    private double mLongitude = Double.NaN;
+
+    /**
+     * @param latitudes  latitudes of the stops, in degrees, or NaN if a stop's location is unknown
+     * @param longitudes longitudes of the stops, in degrees
+     */
+    public ProximityEngine(double[] latitudes, double[] longitudes) {
+        mSize = latitudes.length;
+        mLatitudes = new double[mSize];
+        mLongitudes = new double[mSize];
+        mLatitudeScales = new double[mSize];
+        mLongitudeScales = new double[mSize];
+        mDistances = new float[mSize];
+        for (int i = 0; i < mSize; i++) {
+            double lat = Math.toRadians(latitudes[i]);
+            mLatitudes[i] = lat;
+            mLongitudes[i] = Math.toRadians(longitudes[i]);
+            mLatitudeScales[i] = getLatitudeScale(lat);
+            mLongitudeScales[i] = getLongitudeScale(lat);
+            mDistances[i] = Float.NaN;
+        }
+    }
+
+    /**
+     * Creates an engine for the given stops, any of which may be null if the location is unknown
+     */
+    public static ProximityEngine fromLocations(Location... stops) {
+        double[] latitudes = new double[stops.length];
+        double[] longitudes = new double[stops.length];
+        for (int i = 0; i < stops.length; i++) {
+            latitudes[i] = stops[i] != null ? stops[i].getLatitude() : Double.NaN;
+            longitudes[i] = stops[i] != null ? stops[i].getLongitude() : Double.NaN;
+        }
+        return new ProximityEngine(latitudes, longitudes);
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Computes the distance to every stop from the given location.  Bearings aren't needed for
+     * every location, so they're computed by {@link #getBearing(int)}.
+     *
+     * @param latitude  latitude of the location, in degrees
+     * @param longitude longitude of the location, in degrees
+     */
+    public void update(double latitude, double longitude) {
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        mLatitude = lat;
+        mLongitude = lon;
+        for (int i = 0; i < mSize; i++) {
+            double x = normalizeLongitude(mLongitudes[i] - lon) * mLongitudeScales[i];
+            double y = (mLatitudes[i] - lat) * mLatitudeScales[i];
+            mDistances[i] = (float) Math.sqrt(x * x + y * y);
+        }
+    }
+
+    /**
+     * @return the distance in meters to the stop from the last location passed to
+     * {@link #update(double, double)}, or NaN if there hasn't been one or the stop's location
+     * is unknown
+     */
+    public float getDistance(int stop) {
+        return mDistances[stop];
+    }
+
+    /**
+     * @return the initial bearing in degrees east of true north to the stop from the last
+     * location passed to {@link #update(double, double)}, or NaN if there hasn't been one or the
+     * stop's location is unknown
+     */
+    public float getBearing(int stop) {
+        double x = normalizeLongitude(mLongitudes[stop] - mLongitude) * mLongitudeScales[stop];
+        double y = (mLatitudes[stop] - mLatitude) * mLatitudeScales[stop];
+        return (float) Math.toDegrees(Math.atan2(x, y));
+    }
+
+    /**
+     * @return the approximate distance in meters between two nearby points, using the same
+     * approximation as {@link #update(double, double)}
+     */
+    public static float distance(double lat1, double lon1, double lat2, double lon2) {
+        double lat = Math.toRadians(lat2);
+        double x = normalizeLongitude(Math.toRadians(lon2 - lon1)) * getLongitudeScale(lat);
+        double y = (lat - Math.toRadians(lat1)) * getLatitudeScale(lat);
+        return (float) Math.sqrt(x * x + y * y);
+    }
+
+    /**
+     * @return the meridional radius of curvature at the latitude, i.e. meters per radian of
+     * latitude
+     */
+    private static double getLatitudeScale(double lat) {
+        double sin = Math.sin(lat);
+        double w = Math.sqrt(1 - ECCENTRICITY_SQUARED * sin * sin);
+        return SEMI_MAJOR_AXIS * (1 - ECCENTRICITY_SQUARED) / (w * w * w);
+    }
+
+    /**
+     * @return meters per radian of longitude at the latitude
+     */
+    private static double getLongitudeScale(double lat) {
+        double sin = Math.sin(lat);
+        return SEMI_MAJOR_AXIS / Math.sqrt(1 - ECCENTRICITY_SQUARED * sin * sin) * Math.cos(lat);
+    }
+
+    private static double normalizeLongitude(double dLon) {
+        if (dLon > Math.PI) {
+            return dLon - 2 * Math.PI;
+        } else if (dLon < -Math.PI) {
+            return dLon + 2 * Math.PI;
+        }
+        return dLon;
+    }
+}
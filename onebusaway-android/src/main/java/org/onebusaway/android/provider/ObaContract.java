@@ -18,16 +18,20 @@
  */
 package org.onebusaway.android.provider;
 
+import android.content.ContentProviderOperation;
 import android.content.ContentResolver;
 import android.content.ContentUris;
 import android.content.ContentValues;
 import android.content.Context;
+import android.content.OperationApplicationException;
 import android.database.Cursor;
 import android.location.Location;
 import android.location.LocationManager;
 import android.net.Uri;
+import android.os.RemoteException;
 import android.provider.BaseColumns;
 import android.text.format.Time;
+import android.util.Log;
 
 import com.google.firebase.analytics.FirebaseAnalytics;
 
@@ -40,6 +44,9 @@ import org.onebusaway.android.io.elements.ObaRegionElement;
 import org.onebusaway.android.nav.model.PathLink;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * The contract between clients and the ObaProvider.
@@ -62,6 +69,12 @@ public final class ObaContract {
     /** The base URI for the Oba provider */
     public static final Uri AUTHORITY_URI = Uri.parse("content://" + AUTHORITY);
 
+    /**
+     * The maximum number of IDs looked up in a single query, well under SQLite's limit on the
+     * number of arguments in a statement
+     */
+    private static final int MAX_QUERY_IDS = 500;
+
     protected interface StopsColumns {
 
         /**
@@ -626,6 +639,88 @@ public final class ObaContract {
 
     }
 
+    /**
+     * Inserts or updates a batch of rows in a table with string IDs and UserColumns (i.e., stops
+     * or routes).  The existing rows are looked up with one query per MAX_QUERY_IDS rows instead
+     * of one per row, and all of the writes are applied in a single transaction.
+     *
+     * @return the number of rows inserted or updated, or 0 if the batch failed
+     */
+    private static int insertOrUpdateAll(ContentResolver cr,
+            Uri contentUri,
+            Map<String, ContentValues> rows,
+            boolean markAsUsed) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        // Find the use counts of the rows that already exist
+        HashMap<String, Integer> useCounts = new HashMap<String, Integer>();
+        List<String> ids = new ArrayList<String>(rows.keySet());
+        for (int start = 0; start < ids.size(); start += MAX_QUERY_IDS) {
+            List<String> batch = ids.subList(start, Math.min(start + MAX_QUERY_IDS, ids.size()));
+            StringBuilder selection = new StringBuilder(BaseColumns._ID).append(" IN (");
+            for (int i = 0; i < batch.size(); i++) {
+                selection.append(i == 0 ? "?" : ",?");
+            }
+            selection.append(')');
+            Cursor c = cr.query(contentUri,
+                    new String[]{BaseColumns._ID, UserColumns.USE_COUNT},
+                    selection.toString(), batch.toArray(new String[batch.size()]), null);
+            if (c != null) {
+                try {
+                    while (c.moveToNext()) {
+                        useCounts.put(c.getString(0), c.getInt(1));
+                    }
+                } finally {
+                    c.close();
+                }
+            }
+        }
+
+        final long now = System.currentTimeMillis();
+        ArrayList<ContentProviderOperation> ops =
+                new ArrayList<ContentProviderOperation>(rows.size());
+        for (Map.Entry<String, ContentValues> row : rows.entrySet()) {
+            final String id = row.getKey();
+            ContentValues values = new ContentValues(row.getValue());
+            Integer count = useCounts.get(id);
+            if (count != null) {
+                // Update - the selection is the same for every row, so the provider can reuse
+                // the compiled statement
+                if (markAsUsed) {
+                    values.put(UserColumns.USE_COUNT, count + 1);
+                    values.put(UserColumns.ACCESS_TIME, now);
+                }
+                ops.add(ContentProviderOperation.newUpdate(contentUri)
+                        .withValues(values)
+                        .withSelection(BaseColumns._ID + "=?", new String[]{id})
+                        .build());
+            } else {
+                // Insert
+                if (markAsUsed) {
+                    values.put(UserColumns.USE_COUNT, 1);
+                    values.put(UserColumns.ACCESS_TIME, now);
+                } else {
+                    values.put(UserColumns.USE_COUNT, 0);
+                }
+                values.put(BaseColumns._ID, id);
+                ops.add(ContentProviderOperation.newInsert(contentUri)
+                        .withValues(values)
+                        .build());
+            }
+        }
+        try {
+            cr.applyBatch(AUTHORITY, ops);
+        } catch (RemoteException e) {
+            Log.e(TAG, "Couldn't save " + ops.size() + " rows to " + contentUri + ": " + e);
+            return 0;
+        } catch (OperationApplicationException e) {
+            Log.e(TAG, "Couldn't save " + ops.size() + " rows to " + contentUri + ": " + e);
+            return 0;
+        }
+        return ops.size();
+    }
+
     public static class Stops implements BaseColumns, StopsColumns, UserColumns {
 
         // Cannot be instantiated
@@ -680,6 +775,19 @@ public final class ObaContract {
             return result;
         }
 
+        /**
+         * Inserts or updates a batch of stops in a single transaction
+         *
+         * @param stops      values for each stop, keyed by stop ID
+         * @param markAsUsed true if the use count and access time of each stop should be updated
+         * @return the number of stops inserted or updated
+         */
+        public static int insertOrUpdate(ContentResolver cr,
+                Map<String, ContentValues> stops,
+                boolean markAsUsed) {
+            return insertOrUpdateAll(cr, CONTENT_URI, stops, markAsUsed);
+        }
+
         public static boolean isFavorite(Context context, String stopId)
         {
             final String[] PROJECTION = {
@@ -1552,7 +1660,7 @@ public final class ObaContract {
                 = "vnd.android.dir/" + BuildConfig.DATABASE_AUTHORITY + ".routeheadsignfavorites";
 
         // String used to indicate that a route/headsign combination is a favorite for all stops
-        private static final String ALL_STOPS = "all";
+        static final String ALL_STOPS = "all";
 
         /**
          * Set the specified route and headsign combination as a favorite, optionally for a specific
@@ -1579,6 +1687,8 @@ public final class ObaContract {
 
             ContentResolver cr = context.getContentResolver();
             Uri routeUri = Uri.withAppendedPath(ObaContract.Routes.CONTENT_URI, routeId);
+            // We read our own changes below, before the provider's change notification arrives
+            RouteHeadsignFavoritesIndex index = RouteHeadsignFavoritesIndex.getInstance(cr);
 
             String stopIdInternal;
             if (stopId != null) {
@@ -1602,6 +1712,7 @@ public final class ObaContract {
                 values.put(STOP_ID, stopIdInternal);
                 values.put(EXCLUDE, 0);
                 cr.insert(CONTENT_URI, values);
+                index.invalidate();
 
                 // Mark the route as a favorite also in the routes table
                 Routes.markAsFavorite(context, routeUri, true);
@@ -1615,6 +1726,7 @@ public final class ObaContract {
                     final String WHERE2 = ROUTE_ID + "=? AND " + HEADSIGN + "=?";
                     cr.delete(CONTENT_URI, WHERE2, selectionArgs2);
                 }
+                index.invalidate();
 
                 // If there are no more route/headsign combinations that are favorites for this route,
                 // then mark the route as not a favorite
@@ -1633,6 +1745,7 @@ public final class ObaContract {
                     values.put(STOP_ID, stopIdInternal);
                     values.put(EXCLUDE, 1);
                     cr.insert(CONTENT_URI, values);
+                    index.invalidate();
                 }
             }
 
@@ -1666,50 +1779,8 @@ public final class ObaContract {
          */
         public static boolean isFavorite(String routeId, String headsign,
                 String stopId) {
-            if (headsign == null) {
-                headsign = "";
-            }
-            final String[] selection = {ROUTE_ID, HEADSIGN, STOP_ID, EXCLUDE};
-            final String[] selectionArgs = {routeId, headsign, stopId, Integer.toString(0)};
-            ContentResolver cr = Application.get().getContentResolver();
-            final String FILTER_WHERE_ALL_FIELDS = ROUTE_ID + "=? AND " + HEADSIGN + "=? AND "
-                    + STOP_ID + "=? AND " + EXCLUDE + "=?";
-            Cursor c = cr.query(CONTENT_URI, selection, FILTER_WHERE_ALL_FIELDS,
-                    selectionArgs, null);
-            boolean favorite;
-            if (c != null && c.getCount() > 0) {
-                favorite = true;
-            } else {
-                // Check again to see if the user has favorited this route/headsign combo for all stops
-                final String[] selectionArgs2 = {routeId, headsign, ALL_STOPS};
-                String WHERE_PARTIAL = ROUTE_ID + "=? AND " + HEADSIGN + "=? AND "
-                        + STOP_ID + "=?";
-                Cursor c2 = cr.query(CONTENT_URI, selection, WHERE_PARTIAL,
-                        selectionArgs2, null);
-                favorite = c2 != null && c2.getCount() > 0;
-                if (c2 != null) {
-                    c2.close();
-                }
-
-                if (favorite) {
-                    // Finally, make sure the user hasn't excluded this stop as a favorite
-                    final String[] selectionArgs3 = {routeId, headsign, stopId,
-                            Integer.toString(1)};
-                    Cursor c3 = cr.query(CONTENT_URI, selection, FILTER_WHERE_ALL_FIELDS,
-                            selectionArgs3, null);
-                    // If this query returns at least one record, it means the stop has been excluded as
-                    // a favorite (i.e., the user explicitly de-selected it)
-                    boolean isStopExcluded = c3 != null && c3.getCount() > 0;
-                    favorite = !isStopExcluded;
-                    if (c3 != null) {
-                        c3.close();
-                    }
-                }
-            }
-            if (c != null) {
-                c.close();
-            }
-            return favorite;
+            return RouteHeadsignFavoritesIndex.getInstance(
+                    Application.get().getContentResolver()).isFavorite(routeId, headsign, stopId);
         }
 
         /**
@@ -1721,22 +1792,8 @@ public final class ObaContract {
          * EXCLUDE being set to true, or false if it is not
          */
         private static boolean isFavorite(Context context, String routeId) {
-            final String[] selection = {ROUTE_ID, EXCLUDE};
-            final String[] selectionArgs = {routeId, Integer.toString(0)};
-            final String WHERE = ROUTE_ID + "=? AND " + EXCLUDE + "=?";
-            ContentResolver cr = context.getContentResolver();
-            Cursor c = cr.query(CONTENT_URI, selection, WHERE,
-                    selectionArgs, null);
-            boolean favorite = false;
-            if (c != null && c.getCount() > 0) {
-                favorite = true;
-            } else {
-                favorite = false;
-            }
-            if (c != null) {
-                c.close();
-            }
-            return favorite;
+            return RouteHeadsignFavoritesIndex.getInstance(context.getContentResolver())
+                    .isFavorite(routeId);
         }
     }
 
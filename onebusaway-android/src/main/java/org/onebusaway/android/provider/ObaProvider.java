@@ -20,9 +20,12 @@ package org.onebusaway.android.provider;
 import org.onebusaway.android.BuildConfig;
 
 import android.content.ContentProvider;
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
 import android.content.ContentUris;
 import android.content.ContentValues;
 import android.content.Context;
+import android.content.OperationApplicationException;
 import android.content.UriMatcher;
 import android.database.Cursor;
 import android.database.DatabaseUtils;
@@ -31,11 +34,15 @@ import android.database.sqlite.SQLiteException;
 import android.database.sqlite.SQLiteOpenHelper;
 import android.database.sqlite.SQLiteQueryBuilder;
 import android.net.Uri;
+import android.os.SystemClock;
 import android.util.Log;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 public class ObaProvider extends ContentProvider {
 
@@ -47,9 +54,14 @@ public class ObaProvider extends ContentProvider {
      */
     private static final String DATABASE_NAME = BuildConfig.APPLICATION_ID + ".db";
 
+    /**
+     * Queries that take longer than this are logged as warnings when query logging is enabled
+     */
+    private static final long SLOW_QUERY_MS = 50;
+
     private class OpenHelper extends SQLiteOpenHelper {
 
-        private static final int DATABASE_VERSION = 30;
+        private static final int DATABASE_VERSION = 31;
 
         public OpenHelper(Context context) {
             super(context, DATABASE_NAME, null, DATABASE_VERSION);
@@ -305,7 +317,53 @@ public class ObaProvider extends ContentProvider {
                         " ADD COLUMN " + ObaContract.Regions.TRAVEL_BEHAVIOR_DATA_COLLECTION + " INTEGER");
                 db.execSQL("ALTER TABLE " + ObaContract.Regions.PATH +
                         " ADD COLUMN " + ObaContract.Regions.ENROLL_PARTICIPANTS_IN_STUDY + " INTEGER");
+                ++oldVersion;
             }
+            if (oldVersion == 30) {
+                createIndexes(db);
+            }
+        }
+
+        /**
+         * Creates the secondary indexes for the ways the tables are read - the recent and starred
+         * stop and route lists, trip alert lookups, route/headsign favorite checks and navigation
+         * stops.  IF NOT EXISTS makes this safe to run again on a restored database.
+         */
+        private void createIndexes(SQLiteDatabase db) {
+            // Recent stops/routes sort by access time, then use count
+            db.execSQL("CREATE INDEX IF NOT EXISTS stops_recent ON " + ObaContract.Stops.PATH +
+                    " (" + ObaContract.Stops.ACCESS_TIME + ", " + ObaContract.Stops.USE_COUNT
+                    + ")");
+            db.execSQL("CREATE INDEX IF NOT EXISTS routes_recent ON " + ObaContract.Routes.PATH +
+                    " (" + ObaContract.Routes.ACCESS_TIME + ", " + ObaContract.Routes.USE_COUNT
+                    + ")");
+            // Starred stops/routes are filtered on the favorite flag, and can be sorted by use count
+            db.execSQL("CREATE INDEX IF NOT EXISTS stops_favorite ON " + ObaContract.Stops.PATH +
+                    " (" + ObaContract.Stops.FAVORITE + ", " + ObaContract.Stops.USE_COUNT + ")");
+            db.execSQL("CREATE INDEX IF NOT EXISTS routes_favorite ON " + ObaContract.Routes.PATH +
+                    " (" + ObaContract.Routes.FAVORITE + ", " + ObaContract.Routes.USE_COUNT + ")");
+            // Alerts are looked up by trip, stop and start time to read their state, and are
+            // deleted by trip and stop when a trip is deleted
+            db.execSQL("CREATE INDEX IF NOT EXISTS trip_alerts_trip ON " +
+                    ObaContract.TripAlerts.PATH + " (" +
+                    ObaContract.TripAlerts.TRIP_ID + ", " +
+                    ObaContract.TripAlerts.STOP_ID + ", " +
+                    ObaContract.TripAlerts.START_TIME + ", " +
+                    ObaContract.TripAlerts.STATE + ")");
+            db.execSQL("CREATE INDEX IF NOT EXISTS trip_alerts_state ON " +
+                    ObaContract.TripAlerts.PATH + " (" + ObaContract.TripAlerts.STATE + ")");
+            // Covers the favorite checks, which match on all of the columns
+            db.execSQL("CREATE INDEX IF NOT EXISTS route_headsign_favorites_route ON " +
+                    ObaContract.RouteHeadsignFavorites.PATH + " (" +
+                    ObaContract.RouteHeadsignFavorites.ROUTE_ID + ", " +
+                    ObaContract.RouteHeadsignFavorites.HEADSIGN + ", " +
+                    ObaContract.RouteHeadsignFavorites.STOP_ID + ", " +
+                    ObaContract.RouteHeadsignFavorites.EXCLUDE + ")");
+            // Navigation stops are read by nav ID in sequence order
+            db.execSQL("CREATE INDEX IF NOT EXISTS nav_stops_nav ON " +
+                    ObaContract.NavStops.PATH + " (" +
+                    ObaContract.NavStops.NAV_ID + ", " +
+                    ObaContract.NavStops.SEQUENCE + ")");
         }
 
         @Override
@@ -319,6 +377,7 @@ public class ObaProvider extends ContentProvider {
              */
             Log.d(TAG, "Downgrading database from version " + oldVersion + " to " + newVersion);
             onUpgrade(db, newVersion, newVersion);
+            createIndexes(db);
         }
 
         private void bootstrapDatabase(SQLiteDatabase db) {
@@ -606,6 +665,9 @@ public class ObaProvider extends ContentProvider {
 
     private OpenHelper mOpenHelper;
 
+    // URIs changed by the batch running on this thread, which are notified once it completes
+    private final ThreadLocal<Set<Uri>> mBatchChanges = new ThreadLocal<Set<Uri>>();
+
     public static File getDatabasePath(Context context) {
         return context.getDatabasePath(DATABASE_NAME);
     }
@@ -669,7 +731,7 @@ public class ObaProvider extends ContentProvider {
         db.beginTransaction();
         try {
             Uri result = insertInternal(db, uri, values);
-            getContext().getContentResolver().notifyChange(uri, null);
+            notifyChange(uri);
             db.setTransactionSuccessful();
             return result;
         } finally {
@@ -692,7 +754,7 @@ public class ObaProvider extends ContentProvider {
         try {
             int result = updateInternal(db, uri, values, selection, selectionArgs);
             if (result > 0) {
-                getContext().getContentResolver().notifyChange(uri, null);
+                notifyChange(uri);
             }
             db.setTransactionSuccessful();
             return result;
@@ -708,7 +770,7 @@ public class ObaProvider extends ContentProvider {
         try {
             int result = deleteInternal(db, uri, selection, selectionArgs);
             if (result > 0) {
-                getContext().getContentResolver().notifyChange(uri, null);
+                notifyChange(uri);
             }
             db.setTransactionSuccessful();
             return result;
@@ -717,6 +779,63 @@ public class ObaProvider extends ContentProvider {
         }
     }
 
+    /**
+     * Inserts all of the values in a single transaction, reusing the compiled insert statement
+     * for the table, and notifies observers of the change once
+     */
+    @Override
+    public int bulkInsert(Uri uri, ContentValues[] values) {
+        final SQLiteDatabase db = getDatabase();
+        db.beginTransaction();
+        try {
+            for (ContentValues v : values) {
+                insertInternal(db, uri, v);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        if (values.length > 0) {
+            notifyChange(uri);
+        }
+        return values.length;
+    }
+
+    /**
+     * Applies all of the operations in a single transaction - if any operation fails, none of
+     * them are applied.  Observers are notified once for each URI that changed, after the
+     * transaction has been committed.
+     */
+    @Override
+    public ContentProviderResult[] applyBatch(ArrayList<ContentProviderOperation> operations)
+            throws OperationApplicationException {
+        final SQLiteDatabase db = getDatabase();
+        final Set<Uri> changes = new LinkedHashSet<Uri>();
+        ContentProviderResult[] results;
+        mBatchChanges.set(changes);
+        db.beginTransaction();
+        try {
+            results = super.applyBatch(operations);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            mBatchChanges.set(null);
+        }
+        for (Uri uri : changes) {
+            getContext().getContentResolver().notifyChange(uri, null);
+        }
+        return results;
+    }
+
+    private void notifyChange(Uri uri) {
+        Set<Uri> changes = mBatchChanges.get();
+        if (changes != null) {
+            changes.add(uri);
+        } else {
+            getContext().getContentResolver().notifyChange(uri, null);
+        }
+    }
+
     private Uri insertInternal(SQLiteDatabase db, Uri uri, ContentValues values) {
         final int match = sUriMatcher.match(uri);
         String id;
@@ -841,8 +960,7 @@ public class ObaProvider extends ContentProvider {
             case STOPS:
                 qb.setTables(ObaContract.Stops.PATH);
                 qb.setProjectionMap(sStopsProjectionMap);
-                return qb.query(mDb, projection, selection, selectionArgs,
-                        null, null, sortOrder, limit);
+                return query(qb, projection, selection, selectionArgs, sortOrder, limit);
 
             case STOPS_ID:
                 qb.setTables(ObaContract.Stops.PATH);
@@ -850,14 +968,12 @@ public class ObaProvider extends ContentProvider {
                 qb.appendWhere(ObaContract.Stops._ID);
                 qb.appendWhere("=");
                 qb.appendWhereEscapeString(uri.getLastPathSegment());
-                return qb.query(mDb, projection, selection, selectionArgs,
-                        null, null, sortOrder, limit);
+                return query(qb, projection, selection, selectionArgs, sortOrder, limit);
 
             case ROUTES:
                 qb.setTables(ObaContract.Routes.PATH);
                 qb.setProjectionMap(sRoutesProjectionMap);
-                return qb.query(mDb, projection, selection, selectionArgs,
-                        null, null, sortOrder, limit);
+                return query(qb, projection, selection, selectionArgs, sortOrder, limit);
 
             case ROUTES_ID:
                 qb.setTables(ObaContract.Routes.PATH);
@@ -865,27 +981,23 @@ public class ObaProvider extends ContentProvider {
                 qb.appendWhere(ObaContract.Routes._ID);
                 qb.appendWhere("=");
                 qb.appendWhereEscapeString(uri.getLastPathSegment());
-                return qb.query(mDb, projection, selection, selectionArgs,
-                        null, null, sortOrder, limit);
+                return query(qb, projection, selection, selectionArgs, sortOrder, limit);
 
             case TRIPS:
                 qb.setTables(ObaContract.Trips.PATH);
                 qb.setProjectionMap(sTripsProjectionMap);
-                return qb.query(mDb, projection, selection, selectionArgs,
-                        null, null, sortOrder, limit);
+                return query(qb, projection, selection, selectionArgs, sortOrder, limit);
 
             case TRIPS_ID:
                 qb.setTables(ObaContract.Trips.PATH);
                 qb.setProjectionMap(sTripsProjectionMap);
                 qb.appendWhere(tripWhere(uri));
-                return qb.query(mDb, projection, selection, selectionArgs,
-                        null, null, sortOrder, limit);
+                return query(qb, projection, selection, selectionArgs, sortOrder, limit);
 
             case TRIP_ALERTS:
                 qb.setTables(ObaContract.TripAlerts.PATH);
                 qb.setProjectionMap(sTripAlertsProjectionMap);
-                return qb.query(mDb, projection, selection, selectionArgs,
-                        null, null, sortOrder, limit);
+                return query(qb, projection, selection, selectionArgs, sortOrder, limit);
 
             case TRIP_ALERTS_ID:
                 qb.setTables(ObaContract.TripAlerts.PATH);
@@ -893,19 +1005,16 @@ public class ObaProvider extends ContentProvider {
                 qb.appendWhere(ObaContract.TripAlerts._ID);
                 qb.appendWhere("=");
                 qb.appendWhere(String.valueOf(ContentUris.parseId(uri)));
-                return qb.query(mDb, projection, selection, selectionArgs,
-                        null, null, sortOrder, limit);
+                return query(qb, projection, selection, selectionArgs, sortOrder, limit);
 
             case STOP_ROUTE_FILTERS:
                 qb.setTables(ObaContract.StopRouteFilters.PATH);
-                return qb.query(mDb, projection, selection, selectionArgs,
-                        null, null, sortOrder, limit);
+                return query(qb, projection, selection, selectionArgs, sortOrder, limit);
 
             case SERVICE_ALERTS:
                 qb.setTables(ObaContract.ServiceAlerts.PATH);
                 qb.setProjectionMap(sServiceAlertsProjectionMap);
-                return qb.query(mDb, projection, selection, selectionArgs,
-                        null, null, sortOrder, limit);
+                return query(qb, projection, selection, selectionArgs, sortOrder, limit);
 
             case SERVICE_ALERTS_ID:
                 qb.setTables(ObaContract.ServiceAlerts.PATH);
@@ -913,14 +1022,12 @@ public class ObaProvider extends ContentProvider {
                 qb.appendWhere(ObaContract.ServiceAlerts._ID);
                 qb.appendWhere("=");
                 qb.appendWhereEscapeString(uri.getLastPathSegment());
-                return qb.query(mDb, projection, selection, selectionArgs,
-                        null, null, sortOrder, limit);
+                return query(qb, projection, selection, selectionArgs, sortOrder, limit);
 
             case REGIONS:
                 qb.setTables(ObaContract.Regions.PATH);
                 qb.setProjectionMap(sRegionsProjectionMap);
-                return qb.query(mDb, projection, selection, selectionArgs,
-                        null, null, sortOrder, limit);
+                return query(qb, projection, selection, selectionArgs, sortOrder, limit);
 
             case REGIONS_ID:
                 qb.setTables(ObaContract.Regions.PATH);
@@ -928,14 +1035,12 @@ public class ObaProvider extends ContentProvider {
                 qb.appendWhere(ObaContract.Regions._ID);
                 qb.appendWhere("=");
                 qb.appendWhere(String.valueOf(ContentUris.parseId(uri)));
-                return qb.query(mDb, projection, selection, selectionArgs,
-                        null, null, sortOrder, limit);
+                return query(qb, projection, selection, selectionArgs, sortOrder, limit);
 
             case REGION_BOUNDS:
                 qb.setTables(ObaContract.RegionBounds.PATH);
                 qb.setProjectionMap(sRegionBoundsProjectionMap);
-                return qb.query(mDb, projection, selection, selectionArgs,
-                        null, null, sortOrder, limit);
+                return query(qb, projection, selection, selectionArgs, sortOrder, limit);
 
             case REGION_BOUNDS_ID:
                 qb.setTables(ObaContract.RegionBounds.PATH);
@@ -943,14 +1048,12 @@ public class ObaProvider extends ContentProvider {
                 qb.appendWhere(ObaContract.RegionBounds._ID);
                 qb.appendWhere("=");
                 qb.appendWhere(String.valueOf(ContentUris.parseId(uri)));
-                return qb.query(mDb, projection, selection, selectionArgs,
-                        null, null, sortOrder, limit);
+                return query(qb, projection, selection, selectionArgs, sortOrder, limit);
 
             case REGION_OPEN311_SERVERS:
                 qb.setTables(ObaContract.RegionOpen311Servers.PATH);
                 qb.setProjectionMap(sRegionOpen311ProjectionMap);
-                return qb.query(mDb, projection, selection, selectionArgs,
-                        null, null, sortOrder, limit);
+                return query(qb, projection, selection, selectionArgs, sortOrder, limit);
 
             case REGION_OPEN311_SERVERS_ID:
                 qb.setTables(ObaContract.RegionOpen311Servers.PATH);
@@ -958,22 +1061,69 @@ public class ObaProvider extends ContentProvider {
                 qb.appendWhere(ObaContract.RegionOpen311Servers._ID);
                 qb.appendWhere("=");
                 qb.appendWhere(String.valueOf(ContentUris.parseId(uri)));
-                return qb.query(mDb, projection, selection, selectionArgs,
-                        null, null, sortOrder, limit);
+                return query(qb, projection, selection, selectionArgs, sortOrder, limit);
 
             case ROUTE_HEADSIGN_FAVORITES:
                 qb.setTables(ObaContract.RouteHeadsignFavorites.PATH);
-                return qb.query(mDb, projection, selection, selectionArgs,
-                        null, null, sortOrder, limit);
+                return query(qb, projection, selection, selectionArgs, sortOrder, limit);
             case NAV_STOPS:
                 qb.setTables(ObaContract.NavStops.PATH);
-                return qb.query(mDb, projection, selection, selectionArgs,
-                        null, null, sortOrder, limit);
+                return query(qb, projection, selection, selectionArgs, sortOrder, limit);
             default:
                 throw new IllegalArgumentException("Unknown URI: " + uri);
         }
     }
 
+    private Cursor query(SQLiteQueryBuilder qb, String[] projection, String selection,
+            String[] selectionArgs, String sortOrder, String limit) {
+        if (!isQueryLoggingEnabled()) {
+            return qb.query(mDb, projection, selection, selectionArgs,
+                    null, null, sortOrder, limit);
+        }
+        final String sql = qb.buildQuery(projection, selection, null, null, sortOrder, limit);
+        final long start = SystemClock.elapsedRealtime();
+        Cursor c = qb.query(mDb, projection, selection, selectionArgs,
+                null, null, sortOrder, limit);
+        // Queries are lazy - filling the first window is what actually runs them
+        final int count = c != null ? c.getCount() : 0;
+        final long time = SystemClock.elapsedRealtime() - start;
+        final String message = "Query took " + time + "ms for " + count + " rows: " + sql
+                + "\n" + explainQueryPlan(sql, selectionArgs);
+        if (time >= SLOW_QUERY_MS) {
+            Log.w(TAG, message);
+        } else {
+            Log.d(TAG, message);
+        }
+        return c;
+    }
+
+    /**
+     * Query logging is only available in debug builds, and is turned on with
+     * "adb shell setprop log.tag.ObaProvider DEBUG"
+     */
+    private static boolean isQueryLoggingEnabled() {
+        return BuildConfig.DEBUG && Log.isLoggable(TAG, Log.DEBUG);
+    }
+
+    private String explainQueryPlan(String sql, String[] selectionArgs) {
+        StringBuilder plan = new StringBuilder();
+        Cursor c = null;
+        try {
+            c = mDb.rawQuery("EXPLAIN QUERY PLAN " + sql, selectionArgs);
+            int detail = c.getColumnIndex("detail");
+            while (c.moveToNext()) {
+                plan.append("  ").append(c.getString(detail)).append('\n');
+            }
+        } catch (SQLiteException e) {
+            plan.append("  Couldn't explain query: ").append(e);
+        } finally {
+            if (c != null) {
+                c.close();
+            }
+        }
+        return plan.toString();
+    }
+
     private int updateInternal(SQLiteDatabase db,
                                Uri uri, ContentValues values, String selection,
                                String[] selectionArgs) {
@@ -1184,5 +1334,7 @@ public class ObaProvider extends ContentProvider {
     public void closeDB() {
         mOpenHelper.close();
         mDb = null;
+        // The database may be replaced (e.g., restored from a backup) before it's reopened
+        RouteHeadsignFavoritesIndex.getInstance(getContext().getContentResolver()).invalidate();
     }
 }
@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.provider;
+
+import android.content.ContentResolver;
+import android.database.ContentObserver;
+import android.database.Cursor;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A process-wide, in-memory copy of the route/headsign favorites table, so checking whether
+ * an arrival is a favorite doesn't cost several provider queries.  The index is loaded on first
+ * use and dropped whenever the table changes (it is reloaded on the next lookup).
+ */
+final class RouteHeadsignFavoritesIndex {
+
+    private static RouteHeadsignFavoritesIndex sInstance;
+
+    private final ContentResolver mResolver;
+
+    // The loaded favorites, or null if they need to be (re)loaded
+    private volatile Snapshot mSnapshot;
+
+    // Incremented on every change, so a load that raced with a change is discarded
+    private int mGeneration;
+
+    private RouteHeadsignFavoritesIndex(ContentResolver resolver) {
+        mResolver = resolver;
+        mResolver.registerContentObserver(ObaContract.RouteHeadsignFavorites.CONTENT_URI, true,
+                new ContentObserver(null) {
+                    @Override
+                    public void onChange(boolean selfChange) {
+                        invalidate();
+                    }
+                });
+    }
+
+    static synchronized RouteHeadsignFavoritesIndex getInstance(ContentResolver resolver) {
+        if (sInstance == null) {
+            sInstance = new RouteHeadsignFavoritesIndex(resolver);
+        }
+        return sInstance;
+    }
+
+    /**
+     * Drops the loaded favorites.  Called for every change to the table, and directly by writers
+     * that read their own changes before the provider's notification arrives.
+     */
+    void invalidate() {
+        synchronized (this) {
+            mGeneration++;
+            mSnapshot = null;
+        }
+    }
+
+    /**
+     * @see ObaContract.RouteHeadsignFavorites#isFavorite(String, String, String)
+     */
+    boolean isFavorite(String routeId, String headsign, String stopId) {
+        Favorites favorites = getSnapshot().mFavorites.get(getKey(routeId, headsign));
+        if (favorites == null) {
+            return false;
+        }
+        if (favorites.mStops.contains(stopId)) {
+            return true;
+        }
+        return favorites.mAllStops && !favorites.mExcludedStops.contains(stopId);
+    }
+
+    /**
+     * @return true if the route is a favorite for at least one headsign, without being excluded
+     */
+    boolean isFavorite(String routeId) {
+        return getSnapshot().mRoutes.contains(routeId);
+    }
+
+    private Snapshot getSnapshot() {
+        Snapshot snapshot = mSnapshot;
+        if (snapshot != null) {
+            return snapshot;
+        }
+        int generation;
+        synchronized (this) {
+            generation = mGeneration;
+        }
+        snapshot = load();
+        synchronized (this) {
+            if (generation == mGeneration) {
+                mSnapshot = snapshot;
+            }
+        }
+        return snapshot;
+    }
+
+    private Snapshot load() {
+        Snapshot snapshot = new Snapshot();
+        final String[] projection = {
+                ObaContract.RouteHeadsignFavorites.ROUTE_ID,
+                ObaContract.RouteHeadsignFavorites.HEADSIGN,
+                ObaContract.RouteHeadsignFavorites.STOP_ID,
+                ObaContract.RouteHeadsignFavorites.EXCLUDE
+        };
+        Cursor c = mResolver.query(ObaContract.RouteHeadsignFavorites.CONTENT_URI, projection,
+                null, null, null);
+        if (c == null) {
+            return snapshot;
+        }
+        try {
+            while (c.moveToNext()) {
+                String routeId = c.getString(0);
+                String headsign = c.getString(1);
+                String stopId = c.getString(2);
+                boolean exclude = c.getInt(3) != 0;
+
+                String key = getKey(routeId, headsign);
+                Favorites favorites = snapshot.mFavorites.get(key);
+                if (favorites == null) {
+                    favorites = new Favorites();
+                    snapshot.mFavorites.put(key, favorites);
+                }
+                if (ObaContract.RouteHeadsignFavorites.ALL_STOPS.equals(stopId)) {
+                    favorites.mAllStops = true;
+                } else if (exclude) {
+                    favorites.mExcludedStops.add(stopId);
+                } else {
+                    favorites.mStops.add(stopId);
+                }
+                if (!exclude) {
+                    snapshot.mRoutes.add(routeId);
+                }
+            }
+        } finally {
+            c.close();
+        }
+        return snapshot;
+    }
+
+    private static String getKey(String routeId, String headsign) {
+        return routeId + '\n' + (headsign != null ? headsign : "");
+    }
+
+    private static final class Snapshot {
+
+        final Map<String, Favorites> mFavorites = new HashMap<>();
+
+        final Set<String> mRoutes = new HashSet<>();
+    }
+
+    /**
+     * The favorite records for one route/headsign combination
+     */
+    private static final class Favorites {
+
+        // True if the route/headsign is a favorite for all stops
+        boolean mAllStops;
+
+        final Set<String> mStops = new HashSet<>();
+
+        final Set<String> mExcludedStops = new HashSet<>();
+    }
+}
@@ -17,11 +17,13 @@
 package org.onebusaway.android.region;
 
 import org.onebusaway.android.io.elements.ObaRegion;
+import org.onebusaway.android.io.request.RequestScheduler;
 import org.onebusaway.android.util.RegionUtils;
 
 import android.content.Context;
 
 import java.util.ArrayList;
+import java.util.concurrent.Executor;
 
 import androidx.loader.content.AsyncTaskLoader;
 
@@ -63,4 +65,9 @@ public class ObaRegionsLoader extends AsyncTaskLoader<ArrayList<ObaRegion>> {
     public ArrayList<ObaRegion> loadInBackground() {
         return RegionUtils.getRegions(mContext, mForceReload);
     }
+
+    @Override
+    protected Executor getExecutor() {
+        return RequestScheduler.getInstance().getExecutor(RequestScheduler.PRIORITY_BACKGROUND);
+    }
 }
@@ -150,7 +150,11 @@ public class ObaRegionsTask extends AsyncTask<Void, Integer, ArrayList<ObaRegion
             // Pass in the GoogleApiClient initialized in constructor
             Location myLocation = Application.getLastKnownLocation(mContext, mGoogleApiClient);
 
-            ObaRegion closestRegion = RegionUtils.getClosestRegion(results, myLocation, true);
+            // getRegions() has updated the snapshot the region index is built from
+            RegionIndex index = RegionUtils.getRegionIndex(mContext);
+            ObaRegion closestRegion = index != null ?
+                    index.getClosestRegion(myLocation, true) :
+                    RegionUtils.getClosestRegion(results, myLocation, true);
 
             if (Application.get().getCurrentRegion() == null) {
                 if (closestRegion != null) {
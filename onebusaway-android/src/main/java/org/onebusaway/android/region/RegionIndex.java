@@ -0,0 +1,495 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.region;
+
+import org.onebusaway.android.io.elements.ObaRegion;
+import org.onebusaway.android.util.RegionSnapshot;
+import org.onebusaway.android.util.RegionUtils;
+
+import android.location.Location;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * A spatial index over the bounds of a list of regions, so that finding the region closest to
+ * or containing a location doesn't measure the distance to every bound of every region.
+ *
+ * The bound centers and region spans are each kept in a static R-tree, packed with the
+ * sort-tile-recursive algorithm when the index is created.  The closest region is found with a
+ * best-first search of the bound centers, using the same distances as
+ * {@link RegionUtils#getClosestRegion(ArrayList, Location, boolean)}, and containment uses the
+ * same region spans as {@link RegionUtils#isLocationWithinRegion(Location, ObaRegion)}.
+ *
+ * An index built from a {@link RegionSnapshot} reads the bounds straight from the snapshot, and
+ * only creates the regions that searches return.  An index is immutable, so a new one must be
+ * created when the regions change.
+ */
+public final class RegionIndex {
+
+    private static final int NODE_SIZE = 8;
+
+    /**
+     * Radius used for the lower bounds on distances in the tree, in meters.  It's less than the
+     * smallest radius of curvature of the WGS84 ellipsoid (about 6,335 km), so spherical
+     * distances using it never exceed those from Location.distanceBetween().
+     */
+    private static final double LOWER_BOUND_RADIUS = 6300000;
+
+    private final RegionSnapshot mSnapshot;
+
+    // Regions by index, which are only created from the snapshot when a search returns them
+    private final ObaRegion[] mRegions;
+
+    // Region for each bound in mCenters
+    private final int[] mBoundRegions;
+
+    private final Tree mCenters;
+
+    // Region for each span in mSpans
+    private final int[] mSpanRegions;
+
+    private final Tree mSpans;
+
+    private final HashMap<Long, double[]> mSpansById = new HashMap<>();
+
+    /**
+     * Creates an index of the bounds of the given regions.  Regions without bounds are left out.
+     *
+     * @param regions regions to index
+     */
+    public RegionIndex(List<ObaRegion> regions) {
+        this(regions.toArray(new ObaRegion[regions.size()]), null);
+    }
+
+    /**
+     * Creates an index of the bounds of the regions in a snapshot, which are read without
+     * creating the regions.  Regions without bounds are left out.
+     *
+     * @param snapshot snapshot with the regions to index
+     */
+    public RegionIndex(RegionSnapshot snapshot) {
+        this(new ObaRegion[snapshot.size()], snapshot);
+    }
+
+    private RegionIndex(ObaRegion[] regions, RegionSnapshot snapshot) {
+        mRegions = regions;
+        mSnapshot = snapshot;
+
+        int[] boundCounts = new int[mRegions.length];
+        int boundCount = 0;
+        int spanCount = 0;
+        for (int i = 0; i < mRegions.length; i++) {
+            if (snapshot != null) {
+                boundCounts[i] = snapshot.getBoundCount(i);
+            } else if (regions[i].getBounds() != null) {
+                boundCounts[i] = regions[i].getBounds().length;
+            }
+            if (boundCounts[i] > 0) {
+                boundCount += boundCounts[i];
+                spanCount++;
+            }
+        }
+
+        // lat, lon, lat span, lon span for each bound
+        double[] bounds = new double[boundCount * 4];
+        mBoundRegions = new int[boundCount];
+        double[] centers = new double[boundCount * 4];
+        mSpanRegions = new int[spanCount];
+        double[] spans = new double[spanCount * 4];
+        int b = 0;
+        int s = 0;
+        for (int i = 0; i < mRegions.length; i++) {
+            if (boundCounts[i] == 0) {
+                continue;
+            }
+            int first = b;
+            if (snapshot != null) {
+                snapshot.getBounds(i, bounds, first * 4);
+            } else {
+                ObaRegion.Bounds[] regionBounds = regions[i].getBounds();
+                for (int j = 0; j < regionBounds.length; j++) {
+                    int p = (first + j) * 4;
+                    bounds[p] = regionBounds[j].getLat();
+                    bounds[p + 1] = regionBounds[j].getLon();
+                    bounds[p + 2] = regionBounds[j].getLatSpan();
+                    bounds[p + 3] = regionBounds[j].getLonSpan();
+                }
+            }
+            for (; b < first + boundCounts[i]; b++) {
+                mBoundRegions[b] = i;
+                setBox(centers, b, bounds[b * 4], bounds[b * 4 + 1], 0, 0);
+            }
+            double[] span = getRegionSpan(bounds, first, boundCounts[i]);
+            mSpansById.put(snapshot != null ? snapshot.getId(i) : regions[i].getId(), span);
+            mSpanRegions[s] = i;
+            setBox(spans, s++, span[2], span[3], span[0], span[1]);
+        }
+        mCenters = new Tree(centers);
+        mSpans = new Tree(spans);
+    }
+
+    /**
+     * Same as {@link RegionUtils#getRegionSpan(ObaRegion, double[])} for the given bounds
+     */
+    private static double[] getRegionSpan(double[] bounds, int first, int count) {
+        double latMin = 90;
+        double latMax = -90;
+        double lonMin = 180;
+        double lonMax = -180;
+        for (int i = first * 4; i < (first + count) * 4; i += 4) {
+            double latSpanHalf = bounds[i + 2] / 2.0;
+            latMin = Math.min(latMin, bounds[i] - latSpanHalf);
+            latMax = Math.max(latMax, bounds[i] + latSpanHalf);
+            double lonSpanHalf = bounds[i + 3] / 2.0;
+            lonMin = Math.min(lonMin, bounds[i + 1] - lonSpanHalf);
+            lonMax = Math.max(lonMax, bounds[i + 1] + lonSpanHalf);
+        }
+        return new double[]{
+                latMax - latMin,
+                lonMax - lonMin,
+                latMin + ((latMax - latMin) / 2.0),
+                lonMin + ((lonMax - lonMin) / 2.0)
+        };
+    }
+
+    /**
+     * Returns the region at the given index, creating it from the snapshot the first time it's
+     * needed.  Creating a region more than once on different threads is harmless, since regions
+     * are immutable.
+     */
+    private ObaRegion getRegion(int index) {
+        ObaRegion region = mRegions[index];
+        if (region == null) {
+            region = mSnapshot.getRegion(index);
+            mRegions[index] = region;
+        }
+        return region;
+    }
+
+    private static void setBox(double[] boxes, int index, double lat, double lon, double latSpan,
+            double lonSpan) {
+        boxes[index * 4] = lat - latSpan / 2;
+        boxes[index * 4 + 1] = lon - lonSpan / 2;
+        boxes[index * 4 + 2] = lat + latSpan / 2;
+        boxes[index * 4 + 3] = lon + lonSpan / 2;
+    }
+
+    /**
+     * @return the number of regions in the index
+     */
+    public int size() {
+        return mRegions.length;
+    }
+
+    /**
+     * Same as {@link RegionUtils#getClosestRegion(ArrayList, Location, boolean)} for the indexed
+     * regions - the closest region is the usable region with the bound center closest to the
+     * location.
+     *
+     * @param loc              location
+     * @param enforceThreshold true if the RegionUtils.DISTANCE_LIMITER threshold should be
+     *                         enforced, false if it should not
+     * @return the closest usable region to the given location, or null if there isn't one or
+     * enforceThreshold is true and the closest region exceeded the DISTANCE_LIMITER threshold
+     */
+    public ObaRegion getClosestRegion(Location loc, boolean enforceThreshold) {
+        if (loc == null || mCenters.isEmpty()) {
+            return null;
+        }
+        double lat = loc.getLatitude();
+        double lon = loc.getLongitude();
+        float[] results = new float[1];
+        PriorityQueue<Candidate> queue = new PriorityQueue<>();
+        offer(queue, mCenters.getRoot(), lat, lon, results);
+
+        // Leaves are queued with their exact distance and nodes with a lower bound, so the first
+        // usable leaf taken from the queue is the closest bound
+        while (!queue.isEmpty()) {
+            Candidate candidate = queue.poll();
+            if (mCenters.isLeaf(candidate.mPosition)) {
+                ObaRegion region = getRegion(
+                        mBoundRegions[mCenters.getItem(candidate.mPosition)]);
+                if (!RegionUtils.isRegionUsable(region)) {
+                    continue;
+                }
+                if (enforceThreshold && candidate.mDistance * RegionUtils.METERS_TO_MILES
+                        >= RegionUtils.DISTANCE_LIMITER) {
+                    return null;
+                }
+                return region;
+            }
+            int end = mCenters.getChildrenEnd(candidate.mPosition);
+            for (int child = mCenters.getItem(candidate.mPosition); child < end; child++) {
+                offer(queue, child, lat, lon, results);
+            }
+        }
+        return null;
+    }
+
+    private void offer(PriorityQueue<Candidate> queue, int position, double lat, double lon,
+            float[] results) {
+        double[] boxes = mCenters.mBoxes;
+        int i = position * 4;
+        double distance;
+        if (mCenters.isLeaf(position)) {
+            Location.distanceBetween(lat, lon, boxes[i], boxes[i + 1], results);
+            distance = results[0];
+        } else {
+            distance = getMinDistance(lat, lon, boxes[i], boxes[i + 1], boxes[i + 2],
+                    boxes[i + 3]);
+        }
+        queue.add(new Candidate(position, distance));
+    }
+
+    /**
+     * Returns the regions with a region span containing the given location, in the order they
+     * were given to the index
+     *
+     * @param loc location
+     * @return the regions containing the location, which is empty if there aren't any
+     */
+    public ArrayList<ObaRegion> getRegionsContaining(Location loc) {
+        ArrayList<ObaRegion> results = new ArrayList<>();
+        if (loc == null || mSpans.isEmpty()) {
+            return results;
+        }
+        double lat = loc.getLatitude();
+        double lon = loc.getLongitude();
+        double[] boxes = mSpans.mBoxes;
+        int[] found = new int[mSpanRegions.length];
+        int foundCount = 0;
+        int[] stack = new int[mSpans.mIndices.length];
+        int top = 0;
+        stack[top++] = mSpans.getRoot();
+        while (top > 0) {
+            int position = stack[--top];
+            int i = position * 4;
+            if (lat < boxes[i] || lon < boxes[i + 1] || lat > boxes[i + 2]
+                    || lon > boxes[i + 3]) {
+                continue;
+            }
+            if (mSpans.isLeaf(position)) {
+                found[foundCount++] = mSpanRegions[mSpans.getItem(position)];
+                continue;
+            }
+            int end = mSpans.getChildrenEnd(position);
+            for (int child = mSpans.getItem(position); child < end; child++) {
+                stack[top++] = child;
+            }
+        }
+        Arrays.sort(found, 0, foundCount);
+        for (int i = 0; i < foundCount; i++) {
+            results.add(getRegion(found[i]));
+        }
+        return results;
+    }
+
+    /**
+     * Same as {@link RegionUtils#isLocationWithinRegion(Location, ObaRegion)}, using the region
+     * span computed when the index was created
+     *
+     * @return true if the location is within the region, false if it isn't, or null if the
+     * region isn't in the index
+     */
+    public Boolean isLocationWithinRegion(Location location, long regionId) {
+        double[] span = mSpansById.get(regionId);
+        if (span == null) {
+            return null;
+        }
+        return RegionUtils.isLocationWithinRegion(location, span);
+    }
+
+    /**
+     * Returns a lower bound on the distance in meters between a point and the closest point in a
+     * box, which is the exact distance on a sphere with radius LOWER_BOUND_RADIUS
+     */
+    static double getMinDistance(double lat, double lon, double minLat, double minLon,
+            double maxLat, double maxLon) {
+        if (lon >= minLon && lon <= maxLon) {
+            // The closest point is due north or south
+            if (lat < minLat) {
+                return Math.toRadians(minLat - lat) * LOWER_BOUND_RADIUS;
+            }
+            if (lat > maxLat) {
+                return Math.toRadians(lat - maxLat) * LOWER_BOUND_RADIUS;
+            }
+            return 0;
+        }
+        // The distance to points along a line of latitude only grows with the difference in
+        // longitude, so the closest point is on the east or west edge
+        return Math.min(getMinDistanceToMeridian(lat, lon, minLon, minLat, maxLat),
+                getMinDistanceToMeridian(lat, lon, maxLon, minLat, maxLat));
+    }
+
+    private static double getMinDistanceToMeridian(double lat, double lon, double meridian,
+            double minLat, double maxLat) {
+        // The cosine of the angle to (x, meridian) is a * sin(x) + b * cos(x), which is largest
+        // at atan2(a, b) and falls off on either side of it
+        double phi = Math.toRadians(lat);
+        double a = Math.sin(phi);
+        double b = Math.cos(phi) * Math.cos(Math.toRadians(lon - meridian));
+        double closest = Math.toDegrees(Math.atan2(a, b));
+        if (closest < minLat || closest > maxLat) {
+            double x1 = Math.toRadians(minLat);
+            double x2 = Math.toRadians(maxLat);
+            closest = a * Math.sin(x1) + b * Math.cos(x1) > a * Math.sin(x2) + b * Math.cos(x2)
+                    ? minLat : maxLat;
+        }
+        return getSphericalDistance(lat, lon, closest, meridian);
+    }
+
+    private static double getSphericalDistance(double lat1, double lon1, double lat2,
+            double lon2) {
+        double sinLat = Math.sin(Math.toRadians(lat2 - lat1) / 2);
+        double sinLon = Math.sin(Math.toRadians(lon2 - lon1) / 2);
+        double h = sinLat * sinLat + Math.cos(Math.toRadians(lat1)) * Math.cos(
+                Math.toRadians(lat2)) * sinLon * sinLon;
+        return 2 * LOWER_BOUND_RADIUS * Math.asin(Math.min(1, Math.sqrt(h)));
+    }
+
+    private static final class Candidate implements Comparable<Candidate> {
+
+        final int mPosition;
+
+        final double mDistance;
+
+        Candidate(int position, double distance) {
+            mPosition = position;
+            mDistance = distance;
+        }
+
+        @Override
+        public int compareTo(Candidate another) {
+            return Double.compare(mDistance, another.mDistance);
+        }
+    }
+
+    /**
+     * A static R-tree stored in arrays.  The leaves are the first items in the arrays, followed
+     * by each level of nodes, up to the root at the end.
+     */
+    private static final class Tree {
+
+        private final int mItemCount;
+
+        // minLat, minLon, maxLat, maxLon for each leaf and node
+        final double[] mBoxes;
+
+        // Item for each leaf, and the first child of each node
+        final int[] mIndices;
+
+        // End of each level, starting with the leaves
+        private final int[] mLevelEnds;
+
+        Tree(final double[] items) {
+            mItemCount = items.length / 4;
+            int total = mItemCount;
+            int levels = 1;
+            for (int count = mItemCount; count > 1; levels++) {
+                count = (count + NODE_SIZE - 1) / NODE_SIZE;
+                total += count;
+            }
+            mBoxes = new double[total * 4];
+            mIndices = new int[total];
+            mLevelEnds = new int[levels];
+
+            // Sort the leaves into vertical slices by longitude, and each slice by latitude, so
+            // each node covers a compact area
+            Integer[] order = new Integer[mItemCount];
+            for (int i = 0; i < mItemCount; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer lhs, Integer rhs) {
+                    return Double.compare(items[lhs * 4 + 1] + items[lhs * 4 + 3],
+                            items[rhs * 4 + 1] + items[rhs * 4 + 3]);
+                }
+            });
+            int leafNodes = (mItemCount + NODE_SIZE - 1) / NODE_SIZE;
+            int sliceSize = NODE_SIZE * (int) Math.ceil(Math.sqrt(leafNodes));
+            for (int start = 0; start < mItemCount; start += sliceSize) {
+                Arrays.sort(order, start, Math.min(start + sliceSize, mItemCount),
+                        new Comparator<Integer>() {
+                            @Override
+                            public int compare(Integer lhs, Integer rhs) {
+                                return Double.compare(items[lhs * 4] + items[lhs * 4 + 2],
+                                        items[rhs * 4] + items[rhs * 4 + 2]);
+                            }
+                        });
+            }
+            for (int i = 0; i < mItemCount; i++) {
+                System.arraycopy(items, order[i] * 4, mBoxes, i * 4, 4);
+                mIndices[i] = order[i];
+            }
+
+            int position = mItemCount;
+            int levelStart = 0;
+            mLevelEnds[0] = mItemCount;
+            for (int level = 1; level < levels; level++) {
+                int levelEnd = mLevelEnds[level - 1];
+                for (int child = levelStart; child < levelEnd; child += NODE_SIZE) {
+                    int i = position * 4;
+                    System.arraycopy(mBoxes, child * 4, mBoxes, i, 4);
+                    for (int c = child + 1; c < Math.min(child + NODE_SIZE, levelEnd); c++) {
+                        mBoxes[i] = Math.min(mBoxes[i], mBoxes[c * 4]);
+                        mBoxes[i + 1] = Math.min(mBoxes[i + 1], mBoxes[c * 4 + 1]);
+                        mBoxes[i + 2] = Math.max(mBoxes[i + 2], mBoxes[c * 4 + 2]);
+                        mBoxes[i + 3] = Math.max(mBoxes[i + 3], mBoxes[c * 4 + 3]);
+                    }
+                    mIndices[position++] = child;
+                }
+                levelStart = levelEnd;
+                mLevelEnds[level] = position;
+            }
+        }
+
+        boolean isEmpty() {
+            return mItemCount == 0;
+        }
+
+        int getRoot() {
+            return mIndices.length - 1;
+        }
+
+        boolean isLeaf(int position) {
+            return position < mItemCount;
+        }
+
+        /**
+         * @return the item for a leaf, or the first child of a node
+         */
+        int getItem(int position) {
+            return mIndices[position];
+        }
+
+        /**
+         * @return the position after the last child of a node
+         */
+        int getChildrenEnd(int position) {
+            int level = 1;
+            while (mLevelEnds[level] <= position) {
+                level++;
+            }
+            return Math.min(mIndices[position] + NODE_SIZE, mLevelEnds[level - 1]);
+        }
+    }
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.schedule;
+
+import org.onebusaway.android.io.elements.ObaArrivalInfo;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * An on-device store of the upcoming scheduled departures at the stops the user relies on, so
+ * the arrivals screen can still show scheduled times when real-time information can't be
+ * reached (e.g., underground or in a tunnel).
+ *
+ * Like SearchIndex, the cache is kept in its own database, since it can always be refetched from
+ * the server.  It's filled by ScheduleCacheWorker, which only keeps the next day of departures
+ * for up to MAX_STOPS stops, so it stays small, and departures are looked up with an index on
+ * the stop and departure time.
+ */
+public final class ScheduleCache {
+
+    /**
+     * The most stops with cached schedules in a region
+     */
+    public static final int MAX_STOPS = 25;
+
+    private static final String DATABASE_NAME = "schedule_cache.db";
+
+    private static final int DATABASE_VERSION = 1;
+
+    private static final String STOP_TIMES = "stop_times";
+
+    private static final String ROUTES = "routes";
+
+    private static final String STOPS = "stops";
+
+    // Columns
+    private static final String REGION_ID = "region_id";
+
+    private static final String STOP_ID = "stop_id";
+
+    private static final String ROUTE_ID = "route_id";
+
+    private static final String TRIP_ID = "trip_id";
+
+    private static final String HEADSIGN = "headsign";
+
+    private static final String ARRIVAL_TIME = "arrival_time";
+
+    private static final String DEPARTURE_TIME = "departure_time";
+
+    private static final String SERVICE_DATE = "service_date";
+
+    private static final String SHORT_NAME = "short_name";
+
+    private static final String LONG_NAME = "long_name";
+
+    private static final String UPDATED = "updated";
+
+    private static final String EXPIRES = "expires";
+
+    private static ScheduleCache sInstance;
+
+    private final OpenHelper mOpenHelper;
+
+    private static final class OpenHelper extends SQLiteOpenHelper {
+
+        OpenHelper(Context context) {
+            super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        }
+
+        @Override
+        public void onCreate(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE " + STOP_TIMES + " (" +
+                    REGION_ID + " INTEGER NOT NULL, " +
+                    STOP_ID + " VARCHAR NOT NULL, " +
+                    ROUTE_ID + " VARCHAR NOT NULL, " +
+                    TRIP_ID + " VARCHAR, " +
+                    HEADSIGN + " VARCHAR, " +
+                    ARRIVAL_TIME + " INTEGER NOT NULL, " +
+                    DEPARTURE_TIME + " INTEGER NOT NULL, " +
+                    SERVICE_DATE + " INTEGER NOT NULL" +
+                    ");");
+            db.execSQL("CREATE INDEX stop_times_stop ON " + STOP_TIMES +
+                    " (" + REGION_ID + ", " + STOP_ID + ", " + DEPARTURE_TIME + ")");
+            // Route names are stored once, rather than with every departure
+            db.execSQL("CREATE TABLE " + ROUTES + " (" +
+                    REGION_ID + " INTEGER NOT NULL, " +
+                    ROUTE_ID + " VARCHAR NOT NULL, " +
+                    SHORT_NAME + " VARCHAR, " +
+                    LONG_NAME + " VARCHAR, " +
+                    "PRIMARY KEY (" + REGION_ID + ", " + ROUTE_ID + ")" +
+                    ");");
+            db.execSQL("CREATE TABLE " + STOPS + " (" +
+                    REGION_ID + " INTEGER NOT NULL, " +
+                    STOP_ID + " VARCHAR NOT NULL, " +
+                    UPDATED + " INTEGER NOT NULL, " +
+                    EXPIRES + " INTEGER NOT NULL, " +
+                    "PRIMARY KEY (" + REGION_ID + ", " + STOP_ID + ")" +
+                    ");");
+        }
+
+        @Override
+        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+            // The cache can always be refetched
+            db.execSQL("DROP TABLE IF EXISTS " + STOP_TIMES);
+            db.execSQL("DROP TABLE IF EXISTS " + ROUTES);
+            db.execSQL("DROP TABLE IF EXISTS " + STOPS);
+            onCreate(db);
+        }
+    }
+
+    private ScheduleCache(Context context) {
+        mOpenHelper = new OpenHelper(context);
+    }
+
+    public static synchronized ScheduleCache getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new ScheduleCache(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    /**
+     * Returns the cached departures from the stop between the given times, ordered by departure
+     * time.  The arrivals don't have any real-time information.
+     *
+     * @param from the earliest departure time to include, in milliseconds
+     * @param to   the latest departure time to include, in milliseconds
+     * @return the departures, or null if the stop doesn't have a cached schedule that's still
+     * valid at the from time
+     */
+    public ObaArrivalInfo[] getArrivals(long regionId, String stopId, long from, long to) {
+        SQLiteDatabase db = mOpenHelper.getReadableDatabase();
+        String region = String.valueOf(regionId);
+        if (DatabaseUtils.longForQuery(db, "SELECT COUNT(*) FROM " + STOPS + " WHERE " +
+                REGION_ID + "=? AND " + STOP_ID + "=? AND " + EXPIRES + ">?",
+                new String[]{region, stopId, String.valueOf(from)}) == 0) {
+            return null;
+        }
+        Cursor c = db.rawQuery("SELECT t." + ROUTE_ID + ", r." + SHORT_NAME + ", r." +
+                        LONG_NAME + ", t." + TRIP_ID + ", t." + HEADSIGN + ", t." +
+                        ARRIVAL_TIME + ", t." + DEPARTURE_TIME + ", t." + SERVICE_DATE +
+                        " FROM " + STOP_TIMES + " t LEFT JOIN " + ROUTES + " r ON r." +
+                        REGION_ID + " = t." + REGION_ID + " AND r." + ROUTE_ID + " = t." +
+                        ROUTE_ID + " WHERE t." + REGION_ID + "=? AND t." + STOP_ID +
+                        "=? AND t." + DEPARTURE_TIME + ">=? AND t." + DEPARTURE_TIME +
+                        "<=? ORDER BY t." + DEPARTURE_TIME,
+                new String[]{region, stopId, String.valueOf(from), String.valueOf(to)});
+        try {
+            ObaArrivalInfo[] results = new ObaArrivalInfo[c.getCount()];
+            int i = 0;
+            while (c.moveToNext()) {
+                results[i++] = new ObaArrivalInfo(c.getString(0), c.getString(1),
+                        c.getString(2), c.getString(3), c.getString(4), stopId, c.getLong(5),
+                        c.getLong(6), c.getLong(7));
+            }
+            return results;
+        } finally {
+            c.close();
+        }
+    }
+
+    /**
+     * Replaces the cached schedule for the stop
+     *
+     * @param arrivals scheduled arrivals at the stop
+     * @param expires  the time the schedule stops covering, in milliseconds - after this the
+     *                 stop isn't treated as cached
+     */
+    public void putArrivals(long regionId, String stopId, Collection<ObaArrivalInfo> arrivals,
+            long expires) {
+        SQLiteDatabase db = mOpenHelper.getWritableDatabase();
+        String[] args = {String.valueOf(regionId), stopId};
+        db.beginTransaction();
+        try {
+            db.delete(STOP_TIMES, REGION_ID + "=? AND " + STOP_ID + "=?", args);
+            SQLiteStatement insertTime = db.compileStatement("INSERT INTO " + STOP_TIMES +
+                    " (" + REGION_ID + ", " + STOP_ID + ", " + ROUTE_ID + ", " + TRIP_ID + ", " +
+                    HEADSIGN + ", " + ARRIVAL_TIME + ", " + DEPARTURE_TIME + ", " +
+                    SERVICE_DATE + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+            SQLiteStatement insertRoute = db.compileStatement("INSERT OR REPLACE INTO " +
+                    ROUTES + " (" + REGION_ID + ", " + ROUTE_ID + ", " + SHORT_NAME + ", " +
+                    LONG_NAME + ") VALUES (?, ?, ?, ?)");
+            for (ObaArrivalInfo arrival : arrivals) {
+                insertTime.bindLong(1, regionId);
+                insertTime.bindString(2, stopId);
+                insertTime.bindString(3, arrival.getRouteId());
+                bindStringOrNull(insertTime, 4, arrival.getTripId());
+                bindStringOrNull(insertTime, 5, arrival.getHeadsign());
+                insertTime.bindLong(6, arrival.getScheduledArrivalTime());
+                insertTime.bindLong(7, arrival.getScheduledDepartureTime());
+                insertTime.bindLong(8, arrival.getServiceDate());
+                insertTime.executeInsert();
+
+                insertRoute.bindLong(1, regionId);
+                insertRoute.bindString(2, arrival.getRouteId());
+                bindStringOrNull(insertRoute, 3, arrival.getShortName());
+                bindStringOrNull(insertRoute, 4, arrival.getRouteLongName());
+                insertRoute.executeInsert();
+            }
+            SQLiteStatement insertStop = db.compileStatement("INSERT OR REPLACE INTO " + STOPS +
+                    " (" + REGION_ID + ", " + STOP_ID + ", " + UPDATED + ", " + EXPIRES +
+                    ") VALUES (?, ?, ?, ?)");
+            insertStop.bindLong(1, regionId);
+            insertStop.bindString(2, stopId);
+            insertStop.bindLong(3, System.currentTimeMillis());
+            insertStop.bindLong(4, expires);
+            insertStop.executeInsert();
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private static void bindStringOrNull(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+
+    /**
+     * Returns the IDs of the stops in the region with a cached schedule
+     */
+    public List<String> getStopIds(long regionId) {
+        List<String> ids = new ArrayList<String>();
+        Cursor c = mOpenHelper.getReadableDatabase().query(STOPS, new String[]{STOP_ID},
+                REGION_ID + "=?", new String[]{String.valueOf(regionId)}, null, null, null);
+        try {
+            while (c.moveToNext()) {
+                ids.add(c.getString(0));
+            }
+        } finally {
+            c.close();
+        }
+        return ids;
+    }
+
+    /**
+     * Removes the cached schedules for stops in the region that aren't in the given IDs, and
+     * removes departures before the given time from every stop
+     */
+    public void trim(long regionId, Collection<String> stopIds, long before) {
+        SQLiteDatabase db = mOpenHelper.getWritableDatabase();
+        String region = String.valueOf(regionId);
+        db.beginTransaction();
+        try {
+            for (String id : getStopIds(regionId)) {
+                if (!stopIds.contains(id)) {
+                    String[] args = {region, id};
+                    db.delete(STOP_TIMES, REGION_ID + "=? AND " + STOP_ID + "=?", args);
+                    db.delete(STOPS, REGION_ID + "=? AND " + STOP_ID + "=?", args);
+                }
+            }
+            String[] time = {String.valueOf(before)};
+            db.delete(STOP_TIMES, DEPARTURE_TIME + "<?", time);
+            db.delete(STOPS, EXPIRES + "<?", time);
+            db.delete(ROUTES, "NOT EXISTS (SELECT 1 FROM " + STOP_TIMES + " t WHERE t." +
+                    REGION_ID + " = " + ROUTES + "." + REGION_ID + " AND t." + ROUTE_ID + " = " +
+                    ROUTES + "." + ROUTE_ID + ")", null);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Removes everything cached for the region
+     */
+    public void clear(long regionId) {
+        SQLiteDatabase db = mOpenHelper.getWritableDatabase();
+        String[] args = {String.valueOf(regionId)};
+        db.beginTransaction();
+        try {
+            db.delete(STOP_TIMES, REGION_ID + "=?", args);
+            db.delete(ROUTES, REGION_ID + "=?", args);
+            db.delete(STOPS, REGION_ID + "=?", args);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+}
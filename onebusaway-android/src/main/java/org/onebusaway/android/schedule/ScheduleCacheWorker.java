@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.schedule;
+
+import org.onebusaway.android.app.Application;
+import org.onebusaway.android.io.ObaApi;
+import org.onebusaway.android.io.elements.ObaArrivalInfo;
+import org.onebusaway.android.io.elements.ObaRegion;
+import org.onebusaway.android.io.elements.ObaRoute;
+import org.onebusaway.android.io.elements.ObaRouteSchedule;
+import org.onebusaway.android.io.request.ObaScheduleForStopRequest;
+import org.onebusaway.android.io.request.ObaScheduleForStopResponse;
+import org.onebusaway.android.provider.ObaContract;
+import org.onebusaway.android.ui.QueryUtils;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.text.TextUtils;
+import android.text.format.DateUtils;
+import android.text.format.Time;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+/**
+ * Fills the ScheduleCache with the next CACHE_PERIOD of departures from the user's starred
+ * stops, followed by their most used stops, in the current region.  Runs every REFRESH_PERIOD
+ * while there's a network connection, so the cache always covers at least half a day ahead.
+ */
+public class ScheduleCacheWorker extends Worker {
+
+    private static final String TAG = "ScheduleCacheWorker";
+
+    private static final String WORK_NAME = "schedule_cache";
+
+    /**
+     * How far ahead departures are cached
+     */
+    static final long CACHE_PERIOD = DateUtils.DAY_IN_MILLIS;
+
+    private static final long REFRESH_PERIOD = 12;  // hours
+
+    private static final String[] STOPS_PROJECTION = {ObaContract.Stops._ID};
+
+    public ScheduleCacheWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    /**
+     * Schedules periodic updates of the cache, if they aren't already scheduled
+     */
+    public static void schedule() {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .setRequiresBatteryNotLow(true)
+                .build();
+        PeriodicWorkRequest workRequest = new PeriodicWorkRequest.Builder(
+                ScheduleCacheWorker.class, REFRESH_PERIOD, TimeUnit.HOURS)
+                .setConstraints(constraints)
+                .build();
+        WorkManager.getInstance().enqueueUniquePeriodicWork(WORK_NAME,
+                ExistingPeriodicWorkPolicy.KEEP, workRequest);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        ObaRegion region = Application.get().getCurrentRegion();
+        if (region == null) {
+            return Result.success();
+        }
+        Context context = getApplicationContext();
+        ScheduleCache cache = ScheduleCache.getInstance(context);
+        long now = System.currentTimeMillis();
+        List<String> stopIds = getStopIds(context, region.getId());
+        cache.trim(region.getId(), stopIds, now);
+
+        int cached = 0;
+        for (String stopId : stopIds) {
+            List<ObaArrivalInfo> arrivals = new ArrayList<ObaArrivalInfo>();
+            boolean skip = false;
+            // The schedule is requested by service date, so the next day spans today and
+            // tomorrow, and trips running after midnight are still part of yesterday
+            for (int day = -1; day <= 1 && !skip; day++) {
+                Time date = new Time();
+                date.set(now + day * DateUtils.DAY_IN_MILLIS);
+                ObaScheduleForStopResponse schedule = new ObaScheduleForStopRequest.Builder(
+                        context, stopId).setDate(date).build().call();
+                if (schedule.getCode() != ObaApi.OBA_OK) {
+                    if (isNetworkError(schedule.getCode())) {
+                        Log.d(TAG, "Couldn't reach the server, cached " + cached + " stops");
+                        return Result.retry();
+                    }
+                    // The stop can't be fetched (e.g., it's been removed) - skip it
+                    skip = true;
+                } else {
+                    addArrivals(schedule, stopId, now, now + CACHE_PERIOD, arrivals);
+                }
+            }
+            if (skip) {
+                continue;
+            }
+            cache.putArrivals(region.getId(), stopId, arrivals, now + CACHE_PERIOD);
+            cached++;
+        }
+        Log.d(TAG, "Cached schedules for " + cached + " stops in region " + region.getId());
+        return Result.success();
+    }
+
+    /**
+     * Returns the IDs of the stops to cache in the region - starred stops first, then the stops
+     * the user views most often, up to ScheduleCache.MAX_STOPS
+     */
+    static List<String> getStopIds(Context context, long regionId) {
+        List<String> ids = new ArrayList<String>();
+        Cursor c = context.getContentResolver().query(ObaContract.Stops.CONTENT_URI,
+                STOPS_PROJECTION,
+                "(" + ObaContract.Stops.FAVORITE + "=1 OR " + ObaContract.Stops.USE_COUNT +
+                        ">0) AND " + QueryUtils.getRegionWhere(ObaContract.Stops.REGION_ID,
+                        regionId),
+                null,
+                ObaContract.Stops.FAVORITE + " DESC, " + ObaContract.Stops.USE_COUNT + " DESC");
+        if (c == null) {
+            return ids;
+        }
+        try {
+            while (c.moveToNext() && ids.size() < ScheduleCache.MAX_STOPS) {
+                ids.add(c.getString(0));
+            }
+        } finally {
+            c.close();
+        }
+        return ids;
+    }
+
+    /**
+     * Adds the departures in the schedule between start and end to the list of arrivals
+     */
+    static void addArrivals(ObaScheduleForStopResponse schedule, String stopId, long start,
+            long end, List<ObaArrivalInfo> arrivals) {
+        for (ObaRouteSchedule routeSchedule : schedule.getRouteSchedules()) {
+            ObaRoute route = schedule.getRoute(routeSchedule.getRouteId());
+            String shortName = route != null ? route.getShortName() : null;
+            String longName = route != null ? route.getLongName() : null;
+            for (ObaRouteSchedule.Direction direction : routeSchedule.getDirectionSchedules()) {
+                for (ObaRouteSchedule.Time time : direction.getStopTimes()) {
+                    if (time.getDepartureTime() < start || time.getDepartureTime() >= end) {
+                        continue;
+                    }
+                    String headsign = !TextUtils.isEmpty(time.getStopHeadsign()) ?
+                            time.getStopHeadsign() : direction.getTripHeadsign();
+                    arrivals.add(new ObaArrivalInfo(routeSchedule.getRouteId(), shortName,
+                            longName, time.getTripId(), headsign, stopId, time.getArrivalTime(),
+                            time.getDepartureTime(), schedule.getDate()));
+                }
+            }
+        }
+    }
+
+    private static boolean isNetworkError(int code) {
+        return code == 0 || code == ObaApi.OBA_IO_EXCEPTION
+                || code >= ObaApi.OBA_INTERNAL_ERROR;
+    }
+}
@@ -0,0 +1,558 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.search;
+
+import org.onebusaway.android.io.elements.ObaRoute;
+import org.onebusaway.android.io.elements.ObaRouteElement;
+import org.onebusaway.android.io.elements.ObaStop;
+import org.onebusaway.android.io.elements.ObaStopElement;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.location.Location;
+import android.text.TextUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * An on-device full-text index of the stops and routes in each region, so search can be answered
+ * without a round trip to the server (and while offline).  The index is kept in its own
+ * database, separate from ObaProvider, since it can always be rebuilt from the server and
+ * shouldn't be part of backups.
+ *
+ * Names and codes are indexed with SQLite FTS4 (with prefix indexes so partially typed words
+ * are fast to match), and results are ranked by distance from the search center.  The index is
+ * filled in the background by SearchIndexWorker.
+ */
+public final class SearchIndex {
+
+    /**
+     * The number of results to return when the caller has no reason to ask for more or fewer
+     */
+    public static final int DEFAULT_LIMIT = 50;
+
+    private static final String DATABASE_NAME = "search_index.db";
+
+    private static final int DATABASE_VERSION = 1;
+
+    public static final int TYPE_STOP = 1;
+
+    public static final int TYPE_ROUTE = 2;
+
+    private static final String ENTRIES = "entries";
+
+    private static final String ENTRIES_FTS = "entries_fts";
+
+    private static final String STOP_ROUTES = "stop_routes";
+
+    private static final String STATUS = "status";
+
+    // Columns
+    private static final String ID = "_id";
+
+    private static final String REGION_ID = "region_id";
+
+    private static final String TYPE = "type";
+
+    private static final String OBA_ID = "oba_id";
+
+    private static final String NAME = "name";
+
+    private static final String CODE = "code";
+
+    private static final String DESCRIPTION = "description";
+
+    private static final String DIRECTION = "direction";
+
+    private static final String ROUTE_TYPE = "route_type";
+
+    private static final String URL = "url";
+
+    private static final String COLOR = "color";
+
+    private static final String TEXT_COLOR = "text_color";
+
+    private static final String AGENCY_ID = "agency_id";
+
+    private static final String LATITUDE = "lat";
+
+    private static final String LONGITUDE = "lon";
+
+    private static final String STOP_ID = "stop_id";
+
+    private static final String ROUTE_ID = "route_id";
+
+    private static final String COMPLETE = "complete";
+
+    private static final String UPDATED = "updated";
+
+    private static final String[] STOP_PROJECTION = {
+            "e." + OBA_ID,
+            "e." + NAME,
+            "e." + CODE,
+            "e." + DIRECTION,
+            "e." + LATITUDE,
+            "e." + LONGITUDE
+    };
+
+    private static final String[] ROUTE_PROJECTION = {
+            "e." + OBA_ID,
+            "e." + CODE,
+            "e." + NAME,
+            "e." + DESCRIPTION,
+            "e." + ROUTE_TYPE,
+            "e." + URL,
+            "e." + COLOR,
+            "e." + TEXT_COLOR,
+            "e." + AGENCY_ID
+    };
+
+    private static SearchIndex sInstance;
+
+    private final OpenHelper mOpenHelper;
+
+    private static final class OpenHelper extends SQLiteOpenHelper {
+
+        OpenHelper(Context context) {
+            super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        }
+
+        @Override
+        public void onCreate(SQLiteDatabase db) {
+            db.execSQL("CREATE TABLE " + ENTRIES + " (" +
+                    ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                    REGION_ID + " INTEGER NOT NULL, " +
+                    TYPE + " INTEGER NOT NULL, " +
+                    OBA_ID + " VARCHAR NOT NULL, " +
+                    NAME + " VARCHAR, " +
+                    CODE + " VARCHAR, " +
+                    DESCRIPTION + " VARCHAR, " +
+                    DIRECTION + " VARCHAR, " +
+                    ROUTE_TYPE + " INTEGER, " +
+                    URL + " VARCHAR, " +
+                    COLOR + " VARCHAR, " +
+                    TEXT_COLOR + " VARCHAR, " +
+                    AGENCY_ID + " VARCHAR, " +
+                    LATITUDE + " DOUBLE, " +
+                    LONGITUDE + " DOUBLE, " +
+                    "UNIQUE (" + REGION_ID + ", " + TYPE + ", " + OBA_ID + ")" +
+                    ");");
+            // Prefix indexes for the first two and four characters of each word, which is what
+            // people have typed by the time results are useful
+            db.execSQL("CREATE VIRTUAL TABLE " + ENTRIES_FTS + " USING fts4(" +
+                    NAME + ", " + CODE + ", prefix=\"2,4\")");
+            db.execSQL("CREATE TABLE " + STOP_ROUTES + " (" +
+                    REGION_ID + " INTEGER NOT NULL, " +
+                    STOP_ID + " VARCHAR NOT NULL, " +
+                    ROUTE_ID + " VARCHAR NOT NULL" +
+                    ");");
+            db.execSQL("CREATE INDEX stop_routes_route ON " + STOP_ROUTES +
+                    " (" + REGION_ID + ", " + ROUTE_ID + ")");
+            db.execSQL("CREATE INDEX stop_routes_stop ON " + STOP_ROUTES +
+                    " (" + REGION_ID + ", " + STOP_ID + ")");
+            db.execSQL("CREATE TABLE " + STATUS + " (" +
+                    REGION_ID + " INTEGER NOT NULL, " +
+                    TYPE + " INTEGER NOT NULL, " +
+                    COMPLETE + " INTEGER NOT NULL, " +
+                    UPDATED + " INTEGER NOT NULL, " +
+                    "PRIMARY KEY (" + REGION_ID + ", " + TYPE + ")" +
+                    ");");
+        }
+
+        @Override
+        public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+            // The index can always be rebuilt
+            db.execSQL("DROP TABLE IF EXISTS " + ENTRIES);
+            db.execSQL("DROP TABLE IF EXISTS " + ENTRIES_FTS);
+            db.execSQL("DROP TABLE IF EXISTS " + STOP_ROUTES);
+            db.execSQL("DROP TABLE IF EXISTS " + STATUS);
+            onCreate(db);
+        }
+    }
+
+    private SearchIndex(Context context) {
+        mOpenHelper = new OpenHelper(context);
+    }
+
+    public static synchronized SearchIndex getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new SearchIndex(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    /**
+     * Returns true if every stop and route in the region has been indexed, so search results
+     * from the index are as complete as results from the server
+     */
+    public boolean isComplete(long regionId) {
+        return isComplete(regionId, TYPE_STOP) && isComplete(regionId, TYPE_ROUTE);
+    }
+
+    /**
+     * Returns the stops in the region with a word in their name or stop code that starts with
+     * each word in the query, nearest to the center first
+     *
+     * @param center the location to rank results from, or null to sort them by name
+     * @param limit  the maximum number of stops to return
+     */
+    public List<ObaStop> searchStops(long regionId, String query, Location center, int limit) {
+        List<ObaStop> results = new ArrayList<ObaStop>();
+        Cursor c = search(regionId, TYPE_STOP, STOP_PROJECTION, query, center, limit);
+        if (c == null) {
+            return results;
+        }
+        try {
+            while (c.moveToNext()) {
+                results.add(new ObaStopElement(c.getString(0), c.getDouble(4), c.getDouble(5),
+                        c.getString(1), c.getString(2), c.getString(3)));
+            }
+        } finally {
+            c.close();
+        }
+        return results;
+    }
+
+    /**
+     * Returns the routes in the region with a word in their short name, long name or description
+     * that starts with each word in the query.  Routes are ranked by the distance from the center
+     * to the middle of the indexed stops they serve.
+     *
+     * @param center the location to rank results from, or null to sort them by name
+     * @param limit  the maximum number of routes to return
+     */
+    public List<ObaRoute> searchRoutes(long regionId, String query, Location center, int limit) {
+        List<ObaRoute> results = new ArrayList<ObaRoute>();
+        Cursor c = search(regionId, TYPE_ROUTE, ROUTE_PROJECTION, query, center, limit);
+        if (c == null) {
+            return results;
+        }
+        try {
+            while (c.moveToNext()) {
+                results.add(new ObaRouteElement(c.getString(0), c.getString(1), c.getString(2),
+                        c.getString(3), c.getInt(4), c.getString(5), c.getString(6),
+                        c.getString(7), c.getString(8)));
+            }
+        } finally {
+            c.close();
+        }
+        return results;
+    }
+
+    private Cursor search(long regionId, int type, String[] projection, String query,
+            Location center, int limit) {
+        String match = toMatchQuery(query);
+        if (match == null) {
+            return null;
+        }
+        StringBuilder sql = new StringBuilder("SELECT ")
+                .append(TextUtils.join(", ", projection))
+                .append(" FROM ").append(ENTRIES_FTS).append(" JOIN ").append(ENTRIES)
+                .append(" e ON e.").append(ID).append(" = ").append(ENTRIES_FTS)
+                .append(".docid WHERE ")
+                .append(ENTRIES_FTS).append(" MATCH ? AND e.").append(REGION_ID)
+                .append(" = ? AND e.").append(TYPE).append(" = ? ORDER BY ");
+        if (center != null) {
+            // Equirectangular distance is plenty to rank nearby results.  Entries without a
+            // location (routes with no indexed stops) sort last.
+            final double lat = center.getLatitude();
+            final double lon = center.getLongitude();
+            final double scale = Math.cos(Math.toRadians(lat));
+            sql.append("e.").append(LATITUDE).append(" IS NULL, ")
+                    .append("(e.").append(LATITUDE).append(" - (").append(lat).append(")) * ")
+                    .append("(e.").append(LATITUDE).append(" - (").append(lat).append(")) + ")
+                    .append("(e.").append(LONGITUDE).append(" - (").append(lon).append(")) * ")
+                    .append("(e.").append(LONGITUDE).append(" - (").append(lon).append(")) * ")
+                    .append(scale * scale).append(", ");
+        }
+        sql.append("e.").append(type == TYPE_ROUTE ? CODE : NAME).append(" LIMIT ").append(limit);
+
+        return mOpenHelper.getReadableDatabase().rawQuery(sql.toString(),
+                new String[]{match, String.valueOf(regionId), String.valueOf(type)});
+    }
+
+    /**
+     * Converts what the user typed into an FTS query that matches entries with a word starting
+     * with each of the typed words, or returns null if nothing searchable was typed
+     */
+    static String toMatchQuery(String query) {
+        if (query == null) {
+            return null;
+        }
+        StringBuilder match = new StringBuilder();
+        // Only letters and digits are kept, so nothing typed can be read as FTS syntax
+        for (String token : query.toLowerCase(Locale.US).split("[^\\p{L}\\p{N}]+")) {
+            if (token.length() == 0) {
+                continue;
+            }
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            match.append(token).append('*');
+        }
+        return match.length() > 0 ? match.toString() : null;
+    }
+
+    /**
+     * Returns the IDs of the indexed stops or routes in the region
+     */
+    public Set<String> getIds(long regionId, int type) {
+        Set<String> ids = new HashSet<String>();
+        Cursor c = mOpenHelper.getReadableDatabase().query(ENTRIES, new String[]{OBA_ID},
+                REGION_ID + "=? AND " + TYPE + "=?",
+                new String[]{String.valueOf(regionId), String.valueOf(type)},
+                null, null, null);
+        try {
+            while (c.moveToNext()) {
+                ids.add(c.getString(0));
+            }
+        } finally {
+            c.close();
+        }
+        return ids;
+    }
+
+    /**
+     * Adds or replaces stops in the index, along with the routes that serve them
+     */
+    public void putStops(long regionId, Collection<? extends ObaStop> stops) {
+        SQLiteDatabase db = mOpenHelper.getWritableDatabase();
+        SQLiteStatement insertRoute = db.compileStatement("INSERT INTO " + STOP_ROUTES +
+                " (" + REGION_ID + ", " + STOP_ID + ", " + ROUTE_ID + ") VALUES (?, ?, ?)");
+        db.beginTransaction();
+        try {
+            for (ObaStop stop : stops) {
+                ContentValues values = new ContentValues();
+                values.put(NAME, stop.getName());
+                values.put(CODE, stop.getStopCode());
+                values.put(DIRECTION, stop.getDirection());
+                values.put(LATITUDE, stop.getLatitude());
+                values.put(LONGITUDE, stop.getLongitude());
+                put(db, regionId, TYPE_STOP, stop.getId(), values,
+                        stop.getName(), stop.getStopCode());
+
+                db.delete(STOP_ROUTES, REGION_ID + "=? AND " + STOP_ID + "=?",
+                        new String[]{String.valueOf(regionId), stop.getId()});
+                String[] routeIds = stop.getRouteIds();
+                if (routeIds != null) {
+                    for (String routeId : routeIds) {
+                        insertRoute.bindLong(1, regionId);
+                        insertRoute.bindString(2, stop.getId());
+                        insertRoute.bindString(3, routeId);
+                        insertRoute.executeInsert();
+                    }
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            insertRoute.close();
+        }
+    }
+
+    /**
+     * Adds or replaces routes in the index
+     */
+    public void putRoutes(long regionId, Collection<? extends ObaRoute> routes) {
+        SQLiteDatabase db = mOpenHelper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (ObaRoute route : routes) {
+                ContentValues values = new ContentValues();
+                values.put(CODE, route.getShortName());
+                values.put(NAME, route.getLongName());
+                values.put(DESCRIPTION, route.getDescription());
+                values.put(ROUTE_TYPE, route.getType());
+                values.put(URL, route.getUrl());
+                values.put(COLOR, toColorString(route.getColor()));
+                values.put(TEXT_COLOR, toColorString(route.getTextColor()));
+                values.put(AGENCY_ID, route.getAgencyId());
+                put(db, regionId, TYPE_ROUTE, route.getId(), values,
+                        join(route.getLongName(), route.getDescription()),
+                        route.getShortName());
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private static void put(SQLiteDatabase db, long regionId, int type, String obaId,
+            ContentValues values, String ftsName, String ftsCode) {
+        final String where = REGION_ID + "=? AND " + TYPE + "=? AND " + OBA_ID + "=?";
+        final String[] whereArgs = {String.valueOf(regionId), String.valueOf(type), obaId};
+        ContentValues fts = new ContentValues();
+        fts.put(NAME, ftsName);
+        fts.put(CODE, ftsCode);
+
+        long rowId = -1;
+        Cursor c = db.query(ENTRIES, new String[]{ID}, where, whereArgs, null, null, null);
+        try {
+            if (c.moveToFirst()) {
+                rowId = c.getLong(0);
+            }
+        } finally {
+            c.close();
+        }
+        if (rowId != -1) {
+            db.update(ENTRIES, values, ID + "=" + rowId, null);
+            db.update(ENTRIES_FTS, fts, "docid=" + rowId, null);
+        } else {
+            values.put(REGION_ID, regionId);
+            values.put(TYPE, type);
+            values.put(OBA_ID, obaId);
+            rowId = db.insert(ENTRIES, null, values);
+            fts.put("docid", rowId);
+            db.insert(ENTRIES_FTS, null, fts);
+        }
+    }
+
+    /**
+     * Removes the stops or routes in the region that aren't in the given set of IDs (i.e., that
+     * no longer exist on the server)
+     *
+     * @return the number of entries removed
+     */
+    public int retainIds(long regionId, int type, Set<String> ids) {
+        Set<String> removed = getIds(regionId, type);
+        removed.removeAll(ids);
+        if (removed.isEmpty()) {
+            return 0;
+        }
+        SQLiteDatabase db = mOpenHelper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            final String[] args = new String[3];
+            args[0] = String.valueOf(regionId);
+            args[1] = String.valueOf(type);
+            for (String id : removed) {
+                args[2] = id;
+                db.delete(ENTRIES_FTS, "docid IN (SELECT " + ID + " FROM " + ENTRIES +
+                        " WHERE " + REGION_ID + "=? AND " + TYPE + "=? AND " + OBA_ID + "=?)",
+                        args);
+                db.delete(ENTRIES, REGION_ID + "=? AND " + TYPE + "=? AND " + OBA_ID + "=?",
+                        args);
+                if (type == TYPE_STOP) {
+                    db.delete(STOP_ROUTES, REGION_ID + "=? AND " + STOP_ID + "=?",
+                            new String[]{args[0], id});
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return removed.size();
+    }
+
+    /**
+     * Places each route in the region at the middle of the indexed stops it serves, which is
+     * what route results are ranked by
+     */
+    public void updateRouteLocations(long regionId) {
+        final String region = String.valueOf(regionId);
+        mOpenHelper.getWritableDatabase().execSQL("UPDATE " + ENTRIES + " SET " +
+                LATITUDE + " = (SELECT avg(s." + LATITUDE + ") FROM " + STOP_ROUTES + " sr JOIN " +
+                ENTRIES + " s ON s." + REGION_ID + " = sr." + REGION_ID + " AND s." + TYPE +
+                " = " + TYPE_STOP + " AND s." + OBA_ID + " = sr." + STOP_ID +
+                " WHERE sr." + REGION_ID + " = " + ENTRIES + "." + REGION_ID +
+                " AND sr." + ROUTE_ID + " = " + ENTRIES + "." + OBA_ID + "), " +
+                LONGITUDE + " = (SELECT avg(s." + LONGITUDE + ") FROM " + STOP_ROUTES + " sr JOIN " +
+                ENTRIES + " s ON s." + REGION_ID + " = sr." + REGION_ID + " AND s." + TYPE +
+                " = " + TYPE_STOP + " AND s." + OBA_ID + " = sr." + STOP_ID +
+                " WHERE sr." + REGION_ID + " = " + ENTRIES + "." + REGION_ID +
+                " AND sr." + ROUTE_ID + " = " + ENTRIES + "." + OBA_ID + ") " +
+                "WHERE " + REGION_ID + " = ? AND " + TYPE + " = " + TYPE_ROUTE,
+                new Object[]{region});
+    }
+
+    public boolean isComplete(long regionId, int type) {
+        return getStatus(regionId, type, COMPLETE) == 1;
+    }
+
+    /**
+     * Returns the time the stops or routes in the region were last completely indexed, or 0
+     */
+    public long getCompletedTime(long regionId, int type) {
+        return isComplete(regionId, type) ? getStatus(regionId, type, UPDATED) : 0;
+    }
+
+    public void setComplete(long regionId, int type, boolean complete) {
+        ContentValues values = new ContentValues();
+        values.put(REGION_ID, regionId);
+        values.put(TYPE, type);
+        values.put(COMPLETE, complete ? 1 : 0);
+        values.put(UPDATED, System.currentTimeMillis());
+        mOpenHelper.getWritableDatabase().insertWithOnConflict(STATUS, null, values,
+                SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    private long getStatus(long regionId, int type, String column) {
+        Cursor c = mOpenHelper.getReadableDatabase().query(STATUS, new String[]{column},
+                REGION_ID + "=? AND " + TYPE + "=?",
+                new String[]{String.valueOf(regionId), String.valueOf(type)},
+                null, null, null);
+        try {
+            return c.moveToFirst() ? c.getLong(0) : 0;
+        } finally {
+            c.close();
+        }
+    }
+
+    /**
+     * Removes everything in the region from the index
+     */
+    public void clear(long regionId) {
+        final String[] args = {String.valueOf(regionId)};
+        SQLiteDatabase db = mOpenHelper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.delete(ENTRIES_FTS, "docid IN (SELECT " + ID + " FROM " + ENTRIES + " WHERE " +
+                    REGION_ID + "=?)", args);
+            db.delete(ENTRIES, REGION_ID + "=?", args);
+            db.delete(STOP_ROUTES, REGION_ID + "=?", args);
+            db.delete(STATUS, REGION_ID + "=?", args);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private static String toColorString(Integer color) {
+        if (color == null) {
+            return null;
+        }
+        return String.format(Locale.US, "%06X", color & 0xFFFFFF);
+    }
+
+    private static String join(String a, String b) {
+        if (TextUtils.isEmpty(a)) {
+            return b;
+        }
+        if (TextUtils.isEmpty(b)) {
+            return a;
+        }
+        return a + " " + b;
+    }
+}
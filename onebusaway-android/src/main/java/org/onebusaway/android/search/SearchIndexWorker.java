@@ -0,0 +1,240 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.search;
+
+import org.onebusaway.android.app.Application;
+import org.onebusaway.android.io.ObaApi;
+import org.onebusaway.android.io.elements.ObaAgencyWithCoverage;
+import org.onebusaway.android.io.elements.ObaRegion;
+import org.onebusaway.android.io.request.ObaAgenciesWithCoverageRequest;
+import org.onebusaway.android.io.request.ObaAgenciesWithCoverageResponse;
+import org.onebusaway.android.io.request.ObaRouteIdsForAgencyRequest;
+import org.onebusaway.android.io.request.ObaRouteIdsForAgencyResponse;
+import org.onebusaway.android.io.request.ObaRouteRequest;
+import org.onebusaway.android.io.request.ObaRouteResponse;
+import org.onebusaway.android.io.request.ObaStopIdsForAgencyRequest;
+import org.onebusaway.android.io.request.ObaStopIdsForAgencyResponse;
+import org.onebusaway.android.io.request.ObaStopRequest;
+import org.onebusaway.android.io.request.ObaStopResponse;
+
+import android.content.Context;
+import android.text.format.DateUtils;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+/**
+ * Fills the SearchIndex for the current region in the background.  Each run lists the stop and
+ * route IDs for every agency in the region, drops the ones that no longer exist, and fetches
+ * the details of up to MAX_FETCHES_PER_RUN stops and routes that aren't indexed yet.  Runs are
+ * retried until the whole region is indexed, and only happen on an unmetered network.
+ */
+public class SearchIndexWorker extends Worker {
+
+    private static final String TAG = "SearchIndexWorker";
+
+    private static final String WORK_NAME = "search_index";
+
+    /**
+     * The maximum number of stop and route detail requests in a single run
+     */
+    static final int MAX_FETCHES_PER_RUN = 300;
+
+    /**
+     * The number of stops or routes written to the index at a time
+     */
+    private static final int WRITE_BATCH_SIZE = 50;
+
+    /**
+     * How long a completely indexed region is used before checking for new stops and routes
+     */
+    private static final long REFRESH_INTERVAL = 7 * DateUtils.DAY_IN_MILLIS;
+
+    public SearchIndexWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    /**
+     * Schedules indexing of the current region, if it isn't already scheduled
+     */
+    public static void schedule() {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.UNMETERED)
+                .setRequiresBatteryNotLow(true)
+                .build();
+        OneTimeWorkRequest workRequest = new OneTimeWorkRequest.Builder(SearchIndexWorker.class)
+                .setConstraints(constraints)
+                .setBackoffCriteria(BackoffPolicy.LINEAR, 1, TimeUnit.MINUTES)
+                .build();
+        WorkManager.getInstance().enqueueUniqueWork(WORK_NAME, ExistingWorkPolicy.KEEP,
+                workRequest);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        ObaRegion region = Application.get().getCurrentRegion();
+        if (region == null || !region.getSupportsObaDiscoveryApis()) {
+            return Result.success();
+        }
+        SearchIndex index = SearchIndex.getInstance(getApplicationContext());
+        long completed = Math.min(index.getCompletedTime(region.getId(), SearchIndex.TYPE_STOP),
+                index.getCompletedTime(region.getId(), SearchIndex.TYPE_ROUTE));
+        if (System.currentTimeMillis() - completed < REFRESH_INTERVAL) {
+            return Result.success();
+        }
+        boolean done = updateIndex(getApplicationContext(), index, region.getId(),
+                MAX_FETCHES_PER_RUN);
+        return done ? Result.success() : Result.retry();
+    }
+
+    /**
+     * Runs one pass of indexing for the region, which must be the current region
+     *
+     * @param maxFetches the maximum number of stop and route detail requests to make
+     * @return true if the region is completely indexed, false if there's more to do
+     */
+    static boolean updateIndex(Context context, SearchIndex index, long regionId,
+            int maxFetches) {
+        ObaAgenciesWithCoverageResponse agencies =
+                ObaAgenciesWithCoverageRequest.newRequest(context).call();
+        if (agencies.getCode() != ObaApi.OBA_OK) {
+            Log.d(TAG, "Couldn't get agencies: " + agencies.getCode());
+            return false;
+        }
+        List<String> agencyIds = new ArrayList<String>();
+        for (ObaAgencyWithCoverage agency : agencies.getAgencies()) {
+            agencyIds.add(agency.getId());
+        }
+
+        // Routes first, since there are fewer of them and they're more useful on their own
+        int[] budget = {maxFetches};
+        boolean routesDone = updateRoutes(context, index, regionId, agencyIds, budget);
+        boolean stopsDone = routesDone && updateStops(context, index, regionId, agencyIds, budget);
+        index.updateRouteLocations(regionId);
+        Log.d(TAG, "Indexed region " + regionId + ", " + (maxFetches - budget[0])
+                + " requests, " + (stopsDone ? "complete" : "incomplete"));
+        return stopsDone;
+    }
+
+    private static boolean updateRoutes(Context context, SearchIndex index, long regionId,
+            List<String> agencyIds, int[] budget) {
+        Set<String> ids = new HashSet<String>();
+        for (String agencyId : agencyIds) {
+            ObaRouteIdsForAgencyResponse response =
+                    ObaRouteIdsForAgencyRequest.newRequest(context, agencyId).call();
+            if (response.getCode() != ObaApi.OBA_OK) {
+                return false;
+            }
+            ids.addAll(Arrays.asList(response.getRouteIds()));
+        }
+        index.retainIds(regionId, SearchIndex.TYPE_ROUTE, ids);
+        ids.removeAll(index.getIds(regionId, SearchIndex.TYPE_ROUTE));
+
+        boolean complete = true;
+        List<ObaRouteResponse> batch = new ArrayList<ObaRouteResponse>();
+        for (String id : ids) {
+            if (budget[0] == 0 || regionChanged(regionId)) {
+                complete = false;
+                break;
+            }
+            budget[0]--;
+            ObaRouteResponse response = ObaRouteRequest.newRequest(context, id).call();
+            if (response.getCode() == ObaApi.OBA_OK) {
+                batch.add(response);
+                if (batch.size() == WRITE_BATCH_SIZE) {
+                    index.putRoutes(regionId, batch);
+                    batch.clear();
+                }
+            } else if (isNetworkError(response.getCode())) {
+                complete = false;
+                break;
+            }
+            // Otherwise the route can't be fetched (e.g., it's been removed) - skip it
+        }
+        index.putRoutes(regionId, batch);
+        index.setComplete(regionId, SearchIndex.TYPE_ROUTE, complete);
+        return complete;
+    }
+
+    private static boolean updateStops(Context context, SearchIndex index, long regionId,
+            List<String> agencyIds, int[] budget) {
+        Set<String> ids = new HashSet<String>();
+        for (String agencyId : agencyIds) {
+            ObaStopIdsForAgencyResponse response =
+                    ObaStopIdsForAgencyRequest.newRequest(context, agencyId).call();
+            if (response.getCode() != ObaApi.OBA_OK) {
+                return false;
+            }
+            ids.addAll(Arrays.asList(response.getStopIds()));
+        }
+        index.retainIds(regionId, SearchIndex.TYPE_STOP, ids);
+        ids.removeAll(index.getIds(regionId, SearchIndex.TYPE_STOP));
+
+        boolean complete = true;
+        List<ObaStopResponse> batch = new ArrayList<ObaStopResponse>();
+        for (String id : ids) {
+            if (budget[0] == 0 || regionChanged(regionId)) {
+                complete = false;
+                break;
+            }
+            budget[0]--;
+            ObaStopResponse response = ObaStopRequest.newRequest(context, id).call();
+            if (response.getCode() == ObaApi.OBA_OK) {
+                batch.add(response);
+                if (batch.size() == WRITE_BATCH_SIZE) {
+                    index.putStops(regionId, batch);
+                    batch.clear();
+                }
+            } else if (isNetworkError(response.getCode())) {
+                complete = false;
+                break;
+            }
+        }
+        index.putStops(regionId, batch);
+        index.setComplete(regionId, SearchIndex.TYPE_STOP, complete);
+        return complete;
+    }
+
+    private static boolean isNetworkError(int code) {
+        return code == 0 || code == ObaApi.OBA_IO_EXCEPTION
+                || code >= ObaApi.OBA_INTERNAL_ERROR;
+    }
+
+    /**
+     * Requests go to the current region, so results are only valid while it's the region being
+     * indexed
+     */
+    private static boolean regionChanged(long regionId) {
+        ObaRegion region = Application.get().getCurrentRegion();
+        return region == null || region.getId() != regionId;
+    }
+}
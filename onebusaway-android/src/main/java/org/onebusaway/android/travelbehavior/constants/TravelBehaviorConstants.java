@@ -33,14 +33,8 @@ public class TravelBehaviorConstants {
 
     public static final String RECOGNITION_REQUEST_CODE = "tbRecognitionRequestCode";
 
-    public static final String TRIP_PLAN_COUNTER = "tripPlanCounter";
-
-    public static final String ARRIVAL_LIST_COUNTER = "arrivalCounter";
-
     public static final String DEVICE_INFO_HASH = "deviceInfoHash";
 
-    public static final String DESTINATION_REMINDER_COUNTER = "destinationReminderCounter";
-
     public static final String FIREBASE_ACTIVITY_TRANSITION_FOLDER = "activity-transitions";
 
     public static final String FIREBASE_ARRIVAL_AND_DEPARTURE_FOLDER = "arrival-and-departures";
@@ -57,12 +51,22 @@ public class TravelBehaviorConstants {
 
     public static final String LOCAL_DESTINATION_REMINDER_FOLDER = "destination-reminders";
 
+    public static final String LOCAL_LOCATION_FOLDER = "locations";
+
     private static final long MOST_RECENT_DATA_THRESHOLD_MINUTES = 30;
 
     public static final long MOST_RECENT_DATA_THRESHOLD_MILLIS = TimeUnit.MINUTES.toMillis(MOST_RECENT_DATA_THRESHOLD_MINUTES);
 
     public static final long MOST_RECENT_DATA_THRESHOLD_NANO = TimeUnit.MINUTES.toNanos(MOST_RECENT_DATA_THRESHOLD_MINUTES);
 
+    public static final int UPLOAD_BATCH_RECORDS = 25;
+
+    public static final int UPLOAD_BATCH_CHARS = 512 * 1024;
+
+    public static final int LOCATION_UPLOAD_BATCH_SIZE = 50;
+
+    public static final long LOCATION_UPLOAD_WINDOW_MINUTES = 15;
+
     public static final String USER_OPT_IN = "travelBehaviorUserOptIn";
 
     public static final String USER_OPT_OUT = "travelBehaviorUserOptOut";
@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.travelbehavior.io;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import org.onebusaway.android.travelbehavior.constants.TravelBehaviorConstants;
+import org.onebusaway.android.travelbehavior.model.TravelBehaviorInfo;
+import org.onebusaway.android.travelbehavior.utils.TravelBehaviorUtils;
+import org.onebusaway.android.util.LocationUtils;
+
+import android.content.Context;
+import android.location.Location;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the location fixes requested after an activity transition so they can be uploaded
+ * together, instead of one Firestore write (and radio wakeup) per fix.  Fixes are kept in a
+ * {@link TravelBehaviorLog} so they survive the process being killed before they're uploaded.
+ */
+public class LocationBuffer {
+
+    private static final String TAG = "LocationBuffer";
+
+    /**
+     * Failed writes before the fixes for a record are given up on, e.g. if the record no longer
+     * exists
+     */
+    public static final int MAX_UPLOAD_ATTEMPTS = 5;
+
+    /**
+     * Uploads the locations for a record
+     */
+    public interface Writer {
+
+        void write(String userId, String recordId, List<Map> locations) throws Exception;
+    }
+
+    private static LocationBuffer sInstance;
+
+    private final TravelBehaviorLog mLog;
+
+    private final Gson mGson = new Gson();
+
+    // Held while flushing, so only one upload reads the log at a time
+    private final Object mFlushLock = new Object();
+
+    private Location mLastLocation;
+
+    private int mPendingCount;
+
+    public static synchronized LocationBuffer getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new LocationBuffer(TravelBehaviorLog.getInstance(context,
+                    TravelBehaviorConstants.LOCAL_LOCATION_FOLDER));
+        }
+        return sInstance;
+    }
+
+    public LocationBuffer(TravelBehaviorLog log) {
+        mLog = log;
+    }
+
+    /**
+     * Adds a location fix to the buffer, unless it's a duplicate of the last one added (e.g., the
+     * same fix delivered by more than one provider)
+     *
+     * @return true if the fix was added, false if it was a duplicate
+     */
+    public synchronized boolean add(Location location, String userId, String recordId)
+            throws IOException {
+        if (mLastLocation != null && LocationUtils.isDuplicate(mLastLocation, location)) {
+            return false;
+        }
+        mLog.append(mGson.toJson(new BufferedLocation(userId, recordId,
+                new TravelBehaviorInfo.LocationInfo(location))));
+        mLastLocation = location;
+        mPendingCount++;
+        return true;
+    }
+
+    /**
+     * @return the number of fixes added since the last successful flush by this process
+     */
+    public synchronized int getPendingCount() {
+        return mPendingCount;
+    }
+
+    /**
+     * Uploads the buffered fixes, with one write per record for each batch read from the log.
+     * A failed write only holds back the fixes for that record - they're kept for the next
+     * flush, and dropped after {@link #MAX_UPLOAD_ATTEMPTS} failures, while the fixes for other
+     * records are uploaded and removed.
+     *
+     * @return the number of fixes uploaded
+     * @throws Exception the last write failure, once every record has been tried
+     */
+    public int flush(Writer writer) throws Exception {
+        synchronized (mFlushLock) {
+            TravelBehaviorLog.Reader reader = mLog.openReader();
+            int count = 0;
+            int dropped = 0;
+            Exception failure = null;
+            try {
+                List<String> records;
+                while (!(records = reader.nextBatch(
+                        TravelBehaviorConstants.LOCATION_UPLOAD_BATCH_SIZE,
+                        TravelBehaviorConstants.UPLOAD_BATCH_CHARS)).isEmpty()) {
+                    // Group by record, keeping the fixes in the order they were received
+                    Map<String, List<BufferedLocation>> groups = new LinkedHashMap<>();
+                    for (String record : records) {
+                        BufferedLocation location;
+                        try {
+                            location = mGson.fromJson(record, BufferedLocation.class);
+                        } catch (JsonParseException e) {
+                            Log.e(TAG, e.toString());
+                            continue;
+                        }
+                        String key = location.userId + "/" + location.recordId;
+                        List<BufferedLocation> group = groups.get(key);
+                        if (group == null) {
+                            group = new ArrayList<>();
+                            groups.put(key, group);
+                        }
+                        group.add(location);
+                    }
+                    for (List<BufferedLocation> group : groups.values()) {
+                        List<Map> locations = new ArrayList<>(group.size());
+                        for (BufferedLocation location : group) {
+                            locations.add(TravelBehaviorUtils
+                                    .getLocationMapByLocationInfo(location.location));
+                        }
+                        try {
+                            writer.write(group.get(0).userId, group.get(0).recordId, locations);
+                            count += locations.size();
+                        } catch (Exception e) {
+                            failure = e;
+                            dropped += requeue(group, e);
+                        }
+                    }
+                }
+                // Fixes put back by requeue() are in a new segment, which this doesn't remove
+                reader.delete();
+            } finally {
+                reader.close();
+                synchronized (this) {
+                    mPendingCount = Math.max(0, mPendingCount - count - dropped);
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Puts the fixes for a record that failed to upload back in the log, unless they've failed
+     * too many times
+     *
+     * @return the number of fixes dropped
+     */
+    private int requeue(List<BufferedLocation> group, Exception e) throws IOException {
+        BufferedLocation first = group.get(0);
+        // New fixes for the record share the attempts of older ones that are still waiting
+        int attempts = 0;
+        for (BufferedLocation location : group) {
+            attempts = Math.max(attempts, location.attempts);
+        }
+        attempts++;
+        if (attempts >= MAX_UPLOAD_ATTEMPTS) {
+            Log.e(TAG, "Dropping " + group.size() + " locations for " + first.userId + "/"
+                    + first.recordId + " after " + MAX_UPLOAD_ATTEMPTS + " attempts: " + e);
+            return group.size();
+        }
+        Log.e(TAG, "Location upload failed for " + first.userId + "/" + first.recordId + ": "
+                + e);
+        for (BufferedLocation location : group) {
+            location.attempts = attempts;
+            mLog.append(mGson.toJson(location));
+        }
+        return 0;
+    }
+
+    private static class BufferedLocation {
+
+        String userId;
+
+        String recordId;
+
+        TravelBehaviorInfo.LocationInfo location;
+
+        // Failed uploads so far
+        int attempts;
+
+        BufferedLocation(String userId, String recordId,
+                TravelBehaviorInfo.LocationInfo location) {
+            this.userId = userId;
+            this.recordId = recordId;
+            this.location = location;
+        }
+    }
+}
@@ -0,0 +1,388 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.travelbehavior.io;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * An append-only log of travel behavior events waiting to be uploaded, stored as a series of
+ * segment files in one directory.  Each record is the length and CRC32 of the deflated event
+ * JSON, followed by the deflated JSON.  Records are appended to the newest segment until it
+ * reaches SEGMENT_SIZE, and then a new segment is started.
+ *
+ * If the app is killed during an append, the partial record at the end of the newest segment
+ * fails its length or checksum, and is cut off the next time the log is opened.  Readers stop at
+ * the first record that doesn't check out.
+ *
+ * Older versions stored each event in its own JSON file in the same directory.  Any of those
+ * still waiting to be uploaded are appended to the log when it's opened, and then deleted.
+ *
+ * Only one instance should be used for each directory, via getInstance().
+ */
+public class TravelBehaviorLog {
+
+    private static final String TAG = "TravelBehaviorLog";
+
+    /**
+     * The size a segment can grow to before a new one is started, in bytes
+     */
+    public static final int SEGMENT_SIZE = 256 * 1024;
+
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private static final String LEGACY_SUFFIX = ".json";
+
+    // Length and CRC32
+    private static final int HEADER_SIZE = 8;
+
+    // Far larger than any real record, so a corrupt length is never allocated
+    private static final int MAX_RECORD_SIZE = 16 * 1024 * 1024;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final Map<String, TravelBehaviorLog> sLogs = new HashMap<>();
+
+    private final File mDirectory;
+
+    private final Deflater mDeflater = new Deflater();
+
+    // Segment being appended to, or null if the next append starts a new one
+    private File mActiveSegment;
+
+    private long mActiveSize;
+
+    private long mNextSequence;
+
+    private boolean mOpened;
+
+    /**
+     * Returns the log in the given folder of the app's files directory
+     */
+    public static synchronized TravelBehaviorLog getInstance(Context context, String folder) {
+        TravelBehaviorLog log = sLogs.get(folder);
+        if (log == null) {
+            log = new TravelBehaviorLog(new File(context.getFilesDir(), folder));
+            sLogs.put(folder, log);
+        }
+        return log;
+    }
+
+    /**
+     * Creates a log in the given directory.  Use getInstance() for the app's logs.
+     */
+    public TravelBehaviorLog(File directory) {
+        mDirectory = directory;
+    }
+
+    /**
+     * Appends a record to the log
+     *
+     * @param json the event, as JSON
+     */
+    public synchronized void append(String json) throws IOException {
+        open();
+        appendRecord(json);
+    }
+
+    private void appendRecord(String json) throws IOException {
+        if (mActiveSegment == null || mActiveSize >= SEGMENT_SIZE) {
+            mActiveSegment = new File(mDirectory,
+                    String.format(Locale.US, "%012d", mNextSequence++) + SEGMENT_SUFFIX);
+            mActiveSize = 0;
+        }
+
+        byte[] payload = deflate(json.getBytes(UTF_8));
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        record.putInt(payload.length);
+        record.putInt((int) crc.getValue());
+        record.put(payload);
+
+        // Written with a single call, so a crash can only leave a partial record at the end
+        FileOutputStream out = new FileOutputStream(mActiveSegment, true);
+        try {
+            out.write(record.array());
+        } finally {
+            out.close();
+        }
+        mActiveSize += record.capacity();
+    }
+
+    /**
+     * Starts a reader of the records in the log.  Records appended while the reader is open go to
+     * a new segment, which the reader won't return or delete.
+     */
+    public synchronized Reader openReader() throws IOException {
+        open();
+        mActiveSegment = null;
+        return new Reader(getSegments());
+    }
+
+    /**
+     * Finds the newest segment and cuts off any partial record at its end, then moves any events
+     * saved by older versions into the log
+     */
+    private void open() throws IOException {
+        if (mOpened) {
+            return;
+        }
+        if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+            throw new IOException("Couldn't create " + mDirectory);
+        }
+
+        File[] segments = getSegments();
+        if (segments.length > 0) {
+            File last = segments[segments.length - 1];
+            long validLength = getValidLength(last);
+            if (validLength < last.length()) {
+                Log.w(TAG, "Truncating " + last + " from " + last.length() + " to "
+                        + validLength + " bytes");
+                RandomAccessFile file = new RandomAccessFile(last, "rw");
+                try {
+                    file.setLength(validLength);
+                } finally {
+                    file.close();
+                }
+            }
+            mActiveSegment = last;
+            mActiveSize = validLength;
+            mNextSequence = getSequence(last) + 1;
+        }
+        mOpened = true;
+        migrateLegacyFiles();
+    }
+
+    /**
+     * Appends the events that older versions saved one per file, oldest first, deleting each file
+     * once it's in the log
+     */
+    private void migrateLegacyFiles() throws IOException {
+        File[] files = mDirectory.listFiles((dir, name) -> name.endsWith(LEGACY_SUFFIX));
+        if (files == null || files.length == 0) {
+            return;
+        }
+        // Files are named "<counter>-<date>.json"
+        Arrays.sort(files, (a, b) -> Long.compare(getLegacyCounter(a), getLegacyCounter(b)));
+        for (File file : files) {
+            String json = FileUtils.readFileToString(file, UTF_8);
+            if (!json.trim().isEmpty()) {
+                appendRecord(json);
+            }
+            if (!file.delete()) {
+                Log.w(TAG, "Couldn't delete " + file);
+            }
+        }
+        Log.d(TAG, "Moved " + files.length + " events from older versions into " + mDirectory);
+    }
+
+    private static long getLegacyCounter(File file) {
+        String name = file.getName();
+        int end = name.indexOf('-');
+        try {
+            return Long.parseLong(end > 0 ? name.substring(0, end) : name);
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private File[] getSegments() {
+        File[] segments = mDirectory.listFiles((dir, name) -> name.endsWith(SEGMENT_SUFFIX));
+        if (segments == null) {
+            return new File[0];
+        }
+        // Names are zero-padded sequence numbers, so this is oldest first
+        Arrays.sort(segments);
+        return segments;
+    }
+
+    private static long getSequence(File segment) {
+        String name = segment.getName();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * @return the length of the complete, valid records at the start of the segment
+     */
+    private static long getValidLength(File segment) throws IOException {
+        DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(segment)));
+        long length = 0;
+        try {
+            byte[] payload;
+            while ((payload = readPayload(in)) != null) {
+                length += HEADER_SIZE + payload.length;
+            }
+        } finally {
+            in.close();
+        }
+        return length;
+    }
+
+    /**
+     * @return the payload of the next record, or null at the end of the segment or if the next
+     * record is incomplete or corrupt
+     */
+    private static byte[] readPayload(DataInputStream in) throws IOException {
+        try {
+            int length = in.readInt();
+            int checksum = in.readInt();
+            if (length < 0 || length > MAX_RECORD_SIZE) {
+                return null;
+            }
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            return (int) crc.getValue() == checksum ? payload : null;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private byte[] deflate(byte[] data) {
+        mDeflater.reset();
+        mDeflater.setInput(data);
+        mDeflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        byte[] buffer = new byte[4096];
+        while (!mDeflater.finished()) {
+            out.write(buffer, 0, mDeflater.deflate(buffer));
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Streams the records in the segments that existed when it was opened, oldest first
+     */
+    public static final class Reader implements Closeable {
+
+        private final File[] mSegments;
+
+        private final Inflater mInflater = new Inflater();
+
+        private int mSegment = -1;
+
+        private DataInputStream mIn;
+
+        // Record read by nextBatch() that didn't fit in the batch
+        private String mPending;
+
+        Reader(File[] segments) {
+            mSegments = segments;
+        }
+
+        /**
+         * @return the next record, or null if there are no more
+         */
+        public String next() throws IOException {
+            while (true) {
+                if (mIn == null) {
+                    if (++mSegment >= mSegments.length) {
+                        return null;
+                    }
+                    mIn = new DataInputStream(
+                            new BufferedInputStream(new FileInputStream(mSegments[mSegment])));
+                }
+                byte[] payload = readPayload(mIn);
+                if (payload != null) {
+                    mInflater.reset();
+                    return new String(IOUtils.toByteArray(new InflaterInputStream(
+                            new ByteArrayInputStream(payload), mInflater)), UTF_8);
+                }
+                mIn.close();
+                mIn = null;
+            }
+        }
+
+        /**
+         * Returns the next records, up to maxRecords records or maxChars characters (but always
+         * at least one record if there are any left)
+         *
+         * @return the next records, which is empty if there are no more
+         */
+        public List<String> nextBatch(int maxRecords, int maxChars) throws IOException {
+            List<String> batch = new ArrayList<>();
+            int chars = 0;
+            String record = mPending != null ? mPending : next();
+            mPending = null;
+            while (record != null) {
+                if (!batch.isEmpty() && chars + record.length() > maxChars) {
+                    mPending = record;
+                    break;
+                }
+                batch.add(record);
+                chars += record.length();
+                if (batch.size() == maxRecords) {
+                    break;
+                }
+                record = next();
+            }
+            return batch;
+        }
+
+        /**
+         * Deletes the segments the reader was opened with, once their records are uploaded
+         */
+        public void delete() {
+            close();
+            for (File segment : mSegments) {
+                if (!segment.delete()) {
+                    Log.w(TAG, "Couldn't delete " + segment);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            IOUtils.closeQuietly(mIn);
+            mIn = null;
+            mInflater.end();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.travelbehavior.io.task;
+
+import org.onebusaway.android.travelbehavior.constants.TravelBehaviorConstants;
+import org.onebusaway.android.travelbehavior.io.LocationBuffer;
+import org.onebusaway.android.travelbehavior.io.worker.LocationUploadWorker;
+
+import android.content.Context;
+import android.location.Location;
+import android.util.Log;
+
+import java.io.IOException;
+
+public class LocationSaverTask implements Runnable {
+
+    private static final String TAG = "TravelBehaviorLocation";
+
+    private Location mLocation;
+
+    private String mUserId;
+
+    private String mRecordId;
+
+    private Context mApplicationContext;
+
+    public LocationSaverTask(Location location, String userId, String recordId,
+            Context applicationContext) {
+        mLocation = location;
+        mUserId = userId;
+        mRecordId = recordId;
+        mApplicationContext = applicationContext;
+    }
+
+    @Override
+    public void run() {
+        LocationBuffer buffer = LocationBuffer.getInstance(mApplicationContext);
+        try {
+            if (!buffer.add(mLocation, mUserId, mRecordId)) {
+                Log.d(TAG, "Skipping duplicate location from " + mLocation.getProvider());
+                return;
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "File write failed: " + e.toString());
+            return;
+        }
+        // Upload once a full batch is buffered, otherwise at the end of the upload window
+        LocationUploadWorker.schedule(buffer.getPendingCount() ==
+                TravelBehaviorConstants.LOCATION_UPLOAD_BATCH_SIZE);
+    }
+}
@@ -16,24 +16,19 @@
 package org.onebusaway.android.travelbehavior.io.worker;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
 
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.filefilter.TrueFileFilter;
-import org.onebusaway.android.app.Application;
 import org.onebusaway.android.travelbehavior.constants.TravelBehaviorConstants;
+import org.onebusaway.android.travelbehavior.io.TravelBehaviorLog;
 import org.onebusaway.android.travelbehavior.model.ArrivalAndDepartureData;
 import org.onebusaway.android.travelbehavior.model.ArrivalAndDepartureInfo;
 import org.onebusaway.android.travelbehavior.utils.TravelBehaviorFirebaseIOUtils;
+import org.onebusaway.android.travelbehavior.utils.TravelBehaviorUtils;
 
 import android.content.Context;
-import android.os.Build;
-import android.os.SystemClock;
 import android.util.Log;
 
-import java.io.File;
-import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 
 import androidx.annotation.NonNull;
@@ -56,50 +51,46 @@ public class ArrivalsAndDeparturesDataReaderWorker extends Worker {
     }
 
     private void readAndPostArrivalsAndDeparturesData() {
+        TravelBehaviorLog.Reader reader = null;
         try {
-            File subFolder = new File(Application.get().getApplicationContext()
-                    .getFilesDir().getAbsolutePath() + File.separator +
-                    TravelBehaviorConstants.LOCAL_ARRIVAL_AND_DEPARTURE_FOLDER);
-
-            // If the directory does not exist do not read
-            if (subFolder == null || !subFolder.isDirectory()) return;
-
-            Collection<File> files = FileUtils.listFiles(subFolder, TrueFileFilter.INSTANCE,
-                    TrueFileFilter.INSTANCE);
-            if (files != null && !files.isEmpty()) {
+            reader = TravelBehaviorLog.getInstance(getApplicationContext(),
+                    TravelBehaviorConstants.LOCAL_ARRIVAL_AND_DEPARTURE_FOLDER).openReader();
+
+            String uid = getInputData().getString(TravelBehaviorConstants.USER_ID);
+            String recordId = getInputData().getString(TravelBehaviorConstants.RECORD_ID);
+
+            // Stream the log in bounded batches so a long offline period doesn't have to fit in
+            // memory, or in a single upload, all at once
+            Gson gson = new Gson();
+            int batch = 0;
+            List<String> records;
+            while (!(records = reader.nextBatch(TravelBehaviorConstants.UPLOAD_BATCH_RECORDS,
+                    TravelBehaviorConstants.UPLOAD_BATCH_CHARS)).isEmpty()) {
                 List<ArrivalAndDepartureData> l = new ArrayList<>();
-                Gson gson = new Gson();
-                for (File f : files) {
+                for (String record : records) {
                     try {
-                        String jsonStr = FileUtils.readFileToString(f);
-                        ArrivalAndDepartureData data =
-                                gson.fromJson(jsonStr, ArrivalAndDepartureData.class);
-
-                        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
-                            if (SystemClock.elapsedRealtimeNanos() -  data.getLocalElapsedRealtimeNanos() <
-                                    TravelBehaviorConstants.MOST_RECENT_DATA_THRESHOLD_NANO) {
-                                l.add(data);
-                            }
-                        } else {
-                            if (System.currentTimeMillis() -  data.getLocalSystemCurrMillis() <
-                                    TravelBehaviorConstants.MOST_RECENT_DATA_THRESHOLD_MILLIS) {
-                                l.add(data);
-                            }
+                        ArrivalAndDepartureData data = gson.fromJson(record, ArrivalAndDepartureData.class);
+                        if (TravelBehaviorUtils.isRecentData(data.getLocalElapsedRealtimeNanos(),
+                                data.getLocalSystemCurrMillis())) {
+                            l.add(data);
                         }
-                    } catch (IOException e) {
+                    } catch (JsonParseException e) {
                         Log.e(TAG, e.toString());
                     }
                 }
-
-                FileUtils.cleanDirectory(subFolder);
-
-                String uid = getInputData().getString(TravelBehaviorConstants.USER_ID);
-                String recordId = getInputData().getString(TravelBehaviorConstants.RECORD_ID);
-
-                TravelBehaviorFirebaseIOUtils.saveArrivalsAndDepartures(l, uid, recordId);
+                if (!l.isEmpty()) {
+                    TravelBehaviorFirebaseIOUtils.saveArrivalsAndDepartures(l, uid,
+                            TravelBehaviorUtils.getBatchRecordId(recordId, batch++));
+                }
             }
+
+            reader.delete();
         } catch (Exception e) {
             Log.e(TAG, e.toString());
+        } finally {
+            if (reader != null) {
+                reader.close();
+            }
         }
     }
 }
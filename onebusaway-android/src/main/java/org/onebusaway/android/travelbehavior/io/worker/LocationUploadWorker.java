@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.travelbehavior.io.worker;
+
+import com.google.android.gms.tasks.Tasks;
+
+import org.onebusaway.android.travelbehavior.constants.TravelBehaviorConstants;
+import org.onebusaway.android.travelbehavior.io.LocationBuffer;
+import org.onebusaway.android.travelbehavior.utils.TravelBehaviorFirebaseIOUtils;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+/**
+ * Uploads the location fixes collected by {@link LocationBuffer}
+ */
+public class LocationUploadWorker extends Worker {
+
+    private static final String TAG = "LocationUploadWorker";
+
+    private static final String WORK_NAME = "travel_behavior_location_upload";
+
+    // Kept apart from the delayed upload, so a full buffer doesn't wait for the upload window
+    private static final String IMMEDIATE_WORK_NAME = "travel_behavior_location_upload_now";
+
+    // Retries before the worker gives up - the fixes stay buffered for the next upload
+    private static final int MAX_ATTEMPTS = LocationBuffer.MAX_UPLOAD_ATTEMPTS;
+
+    public LocationUploadWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    /**
+     * Schedules an upload of the buffered fixes.  Fixes received within the upload window share
+     * one upload - if one is already scheduled or running it's kept, so an upload in progress is
+     * never cancelled.  Fixes that arrive while an upload is running are left for the next one.
+     *
+     * @param immediate true to upload as soon as there's a network connection (e.g., because
+     *                  enough fixes have been buffered), false to wait for the upload window
+     */
+    public static void schedule(boolean immediate) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .build();
+        OneTimeWorkRequest.Builder builder = new OneTimeWorkRequest.Builder(
+                LocationUploadWorker.class)
+                .setConstraints(constraints);
+        if (!immediate) {
+            builder.setInitialDelay(TravelBehaviorConstants.LOCATION_UPLOAD_WINDOW_MINUTES,
+                    TimeUnit.MINUTES);
+        }
+        WorkManager.getInstance().enqueueUniqueWork(immediate ? IMMEDIATE_WORK_NAME : WORK_NAME,
+                ExistingWorkPolicy.KEEP, builder.build());
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        LocationBuffer buffer = LocationBuffer.getInstance(getApplicationContext());
+        try {
+            int count = buffer.flush((userId, recordId, locations) ->
+                    Tasks.await(TravelBehaviorFirebaseIOUtils.saveLocations(locations, userId,
+                            recordId)));
+            Log.d(TAG, "Uploaded " + count + " locations");
+            return Result.success();
+        } catch (Exception e) {
+            // Only the fixes for the records that failed are left in the buffer
+            Log.e(TAG, "Location upload failed: " + e.toString());
+            return getRunAttemptCount() + 1 < MAX_ATTEMPTS ? Result.retry() : Result.failure();
+        }
+    }
+}
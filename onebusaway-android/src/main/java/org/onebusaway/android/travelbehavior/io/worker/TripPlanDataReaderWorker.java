@@ -16,23 +16,18 @@
 package org.onebusaway.android.travelbehavior.io.worker;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
 
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.filefilter.TrueFileFilter;
-import org.onebusaway.android.app.Application;
 import org.onebusaway.android.travelbehavior.constants.TravelBehaviorConstants;
+import org.onebusaway.android.travelbehavior.io.TravelBehaviorLog;
 import org.onebusaway.android.travelbehavior.model.TripPlanData;
 import org.onebusaway.android.travelbehavior.utils.TravelBehaviorFirebaseIOUtils;
+import org.onebusaway.android.travelbehavior.utils.TravelBehaviorUtils;
 
 import android.content.Context;
-import android.os.Build;
-import android.os.SystemClock;
 import android.util.Log;
 
-import java.io.File;
-import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 
 import androidx.annotation.NonNull;
@@ -55,48 +50,46 @@ public class TripPlanDataReaderWorker extends Worker {
     }
 
     private void readAndPostTripPlanData() {
+        TravelBehaviorLog.Reader reader = null;
         try {
-            File subFolder = new File(Application.get().getApplicationContext()
-                    .getFilesDir().getAbsolutePath() + File.separator +
-                    TravelBehaviorConstants.LOCAL_TRIP_PLAN_FOLDER);
+            reader = TravelBehaviorLog.getInstance(getApplicationContext(),
+                    TravelBehaviorConstants.LOCAL_TRIP_PLAN_FOLDER).openReader();
 
-            // If the directory does not exist do not read
-            if (subFolder == null || !subFolder.isDirectory()) return;
+            String uid = getInputData().getString(TravelBehaviorConstants.USER_ID);
+            String recordId = getInputData().getString(TravelBehaviorConstants.RECORD_ID);
 
-            Collection<File> files = FileUtils.listFiles(subFolder, TrueFileFilter.INSTANCE,
-                    TrueFileFilter.INSTANCE);
+            // Stream the log in bounded batches so a long offline period doesn't have to fit in
+            // memory, or in a single upload, all at once
             Gson gson = new Gson();
-            if (files != null && !files.isEmpty()) {
+            int batch = 0;
+            List<String> records;
+            while (!(records = reader.nextBatch(TravelBehaviorConstants.UPLOAD_BATCH_RECORDS,
+                    TravelBehaviorConstants.UPLOAD_BATCH_CHARS)).isEmpty()) {
                 List<TripPlanData> l = new ArrayList<>();
-                for (File f : files) {
+                for (String record : records) {
                     try {
-                        String jsonStr = FileUtils.readFileToString(f);
-                        TripPlanData tripPlanData = gson.fromJson(jsonStr, TripPlanData.class);
-                        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
-                            if (SystemClock.elapsedRealtimeNanos() -  tripPlanData.getLocalElapsedRealtimeNanos() <
-                                    TravelBehaviorConstants.MOST_RECENT_DATA_THRESHOLD_NANO) {
-                                l.add(tripPlanData);
-                            }
-                        } else {
-                            if (System.currentTimeMillis() -  tripPlanData.getLocalSystemCurrMillis() <
-                                    TravelBehaviorConstants.MOST_RECENT_DATA_THRESHOLD_MILLIS) {
-                                l.add(tripPlanData);
-                            }
+                        TripPlanData data = gson.fromJson(record, TripPlanData.class);
+                        if (TravelBehaviorUtils.isRecentData(data.getLocalElapsedRealtimeNanos(),
+                                data.getLocalSystemCurrMillis())) {
+                            l.add(data);
                         }
-                    } catch (IOException e) {
+                    } catch (JsonParseException e) {
                         Log.e(TAG, e.toString());
                     }
                 }
-
-                FileUtils.cleanDirectory(subFolder);
-
-                String uid = getInputData().getString(TravelBehaviorConstants.USER_ID);
-                String recordId = getInputData().getString(TravelBehaviorConstants.RECORD_ID);
-
-                TravelBehaviorFirebaseIOUtils.saveTripPlans(l, uid, recordId);
+                if (!l.isEmpty()) {
+                    TravelBehaviorFirebaseIOUtils.saveTripPlans(l, uid,
+                            TravelBehaviorUtils.getBatchRecordId(recordId, batch++));
+                }
             }
+
+            reader.delete();
         } catch (Exception e) {
             Log.e(TAG, e.toString());
+        } finally {
+            if (reader != null) {
+                reader.close();
+            }
         }
     }
 }
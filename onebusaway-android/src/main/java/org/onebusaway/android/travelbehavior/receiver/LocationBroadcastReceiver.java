@@ -16,7 +16,8 @@
 package org.onebusaway.android.travelbehavior.receiver;
 
 import org.onebusaway.android.travelbehavior.constants.TravelBehaviorConstants;
-import org.onebusaway.android.travelbehavior.utils.TravelBehaviorFirebaseIOUtils;
+import org.onebusaway.android.travelbehavior.io.TravelBehaviorFileSaverExecutorManager;
+import org.onebusaway.android.travelbehavior.io.task.LocationSaverTask;
 import org.onebusaway.android.util.PreferenceUtils;
 
 import android.content.BroadcastReceiver;
@@ -38,7 +39,9 @@ public class LocationBroadcastReceiver extends BroadcastReceiver {
             if (location != null) {
                 String recordId = intent.getStringExtra(TravelBehaviorConstants.RECORD_ID);
                 String uid = PreferenceUtils.getString(TravelBehaviorConstants.USER_ID);
-                TravelBehaviorFirebaseIOUtils.saveLocation(location, uid, recordId);
+                TravelBehaviorFileSaverExecutorManager.getInstance().runTask(
+                        new LocationSaverTask(location, uid, recordId,
+                                context.getApplicationContext()));
                 Log.d(TAG, "Location provider: " + location.getProvider());
             } else {
                 Log.d(TAG, "Location provider is null");
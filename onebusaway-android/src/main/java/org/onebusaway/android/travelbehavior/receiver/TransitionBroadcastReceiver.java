@@ -26,6 +26,8 @@ import com.google.firebase.firestore.DocumentReference;
 
 import org.onebusaway.android.app.Application;
 import org.onebusaway.android.travelbehavior.constants.TravelBehaviorConstants;
+import org.onebusaway.android.travelbehavior.io.TravelBehaviorFileSaverExecutorManager;
+import org.onebusaway.android.travelbehavior.io.task.LocationSaverTask;
 import org.onebusaway.android.travelbehavior.io.worker.ArrivalsAndDeparturesDataReaderWorker;
 import org.onebusaway.android.travelbehavior.io.worker.DestinationReminderReaderWorker;
 import org.onebusaway.android.travelbehavior.io.worker.TripPlanDataReaderWorker;
@@ -202,7 +204,9 @@ public class TransitionBroadcastReceiver extends BroadcastReceiver {
         FusedLocationProviderClient client = LocationServices.getFusedLocationProviderClient(mContext);
         client.getLastLocation().addOnSuccessListener(location -> {
             if (location != null) {
-                TravelBehaviorFirebaseIOUtils.saveLocation(location, mUid, mRecordId);
+                TravelBehaviorFileSaverExecutorManager.getInstance().runTask(
+                        new LocationSaverTask(location, mUid, mRecordId,
+                                mContext.getApplicationContext()));
             }
         });
     }
@@ -15,6 +15,7 @@
  */
 package org.onebusaway.android.travelbehavior.utils;
 
+import com.google.android.gms.tasks.Task;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
@@ -25,12 +26,10 @@ import org.onebusaway.android.travelbehavior.model.ArrivalAndDepartureInfo;
 import org.onebusaway.android.travelbehavior.model.DestinationReminderData;
 import org.onebusaway.android.travelbehavior.model.DestinationReminderInfo;
 import org.onebusaway.android.travelbehavior.model.DeviceInformation;
-import org.onebusaway.android.travelbehavior.model.TravelBehaviorInfo;
 import org.onebusaway.android.travelbehavior.model.TripPlanData;
 import org.onebusaway.android.travelbehavior.model.TripPlanInfo;
 import org.onebusaway.android.util.PreferenceUtils;
 
-import android.location.Location;
 import android.util.Log;
 
 import java.util.HashMap;
@@ -56,20 +55,22 @@ public class TravelBehaviorFirebaseIOUtils {
         return db.collection(path).document(recordId);
     }
 
-    public static void saveLocation(Location location, String userId, String recordId) {
-        TravelBehaviorInfo.LocationInfo locationInfo = new TravelBehaviorInfo.LocationInfo(location);
-        Map locationMap = TravelBehaviorUtils.getLocationMapByLocationInfo(locationInfo);
-
+    /**
+     * Adds the locations to the record's list in a single write
+     *
+     * @return the task for the write, so the caller can wait for it to finish
+     */
+    public static Task<Void> saveLocations(List<Map> locations, String userId, String recordId) {
         DocumentReference document = TravelBehaviorFirebaseIOUtils.
                 getFirebaseDocReferenceByUserIdAndRecordId(userId, recordId,
                         TravelBehaviorConstants.FIREBASE_ACTIVITY_TRANSITION_FOLDER);
-        document.update("locationInfoList", FieldValue.arrayUnion(locationMap)).
+        return document.update("locationInfoList", FieldValue.arrayUnion(locations.toArray())).
                 addOnCompleteListener(task -> {
                     if (task.isSuccessful()) {
-                        Log.d(TAG, "Location update saved with provider: " +
-                                location.getProvider());
+                        Log.d(TAG, locations.size() + " location updates saved with ID: " +
+                                document.getId());
                     } else {
-                        logErrorMessage(task.getException(), "Location update failed: ");
+                        logErrorMessage(task.getException(), "Location updates failed: ");
                     }
                 });
     }
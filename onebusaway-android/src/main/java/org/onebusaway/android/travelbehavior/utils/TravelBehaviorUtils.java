@@ -26,6 +26,8 @@ import org.onebusaway.android.travelbehavior.model.TravelBehaviorInfo;
 import org.onebusaway.android.util.PreferenceUtils;
 
 import android.content.Context;
+import android.os.Build;
+import android.os.SystemClock;
 import android.os.Vibrator;
 import android.widget.Toast;
 
@@ -100,6 +102,28 @@ public class TravelBehaviorUtils {
                 false);
     }
 
+    /**
+     * Returns true if the data was recorded recently enough to be uploaded, using the
+     * elapsed-realtime clock where available so that wall clock changes don't affect it
+     */
+    public static boolean isRecentData(Long localElapsedRealtimeNanos, Long localSystemCurrMillis) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1
+                && localElapsedRealtimeNanos != null) {
+            return SystemClock.elapsedRealtimeNanos() - localElapsedRealtimeNanos <
+                    TravelBehaviorConstants.MOST_RECENT_DATA_THRESHOLD_NANO;
+        }
+        return localSystemCurrMillis != null && System.currentTimeMillis() - localSystemCurrMillis <
+                TravelBehaviorConstants.MOST_RECENT_DATA_THRESHOLD_MILLIS;
+    }
+
+    /**
+     * Returns the record ID to upload the given batch under - the first batch keeps the record ID
+     * so a single batch is stored exactly as before, and later ones get a numbered suffix
+     */
+    public static String getBatchRecordId(String recordId, int batch) {
+        return batch == 0 ? recordId : recordId + "-" + batch;
+    }
+
     public static void showDebugToastMessageWithVibration(String message, Context context) {
         if (BuildConfig.DEBUG) {
             Toast.makeText(context, message, Toast.LENGTH_LONG).show();
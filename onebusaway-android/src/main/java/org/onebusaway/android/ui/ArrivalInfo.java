@@ -399,4 +399,47 @@ public final class ArrivalInfo {
     public Status getStatus() {
         return mStatus;
     }
+
+    /**
+     * Returns true if this arrival would be displayed the same as another - i.e., it's the same
+     * trip at the same stop, and everything shown about it is unchanged
+     *
+     * @param another arrival to compare to
+     * @return true if this arrival would be displayed the same as another
+     */
+    public boolean isSameContent(ArrivalInfo another) {
+        if (this == another) {
+            return true;
+        }
+        if (another == null) {
+            return false;
+        }
+        final ObaArrivalInfo info = another.mInfo;
+        return mEta == another.mEta
+                && mDisplayTime == another.mDisplayTime
+                && mColor == another.mColor
+                && mPredicted == another.mPredicted
+                && mIsArrival == another.mIsArrival
+                && mIsRouteAndHeadsignFavorite == another.mIsRouteAndHeadsignFavorite
+                && mHistoricalOccupancy == another.mHistoricalOccupancy
+                && mPredictedOccupancy == another.mPredictedOccupancy
+                && mStatus == another.mStatus
+                && equal(mStatusText, another.mStatusText)
+                && equal(mTimeText, another.mTimeText)
+                && equal(mNotifyText, another.mNotifyText)
+                && mInfo.getServiceDate() == info.getServiceDate()
+                && mInfo.getStopSequence() == info.getStopSequence()
+                && mInfo.getLastUpdateTime() == info.getLastUpdateTime()
+                && equal(mInfo.getTripId(), info.getTripId())
+                && equal(mInfo.getStopId(), info.getStopId())
+                && equal(mInfo.getRouteId(), info.getRouteId())
+                && equal(mInfo.getShortName(), info.getShortName())
+                && equal(mInfo.getRouteLongName(), info.getRouteLongName())
+                && equal(mInfo.getHeadsign(), info.getHeadsign())
+                && equal(mInfo.getVehicleId(), info.getVehicleId());
+    }
+
+    private static boolean equal(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
 }
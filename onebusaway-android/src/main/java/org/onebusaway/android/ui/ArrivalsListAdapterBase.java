@@ -20,26 +20,169 @@ import org.onebusaway.android.util.ArrayAdapter;
 
 import android.content.ContentQueryMap;
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewGroup;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 /**
  * Base adapter class for the various styles of arrivals lists
  *
+ * Rows can be built off the main thread with {@link #setDataAsync(ObaArrivalInfo[], ArrayList,
+ * long)}.  When the new rows are applied, the list isn't refreshed at all if nothing changed,
+ * and only rows whose content changed are rebound.
+ *
  * @author barbeau
  */
 public abstract class ArrivalsListAdapterBase<T> extends ArrayAdapter<T> {
 
+    private static final String TAG = "ArrivalsListAdapterBase";
+
+    // Builds rows in the order they were requested, so older data never replaces newer data
+    private static final Executor sBuildExecutor = Executors.newSingleThreadExecutor();
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
     protected ContentQueryMap mTripsForStop;
 
+    // Incremented for each new set of data, so results from older builds are dropped
+    private volatile int mDataGeneration;
+
+    // Incremented when something other than the rows changes how rows are displayed
+    private int mBindGeneration;
+
     public ArrivalsListAdapterBase(Context context, int layout) {
         super(context, layout);
     }
 
     public void setTripsForStop(ContentQueryMap tripsForStop) {
         mTripsForStop = tripsForStop;
+        mBindGeneration++;
         notifyDataSetChanged();
     }
 
-    abstract public void setData(ObaArrivalInfo[] arrivals, ArrayList<String> routesFilter, long currentTime);
+    /**
+     * Sets the data to be used with the adapter, building the rows on the calling thread
+     *
+     * @param routesFilter routeIds to filter for
+     * @param currentTime  current time in milliseconds
+     */
+    public void setData(ObaArrivalInfo[] arrivals, ArrayList<String> routesFilter,
+            long currentTime) {
+        mDataGeneration++;
+        applyData(buildData(arrivals, routesFilter, currentTime));
+    }
+
+    /**
+     * Sets the data to be used with the adapter, building the rows on a background thread.
+     * Must be called from the main thread; the adapter is updated on the main thread once the
+     * rows are built, unless newer data has been set in the meantime.
+     *
+     * @param routesFilter routeIds to filter for
+     * @param currentTime  current time in milliseconds
+     */
+    public void setDataAsync(final ObaArrivalInfo[] arrivals, ArrayList<String> routesFilter,
+            final long currentTime) {
+        final int generation = ++mDataGeneration;
+        final ArrayList<String> filter = routesFilter != null
+                ? new ArrayList<>(routesFilter) : null;
+        sBuildExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (generation != mDataGeneration) {
+                    // Already replaced
+                    return;
+                }
+                final List<T> data = buildData(arrivals, filter, currentTime);
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation == mDataGeneration) {
+                            applyData(data);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Builds the rows for the adapter.  May be called on any thread, so implementations must
+     * not touch views or mutable adapter state.
+     *
+     * @param arrivals     the arrivals, or null if there are none
+     * @param routesFilter routeIds to filter for
+     * @param currentTime  current time in milliseconds
+     * @return the rows, or null if there are none
+     */
+    protected abstract List<T> buildData(ObaArrivalInfo[] arrivals,
+            ArrayList<String> routesFilter, long currentTime);
+
+    /**
+     * @return true if the two rows would be displayed the same
+     */
+    protected abstract boolean isSameContent(T a, T b);
+
+    private void applyData(List<T> data) {
+        if (isUnchanged(data)) {
+            Log.d(TAG, "Arrivals unchanged, skipping refresh");
+            return;
+        }
+        setData(data);
+    }
+
+    private boolean isUnchanged(List<T> data) {
+        int count = data != null ? data.size() : 0;
+        if (count != getCount()) {
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            if (!isSameContent(getItem(i), data.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        T item = getItem(position);
+        if (convertView != null && convertView.getTag() instanceof BoundRow) {
+            BoundRow bound = (BoundRow) convertView.getTag();
+            if (bound.mBindGeneration == mBindGeneration && bound.mItem != null
+                    && isSameContent(getRowItem(bound), item)) {
+                // This view already shows this content
+                return convertView;
+            }
+        }
+        View view = super.getView(position, convertView, parent);
+        view.setTag(new BoundRow(item, mBindGeneration));
+        return view;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T getRowItem(BoundRow bound) {
+        return (T) bound.mItem;
+    }
+
+    /**
+     * The row a view was last bound to
+     */
+    private static final class BoundRow {
+
+        final Object mItem;
+
+        final int mBindGeneration;
+
+        BoundRow(Object item, int bindGeneration) {
+            mItem = item;
+            mBindGeneration = bindGeneration;
+        }
+    }
 }
@@ -36,6 +36,7 @@ import org.onebusaway.android.util.ArrivalInfoUtils;
 import org.onebusaway.android.util.UIUtils;
 
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Original style of arrivals for OBA Android
@@ -46,22 +47,19 @@ public class ArrivalsListAdapterStyleA extends ArrivalsListAdapterBase<ArrivalIn
         super(context, R.layout.arrivals_list_item);
     }
 
-    /**
-     * Sets the data to be used with the adapter
-     *
-     * @param routesFilter routeIds to filter for
-     * @param currentTime  current time in milliseconds
-     */
-    public void setData(ObaArrivalInfo[] arrivals, ArrayList<String> routesFilter,
-            long currentTime) {
-        if (arrivals != null) {
-            ArrayList<ArrivalInfo> list =
-                    ArrivalInfoUtils.convertObaArrivalInfo(getContext(),
-                            arrivals, routesFilter, currentTime, false);
-            setData(list);
-        } else {
-            setData(null);
+    @Override
+    protected List<ArrivalInfo> buildData(ObaArrivalInfo[] arrivals,
+            ArrayList<String> routesFilter, long currentTime) {
+        if (arrivals == null) {
+            return null;
         }
+        return ArrivalInfoUtils.convertObaArrivalInfo(getContext(), arrivals, routesFilter,
+                currentTime, false);
+    }
+
+    @Override
+    protected boolean isSameContent(ArrivalInfo a, ArrivalInfo b) {
+        return a.isSameContent(b);
     }
 
     @Override
@@ -54,6 +54,7 @@ import org.onebusaway.util.comparators.AlphanumComparator;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
 
 /**
  * Styles of arrival times used by York Region Transit
@@ -62,8 +63,6 @@ public class ArrivalsListAdapterStyleB extends ArrivalsListAdapterBase<CombinedA
 
     private static final String TAG = "ArrivalsListAdapStyleB";
 
-    AlphanumComparator mAlphanumComparator = new AlphanumComparator();
-
     ArrivalsListFragment mFragment;
 
     public ArrivalsListAdapterStyleB(Context context) {
@@ -74,67 +73,66 @@ public class ArrivalsListAdapterStyleB extends ArrivalsListAdapterBase<CombinedA
         mFragment = fragment;
     }
 
-    /**
-     * Sets the data to be used with the adapter
-     *
-     * @param routesFilter routeIds to filter for
-     * @param currentTime  current time in milliseconds
-     */
-    public void setData(ObaArrivalInfo[] arrivals, ArrayList<String> routesFilter,
-            long currentTime) {
-        if (arrivals != null) {
-            ArrayList<ArrivalInfo> list =
-                    ArrivalInfoUtils.convertObaArrivalInfo(getContext(),
-                            arrivals, routesFilter, currentTime, true);
-
-            // Sort list by route and headsign, in that order
-            Collections.sort(list, new Comparator<ArrivalInfo>() {
-                @Override
-                public int compare(ArrivalInfo s1, ArrivalInfo s2) {
-                    int routeCompare = mAlphanumComparator
-                            .compare(s1.getInfo().getRouteId(), s2.getInfo().getRouteId());
-                    if (routeCompare != 0) {
-                        return routeCompare;
-                    } else {
-                        // Compare headsigns when the route is the same
-                        return mAlphanumComparator
-                                .compare(s1.getInfo().getHeadsign(), s2.getInfo().getHeadsign());
-                    }
+    @Override
+    protected List<CombinedArrivalInfoStyleB> buildData(ObaArrivalInfo[] arrivals,
+            ArrayList<String> routesFilter, long currentTime) {
+        if (arrivals == null) {
+            return null;
+        }
+        ArrayList<ArrivalInfo> list =
+                ArrivalInfoUtils.convertObaArrivalInfo(getContext(),
+                        arrivals, routesFilter, currentTime, true);
+
+        // Sort list by route and headsign, in that order.  This may run on a background thread,
+        // so don't share the comparator.
+        final AlphanumComparator alphanumComparator = new AlphanumComparator();
+        Collections.sort(list, new Comparator<ArrivalInfo>() {
+            @Override
+            public int compare(ArrivalInfo s1, ArrivalInfo s2) {
+                int routeCompare = alphanumComparator
+                        .compare(s1.getInfo().getRouteId(), s2.getInfo().getRouteId());
+                if (routeCompare != 0) {
+                    return routeCompare;
+                } else {
+                    // Compare headsigns when the route is the same
+                    return alphanumComparator
+                            .compare(s1.getInfo().getHeadsign(), s2.getInfo().getHeadsign());
                 }
-            });
+            }
+        });
 
-            if (list.size() > 0) {
-                ArrayList<CombinedArrivalInfoStyleB> newList
-                        = new ArrayList<CombinedArrivalInfoStyleB>();
-                String currentRouteName = null;
-                String currentHeadsign = null;
-                CombinedArrivalInfoStyleB cArrivalInfo = new CombinedArrivalInfoStyleB();
-                for (int i = 0; i < list.size(); i++) {
-                    if (currentRouteName == null) {
-                        // Initialize fields
-                        currentRouteName = list.get(i).getInfo().getRouteId();
-                        currentHeadsign = list.get(i).getInfo().getHeadsign();
-                    } else {
-                        if (!currentRouteName.equals(list.get(i).getInfo().getRouteId()) ||
-                                !currentHeadsign.equals(list.get(i).getInfo().getHeadsign())) {
-                            // Create a new card
-                            newList.add(cArrivalInfo);
-                            cArrivalInfo = new CombinedArrivalInfoStyleB();
-                            currentRouteName = list.get(i).getInfo().getRouteId();
-                            currentHeadsign = list.get(i).getInfo().getHeadsign();
-                        }
-                    }
-                    cArrivalInfo.getArrivalInfoList().add(list.get(i));
-                }
-                if (!cArrivalInfo.getArrivalInfoList().isEmpty()) {
+        ArrayList<CombinedArrivalInfoStyleB> newList = new ArrayList<CombinedArrivalInfoStyleB>();
+        String currentRouteName = null;
+        String currentHeadsign = null;
+        CombinedArrivalInfoStyleB cArrivalInfo = new CombinedArrivalInfoStyleB();
+        for (int i = 0; i < list.size(); i++) {
+            if (currentRouteName == null) {
+                // Initialize fields
+                currentRouteName = list.get(i).getInfo().getRouteId();
+                currentHeadsign = list.get(i).getInfo().getHeadsign();
+            } else {
+                if (!currentRouteName.equals(list.get(i).getInfo().getRouteId()) ||
+                        !currentHeadsign.equals(list.get(i).getInfo().getHeadsign())) {
+                    // Create a new card
                     newList.add(cArrivalInfo);
-                    setData(newList);
-                    return;
+                    cArrivalInfo = new CombinedArrivalInfoStyleB();
+                    currentRouteName = list.get(i).getInfo().getRouteId();
+                    currentHeadsign = list.get(i).getInfo().getHeadsign();
                 }
             }
+            cArrivalInfo.getArrivalInfoList().add(list.get(i));
+        }
+        if (!cArrivalInfo.getArrivalInfoList().isEmpty()) {
+            newList.add(cArrivalInfo);
+            return newList;
         }
         // If we get this far, we don't have any data to use
-        setData(null);
+        return null;
+    }
+
+    @Override
+    protected boolean isSameContent(CombinedArrivalInfoStyleB a, CombinedArrivalInfoStyleB b) {
+        return a.isSameContent(b);
     }
 
     @Override
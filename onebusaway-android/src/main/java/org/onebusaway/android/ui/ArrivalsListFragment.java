@@ -32,7 +32,6 @@ import android.database.Cursor;
 import android.location.Location;
 import android.net.Uri;
 import android.os.Bundle;
-import android.os.Handler;
 import android.text.TextUtils;
 import android.util.Log;
 import android.view.LayoutInflater;
@@ -85,6 +84,7 @@ import org.onebusaway.android.util.EmbeddedSocialUtils;
 import org.onebusaway.android.util.FragmentUtils;
 import org.onebusaway.android.util.LocationUtils;
 import org.onebusaway.android.util.PreferenceUtils;
+import org.onebusaway.android.util.RefreshScheduler;
 import org.onebusaway.android.util.ShowcaseViewUtils;
 import org.onebusaway.android.util.UIUtils;
 
@@ -131,6 +131,10 @@ public class ArrivalsListFragment extends ListFragment
 
     private static final long RefreshPeriod = 60 * 1000;
 
+    // After this long without a good response, the offline schedule is shown instead of the
+    // last good response
+    private static final long STALE_RESPONSE_AGE = 10 * 60 * 1000;
+
     private static int TRIPS_FOR_STOP_LOADER = 1;
 
     private static int ARRIVALS_LIST_LOADER = 2;
@@ -165,6 +169,9 @@ public class ArrivalsListFragment extends ListFragment
 
     private boolean mFavorite = false;
 
+    // True while the offline schedule is shown instead of real-time arrivals
+    private boolean mShowingOfflineSchedule = false;
+
     private String mStopUserName;
 
     private TripsForStopCallback mTripsForStopCallback;
@@ -310,6 +317,8 @@ public class ArrivalsListFragment extends ListFragment
     public void onActivityCreated(Bundle savedInstanceState) {
         super.onActivityCreated(savedInstanceState);
 
+        mRefreshScheduler = new RefreshScheduler(getActivity(), RefreshPeriod, mRefresh);
+
         // Set the list view properties for Style B
         setListViewProperties(BuildFlavorUtils.getArrivalInfoStyleFromPreferences());
 
@@ -371,7 +380,7 @@ public class ArrivalsListFragment extends ListFragment
 
     @Override
     public void onPause() {
-        mRefreshHandler.removeCallbacks(mRefresh);
+        mRefreshScheduler.stop();
         if (mHeader != null) {
             mHeader.onPause();
         }
@@ -402,16 +411,7 @@ public class ArrivalsListFragment extends ListFragment
         getLoaderManager().restartLoader(TRIPS_FOR_STOP_LOADER, null, mTripsForStopCallback);
 
         // If our timer would have gone off, then refresh.
-        long lastResponseTime = getArrivalsLoader().getLastResponseTime();
-        long newPeriod = Math.min(RefreshPeriod, (lastResponseTime + RefreshPeriod)
-                - System.currentTimeMillis());
-        // Wait at least one second at least, and the full minute at most.
-        //Log.d(TAG, "Refresh period:" + newPeriod);
-        if (newPeriod <= 0) {
-            refresh();
-        } else {
-            mRefreshHandler.postDelayed(mRefresh, newPeriod);
-        }
+        mRefreshScheduler.start(getArrivalsLoader().getLastResponseTime());
 
         // Refresh the favorite status and stop name, in case we're returning from another view
         setUserInfo();
@@ -442,6 +442,7 @@ public class ArrivalsListFragment extends ListFragment
         ObaReferences refs = null;
 
         if (result.getCode() == ObaApi.OBA_OK) {
+            mShowingOfflineSchedule = false;
             if (mStop == null) {
                 mStop = result.getStop();
                 DBUtil.addToDB(mStop);
@@ -458,12 +459,27 @@ public class ArrivalsListFragment extends ListFragment
             Location myLocation = Application.getLastKnownLocation(getActivity(), null);
             ObaAnalytics.reportViewStopEvent(mFirebaseAnalytics, mStop.getId(), mStop.getName(), myLocation, stopLocation);
         } else {
-            // If there was a last good response, then this is a refresh
-            // and we should use a toast. Otherwise, it's a initial
-            // page load and we want to display the error in the empty text.
-            ObaArrivalInfoResponse lastGood =
-                    getArrivalsLoader().getLastGoodResponse();
-            if (lastGood != null) {
+            // If there was a recent good response, then this is a refresh
+            // and we should use a toast. Otherwise, show the offline schedule
+            // if there is one, or if it's a initial page load display the error
+            // in the empty text.
+            ArrivalsListLoader arrivalsLoader = getArrivalsLoader();
+            ObaArrivalInfoResponse lastGood = arrivalsLoader.getLastGoodResponse();
+            ObaArrivalInfo[] scheduled = arrivalsLoader.getScheduledArrivals();
+            boolean lastGoodIsStale = System.currentTimeMillis()
+                    - arrivalsLoader.getLastGoodResponseTime() > STALE_RESPONSE_AGE;
+            if (scheduled != null && (lastGood == null || lastGoodIsStale)) {
+                // Scheduled arrivals don't have predictions, so they're shown as scheduled.
+                // Only say so when switching to them, not on every failed refresh.
+                if (!mShowingOfflineSchedule) {
+                    Toast.makeText(getActivity(),
+                            R.string.stop_info_offline_schedule,
+                            Toast.LENGTH_LONG).show();
+                    mShowingOfflineSchedule = true;
+                }
+                info = scheduled;
+            } else if (lastGood != null) {
+                mShowingOfflineSchedule = false;
                 // Refresh error
                 Toast.makeText(getActivity(),
                         R.string.generic_comm_error_toast,
@@ -471,6 +487,7 @@ public class ArrivalsListFragment extends ListFragment
                 info = lastGood.getArrivalInfo();
                 situations = UIUtils.getAllSituations(lastGood, mRoutesFilter);
             } else {
+                mShowingOfflineSchedule = false;
                 setEmptyText(UIUtils.getStopErrorString(getActivity(), result.getCode()));
             }
         }
@@ -486,11 +503,14 @@ public class ArrivalsListFragment extends ListFragment
             }
         }
 
-        // Clear any pending refreshes
-        mRefreshHandler.removeCallbacks(mRefresh);
-
-        // Post an update
-        mRefreshHandler.postDelayed(mRefresh, RefreshPeriod);
+        // Post an update, sooner if a bus is about to arrive, and backing off if we can't reach
+        // the server
+        if (result.getCode() == ObaApi.OBA_OK) {
+            mRefreshScheduler.onSuccess(ArrivalInfoUtils.computeRefreshPeriod(info,
+                    result.getCurrentTime()));
+        } else {
+            mRefreshScheduler.onError(result.getCode());
+        }
 
         // If the user just tried to load more arrivals, determine if we
         // should show a Toast in the case where no additional arrivals were loaded
@@ -571,7 +591,13 @@ public class ArrivalsListFragment extends ListFragment
             // Reset the empty text just in case there is no data.
             setEmptyText(UIUtils.getNoArrivalsMessage(Application.get().getApplicationContext(),
                     minutesAfter, false, false));
-            mAdapter.setData(info, mRoutesFilter, System.currentTimeMillis());
+            if (mAdapter.isEmpty()) {
+                // Nothing is shown yet (e.g., the first load), so build the rows now rather than
+                // showing the empty text until a background build finishes
+                mAdapter.setData(info, mRoutesFilter, System.currentTimeMillis());
+            } else {
+                mAdapter.setDataAsync(info, mRoutesFilter, System.currentTimeMillis());
+            }
         }
 
         if (mHeader != null) {
@@ -1567,14 +1593,15 @@ public class ArrivalsListFragment extends ListFragment
                 // Nothing to refresh yet
                 return;
             }
-            mAdapter.setData(response.getArrivalInfo(), mRoutesFilter, System.currentTimeMillis());
+            mAdapter.setDataAsync(response.getArrivalInfo(), mRoutesFilter,
+                    System.currentTimeMillis());
         }
         if (mHeader != null) {
             mHeader.refresh();
         }
     }
 
-    private final Handler mRefreshHandler = new Handler();
+    private RefreshScheduler mRefreshScheduler;
 
     private final Runnable mRefresh = new Runnable() {
         public void run() {
@@ -16,11 +16,19 @@
  */
 package org.onebusaway.android.ui;
 
+import org.onebusaway.android.app.Application;
 import org.onebusaway.android.io.ObaApi;
+import org.onebusaway.android.io.elements.ObaArrivalInfo;
+import org.onebusaway.android.io.elements.ObaRegion;
 import org.onebusaway.android.io.request.ObaArrivalInfoRequest;
 import org.onebusaway.android.io.request.ObaArrivalInfoResponse;
+import org.onebusaway.android.io.request.RequestScheduler;
+import org.onebusaway.android.schedule.ScheduleCache;
 
 import android.content.Context;
+import android.text.format.DateUtils;
+
+import java.util.concurrent.Executor;
 
 import androidx.loader.content.AsyncTaskLoader;
 
@@ -35,6 +43,9 @@ public class ArrivalsListLoader extends AsyncTaskLoader<ObaArrivalInfoResponse>
 
     private long mLastGoodResponseTime = 0;
 
+    // Cached scheduled arrivals, if the last request failed
+    private ObaArrivalInfo[] mScheduledArrivals;
+
     // Shows vehicles arriving or departing in the next "mMinutesAfter" minutes
     private int mMinutesAfter = DEFAULT_MINUTES_AFTER;
 
@@ -55,7 +66,22 @@ public class ArrivalsListLoader extends AsyncTaskLoader<ObaArrivalInfoResponse>
                 mStopId, mMinutesAfter);
         // Cache the URL so we have a record of the request w/ params made to the server
         mUrl = obaArrivalInfoRequest.getUri().toString();
-        return obaArrivalInfoRequest.call();
+        ObaArrivalInfoResponse response = obaArrivalInfoRequest.call();
+
+        mScheduledArrivals = null;
+        ObaRegion region = Application.get().getCurrentRegion();
+        if (response.getCode() != ObaApi.OBA_OK && region != null) {
+            // Fall back to the offline schedule, if this stop has one
+            long now = System.currentTimeMillis();
+            mScheduledArrivals = ScheduleCache.getInstance(getContext()).getArrivals(
+                    region.getId(), mStopId, now, now + mMinutesAfter * DateUtils.MINUTE_IN_MILLIS);
+        }
+        return response;
+    }
+
+    @Override
+    protected Executor getExecutor() {
+        return RequestScheduler.getInstance().getExecutor(RequestScheduler.PRIORITY_FOREGROUND);
     }
 
     @Override
@@ -83,6 +109,14 @@ public class ArrivalsListLoader extends AsyncTaskLoader<ObaArrivalInfoResponse>
         return mLastGoodResponseTime;
     }
 
+    /**
+     * @return the scheduled arrivals from the offline schedule cache if the last request
+     * failed, or null if it didn't fail or the stop's schedule isn't cached
+     */
+    public ObaArrivalInfo[] getScheduledArrivals() {
+        return mScheduledArrivals;
+    }
+
     public void incrementMinutesAfter() {
         mMinutesAfter = mMinutesAfter + MINUTES_INCREMENT;
     }
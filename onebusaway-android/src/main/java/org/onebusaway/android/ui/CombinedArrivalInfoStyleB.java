@@ -28,4 +28,20 @@ final class CombinedArrivalInfoStyleB {
     public ArrayList<ArrivalInfo> getArrivalInfoList() {
         return mArrivalInfo;
     }
+
+    /**
+     * @return true if this card would be displayed the same as another
+     * @see ArrivalInfo#isSameContent(ArrivalInfo)
+     */
+    public boolean isSameContent(CombinedArrivalInfoStyleB another) {
+        if (another == null || mArrivalInfo.size() != another.mArrivalInfo.size()) {
+            return false;
+        }
+        for (int i = 0; i < mArrivalInfo.size(); i++) {
+            if (!mArrivalInfo.get(i).isSameContent(another.mArrivalInfo.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
@@ -18,6 +18,7 @@ import org.onebusaway.android.R;
 import org.onebusaway.android.app.Application;
 import org.onebusaway.android.io.ObaAnalytics;
 import org.onebusaway.android.nav.NavigationService;
+import org.onebusaway.android.nav.NavigationTraceWriter;
 import org.onebusaway.android.nav.NavigationUploadWorker;
 import org.onebusaway.android.util.PreferenceUtils;
 
@@ -159,6 +160,11 @@ public class FeedbackActivity extends AppCompatActivity {
                 FileUtils.moveFileToDirectory(
                         FileUtils.getFile(lFile),
                         FileUtils.getFile(destFolder), true);
+                // Older positions, if the trace was rotated
+                File rotated = NavigationTraceWriter.getRotatedFile(lFile);
+                if (rotated.exists()) {
+                    FileUtils.moveFileToDirectory(rotated, destFolder, true);
+                }
                 Log.d(TAG, "Move file successful.");
             } catch (Exception e) {
                 Log.e(TAG, "File move failed");
@@ -174,6 +180,7 @@ public class FeedbackActivity extends AppCompatActivity {
     private void deleteLog() {
         File lFile = new File(mLogFile);
         boolean deleted = lFile.delete();
+        NavigationTraceWriter.getRotatedFile(lFile).delete();
         Log.d(TAG, "Log deleted " + deleted);
     }
 
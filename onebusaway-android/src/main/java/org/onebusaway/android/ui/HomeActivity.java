@@ -79,6 +79,7 @@ import org.onebusaway.android.io.elements.ObaRegion;
 import org.onebusaway.android.io.elements.ObaRoute;
 import org.onebusaway.android.io.elements.ObaStop;
 import org.onebusaway.android.io.request.ObaArrivalInfoResponse;
+import org.onebusaway.android.io.request.RequestScheduler;
 import org.onebusaway.android.map.MapModeController;
 import org.onebusaway.android.map.MapParams;
 import org.onebusaway.android.map.googlemapsv2.BaseMapFragment;
@@ -1458,6 +1459,7 @@ public class HomeActivity extends AppCompatActivity
             ObaRegion r = RegionUtils.getRegionFromBuildFlavor();
             // Set the hard-coded region
             RegionUtils.saveToProvider(this, Collections.singletonList(r));
+            RegionUtils.saveToSnapshot(this, Collections.singletonList(r));
             Application.get().setCurrentRegion(r);
             // Disable any region auto-selection in preferences
             PreferenceUtils
@@ -1503,7 +1505,8 @@ public class HomeActivity extends AppCompatActivity
         callbacks.add(mMapFragment);
         callbacks.add(this);
         ObaRegionsTask task = new ObaRegionsTask(this, callbacks, forceReload, showProgressDialog);
-        task.execute();
+        task.executeOnExecutor(RequestScheduler.getInstance()
+                .getExecutor(RequestScheduler.PRIORITY_BACKGROUND));
     }
 
     //
@@ -18,10 +18,13 @@
 package org.onebusaway.android.ui;
 
 import org.onebusaway.android.R;
+import org.onebusaway.android.app.Application;
 import org.onebusaway.android.io.ObaApi;
+import org.onebusaway.android.io.elements.ObaRegion;
 import org.onebusaway.android.io.elements.ObaRoute;
 import org.onebusaway.android.io.request.ObaRoutesForLocationRequest;
 import org.onebusaway.android.io.request.ObaRoutesForLocationResponse;
+import org.onebusaway.android.search.SearchIndex;
 import org.onebusaway.android.util.ArrayAdapter;
 import org.onebusaway.android.util.LocationUtils;
 import org.onebusaway.android.util.UIUtils;
@@ -42,6 +45,8 @@ import android.widget.ListView;
 import android.widget.TextView;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 import androidx.core.content.pm.ShortcutInfoCompat;
 import androidx.loader.app.LoaderManager;
@@ -49,7 +54,7 @@ import androidx.loader.content.AsyncTaskLoader;
 import androidx.loader.content.Loader;
 
 public class MySearchRoutesFragment extends MySearchFragmentBase
-        implements LoaderManager.LoaderCallbacks<ObaRoutesForLocationResponse> {
+        implements LoaderManager.LoaderCallbacks<SearchResponse<ObaRoute>> {
 
     //private static final String TAG = "MySearchRoutesActivity";
     private static final String QUERY_TEXT = "query_text";
@@ -79,20 +84,20 @@ public class MySearchRoutesFragment extends MySearchFragmentBase
     }
 
     @Override
-    public Loader<ObaRoutesForLocationResponse> onCreateLoader(int id, Bundle args) {
+    public Loader<SearchResponse<ObaRoute>> onCreateLoader(int id, Bundle args) {
         String query = args.getString(QUERY_TEXT);
         return new MyLoader(getActivity(), query, getSearchCenter());
     }
 
     @Override
-    public void onLoadFinished(Loader<ObaRoutesForLocationResponse> loader,
-            ObaRoutesForLocationResponse response) {
+    public void onLoadFinished(Loader<SearchResponse<ObaRoute>> loader,
+            SearchResponse<ObaRoute> response) {
         UIUtils.showProgress(this, false);
         //Log.d(TAG, "Loader finished");
         final int code = response.getCode();
         if (code == ObaApi.OBA_OK) {
             setEmptyText(getString(R.string.find_hint_noresults));
-            mAdapter.setData(Arrays.asList(response.getRoutesForLocation()));
+            mAdapter.setData(response.getResults());
         } else if (code != 0) {
             // If we get anything other than a '0' error, that means
             // the server actually returned something to us,
@@ -105,7 +110,7 @@ public class MySearchRoutesFragment extends MySearchFragmentBase
     }
 
     @Override
-    public void onLoaderReset(Loader<ObaRoutesForLocationResponse> loader) {
+    public void onLoaderReset(Loader<SearchResponse<ObaRoute>> loader) {
         mAdapter.clear();
     }
 
@@ -228,7 +233,7 @@ public class MySearchRoutesFragment extends MySearchFragmentBase
     //
     // Loader
     //
-    private static final class MyLoader extends AsyncTaskLoader<ObaRoutesForLocationResponse> {
+    private static final class MyLoader extends AsyncTaskLoader<SearchResponse<ObaRoute>> {
 
         private final String mQueryText;
 
@@ -241,7 +246,34 @@ public class MySearchRoutesFragment extends MySearchFragmentBase
         }
 
         @Override
-        public ObaRoutesForLocationResponse loadInBackground() {
+        public SearchResponse<ObaRoute> loadInBackground() {
+            // Once the region is completely indexed, the server isn't needed
+            ObaRegion region = Application.get().getCurrentRegion();
+            SearchIndex index = SearchIndex.getInstance(getContext());
+            if (region != null && index.isComplete(region.getId())) {
+                return new SearchResponse<ObaRoute>(ObaApi.OBA_OK,
+                        index.searchRoutes(region.getId(), mQueryText, mCenter,
+                                SearchIndex.DEFAULT_LIMIT));
+            }
+
+            ObaRoutesForLocationResponse response = getRoutes();
+            if (response.getCode() == ObaApi.OBA_OK) {
+                return new SearchResponse<ObaRoute>(ObaApi.OBA_OK,
+                        Arrays.asList(response.getRoutesForLocation()));
+            }
+            if (region != null) {
+                // Offline, or the server had a problem - use what's been indexed so far
+                List<ObaRoute> routes = index.searchRoutes(region.getId(), mQueryText, mCenter,
+                        SearchIndex.DEFAULT_LIMIT);
+                if (!routes.isEmpty()) {
+                    return new SearchResponse<ObaRoute>(ObaApi.OBA_OK, routes);
+                }
+            }
+            return new SearchResponse<ObaRoute>(response.getCode(),
+                    Collections.<ObaRoute>emptyList());
+        }
+
+        private ObaRoutesForLocationResponse getRoutes() {
             ObaRoutesForLocationResponse response =
                     new ObaRoutesForLocationRequest.Builder(getContext(), mCenter)
                             .setQuery(mQueryText)
@@ -17,10 +17,13 @@
 package org.onebusaway.android.ui;
 
 import org.onebusaway.android.R;
+import org.onebusaway.android.app.Application;
 import org.onebusaway.android.io.ObaApi;
+import org.onebusaway.android.io.elements.ObaRegion;
 import org.onebusaway.android.io.elements.ObaStop;
 import org.onebusaway.android.io.request.ObaStopsForLocationRequest;
 import org.onebusaway.android.io.request.ObaStopsForLocationResponse;
+import org.onebusaway.android.search.SearchIndex;
 import org.onebusaway.android.util.ArrayAdapter;
 import org.onebusaway.android.util.UIUtils;
 
@@ -39,6 +42,8 @@ import android.widget.ListView;
 import android.widget.TextView;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 import androidx.core.content.pm.ShortcutInfoCompat;
 import androidx.loader.app.LoaderManager;
@@ -46,7 +51,7 @@ import androidx.loader.content.AsyncTaskLoader;
 import androidx.loader.content.Loader;
 
 public class MySearchStopsFragment extends MySearchFragmentBase
-        implements LoaderManager.LoaderCallbacks<ObaStopsForLocationResponse> {
+        implements LoaderManager.LoaderCallbacks<SearchResponse<ObaStop>> {
 
     //private static final String TAG = "MySearchStopsFragment";
     private static final String QUERY_TEXT = "query_text";
@@ -87,20 +92,20 @@ public class MySearchStopsFragment extends MySearchFragmentBase
     }
 
     @Override
-    public Loader<ObaStopsForLocationResponse> onCreateLoader(int id, Bundle args) {
+    public Loader<SearchResponse<ObaStop>> onCreateLoader(int id, Bundle args) {
         String query = args.getString(QUERY_TEXT);
         return new MyLoader(getActivity(), query, getSearchCenter());
     }
 
     @Override
-    public void onLoadFinished(Loader<ObaStopsForLocationResponse> loader,
-            ObaStopsForLocationResponse response) {
+    public void onLoadFinished(Loader<SearchResponse<ObaStop>> loader,
+            SearchResponse<ObaStop> response) {
         UIUtils.showProgress(this, false);
         //Log.d(TAG, "Loader finished");
         final int code = response.getCode();
         if (code == ObaApi.OBA_OK) {
             setEmptyText(getString(R.string.find_hint_noresults));
-            mAdapter.setData(Arrays.asList(response.getStops()));
+            mAdapter.setData(response.getResults());
         } else if (code != 0) {
             // If we get anything other than a '0' error, that means
             // the server actually returned something to us,
@@ -113,7 +118,7 @@ public class MySearchStopsFragment extends MySearchFragmentBase
     }
 
     @Override
-    public void onLoaderReset(Loader<ObaStopsForLocationResponse> loader) {
+    public void onLoaderReset(Loader<SearchResponse<ObaStop>> loader) {
         mAdapter.clear();
     }
 
@@ -226,7 +231,7 @@ public class MySearchStopsFragment extends MySearchFragmentBase
     //
     // Loader
     //
-    private static final class MyLoader extends AsyncTaskLoader<ObaStopsForLocationResponse> {
+    private static final class MyLoader extends AsyncTaskLoader<SearchResponse<ObaStop>> {
 
         private final String mQueryText;
 
@@ -239,11 +244,35 @@ public class MySearchStopsFragment extends MySearchFragmentBase
         }
 
         @Override
-        public ObaStopsForLocationResponse loadInBackground() {
-            return new ObaStopsForLocationRequest.Builder(getContext(), mCenter)
-                    .setQuery(mQueryText)
-                    .build()
-                    .call();
+        public SearchResponse<ObaStop> loadInBackground() {
+            // Once the region is completely indexed, the server isn't needed
+            ObaRegion region = Application.get().getCurrentRegion();
+            SearchIndex index = SearchIndex.getInstance(getContext());
+            if (region != null && index.isComplete(region.getId())) {
+                return new SearchResponse<ObaStop>(ObaApi.OBA_OK,
+                        index.searchStops(region.getId(), mQueryText, mCenter,
+                                SearchIndex.DEFAULT_LIMIT));
+            }
+
+            ObaStopsForLocationResponse response =
+                    new ObaStopsForLocationRequest.Builder(getContext(), mCenter)
+                            .setQuery(mQueryText)
+                            .build()
+                            .call();
+            if (response.getCode() == ObaApi.OBA_OK) {
+                return new SearchResponse<ObaStop>(ObaApi.OBA_OK,
+                        Arrays.asList(response.getStops()));
+            }
+            if (region != null) {
+                // Offline, or the server had a problem - use what's been indexed so far
+                List<ObaStop> stops = index.searchStops(region.getId(), mQueryText, mCenter,
+                        SearchIndex.DEFAULT_LIMIT);
+                if (!stops.isEmpty()) {
+                    return new SearchResponse<ObaStop>(ObaApi.OBA_OK, stops);
+                }
+            }
+            return new SearchResponse<ObaStop>(response.getCode(),
+                    Collections.<ObaStop>emptyList());
         }
     }
 }
@@ -53,6 +53,7 @@ import org.onebusaway.android.R;
 import org.onebusaway.android.app.Application;
 import org.onebusaway.android.io.ObaAnalytics;
 import org.onebusaway.android.io.elements.ObaRegion;
+import org.onebusaway.android.io.request.RequestScheduler;
 import org.onebusaway.android.region.ObaRegionsTask;
 import org.onebusaway.android.travelbehavior.TravelBehaviorManager;
 import org.onebusaway.android.travelbehavior.utils.TravelBehaviorUtils;
@@ -514,7 +515,8 @@ public class PreferencesActivity extends PreferenceActivity
             List<ObaRegionsTask.Callback> callbacks = new ArrayList<>();
             callbacks.add(this);
             ObaRegionsTask task = new ObaRegionsTask(this, callbacks, true, false);
-            task.execute();
+            task.executeOnExecutor(RequestScheduler.getInstance()
+                    .getExecutor(RequestScheduler.PRIORITY_BACKGROUND));
 
             // Wait to change the region preference description until the task callback
             //Analytics
@@ -37,12 +37,14 @@ import org.onebusaway.android.R;
 import org.onebusaway.android.app.Application;
 import org.onebusaway.android.io.ObaApi;
 import org.onebusaway.android.io.elements.ObaElement;
+import org.onebusaway.android.io.elements.ObaRegion;
 import org.onebusaway.android.io.elements.ObaRoute;
 import org.onebusaway.android.io.elements.ObaStop;
 import org.onebusaway.android.io.request.ObaRoutesForLocationRequest;
 import org.onebusaway.android.io.request.ObaRoutesForLocationResponse;
 import org.onebusaway.android.io.request.ObaStopsForLocationRequest;
 import org.onebusaway.android.io.request.ObaStopsForLocationResponse;
+import org.onebusaway.android.search.SearchIndex;
 import org.onebusaway.android.util.ArrayAdapter;
 import org.onebusaway.android.util.LocationUtils;
 import org.onebusaway.android.util.UIUtils;
@@ -60,13 +62,13 @@ import androidx.loader.content.Loader;
  *
  * @author paulw
  */
-final class SearchResponse {
+final class SearchResponse<T extends ObaElement> {
 
     private final int mCode;
 
-    private final List<ObaElement> mResults;
+    private final List<T> mResults;
 
-    SearchResponse(int code, List<ObaElement> r) {
+    SearchResponse(int code, List<T> r) {
         mCode = code;
         mResults = r;
     }
@@ -75,13 +77,13 @@ final class SearchResponse {
         return mCode;
     }
 
-    List<ObaElement> getResults() {
+    List<T> getResults() {
         return mResults;
     }
 }
 
 public class SearchResultsFragment extends ListFragment
-        implements LoaderManager.LoaderCallbacks<SearchResponse> {
+        implements LoaderManager.LoaderCallbacks<SearchResponse<ObaElement>> {
 
     //private static final String TAG = "SearchResultsFragment";
     public static final String QUERY_TEXT = "query_text";
@@ -142,7 +144,7 @@ public class SearchResultsFragment extends ListFragment
     }
 
     @Override
-    public Loader<SearchResponse> onCreateLoader(int id, Bundle args) {
+    public Loader<SearchResponse<ObaElement>> onCreateLoader(int id, Bundle args) {
         String query = args.getString(QUERY_TEXT);
         Location location = Application.getLastKnownLocation(getActivity(), mGoogleApiClient);
         if (location == null) {
@@ -152,8 +154,8 @@ public class SearchResultsFragment extends ListFragment
     }
 
     @Override
-    public void onLoadFinished(Loader<SearchResponse> loader,
-            SearchResponse response) {
+    public void onLoadFinished(Loader<SearchResponse<ObaElement>> loader,
+            SearchResponse<ObaElement> response) {
         UIUtils.showProgress(this, false);
         //Log.d(TAG, "Loader finished");
         final int code = response.getCode();
@@ -172,7 +174,7 @@ public class SearchResultsFragment extends ListFragment
     }
 
     @Override
-    public void onLoaderReset(Loader<SearchResponse> loader) {
+    public void onLoaderReset(Loader<SearchResponse<ObaElement>> loader) {
         mAdapter.clear();
     }
 
@@ -285,7 +287,7 @@ public class SearchResultsFragment extends ListFragment
     //
     // Loader
     //
-    private static final class MyLoader extends AsyncTaskLoader<SearchResponse> {
+    private static final class MyLoader extends AsyncTaskLoader<SearchResponse<ObaElement>> {
 
         private final String mQueryText;
 
@@ -335,9 +337,20 @@ public class SearchResultsFragment extends ListFragment
         }
 
         @Override
-        public SearchResponse loadInBackground() {
+        public SearchResponse<ObaElement> loadInBackground() {
             ArrayList<ObaElement> results = new ArrayList<ObaElement>();
 
+            // Once the region is completely indexed, the server isn't needed
+            ObaRegion region = Application.get().getCurrentRegion();
+            SearchIndex index = SearchIndex.getInstance(getContext());
+            if (region != null && index.isComplete(region.getId())) {
+                results.addAll(index.searchRoutes(region.getId(), mQueryText, mCenter,
+                        SearchIndex.DEFAULT_LIMIT));
+                results.addAll(index.searchStops(region.getId(), mQueryText, mCenter,
+                        SearchIndex.DEFAULT_LIMIT));
+                return new SearchResponse<ObaElement>(ObaApi.OBA_OK, results);
+            }
+
             ObaRoutesForLocationResponse routes = getRoutes();
             ObaStopsForLocationResponse stops = getStops();
 
@@ -353,9 +366,18 @@ public class SearchResultsFragment extends ListFragment
             if (code == ObaApi.OBA_OK) {
                 results.addAll(Arrays.asList(routes.getRoutesForLocation()));
                 results.addAll(Arrays.asList(stops.getStops()));
+            } else if (region != null) {
+                // Offline, or the server had a problem - use what's been indexed so far
+                results.addAll(index.searchRoutes(region.getId(), mQueryText, mCenter,
+                        SearchIndex.DEFAULT_LIMIT));
+                results.addAll(index.searchStops(region.getId(), mQueryText, mCenter,
+                        SearchIndex.DEFAULT_LIMIT));
+                if (!results.isEmpty()) {
+                    code = ObaApi.OBA_OK;
+                }
             }
 
-            return new SearchResponse(code, results);
+            return new SearchResponse<ObaElement>(code, results);
         }
     }
 }
@@ -34,7 +34,6 @@ import android.graphics.drawable.Drawable;
 import android.graphics.drawable.GradientDrawable;
 import android.os.Build;
 import android.os.Bundle;
-import android.os.Handler;
 import android.provider.Settings;
 import android.text.TextUtils;
 import android.text.format.DateUtils;
@@ -83,16 +82,19 @@ import org.onebusaway.android.io.elements.OccupancyState;
 import org.onebusaway.android.io.elements.Status;
 import org.onebusaway.android.io.request.ObaTripDetailsRequest;
 import org.onebusaway.android.io.request.ObaTripDetailsResponse;
+import org.onebusaway.android.io.request.RequestScheduler;
 import org.onebusaway.android.nav.NavigationService;
 import org.onebusaway.android.travelbehavior.TravelBehaviorManager;
 import org.onebusaway.android.util.ArrivalInfoUtils;
 import org.onebusaway.android.util.DBUtil;
 import org.onebusaway.android.util.LocationUtils;
 import org.onebusaway.android.util.PreferenceUtils;
+import org.onebusaway.android.util.RefreshScheduler;
 import org.onebusaway.android.util.UIUtils;
 
 import java.util.Calendar;
 import java.util.GregorianCalendar;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 public class TripDetailsListFragment extends ListFragment {
@@ -177,6 +179,8 @@ public class TripDetailsListFragment extends ListFragment {
     public void onActivityCreated(Bundle savedInstanceState) {
         super.onActivityCreated(savedInstanceState);
 
+        mRefreshScheduler = new RefreshScheduler(getActivity(), REFRESH_PERIOD, mRefresh);
+
         // Start out with a progress indicator.
         setListShown(false);
 
@@ -231,7 +235,7 @@ public class TripDetailsListFragment extends ListFragment {
 
     @Override
     public void onPause() {
-        mRefreshHandler.removeCallbacks(mRefresh);
+        mRefreshScheduler.stop();
         super.onPause();
     }
 
@@ -249,16 +253,7 @@ public class TripDetailsListFragment extends ListFragment {
         getLoaderManager().restartLoader(TRIP_DETAILS_LOADER, null, mTripDetailsCallback);
 
         // If our timer would have gone off, then refresh.
-        long lastResponseTime = getTripDetailsLoader().getLastResponseTime();
-        long newPeriod = Math.min(REFRESH_PERIOD, (lastResponseTime + REFRESH_PERIOD)
-                - System.currentTimeMillis());
-        // Wait at least one second at least, and the full minute at most.
-        //Log.d(TAG, "Refresh period:" + newPeriod);
-        if (newPeriod <= 0) {
-            refresh();
-        } else {
-            mRefreshHandler.postDelayed(mRefresh, newPeriod);
-        }
+        mRefreshScheduler.start(getTripDetailsLoader().getLastResponseTime());
 
         super.onResume();
     }
@@ -582,8 +577,7 @@ public class TripDetailsListFragment extends ListFragment {
             ObaStop destStop = refs.getStop(destStopId);
             ObaStop lastStop = refs.getStop(lastStopId);
 
-            DBUtil.addToDB(lastStop);
-            DBUtil.addToDB(destStop);
+            DBUtil.addToDB(lastStop, destStop);
 
             Intent serviceIntent = new Intent(getContext(), NavigationService.class);
 
@@ -713,7 +707,7 @@ public class TripDetailsListFragment extends ListFragment {
         return builder.create();
     }
 
-    private final Handler mRefreshHandler = new Handler();
+    private RefreshScheduler mRefreshScheduler;
 
     private final Runnable mRefresh = new Runnable() {
         public void run() {
@@ -759,11 +753,12 @@ public class TripDetailsListFragment extends ListFragment {
                 setListShownNoAnimation(true);
             }
 
-            // Clear any pending refreshes
-            mRefreshHandler.removeCallbacks(mRefresh);
-
-            // Post an update
-            mRefreshHandler.postDelayed(mRefresh, REFRESH_PERIOD);
+            // Post an update, backing off if we can't reach the server
+            if (data.getCode() == ObaApi.OBA_OK) {
+                mRefreshScheduler.onSuccess();
+            } else {
+                mRefreshScheduler.onError(data.getCode());
+            }
         }
 
         @Override
@@ -792,6 +787,11 @@ public class TripDetailsListFragment extends ListFragment {
             return ObaTripDetailsRequest.newRequest(getContext(), mTripId).call();
         }
 
+        @Override
+        protected Executor getExecutor() {
+            return RequestScheduler.getInstance().getExecutor(RequestScheduler.PRIORITY_FOREGROUND);
+        }
+
         @Override
         public void deliverResult(ObaTripDetailsResponse data) {
             mLastResponseTime = System.currentTimeMillis();
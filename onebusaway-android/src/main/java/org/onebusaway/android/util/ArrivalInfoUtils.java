@@ -127,6 +127,31 @@ public class ArrivalInfoUtils {
         return -1;
     }
 
+    /**
+     * Returns the period to wait before refreshing the provided arrivals - shorter if a
+     * predicted arrival is close, and longer if the next predicted arrival is far off or there
+     * are only scheduled arrivals
+     *
+     * @param arrivalInfo arrivals received from the server
+     * @param ms          current time in milliseconds, from the server response
+     * @return the refresh period in milliseconds
+     */
+    public static long computeRefreshPeriod(ObaArrivalInfo[] arrivalInfo, long ms) {
+        long nextPredicted = Long.MAX_VALUE;
+        if (arrivalInfo != null) {
+            for (ObaArrivalInfo info : arrivalInfo) {
+                long predicted = info.getPredictedArrivalTime();
+                if (predicted != 0 && predicted >= ms && predicted < nextPredicted) {
+                    nextPredicted = predicted;
+                }
+            }
+        }
+        if (nextPredicted == Long.MAX_VALUE) {
+            return RefreshScheduler.getArrivalRefreshPeriod(0, false);
+        }
+        return RefreshScheduler.getArrivalRefreshPeriod(nextPredicted - ms, true);
+    }
+
     /**
      * Returns the indexes in the provided infoList for the preferred route/headsign combinations
      * to be prioritized for displayed in the header, or null if no non-negative ETAs exist in the
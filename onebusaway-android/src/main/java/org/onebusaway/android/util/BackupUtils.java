@@ -26,6 +26,7 @@ import org.onebusaway.android.R;
 import org.onebusaway.android.app.Application;
 import org.onebusaway.android.io.ObaAnalytics;
 import org.onebusaway.android.io.backup.Backup;
+import org.onebusaway.android.io.request.RequestScheduler;
 import org.onebusaway.android.region.ObaRegionsTask;
 
 import java.io.IOException;
@@ -75,7 +76,8 @@ public class BackupUtils {
                         Toast.LENGTH_LONG).show());
                 ObaRegionsTask task = new ObaRegionsTask(activityContext, callbacks, true, true);
                 task.setProgressDialogMessage(context.getString(R.string.preferences_restore_loading));
-                task.execute();
+                task.executeOnExecutor(RequestScheduler.getInstance()
+                        .getExecutor(RequestScheduler.PRIORITY_BACKGROUND));
             }
         } catch (IOException e) {
             Toast.makeText(context,
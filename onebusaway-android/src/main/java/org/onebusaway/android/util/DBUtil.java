@@ -6,11 +6,29 @@ import org.onebusaway.android.provider.ObaContract;
 
 import android.content.ContentValues;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * Created by azizmb9494 on 2/20/16.
  */
 public class DBUtil {
     public static void addToDB(ObaStop stop) {
+        ObaContract.Stops.insertOrUpdate(stop.getId(), getValues(stop), true);
+    }
+
+    /**
+     * Adds several stops to the database in a single transaction
+     */
+    public static void addToDB(ObaStop... stops) {
+        Map<String, ContentValues> values = new LinkedHashMap<>(stops.length);
+        for (ObaStop stop : stops) {
+            values.put(stop.getId(), getValues(stop));
+        }
+        ObaContract.Stops.insertOrUpdate(Application.get().getContentResolver(), values, true);
+    }
+
+    private static ContentValues getValues(ObaStop stop) {
         String name = UIUtils.formatDisplayText(stop.getName());
 
         // Update the database
@@ -23,6 +41,6 @@ public class DBUtil {
         if (Application.get().getCurrentRegion() != null) {
             values.put(ObaContract.Stops.REGION_ID, Application.get().getCurrentRegion().getId());
         }
-        ObaContract.Stops.insertOrUpdate(stop.getId(), values, true);
+        return values;
     }
 }
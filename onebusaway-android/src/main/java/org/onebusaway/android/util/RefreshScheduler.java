@@ -0,0 +1,280 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.util;
+
+import org.onebusaway.android.io.ObaApi;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.os.Handler;
+import android.util.Log;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Schedules periodic refreshes of real-time data for a screen.
+ *
+ * The refresh period can be adapted to the data (see {@link #getArrivalRefreshPeriod(long,
+ * boolean)}), refreshes back off exponentially with jitter after communication errors, and no
+ * refreshes are made while the device is offline - a refresh is made as soon as it's back online
+ * instead.
+ *
+ * Call {@link #start(long)} and {@link #stop()} from onResume() and onPause(), and
+ * {@link #onSuccess(long)} or {@link #onError(int)} each time a response is received.
+ */
+public class RefreshScheduler {
+
+    private static final String TAG = "RefreshScheduler";
+
+    /**
+     * Refresh period when a predicted arrival is imminent.  This is the fixed period arrivals used
+     * to be refreshed at - no tier refreshes faster, so the adaptive periods only ever reduce the
+     * requests made to the server.
+     */
+    public static final long IMMINENT_PERIOD = TimeUnit.SECONDS.toMillis(60);
+
+    /**
+     * Refresh period when the next predicted arrival is a few minutes away
+     */
+    public static final long NEAR_PERIOD = TimeUnit.SECONDS.toMillis(90);
+
+    /**
+     * Refresh period when the next predicted arrival is far off
+     */
+    public static final long FAR_PERIOD = TimeUnit.SECONDS.toMillis(180);
+
+    /**
+     * Refresh period when there are no predicted arrivals, only scheduled ones
+     */
+    public static final long SCHEDULED_PERIOD = TimeUnit.SECONDS.toMillis(300);
+
+    static final long IMMINENT_THRESHOLD = TimeUnit.MINUTES.toMillis(3);
+
+    static final long NEAR_THRESHOLD = TimeUnit.MINUTES.toMillis(10);
+
+    /**
+     * Longest delay between refreshes when backing off after errors
+     */
+    public static final long MAX_BACKOFF_PERIOD = TimeUnit.MINUTES.toMillis(5);
+
+    private final Context mContext;
+
+    private final Handler mHandler;
+
+    private final Runnable mRefresh;
+
+    private final long mDefaultPeriod;
+
+    private final Random mRandom = new Random();
+
+    private long mPeriod;
+
+    private int mFailures;
+
+    // Wall clock time of the next refresh, or 0 if none is scheduled
+    private long mNextRefreshTime;
+
+    private boolean mStarted;
+
+    private boolean mRefreshWhenOnline;
+
+    private final Runnable mRunRefresh = new Runnable() {
+        @Override
+        public void run() {
+            mNextRefreshTime = 0;
+            if (!UIUtils.isConnected(mContext)) {
+                // Wait until we're back online
+                Log.d(TAG, "Offline, pausing refreshes");
+                mRefreshWhenOnline = true;
+                return;
+            }
+            mRefresh.run();
+        }
+    };
+
+    private final BroadcastReceiver mConnectivityReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            if (UIUtils.isConnected(mContext)) {
+                if (mRefreshWhenOnline) {
+                    Log.d(TAG, "Back online, refreshing");
+                    mRefreshWhenOnline = false;
+                    mHandler.removeCallbacks(mRunRefresh);
+                    mHandler.post(mRunRefresh);
+                }
+            } else if (mNextRefreshTime != 0) {
+                // Don't wake up while offline
+                mHandler.removeCallbacks(mRunRefresh);
+                mNextRefreshTime = 0;
+                mRefreshWhenOnline = true;
+            }
+        }
+    };
+
+    /**
+     * @param context       context used to check connectivity
+     * @param defaultPeriod refresh period used when there are no errors, and no other period is
+     *                      given to {@link #onSuccess(long)}
+     * @param refresh       called on the main thread to refresh the data
+     */
+    public RefreshScheduler(Context context, long defaultPeriod, Runnable refresh) {
+        this(context, new Handler(), defaultPeriod, refresh);
+    }
+
+    public RefreshScheduler(Context context, Handler handler, long defaultPeriod,
+            Runnable refresh) {
+        mContext = context.getApplicationContext();
+        mHandler = handler;
+        mDefaultPeriod = defaultPeriod;
+        mPeriod = defaultPeriod;
+        mRefresh = refresh;
+    }
+
+    /**
+     * Starts scheduling refreshes, typically from onResume().  If a refresh was already
+     * scheduled before {@link #stop()} it is rescheduled for the same time, otherwise a refresh
+     * is scheduled a full period after the last response.  If that time has passed the refresh
+     * happens right away.
+     *
+     * @param lastResponseTime wall clock time of the last response, or 0 if there isn't one
+     */
+    public void start(long lastResponseTime) {
+        if (!mStarted) {
+            mContext.registerReceiver(mConnectivityReceiver,
+                    new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION));
+            mStarted = true;
+        }
+        long next = mNextRefreshTime != 0 ? mNextRefreshTime : lastResponseTime + mPeriod;
+        scheduleIn(next - System.currentTimeMillis());
+    }
+
+    /**
+     * Stops all refreshes, typically from onPause()
+     */
+    public void stop() {
+        mHandler.removeCallbacks(mRunRefresh);
+        if (mStarted) {
+            mContext.unregisterReceiver(mConnectivityReceiver);
+            mStarted = false;
+        }
+        mRefreshWhenOnline = false;
+    }
+
+    /**
+     * Cancels any scheduled refresh, without stopping the scheduler (e.g., when a refresh is
+     * started manually)
+     */
+    public void cancel() {
+        mHandler.removeCallbacks(mRunRefresh);
+        mNextRefreshTime = 0;
+    }
+
+    /**
+     * Schedules the next refresh after a successful response, using the default period
+     */
+    public void onSuccess() {
+        onSuccess(mDefaultPeriod);
+    }
+
+    /**
+     * Schedules the next refresh after a successful response
+     *
+     * @param period time until the next refresh, in milliseconds
+     */
+    public void onSuccess(long period) {
+        mFailures = 0;
+        mPeriod = period;
+        scheduleIn(period);
+    }
+
+    /**
+     * Schedules the next refresh after an error response.  Communication errors
+     * ({@link ObaApi#OBA_IO_EXCEPTION}) back off exponentially, other errors use the last period.
+     *
+     * @param code the response code
+     */
+    public void onError(int code) {
+        if (code == ObaApi.OBA_IO_EXCEPTION) {
+            mFailures++;
+            scheduleIn(getBackoffPeriod(mPeriod, mFailures, mRandom));
+        } else {
+            scheduleIn(mPeriod);
+        }
+    }
+
+    /**
+     * @return the number of consecutive communication errors
+     */
+    public int getFailureCount() {
+        return mFailures;
+    }
+
+    private void scheduleIn(long delay) {
+        mHandler.removeCallbacks(mRunRefresh);
+        delay = Math.max(0, delay);
+        mNextRefreshTime = System.currentTimeMillis() + delay;
+        if (!mStarted) {
+            // We'll schedule this in start()
+            return;
+        }
+        mHandler.postDelayed(mRunRefresh, delay);
+    }
+
+    /**
+     * Returns the refresh period for arrival times, given the time until the next arrival
+     *
+     * @param millisUntilNextArrival time until the next arrival, in milliseconds
+     * @param predicted              true if the next arrival is from real-time data, false if
+     *                               it is only scheduled (or there is no next arrival)
+     * @return the refresh period, in milliseconds
+     */
+    public static long getArrivalRefreshPeriod(long millisUntilNextArrival, boolean predicted) {
+        if (!predicted) {
+            return SCHEDULED_PERIOD;
+        }
+        if (millisUntilNextArrival <= IMMINENT_THRESHOLD) {
+            return IMMINENT_PERIOD;
+        }
+        if (millisUntilNextArrival <= NEAR_THRESHOLD) {
+            return NEAR_PERIOD;
+        }
+        return FAR_PERIOD;
+    }
+
+    /**
+     * Returns an exponential backoff period with "equal jitter" - a random period between half
+     * and all of the exponential backoff, so clients that failed at the same time don't retry at
+     * the same time.
+     *
+     * @param basePeriod the normal refresh period
+     * @param failures   the number of consecutive failures, starting at 1
+     * @param random     source of jitter
+     * @return the backoff period, in milliseconds
+     */
+    public static long getBackoffPeriod(long basePeriod, int failures, Random random) {
+        long backoff = basePeriod;
+        for (int i = 1; i < failures && backoff < MAX_BACKOFF_PERIOD; i++) {
+            backoff *= 2;
+        }
+        backoff = Math.min(backoff, MAX_BACKOFF_PERIOD);
+        long half = backoff / 2;
+        return half + (long) (random.nextDouble() * (backoff - half));
+    }
+}
@@ -0,0 +1,550 @@
+/*
+ * Copyright (C) 2026 University of South Florida
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onebusaway.android.util;
+
+import org.onebusaway.android.io.elements.ObaRegion;
+import org.onebusaway.android.io.elements.ObaRegionElement;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * A compact, versioned binary copy of the region catalogue.  The file is memory-mapped, so
+ * loading it doesn't rebuild every region from the regions, bounds and Open311 server tables,
+ * and a single region can be read by its ID without creating the others.
+ *
+ * Layout, big-endian:
+ * <pre>
+ * header:  magic, version, region count, bounds count, Open311 server count, string count,
+ *          string data length (ints)
+ * regions: REGION_SIZE bytes each - id (long), flags (int), first bound, bound count,
+ *          first Open311 server, Open311 server count, string indexes (REGION_STRINGS
+ *          ints)
+ * bounds:  lat, lon, lat span, lon span (doubles)
+ * Open311: jurisdiction, API key, base URL string indexes (ints)
+ * strings: offsets into the data (string count + 1 ints), then UTF-8 data
+ * </pre>
+ * String indexes are -1 for null strings.  A snapshot with a different magic number or
+ * version, or the wrong length, isn't opened.
+ */
+public final class RegionSnapshot {
+
+    private static final String TAG = "RegionSnapshot";
+
+    private static final int MAGIC = 0x4f424152; // "OBAR"
+
+    static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 7 * 4;
+
+    // Region flags
+    private static final int FLAG_ACTIVE = 1;
+
+    private static final int FLAG_OBA_DISCOVERY = 1 << 1;
+
+    private static final int FLAG_OBA_REALTIME = 1 << 2;
+
+    private static final int FLAG_SIRI_REALTIME = 1 << 3;
+
+    private static final int FLAG_EXPERIMENTAL = 1 << 4;
+
+    private static final int FLAG_OTP_BIKESHARE = 1 << 5;
+
+    private static final int FLAG_EMBEDDED_SOCIAL = 1 << 6;
+
+    private static final int FLAG_TRAVEL_BEHAVIOR = 1 << 7;
+
+    private static final int FLAG_ENROLL_PARTICIPANTS = 1 << 8;
+
+    // Region strings, in the order they are stored
+    private static final int STRING_NAME = 0;
+
+    private static final int STRING_OBA_BASE_URL = 1;
+
+    private static final int STRING_SIRI_BASE_URL = 2;
+
+    private static final int STRING_LANGUAGE = 3;
+
+    private static final int STRING_CONTACT_EMAIL = 4;
+
+    private static final int STRING_TWITTER_URL = 5;
+
+    private static final int STRING_STOP_INFO_URL = 6;
+
+    private static final int STRING_OTP_BASE_URL = 7;
+
+    private static final int STRING_OTP_CONTACT_EMAIL = 8;
+
+    private static final int STRING_PAYMENT_APP_ID = 9;
+
+    private static final int STRING_PAYMENT_WARNING_TITLE = 10;
+
+    private static final int STRING_PAYMENT_WARNING_BODY = 11;
+
+    private static final int REGION_STRINGS = 12;
+
+    // Offsets within a region record
+    private static final int REGION_FLAGS = 8;
+
+    private static final int REGION_FIRST_BOUND = 12;
+
+    private static final int REGION_BOUND_COUNT = 16;
+
+    private static final int REGION_FIRST_OPEN311 = 20;
+
+    private static final int REGION_OPEN311_COUNT = 24;
+
+    private static final int REGION_STRING_INDEXES = 28;
+
+    private static final int REGION_SIZE = REGION_STRING_INDEXES + REGION_STRINGS * 4;
+
+    private static final int BOUNDS_SIZE = 4 * 8;
+
+    private static final int OPEN311_SIZE = 3 * 4;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final ByteBuffer mBuffer;
+
+    private final int mRegionCount;
+
+    private final int mBoundsOffset;
+
+    private final int mOpen311Offset;
+
+    private final int mStringOffsetsOffset;
+
+    private final int mStringDataOffset;
+
+    private RegionSnapshot(ByteBuffer buffer, int regionCount, int boundsCount,
+            int open311Count, int stringCount) {
+        mBuffer = buffer;
+        mRegionCount = regionCount;
+        mBoundsOffset = HEADER_SIZE + regionCount * REGION_SIZE;
+        mOpen311Offset = mBoundsOffset + boundsCount * BOUNDS_SIZE;
+        mStringOffsetsOffset = mOpen311Offset + open311Count * OPEN311_SIZE;
+        mStringDataOffset = mStringOffsetsOffset + (stringCount + 1) * 4;
+    }
+
+    /**
+     * Memory-maps a snapshot
+     *
+     * @param file snapshot written by {@link #write(File, List)}
+     * @return the snapshot, or null if the file doesn't exist or isn't a valid snapshot of this
+     * version
+     */
+    public static RegionSnapshot open(File file) {
+        if (!file.exists()) {
+            return null;
+        }
+        FileInputStream in = null;
+        try {
+            in = new FileInputStream(file);
+            FileChannel channel = in.getChannel();
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                Log.w(TAG, "Region snapshot has the wrong size: " + size);
+                return null;
+            }
+            // The mapping stays valid after the channel is closed
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return wrap(buffer);
+        } catch (IOException e) {
+            Log.w(TAG, "Couldn't open region snapshot: " + e);
+            return null;
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    // Ignore
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a snapshot from a buffer, checking its header
+     *
+     * @return the snapshot, or null if the buffer isn't a valid snapshot of this version
+     */
+    static RegionSnapshot wrap(ByteBuffer buffer) {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            Log.w(TAG, "Not a region snapshot");
+            return null;
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            Log.d(TAG, "Region snapshot is version " + version + ", expected " + VERSION);
+            return null;
+        }
+        int regionCount = buffer.getInt(8);
+        int boundsCount = buffer.getInt(12);
+        int open311Count = buffer.getInt(16);
+        int stringCount = buffer.getInt(20);
+        int stringDataLength = buffer.getInt(24);
+        long length = HEADER_SIZE + (long) regionCount * REGION_SIZE
+                + (long) boundsCount * BOUNDS_SIZE + (long) open311Count * OPEN311_SIZE
+                + (stringCount + 1L) * 4 + stringDataLength;
+        if (regionCount < 0 || boundsCount < 0 || open311Count < 0 || stringCount < 0
+                || stringDataLength < 0 || length != buffer.capacity()) {
+            Log.w(TAG, "Region snapshot is truncated or corrupt");
+            return null;
+        }
+        return new RegionSnapshot(buffer, regionCount, boundsCount, open311Count, stringCount);
+    }
+
+    /**
+     * Writes a snapshot of the given regions.  The snapshot is written to a temporary file and
+     * then renamed, so a partially written snapshot is never opened.
+     *
+     * @param file    file to write to
+     * @param regions regions to include, in the order they should be returned
+     * @return true if the snapshot was written, false if it wasn't
+     */
+    public static boolean write(File file, List<ObaRegion> regions) {
+        ByteBuffer buffer = toBuffer(regions);
+        File temp = new File(file.getPath() + ".tmp");
+        FileOutputStream out = null;
+        try {
+            out = new FileOutputStream(temp);
+            out.write(buffer.array(), 0, buffer.limit());
+            out.getFD().sync();
+            out.close();
+            out = null;
+            if (!temp.renameTo(file)) {
+                Log.w(TAG, "Couldn't rename region snapshot to " + file);
+                temp.delete();
+                return false;
+            }
+            return true;
+        } catch (IOException e) {
+            Log.w(TAG, "Couldn't write region snapshot: " + e);
+            temp.delete();
+            return false;
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    // Ignore
+                }
+            }
+        }
+    }
+
+    /**
+     * Encodes regions in the snapshot format
+     */
+    static ByteBuffer toBuffer(List<ObaRegion> regions) {
+        ArrayList<String> strings = new ArrayList<>();
+        HashMap<String, Integer> stringIndexes = new HashMap<>();
+        int boundsCount = 0;
+        int open311Count = 0;
+        for (ObaRegion region : regions) {
+            if (region.getBounds() != null) {
+                boundsCount += region.getBounds().length;
+            }
+            if (region.getOpen311Servers() != null) {
+                open311Count += region.getOpen311Servers().length;
+            }
+        }
+
+        ByteBuffer records = ByteBuffer.allocate(regions.size() * REGION_SIZE
+                + boundsCount * BOUNDS_SIZE + open311Count * OPEN311_SIZE);
+        int boundsPosition = regions.size() * REGION_SIZE;
+        int open311Position = boundsPosition + boundsCount * BOUNDS_SIZE;
+        int bound = 0;
+        int open311 = 0;
+        for (int i = 0; i < regions.size(); i++) {
+            ObaRegion region = regions.get(i);
+            ObaRegion.Bounds[] bounds = region.getBounds();
+            ObaRegion.Open311Server[] servers = region.getOpen311Servers();
+            int numBounds = bounds != null ? bounds.length : 0;
+            int numServers = servers != null ? servers.length : 0;
+            int position = i * REGION_SIZE;
+
+            records.putLong(position, region.getId());
+            records.putInt(position + REGION_FLAGS, getFlags(region));
+            records.putInt(position + REGION_FIRST_BOUND, bound);
+            records.putInt(position + REGION_BOUND_COUNT, numBounds);
+            records.putInt(position + REGION_FIRST_OPEN311, open311);
+            records.putInt(position + REGION_OPEN311_COUNT, numServers);
+            String[] values = {
+                    region.getName(),
+                    region.getObaBaseUrl(),
+                    region.getSiriBaseUrl(),
+                    region.getLanguage(),
+                    region.getContactEmail(),
+                    region.getTwitterUrl(),
+                    region.getStopInfoUrl(),
+                    region.getOtpBaseUrl(),
+                    region.getOtpContactEmail(),
+                    region.getPaymentAndroidAppId(),
+                    region.getPaymentWarningTitle(),
+                    region.getPaymentWarningBody()
+            };
+            for (int j = 0; j < REGION_STRINGS; j++) {
+                records.putInt(position + REGION_STRING_INDEXES + j * 4,
+                        addString(values[j], strings, stringIndexes));
+            }
+
+            for (int j = 0; j < numBounds; j++, bound++) {
+                int p = boundsPosition + bound * BOUNDS_SIZE;
+                records.putDouble(p, bounds[j].getLat());
+                records.putDouble(p + 8, bounds[j].getLon());
+                records.putDouble(p + 16, bounds[j].getLatSpan());
+                records.putDouble(p + 24, bounds[j].getLonSpan());
+            }
+            for (int j = 0; j < numServers; j++, open311++) {
+                int p = open311Position + open311 * OPEN311_SIZE;
+                records.putInt(p, addString(servers[j].getJuridisctionId(), strings,
+                        stringIndexes));
+                records.putInt(p + 4, addString(servers[j].getApiKey(), strings, stringIndexes));
+                records.putInt(p + 8, addString(servers[j].getBaseUrl(), strings, stringIndexes));
+            }
+        }
+
+        byte[][] encoded = new byte[strings.size()][];
+        int stringDataLength = 0;
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = strings.get(i).getBytes(UTF_8);
+            stringDataLength += encoded[i].length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + records.capacity()
+                + (encoded.length + 1) * 4 + stringDataLength);
+        buffer.putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(regions.size())
+                .putInt(boundsCount)
+                .putInt(open311Count)
+                .putInt(encoded.length)
+                .putInt(stringDataLength);
+        buffer.put(records.array());
+        int offset = 0;
+        for (byte[] bytes : encoded) {
+            buffer.putInt(offset);
+            offset += bytes.length;
+        }
+        buffer.putInt(offset);
+        for (byte[] bytes : encoded) {
+            buffer.put(bytes);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static int addString(String value, List<String> strings,
+            HashMap<String, Integer> indexes) {
+        if (value == null) {
+            return -1;
+        }
+        Integer index = indexes.get(value);
+        if (index == null) {
+            index = strings.size();
+            strings.add(value);
+            indexes.put(value, index);
+        }
+        return index;
+    }
+
+    private static int getFlags(ObaRegion region) {
+        int flags = 0;
+        if (region.getActive()) {
+            flags |= FLAG_ACTIVE;
+        }
+        if (region.getSupportsObaDiscoveryApis()) {
+            flags |= FLAG_OBA_DISCOVERY;
+        }
+        if (region.getSupportsObaRealtimeApis()) {
+            flags |= FLAG_OBA_REALTIME;
+        }
+        if (region.getSupportsSiriRealtimeApis()) {
+            flags |= FLAG_SIRI_REALTIME;
+        }
+        if (region.getExperimental()) {
+            flags |= FLAG_EXPERIMENTAL;
+        }
+        if (region.getSupportsOtpBikeshare()) {
+            flags |= FLAG_OTP_BIKESHARE;
+        }
+        if (region.getSupportsEmbeddedSocial()) {
+            flags |= FLAG_EMBEDDED_SOCIAL;
+        }
+        if (region.isTravelBehaviorDataCollectionEnabled()) {
+            flags |= FLAG_TRAVEL_BEHAVIOR;
+        }
+        if (region.isEnrollParticipantsInStudy()) {
+            flags |= FLAG_ENROLL_PARTICIPANTS;
+        }
+        return flags;
+    }
+
+    /**
+     * @return the number of regions in the snapshot
+     */
+    public int size() {
+        return mRegionCount;
+    }
+
+    /**
+     * @return the index of the region with the given ID, or -1 if it isn't in the snapshot
+     */
+    public int indexOf(long regionId) {
+        for (int i = 0; i < mRegionCount; i++) {
+            if (mBuffer.getLong(HEADER_SIZE + i * REGION_SIZE) == regionId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the ID of the region at the given index
+     */
+    public long getId(int index) {
+        return mBuffer.getLong(getRegionPosition(index));
+    }
+
+    /**
+     * @return the number of bounds of the region at the given index
+     */
+    public int getBoundCount(int index) {
+        return mBuffer.getInt(getRegionPosition(index) + REGION_BOUND_COUNT);
+    }
+
+    /**
+     * Copies the bounds of the region at the given index without creating the region, as the
+     * lat, lon, lat span and lon span of each bound
+     *
+     * @param index   index of the region
+     * @param results array to copy the bounds to
+     * @param offset  position in results of the first bound's lat
+     */
+    public void getBounds(int index, double[] results, int offset) {
+        int position = getRegionPosition(index);
+        int firstBound = mBuffer.getInt(position + REGION_FIRST_BOUND);
+        int numBounds = mBuffer.getInt(position + REGION_BOUND_COUNT);
+        for (int i = 0; i < numBounds * 4; i++) {
+            results[offset + i] = mBuffer.getDouble(mBoundsOffset + firstBound * BOUNDS_SIZE
+                    + i * 8);
+        }
+    }
+
+    private int getRegionPosition(int index) {
+        if (index < 0 || index >= mRegionCount) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mRegionCount);
+        }
+        return HEADER_SIZE + index * REGION_SIZE;
+    }
+
+    /**
+     * @return all of the regions in the snapshot
+     */
+    public ArrayList<ObaRegion> getRegions() {
+        ArrayList<ObaRegion> results = new ArrayList<>(mRegionCount);
+        for (int i = 0; i < mRegionCount; i++) {
+            results.add(getRegion(i));
+        }
+        return results;
+    }
+
+    /**
+     * Creates the region at the given index
+     */
+    public ObaRegion getRegion(int index) {
+        int position = getRegionPosition(index);
+        int flags = mBuffer.getInt(position + REGION_FLAGS);
+
+        int firstBound = mBuffer.getInt(position + REGION_FIRST_BOUND);
+        ObaRegionElement.Bounds[] bounds = null;
+        int numBounds = mBuffer.getInt(position + REGION_BOUND_COUNT);
+        if (numBounds > 0) {
+            bounds = new ObaRegionElement.Bounds[numBounds];
+            for (int i = 0; i < numBounds; i++) {
+                int p = mBoundsOffset + (firstBound + i) * BOUNDS_SIZE;
+                bounds[i] = new ObaRegionElement.Bounds(mBuffer.getDouble(p),
+                        mBuffer.getDouble(p + 8), mBuffer.getDouble(p + 16),
+                        mBuffer.getDouble(p + 24));
+            }
+        }
+
+        int firstServer = mBuffer.getInt(position + REGION_FIRST_OPEN311);
+        ObaRegionElement.Open311Server[] servers = null;
+        int numServers = mBuffer.getInt(position + REGION_OPEN311_COUNT);
+        if (numServers > 0) {
+            servers = new ObaRegionElement.Open311Server[numServers];
+            for (int i = 0; i < numServers; i++) {
+                int p = mOpen311Offset + (firstServer + i) * OPEN311_SIZE;
+                servers[i] = new ObaRegionElement.Open311Server(getString(mBuffer.getInt(p)),
+                        getString(mBuffer.getInt(p + 4)), getString(mBuffer.getInt(p + 8)));
+            }
+        }
+
+        return new ObaRegionElement(mBuffer.getLong(position),
+                getRegionString(position, STRING_NAME),
+                (flags & FLAG_ACTIVE) != 0,
+                getRegionString(position, STRING_OBA_BASE_URL),
+                getRegionString(position, STRING_SIRI_BASE_URL),
+                bounds,
+                servers,
+                getRegionString(position, STRING_LANGUAGE),
+                getRegionString(position, STRING_CONTACT_EMAIL),
+                (flags & FLAG_OBA_DISCOVERY) != 0,
+                (flags & FLAG_OBA_REALTIME) != 0,
+                (flags & FLAG_SIRI_REALTIME) != 0,
+                getRegionString(position, STRING_TWITTER_URL),
+                (flags & FLAG_EXPERIMENTAL) != 0,
+                getRegionString(position, STRING_STOP_INFO_URL),
+                getRegionString(position, STRING_OTP_BASE_URL),
+                getRegionString(position, STRING_OTP_CONTACT_EMAIL),
+                (flags & FLAG_OTP_BIKESHARE) != 0,
+                (flags & FLAG_EMBEDDED_SOCIAL) != 0,
+                getRegionString(position, STRING_PAYMENT_APP_ID),
+                getRegionString(position, STRING_PAYMENT_WARNING_TITLE),
+                getRegionString(position, STRING_PAYMENT_WARNING_BODY),
+                (flags & FLAG_TRAVEL_BEHAVIOR) != 0,
+                (flags & FLAG_ENROLL_PARTICIPANTS) != 0);
+    }
+
+    private String getRegionString(int regionPosition, int string) {
+        return getString(mBuffer.getInt(regionPosition + REGION_STRING_INDEXES + string * 4));
+    }
+
+    private String getString(int index) {
+        if (index < 0) {
+            return null;
+        }
+        int start = mBuffer.getInt(mStringOffsetsOffset + index * 4);
+        int end = mBuffer.getInt(mStringOffsetsOffset + (index + 1) * 4);
+        byte[] bytes = new byte[end - start];
+        ByteBuffer data = mBuffer.duplicate();
+        data.position(mStringDataOffset + start);
+        data.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+}
@@ -25,20 +25,27 @@ import org.onebusaway.android.io.elements.ObaRegionElement;
 import org.onebusaway.android.io.request.ObaRegionsRequest;
 import org.onebusaway.android.io.request.ObaRegionsResponse;
 import org.onebusaway.android.provider.ObaContract;
+import org.onebusaway.android.region.RegionIndex;
 
+import android.content.ContentProviderOperation;
 import android.content.ContentResolver;
 import android.content.ContentValues;
 import android.content.Context;
+import android.content.OperationApplicationException;
 import android.database.Cursor;
 import android.location.Location;
 import android.net.Uri;
+import android.os.RemoteException;
 import android.util.Log;
 
+import java.io.File;
 import java.security.MessageDigest;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -58,7 +65,18 @@ public class RegionUtils {
 
     public static final double METERS_TO_MILES = 0.000621371;
 
-    private static final int DISTANCE_LIMITER = 100;  // miles
+    public static final int DISTANCE_LIMITER = 100;  // miles
+
+    private static final String SNAPSHOT_FILE = "regions.snapshot";
+
+    // Guarded by RegionUtils.class
+    private static RegionSnapshot sSnapshot;
+
+    // Guarded by RegionUtils.class
+    private static boolean sSnapshotLoaded;
+
+    // Guarded by RegionUtils.class
+    private static RegionIndex sRegionIndex;
 
     /**
      * Get the closest region from a list of regions and a given location
@@ -280,6 +298,27 @@ public class RegionUtils {
         return isLocationWithinRegion(location, regionSpan);
     }
 
+    /**
+     * Same as isLocationWithinRegion(Location, ObaRegion), but uses the region span cached in
+     * the region index if the region is in it
+     *
+     * @param context  context used to open the region snapshot
+     * @param location that will be compared to the provided region
+     * @param region   provided region
+     * @return true if the location is within the region, false if it is not
+     */
+    public static boolean isLocationWithinRegion(Context context, Location location,
+            ObaRegion region) {
+        RegionIndex index = getRegionIndex(context);
+        if (index != null) {
+            Boolean within = index.isLocationWithinRegion(location, region.getId());
+            if (within != null) {
+                return within;
+            }
+        }
+        return isLocationWithinRegion(location, region);
+    }
+
     /**
      * Checks if the given region is usable by the app, based on what this app supports
      * - Is the region active?
@@ -338,11 +377,18 @@ public class RegionUtils {
         ArrayList<ObaRegion> results;
         if (!forceReload) {
             //
-            // Check the DB
+            // Check the snapshot, then the DB
             //
+            RegionSnapshot snapshot = getSnapshot(context);
+            if (snapshot != null && snapshot.size() > 0) {
+                Log.d(TAG, "Retrieved regions from snapshot.");
+                return snapshot.getRegions();
+            }
             results = RegionUtils.getRegionsFromProvider(context);
             if (results != null) {
                 Log.d(TAG, "Retrieved regions from database.");
+                // Create the snapshot from the database the first time
+                saveToSnapshot(context, results);
                 return results;
             }
             Log.d(TAG, "Regions list retrieved from database was null.");
@@ -357,6 +403,8 @@ public class RegionUtils {
                 results = RegionUtils.getRegionsFromProvider(context);
                 if (results != null) {
                     Log.d(TAG, "Retrieved regions from database.");
+                    // The database may have changed without the snapshot (e.g., a restore)
+                    saveToSnapshot(context, results);
                     return results;
                 } else {
                     Log.d(TAG, "Regions list retrieved from database was null.");
@@ -383,6 +431,7 @@ public class RegionUtils {
 
         //If the region info came from the server or local resource file, we need to save it to the local provider
         RegionUtils.saveToProvider(context, results);
+        RegionUtils.saveToSnapshot(context, results);
         return results;
     }
 
@@ -662,17 +711,111 @@ public class RegionUtils {
         return region;
     }
 
+    /**
+     * Returns the memory-mapped snapshot of the regions saved by saveToSnapshot()
+     *
+     * @return the region snapshot, or null if there isn't a valid one
+     */
+    public synchronized static RegionSnapshot getSnapshot(Context context) {
+        if (!sSnapshotLoaded) {
+            sSnapshot = RegionSnapshot.open(getSnapshotFile(context));
+            sSnapshotLoaded = true;
+        }
+        return sSnapshot;
+    }
+
+    /**
+     * Returns a spatial index of the regions in the region snapshot, which is created the first
+     * time it's needed and again after the snapshot changes
+     *
+     * @return the region index, or null if there isn't a valid region snapshot
+     */
+    public synchronized static RegionIndex getRegionIndex(Context context) {
+        if (sRegionIndex == null) {
+            RegionSnapshot snapshot = getSnapshot(context);
+            if (snapshot != null) {
+                sRegionIndex = new RegionIndex(snapshot);
+            }
+        }
+        return sRegionIndex;
+    }
+
+    /**
+     * Returns the region with the given ID from the region snapshot, so the current region can be
+     * restored without reading the database.  The database is only read if there isn't a
+     * snapshot, the snapshot doesn't have the region, or the snapshot is stale.
+     *
+     * @return the region with the given ID, or null if there isn't one
+     */
+    public static ObaRegion getRegion(Context context, long id) {
+        RegionSnapshot snapshot = getSnapshot(context);
+        if (snapshot != null && !isSnapshotStale(context)) {
+            int index = snapshot.indexOf(id);
+            if (index != -1) {
+                return snapshot.getRegion(index);
+            }
+        }
+        Log.d(TAG, "Region " + id + " isn't in the region snapshot, reading it from the database");
+        return ObaContract.Regions.get(context, (int) id);
+    }
+
+    /**
+     * @return true if the snapshot was written before the regions were last retrieved from the
+     * server, so the database may have newer regions than the snapshot
+     */
+    private static boolean isSnapshotStale(Context context) {
+        // Allow for file times that are only kept to the second
+        return getSnapshotFile(context).lastModified() + 1000
+                < Application.get().getLastRegionUpdateDate();
+    }
+
+    private static File getSnapshotFile(Context context) {
+        return new File(context.getFilesDir(), SNAPSHOT_FILE);
+    }
+
     //
     // Saving
     //
+
+    /**
+     * Saves the same regions that saveToProvider() does to the region snapshot, so they can be
+     * loaded without reading the database.  If the snapshot can't be written the old one is
+     * deleted, so it can't get out of sync with the database.
+     */
+    public synchronized static void saveToSnapshot(Context context, List<ObaRegion> regions) {
+        ArrayList<ObaRegion> usable = new ArrayList<>(regions.size());
+        for (ObaRegion region : regions) {
+            if (isRegionUsable(region)) {
+                usable.add(region);
+            }
+        }
+        // Same order as the database
+        Collections.sort(usable, new Comparator<ObaRegion>() {
+            @Override
+            public int compare(ObaRegion lhs, ObaRegion rhs) {
+                return lhs.getId() < rhs.getId() ? -1 : (lhs.getId() == rhs.getId() ? 0 : 1);
+            }
+        });
+
+        File file = getSnapshotFile(context);
+        if (RegionSnapshot.write(file, usable)) {
+            sSnapshot = RegionSnapshot.open(file);
+        } else {
+            file.delete();
+            sSnapshot = null;
+        }
+        sSnapshotLoaded = true;
+        sRegionIndex = null;
+    }
+
     public synchronized static void saveToProvider(Context context, List<ObaRegion> regions) {
-        // Delete all the existing regions
-        ContentResolver cr = context.getContentResolver();
-        cr.delete(ObaContract.Regions.CONTENT_URI, null, null);
-        // Should be a no-op?
-        cr.delete(ObaContract.RegionBounds.CONTENT_URI, null, null);
-        // Delete all existing open311 endpoints
-        cr.delete(ObaContract.RegionOpen311Servers.CONTENT_URI, null, null);
+        // Replace all the existing regions, bounds and open311 endpoints in one transaction, so
+        // observers are notified once per table instead of once per row
+        ArrayList<ContentProviderOperation> ops = new ArrayList<>();
+        ops.add(ContentProviderOperation.newDelete(ObaContract.Regions.CONTENT_URI).build());
+        ops.add(ContentProviderOperation.newDelete(ObaContract.RegionBounds.CONTENT_URI).build());
+        ops.add(ContentProviderOperation.newDelete(ObaContract.RegionOpen311Servers.CONTENT_URI)
+                .build());
 
         for (ObaRegion region : regions) {
             if (!isRegionUsable(region)) {
@@ -680,29 +823,39 @@ public class RegionUtils {
                 continue;
             }
 
-            cr.insert(ObaContract.Regions.CONTENT_URI, toContentValues(region));
-            Log.d(TAG, "Saved region '" + region.getName() + "' to provider");
+            ops.add(ContentProviderOperation.newInsert(ObaContract.Regions.CONTENT_URI)
+                    .withValues(toContentValues(region))
+                    .build());
             long regionId = region.getId();
-            // Bulk insert the bounds
             ObaRegion.Bounds[] bounds = region.getBounds();
             if (bounds != null) {
-                ContentValues[] values = new ContentValues[bounds.length];
-                for (int i = 0; i < bounds.length; ++i) {
-                    values[i] = toContentValues(regionId, bounds[i]);
+                for (ObaRegion.Bounds b : bounds) {
+                    ops.add(ContentProviderOperation.newInsert(ObaContract.RegionBounds.CONTENT_URI)
+                            .withValues(toContentValues(regionId, b))
+                            .build());
                 }
-                cr.bulkInsert(ObaContract.RegionBounds.CONTENT_URI, values);
             }
 
             ObaRegion.Open311Server[] open311Servers = region.getOpen311Servers();
 
             if (open311Servers != null) {
-                ContentValues[] values = new ContentValues[open311Servers.length];
-                for (int i = 0; i < open311Servers.length; ++i) {
-                    values[i] = toContentValues(regionId, open311Servers[i]);
+                for (ObaRegion.Open311Server server : open311Servers) {
+                    ops.add(ContentProviderOperation
+                            .newInsert(ObaContract.RegionOpen311Servers.CONTENT_URI)
+                            .withValues(toContentValues(regionId, server))
+                            .build());
                 }
-                cr.bulkInsert(ObaContract.RegionOpen311Servers.CONTENT_URI, values);
             }
         }
+
+        try {
+            context.getContentResolver().applyBatch(ObaContract.AUTHORITY, ops);
+            Log.d(TAG, "Saved " + regions.size() + " regions to provider");
+        } catch (RemoteException e) {
+            Log.e(TAG, "Couldn't save regions to provider: " + e);
+        } catch (OperationApplicationException e) {
+            Log.e(TAG, "Couldn't save regions to provider: " + e);
+        }
     }
 
     private static ContentValues toContentValues(ObaRegion region) {